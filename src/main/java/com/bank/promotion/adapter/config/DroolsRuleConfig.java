@@ -0,0 +1,112 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.drools.DroolsKieModuleCache;
+import com.bank.promotion.domain.command.drools.DroolsRuleManager;
+import com.bank.promotion.domain.command.drools.DroolsRuleMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drools rule configuration
+ * Provides the rule manager used by Drools condition and calculation nodes
+ * with the configured KieBase mode and background compiler parallelism.
+ * When the module cache is enabled, compiled rule modules are kept in a local directory
+ * and reloaded on restart instead of being recompiled.
+ * A sampled fraction of rule executions records per-rule match, fire and RHS timing metrics
+ */
+@Configuration
+public class DroolsRuleConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DroolsRuleConfig.class);
+
+    private final DroolsRuleManager ruleManager;
+
+    public DroolsRuleConfig(@Value("${promotion.drools.kie-base-mode:PER_RULE}") DroolsRuleManager.KieBaseMode mode,
+                            @Value("${promotion.drools.compile-parallelism:1}") int compileParallelism,
+                            @Value("${promotion.drools.module-cache.enabled:false}") boolean moduleCacheEnabled,
+                            @Value("${promotion.drools.module-cache.directory:${java.io.tmpdir}/promotion-drools-modules}")
+                            String moduleCacheDirectory,
+                            @Value("${promotion.drools.module-cache.max-modules:1000}") int moduleCacheMaxModules,
+                            @Value("${promotion.drools.metrics.sample-rate:0.01}") double metricsSampleRate) {
+        DroolsKieModuleCache moduleCache = moduleCacheEnabled
+            ? new DroolsKieModuleCache(Path.of(moduleCacheDirectory), moduleCacheMaxModules) : null;
+        this.ruleManager = new DroolsRuleManager(mode, compileParallelism, moduleCache,
+                                                 new DroolsRuleMetrics(metricsSampleRate));
+        logger.info("Drools rules compile with KieBase mode {} on {} compiler thread(s), module cache {}, metrics sample rate {}",
+                    mode, compileParallelism, moduleCache != null ? moduleCache.getDirectory() : "disabled",
+                    metricsSampleRate);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public DroolsRuleManager droolsRuleManager() {
+        return ruleManager;
+    }
+
+    /**
+     * Micrometer binding for per-rule execution metrics.
+     * Only rules registered under a configured ruleName are sampled, so tag values stay bounded.
+     * Meters are registered as rules are first sampled and removed when the rule is removed or
+     * replaced by a new version; values are scaled by the sample rate to estimate totals over all executions
+     */
+    @Bean
+    public MeterBinder droolsRuleMetrics() {
+        return registry -> {
+            DroolsRuleMetrics ruleMetrics = ruleManager.getRuleMetrics();
+            if (ruleMetrics.getSampleRate() > 0.0) {
+                ruleMetrics.addListener(new RuleMeterRegistration(registry, ruleMetrics.getSampleRate()));
+            }
+        };
+    }
+
+    private static final class RuleMeterRegistration implements DroolsRuleMetrics.Listener {
+
+        private final MeterRegistry registry;
+        private final double sampleRate;
+        private final Map<DroolsRuleMetrics.RuleCounters, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        private RuleMeterRegistration(MeterRegistry registry, double sampleRate) {
+            this.registry = registry;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public void countersAdded(DroolsRuleMetrics.RuleCounters counters) {
+            Tags tags = Tags.of("ruleId", counters.getRuleId(), "rule", counters.getRuleName());
+            Meter matches = FunctionCounter.builder("promotion.drools.rule.matches", counters,
+                                                    c -> c.getMatches() / sampleRate)
+                                           .tags(tags)
+                                           .description("Estimated matches created for the rule")
+                                           .register(registry);
+            Meter fires = FunctionTimer.builder("promotion.drools.rule.fires", counters,
+                                                c -> (long) (c.getFires() / sampleRate),
+                                                c -> c.getRhsNanos() / sampleRate, TimeUnit.NANOSECONDS)
+                                       .tags(tags)
+                                       .description("Estimated rule firings and time spent in their consequences")
+                                       .register(registry);
+            meters.put(counters, List.of(matches, fires));
+        }
+
+        @Override
+        public void countersRemoved(DroolsRuleMetrics.RuleCounters counters) {
+            List<Meter> removed = meters.remove(counters);
+            if (removed != null) {
+                removed.forEach(registry::remove);
+            }
+        }
+    }
+}
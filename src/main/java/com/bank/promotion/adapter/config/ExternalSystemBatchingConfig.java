@@ -0,0 +1,92 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.external.ExternalSystemBatchers;
+import com.bank.promotion.domain.command.external.MicroBatcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * External system micro-batching configuration
+ * Provides the registry of micro-batchers used by HTTP external system nodes with batching enabled
+ * and exports batch counts, batch sizes and flush reasons per batch endpoint as metrics;
+ * a batch size that stays well below the configured maximum with mostly window flushes means
+ * fewer callers were waiting on the endpoint than the maximum allows
+ */
+@Configuration
+public class ExternalSystemBatchingConfig {
+
+    private final ExternalSystemBatchers batchers;
+    private final Map<MicroBatcher, List<Meter>> batcherMeters = new ConcurrentHashMap<>();
+
+    public ExternalSystemBatchingConfig(@Value("${promotion.external-batching.flush-threads:1}") int flushThreads) {
+        this.batchers = new ExternalSystemBatchers(flushThreads);
+    }
+
+    @Bean
+    public ExternalSystemBatchers externalSystemBatchers() {
+        return batchers;
+    }
+
+    /**
+     * Micrometer binding for the micro-batchers; meters are registered as batch endpoints are first used
+     * and removed when a batcher is retired because no active decision tree node uses it any more
+     */
+    @Bean
+    public MeterBinder externalSystemBatchingMetrics() {
+        return registry -> batchers.addListener(
+            batcher -> batcherMeters.put(batcher, registerMeters(registry, batcher)),
+            batcher -> {
+                List<Meter> meters = batcherMeters.remove(batcher);
+                if (meters != null) {
+                    meters.forEach(registry::remove);
+                }
+            });
+    }
+
+    private static List<Meter> registerMeters(MeterRegistry registry, MicroBatcher batcher) {
+        Tags tags = Tags.of("endpoint", batcher.getName());
+        return List.of(
+            Gauge.builder("promotion.external.batch.pending", batcher, b -> b.getStatistics().getPendingRequests())
+                 .tags(tags)
+                 .description("Requests waiting for the current batch window")
+                 .register(registry),
+            Gauge.builder("promotion.external.batch.size.average", batcher,
+                          b -> b.getStatistics().getAverageBatchSize())
+                 .tags(tags)
+                 .register(registry),
+            FunctionCounter.builder("promotion.external.batch.requests", batcher,
+                                    b -> b.getStatistics().getBatchedRequests())
+                           .tags(tags)
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.batch.flushes", batcher,
+                                    b -> b.getStatistics().getSizeFlushes())
+                           .tags(tags.and("reason", "size"))
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.batch.flushes", batcher,
+                                    b -> b.getStatistics().getWindowFlushes())
+                           .tags(tags.and("reason", "window"))
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.batch.failed", batcher,
+                                    b -> b.getStatistics().getFailedBatches())
+                           .tags(tags)
+                           .register(registry)
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchers.shutdown();
+    }
+}
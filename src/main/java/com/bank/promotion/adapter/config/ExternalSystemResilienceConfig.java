@@ -0,0 +1,109 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.external.EndpointCircuitBreaker;
+import com.bank.promotion.domain.command.external.ExternalSystemCircuitBreakers;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * External system resilience configuration
+ * Provides the per-endpoint circuit breakers and bulkheads used by external system nodes
+ * and exports circuit state, failure and slow-call rates and rejections as metrics.
+ * Enabled unless promotion.circuit-breaker.enabled is false, in which case nodes call
+ * endpoints without a breaker or bulkhead
+ */
+@Configuration
+public class ExternalSystemResilienceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExternalSystemResilienceConfig.class);
+
+    private final ExternalSystemCircuitBreakers circuitBreakers;
+
+    public ExternalSystemResilienceConfig(
+            @Value("${promotion.circuit-breaker.enabled:true}") boolean enabled,
+            @Value("${promotion.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${promotion.circuit-breaker.minimum-calls:20}") int minimumCalls,
+            @Value("${promotion.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+            @Value("${promotion.circuit-breaker.slow-call-rate-threshold:80}") double slowCallRateThreshold,
+            @Value("${promotion.circuit-breaker.slow-call-duration-ms:2000}") long slowCallDurationMillis,
+            @Value("${promotion.circuit-breaker.open-duration-ms:10000}") long openDurationMillis,
+            @Value("${promotion.circuit-breaker.half-open-probes:5}") int halfOpenProbes,
+            @Value("${promotion.circuit-breaker.max-concurrent-calls-per-endpoint:50}") int maxConcurrentCalls) {
+        EndpointCircuitBreaker.Settings settings = enabled
+            ? EndpointCircuitBreaker.Settings.builder()
+                  .slidingWindowSize(slidingWindowSize)
+                  .minimumCalls(minimumCalls)
+                  .failureRateThreshold(failureRateThreshold)
+                  .slowCallRateThreshold(slowCallRateThreshold)
+                  .slowCallDuration(Duration.ofMillis(slowCallDurationMillis))
+                  .openDuration(Duration.ofMillis(openDurationMillis))
+                  .halfOpenProbes(halfOpenProbes)
+                  .maxConcurrentCalls(maxConcurrentCalls)
+                  .build()
+            : null;
+        this.circuitBreakers = new ExternalSystemCircuitBreakers(settings);
+        if (enabled) {
+            logger.info("External system circuit breakers open at {}% failures or {}% calls slower than {}ms " +
+                        "over {} calls; bulkhead {} concurrent call(s) per endpoint",
+                        failureRateThreshold, slowCallRateThreshold, slowCallDurationMillis, slidingWindowSize,
+                        maxConcurrentCalls);
+        }
+    }
+
+    @Bean
+    public ExternalSystemCircuitBreakers externalSystemCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    /**
+     * Micrometer binding for the per-endpoint circuit breakers; meters are registered as endpoints are first called
+     */
+    @Bean
+    public MeterBinder externalSystemCircuitBreakerMetrics() {
+        return registry -> circuitBreakers.addListener(circuitBreaker -> {
+            Tags tags = Tags.of("endpoint", circuitBreaker.getEndpoint());
+            for (EndpointCircuitBreaker.State state : EndpointCircuitBreaker.State.values()) {
+                Gauge.builder("promotion.circuit-breaker.state", circuitBreaker,
+                              c -> c.getState() == state ? 1 : 0)
+                     .tags(tags.and("state", state.name()))
+                     .description("1 when the endpoint circuit is in the tagged state")
+                     .register(registry);
+            }
+            Gauge.builder("promotion.circuit-breaker.failure-rate", circuitBreaker,
+                          c -> c.getStatistics().getFailureRate())
+                 .tags(tags)
+                 .baseUnit("percent")
+                 .register(registry);
+            Gauge.builder("promotion.circuit-breaker.slow-call-rate", circuitBreaker,
+                          c -> c.getStatistics().getSlowCallRate())
+                 .tags(tags)
+                 .baseUnit("percent")
+                 .register(registry);
+            Gauge.builder("promotion.circuit-breaker.calls.in-flight", circuitBreaker,
+                          c -> c.getStatistics().getInFlightCalls())
+                 .tags(tags)
+                 .register(registry);
+            FunctionCounter.builder("promotion.circuit-breaker.calls.rejected", circuitBreaker,
+                                    c -> c.getStatistics().getRejectedByCircuit())
+                           .tags(tags.and("reason", "circuit"))
+                           .register(registry);
+            FunctionCounter.builder("promotion.circuit-breaker.calls.rejected", circuitBreaker,
+                                    c -> c.getStatistics().getRejectedByBulkhead())
+                           .tags(tags.and("reason", "bulkhead"))
+                           .register(registry);
+            FunctionCounter.builder("promotion.circuit-breaker.opened", circuitBreaker,
+                                    c -> c.getStatistics().getOpenTransitions())
+                           .tags(tags)
+                           .register(registry);
+        });
+    }
+}
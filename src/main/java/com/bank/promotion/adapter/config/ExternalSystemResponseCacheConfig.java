@@ -0,0 +1,101 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.external.ExternalSystemResponseCache;
+import com.bank.promotion.domain.command.external.ExternalSystemResponseCaches;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * External system response cache configuration
+ * Provides the registry holding the opt-in per-node response caches of external system nodes,
+ * sizes its background refresh pool, and exports per-node hit, stale and negative hit counts as metrics
+ */
+@Configuration
+public class ExternalSystemResponseCacheConfig {
+
+    private final ExternalSystemResponseCaches responseCaches;
+    private final Map<ExternalSystemResponseCache, List<Meter>> cacheMeters = new ConcurrentHashMap<>();
+
+    public ExternalSystemResponseCacheConfig(
+            @Value("${promotion.external-response-cache.refresh-threads:2}") int refreshThreads,
+            @Value("${promotion.external-response-cache.refresh-queue-capacity:1000}") int refreshQueueCapacity) {
+        this.responseCaches = new ExternalSystemResponseCaches(refreshThreads, refreshQueueCapacity);
+    }
+
+    @Bean
+    public ExternalSystemResponseCaches externalSystemResponseCaches() {
+        return responseCaches;
+    }
+
+    /**
+     * Micrometer binding for the per-node response caches; meters are registered as caches are created
+     * and removed when a cache is retired, so a replacement cache with the same name reports its own values
+     */
+    @Bean
+    public MeterBinder externalSystemResponseCacheMetrics() {
+        return registry -> responseCaches.addListener(
+            cache -> cacheMeters.put(cache, registerMeters(registry, cache)),
+            cache -> {
+                List<Meter> meters = cacheMeters.remove(cache);
+                if (meters != null) {
+                    meters.forEach(registry::remove);
+                }
+            });
+    }
+
+    private static List<Meter> registerMeters(MeterRegistry registry, ExternalSystemResponseCache cache) {
+        Tags tags = Tags.of("cache", cache.getName());
+        return List.of(
+            Gauge.builder("promotion.external.response-cache.size", cache, c -> c.size())
+                 .tags(tags)
+                 .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.requests", cache,
+                                    c -> c.getStatistics().getHits())
+                           .tags(tags.and("result", "hit"))
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.requests", cache,
+                                    c -> c.getStatistics().getStaleHits())
+                           .tags(tags.and("result", "stale"))
+                           .description("Stale responses served while refreshing in the background")
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.requests", cache,
+                                    c -> c.getStatistics().getNegativeHits())
+                           .tags(tags.and("result", "negative"))
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.requests", cache,
+                                    c -> c.getStatistics().getMisses())
+                           .tags(tags.and("result", "miss"))
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.requests", cache,
+                                    c -> c.getStatistics().getUncachedRequests())
+                           .tags(tags.and("result", "uncached"))
+                           .description("Requests missing a key parameter, sent without the cache")
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.refreshes", cache,
+                                    c -> c.getStatistics().getRefreshFailures())
+                           .tags(tags.and("outcome", "failed"))
+                           .register(registry),
+            FunctionCounter.builder("promotion.external.response-cache.refreshes", cache,
+                                    c -> c.getStatistics().getRefreshes())
+                           .tags(tags.and("outcome", "success"))
+                           .register(registry)
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        responseCaches.shutdown();
+    }
+}
@@ -0,0 +1,90 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.external.HttpClientRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Outbound HTTP client configuration
+ * Provides the client registry used by HTTP external system nodes, so connections,
+ * TLS sessions and selector threads are shared per endpoint authority, and exports
+ * in-flight requests and connection reuse per authority as metrics.
+ * Idle connection pool size and keep-alive are JVM-wide HttpClient settings read once when the
+ * JDK HTTP client initializes, so they are not application properties; set them as JVM flags, e.g.
+ * {@code -Djdk.httpclient.connectionPoolSize=64 -Djdk.httpclient.keepalive.timeout=30}
+ */
+@Configuration
+public class HttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientConfig.class);
+
+    private static final String CONNECTION_POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+    private static final String KEEP_ALIVE_TIMEOUT_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+    private final HttpClientRegistry registry;
+
+    public HttpClientConfig(@Value("${promotion.http-client.connect-timeout-ms:30000}") long connectTimeoutMillis,
+                            @Value("${promotion.http-client.max-concurrent-requests-per-authority:100}") int maxConcurrentRequests) {
+        this.registry = new HttpClientRegistry(Duration.ofMillis(connectTimeoutMillis), maxConcurrentRequests);
+        logger.info("HTTP external systems share clients per authority with {} concurrent request(s), " +
+                    "idle pool {}, keep-alive {}s", maxConcurrentRequests,
+                    System.getProperty(CONNECTION_POOL_SIZE_PROPERTY, "unbounded (JDK default)"),
+                    System.getProperty(KEEP_ALIVE_TIMEOUT_PROPERTY, "1200 (JDK default)"));
+    }
+
+    @Bean
+    public HttpClientRegistry httpClientRegistry() {
+        return registry;
+    }
+
+    /**
+     * Micrometer binding for the shared HTTP clients; meters are registered as authorities are first used
+     */
+    @Bean
+    public MeterBinder httpClientRegistryMetrics() {
+        return meterRegistry -> registry.addListener(client -> {
+            Tags tags = Tags.of("authority", client.getAuthority());
+            Gauge.builder("promotion.http.requests.in-flight", client, c -> c.getStatistics().getInFlightRequests())
+                 .tags(tags)
+                 .description("HTTP requests currently in progress to the authority")
+                 .register(meterRegistry);
+            Gauge.builder("promotion.http.requests.peak", client, c -> c.getStatistics().getPeakInFlightRequests())
+                 .tags(tags)
+                 .register(meterRegistry);
+            FunctionCounter.builder("promotion.http.requests.completed", client,
+                                    c -> c.getStatistics().getCompletedRequests())
+                           .tags(tags)
+                           .register(meterRegistry);
+            FunctionCounter.builder("promotion.http.requests.failed", client,
+                                    c -> c.getStatistics().getFailedRequests())
+                           .tags(tags)
+                           .register(meterRegistry);
+            FunctionCounter.builder("promotion.http.requests.rejected", client,
+                                    c -> c.getStatistics().getRejectedRequests())
+                           .tags(tags)
+                           .description("HTTP requests rejected by the per-authority connection limit")
+                           .register(meterRegistry);
+            FunctionCounter.builder("promotion.http.responses.http2", client,
+                                    c -> c.getStatistics().getHttp2Responses())
+                           .tags(tags)
+                           .description("Responses received over a multiplexed HTTP/2 connection")
+                           .register(meterRegistry);
+            FunctionCounter.builder("promotion.http.tls.sessions", client, c -> c.getStatistics().getNewTlsSessions())
+                           .tags(tags.and("reused", "false"))
+                           .register(meterRegistry);
+            FunctionCounter.builder("promotion.http.tls.sessions", client,
+                                    c -> c.getStatistics().getReusedTlsSessions())
+                           .tags(tags.and("reused", "true"))
+                           .register(meterRegistry);
+        });
+    }
+}
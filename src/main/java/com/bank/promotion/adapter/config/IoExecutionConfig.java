@@ -0,0 +1,91 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * I/O-bound node execution configuration
+ * Provides the executor used by external system and database query nodes
+ * and exports its thread usage and blocking time as metrics.
+ * Callers wait on evaluation threads (the multi-tree pool and batch async requests), not on
+ * servlet threads, which are released while a request's decision trees are evaluated
+ */
+@Configuration
+public class IoExecutionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(IoExecutionConfig.class);
+
+    private final BlockingIoExecutor executor;
+
+    public IoExecutionConfig(@Value("${promotion.io-execution.mode:CALLER_THREAD}") BlockingIoExecutor.Mode mode,
+                             @Value("${promotion.io-execution.max-concurrent-calls:100}") int maxConcurrentCalls,
+                             @Value("${promotion.io-execution.queue-capacity:0}") int queueCapacity) {
+        this.executor = BlockingIoExecutor.create(mode, maxConcurrentCalls, queueCapacity);
+        if (executor.getMode() != mode) {
+            logger.warn("I/O execution mode {} is not supported by this JDK; using {}", mode, executor.getMode());
+        }
+        logger.info("I/O-bound nodes execute in {} mode", executor.getMode());
+    }
+
+    @Bean
+    public BlockingIoExecutor blockingIoExecutor() {
+        return executor;
+    }
+
+    /**
+     * Micrometer binding for the blocking I/O executor
+     */
+    @Bean
+    public MeterBinder blockingIoExecutorMetrics() {
+        return registry -> {
+            String mode = executor.getMode().name();
+            Gauge.builder("promotion.io.calls.active", executor, e -> e.getStatistics().getActiveCalls())
+                 .tag("mode", mode)
+                 .description("Blocking I/O calls currently in progress")
+                 .register(registry);
+            Gauge.builder("promotion.io.calls.peak", executor, e -> e.getStatistics().getPeakActiveCalls())
+                 .tag("mode", mode)
+                 .register(registry);
+            Gauge.builder("promotion.io.threads", executor, e -> e.getStatistics().getPoolSize())
+                 .tag("mode", mode)
+                 .description("Platform threads owned by the I/O pool")
+                 .register(registry);
+            Gauge.builder("promotion.io.calls.queued", executor, e -> e.getStatistics().getQueuedCalls())
+                 .tag("mode", mode)
+                 .register(registry);
+            FunctionCounter.builder("promotion.io.calls.completed", executor, e -> e.getStatistics().getCompletedCalls())
+                           .tag("mode", mode)
+                           .register(registry);
+            FunctionCounter.builder("promotion.io.calls.failed", executor, e -> e.getStatistics().getFailedCalls())
+                           .tag("mode", mode)
+                           .register(registry);
+            FunctionCounter.builder("promotion.io.calls.rejected", executor, e -> e.getStatistics().getRejectedCalls())
+                           .tag("mode", mode)
+                           .register(registry);
+            FunctionCounter.builder("promotion.io.calls.timed-out", executor, e -> e.getStatistics().getTimedOutCalls())
+                           .tag("mode", mode)
+                           .register(registry);
+            FunctionCounter.builder("promotion.io.blocking.time", executor,
+                                    e -> e.getStatistics().getTotalBlockingNanos() / (double) TimeUnit.SECONDS.toNanos(1))
+                           .tag("mode", mode)
+                           .baseUnit("seconds")
+                           .description("Cumulative time callers spent waiting on blocking I/O")
+                           .register(registry);
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,58 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.external.RequestCoalescer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Request coalescing configuration
+ * Provides the coalescer that merges identical in-flight external system and database lookups
+ * and exports executed, coalesced and timed-out waiter counts as metrics
+ */
+@Configuration
+public class RequestCoalescingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescingConfig.class);
+
+    private final RequestCoalescer coalescer;
+
+    public RequestCoalescingConfig(@Value("${promotion.request-coalescing.enabled:true}") boolean enabled) {
+        this.coalescer = new RequestCoalescer(enabled);
+        logger.info("Identical in-flight external and database lookups are {}", enabled ? "coalesced" : "not coalesced");
+    }
+
+    @Bean
+    public RequestCoalescer requestCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * Micrometer binding for the shared request coalescer
+     */
+    @Bean
+    public MeterBinder requestCoalescingMetrics() {
+        return registry -> {
+            Gauge.builder("promotion.io.coalescing.in-flight", coalescer, c -> c.getStatistics().getInFlightCalls())
+                 .description("Distinct lookups currently in flight")
+                 .register(registry);
+            FunctionCounter.builder("promotion.io.coalescing.calls", coalescer,
+                                    c -> c.getStatistics().getExecutedCalls())
+                           .tag("result", "executed")
+                           .register(registry);
+            FunctionCounter.builder("promotion.io.coalescing.calls", coalescer,
+                                    c -> c.getStatistics().getCoalescedCalls())
+                           .tag("result", "coalesced")
+                           .description("Calls that waited for an identical in-flight lookup instead of issuing one")
+                           .register(registry);
+            FunctionCounter.builder("promotion.io.coalescing.waiter-timeouts", coalescer,
+                                    c -> c.getStatistics().getWaiterTimeouts())
+                           .register(registry);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.spel.SpELExpressionCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.expression.spel.SpelCompilerMode;
+
+/**
+ * SpEL expression configuration
+ * Provides the expression cache used by SpEL condition and calculation nodes
+ * with the configured compiler mode, and exposes its per-expression statistics
+ */
+@Configuration
+public class SpelExpressionConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpelExpressionConfig.class);
+
+    private final SpELExpressionCache expressionCache;
+
+    public SpelExpressionConfig(@Value("${promotion.spel.compiler-mode:OFF}") SpelCompilerMode compilerMode,
+                                @Value("${promotion.spel.maximum-weight:1000}") int maximumWeight) {
+        this.expressionCache = new SpELExpressionCache(maximumWeight, compilerMode);
+        logger.info("SpEL expressions evaluate with compiler mode {}", compilerMode);
+    }
+
+    @Bean
+    public SpELExpressionCache spelExpressionCache() {
+        return expressionCache;
+    }
+
+    @Bean
+    public SpelExpressionEndpoint spelExpressionEndpoint() {
+        return new SpelExpressionEndpoint(expressionCache);
+    }
+
+    /**
+     * Micrometer binding for the shared SpEL expression cache
+     */
+    @Bean
+    public MeterBinder spelExpressionCacheMetrics() {
+        return registry -> {
+            String mode = expressionCache.getCompilerMode().name();
+            Gauge.builder("promotion.spel.expressions.cached", expressionCache,
+                          c -> c.getStatistics().getCurrentSize())
+                 .tag("mode", mode)
+                 .register(registry);
+            Gauge.builder("promotion.spel.expressions.compiled", expressionCache,
+                          c -> c.getStatistics().getCompiledExpressions())
+                 .tag("mode", mode)
+                 .description("Cached SpEL expressions currently running as compiled bytecode")
+                 .register(registry);
+            Gauge.builder("promotion.spel.expressions.pinned", expressionCache,
+                          c -> c.getStatistics().getPinnedExpressions())
+                 .tag("mode", mode)
+                 .register(registry);
+        };
+    }
+}
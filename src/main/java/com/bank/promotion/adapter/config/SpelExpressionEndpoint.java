@@ -0,0 +1,31 @@
+package com.bank.promotion.adapter.config;
+
+import com.bank.promotion.domain.command.spel.SpELExpressionCache;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/spel) reporting the SpEL compiler mode and, for each
+ * cached expression, whether it compiled, how often it fell back to interpretation
+ * and its mean evaluation time
+ */
+@Endpoint(id = "spel")
+public class SpelExpressionEndpoint {
+
+    private final SpELExpressionCache expressionCache;
+
+    public SpelExpressionEndpoint(SpELExpressionCache expressionCache) {
+        this.expressionCache = expressionCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> expressions() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("cache", expressionCache.getStatistics());
+        body.put("expressions", expressionCache.getExpressionStatistics());
+        return body;
+    }
+}
@@ -56,7 +56,8 @@ public class DecisionStepEntity {
     private LocalDateTime createdAt;
 
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "request_id", insertable = false, updatable = false)
+    @JoinColumn(name = "request_id", insertable = false, updatable = false,
+                foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private RequestLogEntity requestLog;
 
     @ManyToOne(fetch = FetchType.LAZY)
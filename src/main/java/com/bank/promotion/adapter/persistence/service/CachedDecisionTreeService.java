@@ -3,12 +3,14 @@ package com.bank.promotion.adapter.persistence.service;
 import com.bank.promotion.adapter.persistence.entity.DecisionTreeEntity;
 import com.bank.promotion.adapter.persistence.exception.EntityNotFoundException;
 import com.bank.promotion.adapter.persistence.repository.DecisionTreeRepository;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +30,9 @@ public class CachedDecisionTreeService {
     @Autowired
     private DecisionTreeRepository decisionTreeRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Find decision tree by ID with caching
      */
@@ -76,6 +81,8 @@ public class CachedDecisionTreeService {
         evictStatusCache(decisionTree.getStatus());
         evictActiveCache();
         
+        eventPublisher.publishEvent(DecisionTreeChangedEvent.updated(saved.getId(), saved.getStatus()));
+        
         return saved;
     }
 
@@ -96,6 +103,8 @@ public class CachedDecisionTreeService {
             evictStatusCache(entity.get().getStatus());
             evictActiveCache();
         }
+        
+        eventPublisher.publishEvent(DecisionTreeChangedEvent.deleted(id));
     }
 
     /**
@@ -118,6 +127,8 @@ public class CachedDecisionTreeService {
         evictStatusCache(newStatus);
         evictActiveCache();
         
+        eventPublisher.publishEvent(DecisionTreeChangedEvent.updated(id, newStatus));
+        
         return updated;
     }
 
@@ -1,5 +1,6 @@
 package com.bank.promotion.adapter.persistence.service;
 
+import com.bank.promotion.domain.command.spel.SpELExpressionCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +29,9 @@ public class DatabasePerformanceMonitoringService {
     @Autowired
     private CacheManager cacheManager;
 
+    @Autowired
+    private SpELExpressionCache spelExpressionCache;
+
     /**
      * Get database connection pool metrics
      */
@@ -117,6 +121,7 @@ public class DatabasePerformanceMonitoringService {
             }
             
             metrics.put("cache_statistics", cacheStats);
+            metrics.put("spel_expression_cache", getSpelExpressionCacheMetrics());
             
         } catch (Exception e) {
             logger.error("Failed to get cache metrics", e);
@@ -126,6 +131,26 @@ public class DatabasePerformanceMonitoringService {
         return metrics;
     }
 
+    /**
+     * SpEL expression cache metrics; hits include lookups served by pinned expressions
+     */
+    private Map<String, Object> getSpelExpressionCacheMetrics() {
+        SpELExpressionCache.CacheStatistics statistics = spelExpressionCache.getStatistics();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("cache_name", "spelExpressions");
+        stats.put("size", statistics.getCurrentSize());
+        stats.put("pinned_count", statistics.getPinnedExpressions());
+        stats.put("compiled_count", statistics.getCompiledExpressions());
+        stats.put("weight_utilization", statistics.getUtilizationRate());
+        stats.put("hit_count", statistics.getHitCount());
+        stats.put("miss_count", statistics.getMissCount());
+        stats.put("hit_rate", statistics.getHitRate());
+        stats.put("eviction_count", statistics.getEvictionCount());
+        stats.put("parse_failure_count", statistics.getParseFailureCount());
+        stats.put("average_parse_time_ms", statistics.getAverageParseMillis());
+        return stats;
+    }
+
     /**
      * Get overall performance summary
      */
@@ -0,0 +1,75 @@
+package com.bank.promotion.adapter.persistence.service;
+
+import com.bank.promotion.adapter.persistence.exception.DataAccessException;
+import com.bank.promotion.domain.aggregate.DecisionPathTrace;
+import com.bank.promotion.domain.repository.DecisionPathTraceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistence adapter that writes decision path traces to decision_steps
+ *
+ * Steps are written with a single JDBC batch per flush instead of one JPA entity per step.
+ * decision_steps.request_id is not constrained to request_logs, so traces of requests that
+ * were not logged by the API layer are written as-is
+ */
+@Service
+@Transactional
+public class DecisionPathTraceRepositoryAdapter implements DecisionPathTraceRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionPathTraceRepositoryAdapter.class);
+
+    private static final String INSERT_DECISION_STEP =
+        "INSERT INTO decision_steps (id, request_id, tree_id, node_id, step_order, node_type, " +
+        "input_data, output_data, execution_time_ms, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void saveAll(List<DecisionPathTrace> traces) {
+        if (traces == null || traces.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> steps = new ArrayList<>();
+        for (DecisionPathTrace trace : traces) {
+            for (int step = 0; step < trace.size(); step++) {
+                steps.add(toStepRow(trace, step));
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_DECISION_STEP, steps);
+            logger.debug("Saved {} decision steps for {} traces", steps.size(), traces.size());
+        } catch (org.springframework.dao.DataAccessException e) {
+            throw new DataAccessException("saveAll", "DecisionStep",
+                                          "Failed to save " + traces.size() + " decision path traces", e);
+        }
+    }
+
+    private Object[] toStepRow(DecisionPathTrace trace, int step) {
+        DecisionPathTrace.Outcome outcome = trace.getOutcome(step);
+        long nanos = trace.getNanos(step);
+        return new Object[]{
+            UUID.randomUUID().toString(),
+            trace.getRequestId(),
+            trace.getTreeId(),
+            trace.getNodeId(step),
+            step + 1,
+            trace.getNodeType(step),
+            "{}",
+            "{\"outcome\":\"" + outcome + "\",\"nanos\":" + nanos + ",\"planVersion\":" + trace.getPlanVersion() + "}",
+            (int) Math.round(nanos / 1_000_000.0),
+            outcome == DecisionPathTrace.Outcome.FAILED ? "ERROR" : "SUCCESS"
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.bank.promotion.adapter.persistence.service;
+
+import com.bank.promotion.adapter.persistence.entity.DecisionNodeEntity;
+import com.bank.promotion.adapter.persistence.entity.DecisionTreeEntity;
+import com.bank.promotion.adapter.persistence.exception.DataAccessException;
+import com.bank.promotion.adapter.persistence.repository.DecisionTreeRepository;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.entity.DecisionNode;
+import com.bank.promotion.domain.repository.PromotionDecisionTreeRepository;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistence adapter that rebuilds PromotionDecisionTree aggregates
+ * from decision_trees / decision_nodes rows
+ *
+ * Node configuration is stored as JSON with the keys
+ * expression, commandType, parameters, description, trueNodeId and falseNodeId
+ */
+@Service
+@Transactional(readOnly = true)
+public class PromotionDecisionTreeRepositoryAdapter implements PromotionDecisionTreeRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionDecisionTreeRepositoryAdapter.class);
+
+    private static final TypeReference<Map<String, Object>> CONFIGURATION_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private DecisionTreeRepository decisionTreeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public Optional<PromotionDecisionTree> findById(String treeId) {
+        logger.debug("Loading decision tree aggregate: {}", treeId);
+        return decisionTreeRepository.findByIdWithNodes(treeId).map(this::toAggregate);
+    }
+
+    @Override
+    public List<PromotionDecisionTree> findActive() {
+        logger.debug("Loading active decision tree aggregates");
+        List<PromotionDecisionTree> trees = new ArrayList<>();
+        for (DecisionTreeEntity entity : decisionTreeRepository.findByStatusWithNodes("ACTIVE")) {
+            try {
+                PromotionDecisionTree tree = toAggregate(entity);
+                if (tree.isActive()) {
+                    trees.add(tree);
+                }
+            } catch (DataAccessException | IllegalArgumentException e) {
+                logger.warn("Skipping decision tree {} with unreadable configuration: {}", entity.getId(), e.getMessage());
+            }
+        }
+        return trees;
+    }
+
+    /**
+     * Map a persisted tree into the domain aggregate, activating it when the stored status is ACTIVE
+     */
+    private PromotionDecisionTree toAggregate(DecisionTreeEntity entity) {
+        Map<String, DecisionNode> nodes = new HashMap<>();
+        for (DecisionNodeEntity nodeEntity : entity.getNodes()) {
+            DecisionNode node = toDomainNode(nodeEntity);
+            nodes.put(node.getId(), node);
+        }
+
+        PromotionDecisionTree tree = new PromotionDecisionTree(
+                entity.getId(), entity.getName(), null, entity.getRootNodeId(),
+                nodes, entity.getCreatedAt(), entity.getUpdatedAt());
+
+        if ("ACTIVE".equals(entity.getStatus())) {
+            try {
+                tree.activate();
+            } catch (IllegalStateException e) {
+                logger.warn("Decision tree {} is marked ACTIVE but failed activation: {}", entity.getId(), e.getMessage());
+            }
+        }
+        return tree;
+    }
+
+    private DecisionNode toDomainNode(DecisionNodeEntity entity) {
+        Map<String, Object> configuration = readConfiguration(entity);
+
+        NodeConfiguration nodeConfiguration = new NodeConfiguration(
+                entity.getId(),
+                entity.getNodeType(),
+                stringValue(configuration.get("expression")),
+                stringValue(configuration.getOrDefault("commandType", "SPEL")),
+                parameters(configuration.get("parameters")),
+                stringValue(configuration.get("description")));
+
+        if ("CONDITION".equals(entity.getNodeType())) {
+            return new ConditionNode(entity.getId(), entity.getTreeId(), nodeConfiguration, entity.getParentId(),
+                    entity.getCreatedAt(), entity.getCreatedAt(),
+                    stringValue(configuration.get("trueNodeId")), stringValue(configuration.get("falseNodeId")));
+        }
+        return new CalculationNode(entity.getId(), entity.getTreeId(), nodeConfiguration, entity.getParentId(),
+                entity.getCreatedAt(), entity.getCreatedAt());
+    }
+
+    private Map<String, Object> readConfiguration(DecisionNodeEntity entity) {
+        try {
+            Map<String, Object> configuration = objectMapper.readValue(entity.getConfiguration(), CONFIGURATION_TYPE);
+            return configuration != null ? configuration : Map.of();
+        } catch (Exception e) {
+            throw new DataAccessException("Invalid configuration for decision node " + entity.getId(), e);
+        }
+    }
+
+    private Map<String, Object> parameters(Object value) {
+        Map<String, Object> parameters = new HashMap<>();
+        if (value instanceof Map) {
+            // NodeConfiguration 以 Map.copyOf 保存參數，需排除 null 值
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (entry.getKey() != null && entry.getValue() != null) {
+                    parameters.put(entry.getKey().toString(), entry.getValue());
+                }
+            }
+        }
+        return parameters;
+    }
+
+    private String stringValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,196 @@
+package com.bank.promotion.adapter.web.controller;
+
+import com.bank.promotion.adapter.persistence.entity.PromotionHistoryEntity;
+import com.bank.promotion.adapter.persistence.service.AsyncPromotionHistoryService;
+import com.bank.promotion.adapter.web.dto.ApiResponse;
+import com.bank.promotion.adapter.web.dto.EvaluatePromotionRequest;
+import com.bank.promotion.application.service.batch.BatchEvaluationItem;
+import com.bank.promotion.application.service.batch.BatchEvaluationSummary;
+import com.bank.promotion.application.service.batch.BatchPromotionEvaluationService;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 批次優惠評估控制器
+ * 以 NDJSON 串流接收客戶資料並逐區塊回傳評估結果
+ * 各行於評估執行緒上個別解析，格式錯誤的行只產生錯誤項目，不中斷整個串流
+ *
+ * 串流於非同步請求中執行，逾時採用 promotion.batch.request-timeout-ms 而非容器的預設非同步逾時，
+ * 大型批次不會在串流途中被截斷
+ */
+@RestController
+@RequestMapping("/api/v1/promotions")
+@Tag(name = "優惠評估", description = "客戶優惠推薦相關 API")
+public class BatchPromotionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchPromotionController.class);
+
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final byte[] LINE_SEPARATOR = {'\n'};
+
+    private final BatchPromotionEvaluationService batchEvaluationService;
+    private final AsyncPromotionHistoryService promotionHistoryService;
+    private final ObjectMapper objectMapper;
+    private final long requestTimeoutMs;
+
+    @Autowired
+    public BatchPromotionController(BatchPromotionEvaluationService batchEvaluationService,
+                                    AsyncPromotionHistoryService promotionHistoryService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${promotion.batch.request-timeout-ms:1800000}") long requestTimeoutMs) {
+        if (requestTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Batch request timeout must be positive");
+        }
+        this.batchEvaluationService = batchEvaluationService;
+        this.promotionHistoryService = promotionHistoryService;
+        this.objectMapper = objectMapper;
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    /**
+     * 批次評估客戶優惠資格
+     * POST /api/v1/promotions/evaluate:batch
+     */
+    @Operation(
+        summary = "批次評估客戶優惠",
+        description = "以 NDJSON 逐行提供客戶資料，針對同一決策樹並行評估，結果依輸入順序以 NDJSON 串流回傳"
+    )
+    @PostMapping(value = "/evaluate:batch", consumes = NDJSON_VALUE, produces = NDJSON_VALUE)
+    public WebAsyncTask<Void> evaluateBatch(
+            @Parameter(description = "決策樹ID") @RequestParam(defaultValue = "default-tree") String treeId,
+            InputStream body,
+            HttpServletResponse response) throws IOException {
+
+        // 串流開始後即無法回傳錯誤狀態碼，因此先驗證決策樹
+        try {
+            batchEvaluationService.validateTree(treeId);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(),
+                                    ApiResponse.error("INVALID_REQUEST", "請求資料驗證失敗: " + e.getMessage()));
+            return null;
+        }
+
+        String batchId = UUID.randomUUID().toString();
+        ObjectWriter itemWriter = objectMapper.writerFor(BatchEvaluationItem.class);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON_VALUE);
+        response.setHeader("X-Batch-Id", batchId);
+
+        WebAsyncTask<Void> task = new WebAsyncTask<>(requestTimeoutMs, () -> {
+            OutputStream outputStream = response.getOutputStream();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+                Iterator<String> lines = reader.lines()
+                    .filter(line -> !line.isBlank())
+                    .iterator();
+
+                BatchEvaluationSummary summary = batchEvaluationService.evaluateStream(
+                    treeId, batchId, lines, this::parseCustomerPayload,
+                    (chunkIndex, items) -> {
+                        writeChunk(outputStream, itemWriter, items);
+                        saveHistory(items);
+                    });
+
+                logger.info("Batch evaluation completed: {}", summary);
+            }
+            return null;
+        });
+        task.onTimeout(() -> {
+            logger.warn("Batch evaluation {} exceeded request timeout of {} ms", batchId, requestTimeoutMs);
+            return null;
+        });
+        return task;
+    }
+
+    /**
+     * 解析單行 NDJSON，格式錯誤時拋出例外並由批次評估轉為該行的錯誤項目
+     */
+    private CustomerPayload parseCustomerPayload(String line) {
+        EvaluatePromotionRequest request;
+        try {
+            request = objectMapper.readValue(line, EvaluatePromotionRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed NDJSON line: " + e.getOriginalMessage());
+        }
+        return toCustomerPayload(request);
+    }
+
+    private CustomerPayload toCustomerPayload(EvaluatePromotionRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Request cannot be null");
+        }
+        return new CustomerPayload(
+            request.getCustomerId(),
+            request.getAccountType(),
+            request.getAnnualIncome(),
+            request.getCreditScore(),
+            request.getRegion(),
+            request.getTransactionCount(),
+            request.getAccountBalance(),
+            request.getTransactionHistory()
+        );
+    }
+
+    private void writeChunk(OutputStream outputStream, ObjectWriter itemWriter,
+                            List<BatchEvaluationItem> items) throws IOException {
+        for (BatchEvaluationItem item : items) {
+            outputStream.write(itemWriter.writeValueAsBytes(item));
+            outputStream.write(LINE_SEPARATOR);
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * 以區塊為單位非同步寫入評估歷史
+     */
+    private void saveHistory(List<BatchEvaluationItem> items) {
+        List<PromotionHistoryEntity> histories = new ArrayList<>(items.size());
+        for (BatchEvaluationItem item : items) {
+            if (!item.isSuccess() || item.getCustomerId() == null || item.getResult().getPromotionId() == null) {
+                continue;
+            }
+            try {
+                histories.add(new PromotionHistoryEntity(
+                    UUID.randomUUID().toString(),
+                    item.getCustomerId(),
+                    item.getResult().getPromotionId(),
+                    objectMapper.writeValueAsString(item.getResult())));
+            } catch (JsonProcessingException e) {
+                logger.warn("Failed to serialize promotion result for customer {}", item.getCustomerId(), e);
+            }
+        }
+        if (!histories.isEmpty()) {
+            promotionHistoryService.saveAllAsync(histories);
+        }
+    }
+}
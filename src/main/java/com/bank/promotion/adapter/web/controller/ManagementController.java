@@ -78,8 +78,8 @@ public class ManagementController {
                 request.getDescription()
             );
             
-            // 實際實作中應該有 UpdateDecisionTreeCommand
-            // promotionApplicationService.updateDecisionTree(updateCommand);
+            // 實際實作中應該有 UpdateDecisionTreeCommand；先發布變更，讓已編譯決策樹與結果快取失效
+            promotionApplicationService.updateDecisionTree(treeId, null);
             
             return ResponseEntity.ok(ApiResponse.success("決策樹更新成功"));
             
@@ -107,8 +107,7 @@ public class ManagementController {
                     .body(ApiResponse.error("INVALID_REQUEST", "決策樹ID不能為空"));
             }
             
-            // 實際實作中應該有刪除決策樹的服務方法
-            // promotionApplicationService.deleteDecisionTree(treeId);
+            promotionApplicationService.deleteDecisionTree(treeId);
             
             return ResponseEntity.ok(ApiResponse.success("決策樹刪除成功"));
             
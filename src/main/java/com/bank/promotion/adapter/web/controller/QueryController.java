@@ -1,12 +1,14 @@
 package com.bank.promotion.adapter.web.controller;
 
 import com.bank.promotion.adapter.web.dto.ApiResponse;
+import com.bank.promotion.adapter.web.dto.EvaluatePromotionRequest;
 import com.bank.promotion.application.query.GetAvailablePromotionsQuery;
 import com.bank.promotion.application.query.GetPromotionHistoryQuery;
 import com.bank.promotion.application.query.view.AvailablePromotionView;
 import com.bank.promotion.application.query.view.PagedResult;
 import com.bank.promotion.application.query.view.PromotionHistoryView;
 import com.bank.promotion.application.service.PromotionApplicationService;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -14,11 +16,14 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 查詢控制器
@@ -96,4 +101,51 @@ public class QueryController {
                 .body(ApiResponse.error("SYSTEM_ERROR", "系統處理時發生錯誤: " + e.getMessage()));
         }
     }
+    
+    /**
+     * 依客戶資料評估所有啟用中決策樹的可用優惠
+     * POST /api/v1/promotions/available
+     * 以非同步請求處理，評估期間不佔用 Servlet 執行緒
+     */
+    @PostMapping("/available")
+    public CompletableFuture<ResponseEntity<ApiResponse<List<AvailablePromotionView>>>> evaluateAvailablePromotions(
+            @Valid @RequestBody EvaluatePromotionRequest request) {
+        
+        try {
+            CustomerPayload customerPayload = new CustomerPayload(
+                request.getCustomerId(),
+                request.getAccountType(),
+                request.getAnnualIncome(),
+                request.getCreditScore(),
+                request.getRegion(),
+                request.getTransactionCount(),
+                request.getAccountBalance(),
+                request.getTransactionHistory()
+            );
+            
+            GetAvailablePromotionsQuery query = new GetAvailablePromotionsQuery(customerPayload);
+            
+            return promotionApplicationService.getAvailablePromotionsAsync(query)
+                .thenApply(result -> ResponseEntity.ok(ApiResponse.success(result, "可用優惠評估成功")))
+                .exceptionally(failure -> ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("SYSTEM_ERROR", "系統處理時發生錯誤: " + rootMessage(failure))));
+            
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                .body(ApiResponse.error("INVALID_REQUEST", "請求參數驗證失敗: " + e.getMessage())));
+                
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.internalServerError()
+                .body(ApiResponse.error("SYSTEM_ERROR", "系統處理時發生錯誤: " + e.getMessage())));
+        }
+    }
+    
+    private static String rootMessage(Throwable failure) {
+        // 非同步階段的例外包裝於 CompletionException 內
+        Throwable cause = failure;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
 }
\ No newline at end of file
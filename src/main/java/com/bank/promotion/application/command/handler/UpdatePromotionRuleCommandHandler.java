@@ -1,14 +1,32 @@
 package com.bank.promotion.application.command.handler;
 
 import com.bank.promotion.application.command.UpdatePromotionRuleCommand;
+import com.bank.promotion.domain.command.drools.DroolsRuleManager;
+import com.bank.promotion.domain.event.PromotionRulePublishedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 /**
  * 更新優惠規則命令處理器
+ * Drools 規則交由規則管理器的編譯執行緒於背景編譯，處理器不等待編譯完成；
+ * 編譯完成前評估繼續使用原本的版本，編譯狀態可由規則管理器的編譯工作查詢；
+ * 新版本發佈後發布 {@link PromotionRulePublishedEvent}，供預熱服務重建引用該規則的可執行產物
  */
 @Component
 public class UpdatePromotionRuleCommandHandler {
     
+    private static final Logger logger = LoggerFactory.getLogger(UpdatePromotionRuleCommandHandler.class);
+    
+    private final DroolsRuleManager ruleManager;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    public UpdatePromotionRuleCommandHandler(DroolsRuleManager ruleManager, ApplicationEventPublisher eventPublisher) {
+        this.ruleManager = ruleManager;
+        this.eventPublisher = eventPublisher;
+    }
+    
     /**
      * 處理更新優惠規則命令
      */
@@ -36,11 +54,35 @@ public class UpdatePromotionRuleCommandHandler {
             // 模擬更新成功
             // 在實際實作中，這裡會透過 Repository 更新資料庫
             
+            if ("DROOLS".equals(command.getRuleType())) {
+                scheduleRuleCompilation(command);
+            }
+            
         } catch (Exception e) {
             throw new RuntimeException("Failed to update promotion rule: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * 啟用中的規則提交背景編譯，停用的規則自規則管理器移除
+     * Drools 節點以 ruleName 參數引用規則，規則管理器以同一名稱為鍵，因此以規則名稱而非規則ID提交
+     */
+    private void scheduleRuleCompilation(UpdatePromotionRuleCommand command) {
+        if ("ACTIVE".equals(command.getStatus())) {
+            DroolsRuleManager.CompileJob job = ruleManager.submitRule(command.getName(), command.getRuleContent());
+            job.getCompletion().thenAccept(status -> {
+                if (status == DroolsRuleManager.CompileStatus.PUBLISHED) {
+                    eventPublisher.publishEvent(new PromotionRulePublishedEvent(job.getRuleId(), job.getVersion()));
+                } else if (status == DroolsRuleManager.CompileStatus.FAILED) {
+                    logger.warn("Drools rule {} ({}) version {} failed to compile: {}",
+                                job.getRuleId(), command.getRuleId(), job.getVersion(), job.getErrorMessage());
+                }
+            });
+        } else if ("INACTIVE".equals(command.getStatus())) {
+            ruleManager.removeRule(command.getName());
+        }
+    }
+    
     private boolean isValidRuleType(String ruleType) {
         return "SPEL".equals(ruleType) || "DROOLS".equals(ruleType) || "HARDCODED".equals(ruleType);
     }
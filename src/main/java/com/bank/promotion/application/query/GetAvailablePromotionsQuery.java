@@ -1,5 +1,7 @@
 package com.bank.promotion.application.query;
 
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+
 import java.util.Objects;
 
 /**
@@ -11,6 +13,7 @@ public final class GetAvailablePromotionsQuery {
     private final String accountType;
     private final String region;
     private final boolean activeOnly;
+    private final CustomerPayload customerPayload;
     
     public GetAvailablePromotionsQuery(String customerId, String accountType, 
                                      String region, boolean activeOnly) {
@@ -18,6 +21,21 @@ public final class GetAvailablePromotionsQuery {
         this.accountType = accountType;
         this.region = region;
         this.activeOnly = activeOnly;
+        this.customerPayload = null;
+    }
+    
+    /**
+     * 以完整客戶資料建立查詢，可用優惠將透過所有啟用中的決策樹實際評估
+     */
+    public GetAvailablePromotionsQuery(CustomerPayload customerPayload) {
+        if (customerPayload == null) {
+            throw new IllegalArgumentException("Customer payload cannot be null");
+        }
+        this.customerId = customerPayload.getCustomerId();
+        this.accountType = customerPayload.getAccountType();
+        this.region = customerPayload.getRegion();
+        this.activeOnly = true;
+        this.customerPayload = customerPayload;
     }
     
     private String validateCustomerId(String customerId) {
@@ -43,6 +61,14 @@ public final class GetAvailablePromotionsQuery {
         return activeOnly;
     }
     
+    public CustomerPayload getCustomerPayload() {
+        return customerPayload;
+    }
+    
+    public boolean hasCustomerPayload() {
+        return customerPayload != null;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -51,12 +77,13 @@ public final class GetAvailablePromotionsQuery {
         return activeOnly == that.activeOnly &&
                Objects.equals(customerId, that.customerId) &&
                Objects.equals(accountType, that.accountType) &&
-               Objects.equals(region, that.region);
+               Objects.equals(region, that.region) &&
+               Objects.equals(customerPayload, that.customerPayload);
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(customerId, accountType, region, activeOnly);
+        return Objects.hash(customerId, accountType, region, activeOnly, customerPayload);
     }
     
     @Override
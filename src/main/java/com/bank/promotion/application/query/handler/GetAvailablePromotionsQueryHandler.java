@@ -2,13 +2,19 @@ package com.bank.promotion.application.query.handler;
 
 import com.bank.promotion.application.query.GetAvailablePromotionsQuery;
 import com.bank.promotion.application.query.view.AvailablePromotionView;
+import com.bank.promotion.application.service.evaluation.MultiTreePromotionEvaluationService;
+import com.bank.promotion.application.service.evaluation.RankedPromotion;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 查詢可用優惠查詢處理器
@@ -16,8 +22,16 @@ import java.util.Map;
 @Component
 public class GetAvailablePromotionsQueryHandler {
     
+    private final MultiTreePromotionEvaluationService multiTreeEvaluationService;
+    
+    @Autowired
+    public GetAvailablePromotionsQueryHandler(MultiTreePromotionEvaluationService multiTreeEvaluationService) {
+        this.multiTreeEvaluationService = multiTreeEvaluationService;
+    }
+    
     /**
      * 處理查詢可用優惠查詢
+     * 查詢帶有完整客戶資料時，針對所有啟用中的決策樹評估並依優惠價值排序
      */
     public List<AvailablePromotionView> handle(GetAvailablePromotionsQuery query) {
         if (query == null) {
@@ -25,6 +39,10 @@ public class GetAvailablePromotionsQueryHandler {
         }
         
         try {
+            if (query.hasCustomerPayload()) {
+                return toViews(multiTreeEvaluationService.evaluate(query.getCustomerPayload()));
+            }
+            
             // TODO: 透過 Repository 查詢可用優惠
             // List<AvailablePromotion> promotions = availablePromotionRepository
             //     .findByCustomerCriteria(query.getCustomerId(), query.getAccountType(), 
@@ -38,6 +56,44 @@ public class GetAvailablePromotionsQueryHandler {
         }
     }
     
+    /**
+     * 非同步處理查詢可用優惠查詢
+     * 帶有完整客戶資料時不佔用呼叫端執行緒等待決策樹評估；其餘查詢直接處理並回傳已完成的結果
+     */
+    public CompletableFuture<List<AvailablePromotionView>> handleAsync(GetAvailablePromotionsQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        
+        if (!query.hasCustomerPayload()) {
+            return CompletableFuture.completedFuture(handle(query));
+        }
+        return multiTreeEvaluationService.evaluateAsync(query.getCustomerPayload()).thenApply(this::toViews);
+    }
+    
+    private List<AvailablePromotionView> toViews(List<RankedPromotion> rankedPromotions) {
+        List<AvailablePromotionView> views = new ArrayList<>(rankedPromotions.size());
+        LocalDateTime evaluatedAt = LocalDateTime.now();
+        
+        for (RankedPromotion ranked : rankedPromotions) {
+            PromotionResult result = ranked.getResult();
+            Map<String, Object> terms = new HashMap<>(result.getAdditionalDetails());
+            terms.put("rank", ranked.getRank());
+            terms.put("treeId", ranked.getTreeId());
+            
+            views.add(new AvailablePromotionView(
+                result.getPromotionId(), result.getPromotionName(), result.getPromotionType(),
+                result.getDescription(),
+                result.getDiscountAmount(), result.getDiscountPercentage(),
+                evaluatedAt, result.getValidUntil(),
+                ranked.getTreeName(), "ACTIVE",
+                terms
+            ));
+        }
+        
+        return views;
+    }
+    
     private List<AvailablePromotionView> createMockAvailablePromotions(GetAvailablePromotionsQuery query) {
         List<AvailablePromotionView> mockData = new ArrayList<>();
         
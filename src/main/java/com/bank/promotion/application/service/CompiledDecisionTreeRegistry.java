@@ -0,0 +1,234 @@
+package com.bank.promotion.application.service;
+
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.aggregate.PromotionPredicateIndex;
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import com.bank.promotion.domain.command.CommandResources;
+import com.bank.promotion.domain.command.external.ExternalSystemBatchers;
+import com.bank.promotion.domain.command.external.ExternalSystemResponseCaches;
+import com.bank.promotion.domain.command.spel.SpELExpressionCache;
+import com.bank.promotion.domain.entity.DecisionNode;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
+import com.bank.promotion.domain.repository.PromotionDecisionTreeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已編譯決策樹註冊表
+ * 快取啟用中的決策樹聚合（含已編譯的執行計畫），供評估流程重複使用；
+ * 決策樹變更時依事件失效對應項目
+ *
+ * 失效後重新載入的決策樹會重新編譯執行計畫，評估中的請求繼續使用原本持有的版本
+ *
+ * 啟用分支推測預取時，符合設定的決策樹於載入時配置各自的預取預算；
+ * I/O 執行器為呼叫端模式時無法非同步預取，設定會被忽略
+ *
+ * 啟用中決策樹的 SpEL 表達式於載入時釘選在表達式快取中，決策樹失效時解除釘選；
+ * 失效的決策樹其節點的外部系統回應快取一併淘汰，重新載入後的命令使用新的快取；
+ * 其節點使用的微批次器不再有其他節點使用時一併淘汰
+ */
+@Service
+public class CompiledDecisionTreeRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledDecisionTreeRegistry.class);
+
+    private final PromotionDecisionTreeRepository decisionTreeRepository;
+    private final SpELExpressionCache expressionCache;
+    private final BlockingIoExecutor ioExecutor;
+    private final ExternalSystemResponseCaches responseCaches;
+    private final ExternalSystemBatchers batchers;
+    private final Map<String, PromotionDecisionTree> activeTrees = new ConcurrentHashMap<>();
+    private volatile PromotionPredicateIndex activeTreeIndex;
+    private final AtomicLong generation = new AtomicLong();
+    private final Object publishLock = new Object();
+    private final boolean speculativePrefetchEnabled;
+    private final Set<String> speculativePrefetchTreeIds;
+    private final int speculativePrefetchBudget;
+
+    public CompiledDecisionTreeRegistry(PromotionDecisionTreeRepository decisionTreeRepository) {
+        this(decisionTreeRepository, CommandResources.defaults().getExpressionCache(),
+             CommandResources.defaults().getIoExecutor(), CommandResources.defaults().getResponseCaches(),
+             CommandResources.defaults().getBatchers(), false, List.of(), 1);
+    }
+
+    @Autowired
+    public CompiledDecisionTreeRegistry(PromotionDecisionTreeRepository decisionTreeRepository,
+                                        SpELExpressionCache expressionCache,
+                                        BlockingIoExecutor ioExecutor,
+                                        ExternalSystemResponseCaches responseCaches,
+                                        ExternalSystemBatchers batchers,
+                                        @Value("${promotion.speculative-prefetch.enabled:false}") boolean speculativePrefetchEnabled,
+                                        @Value("${promotion.speculative-prefetch.tree-ids:}") List<String> speculativePrefetchTreeIds,
+                                        @Value("${promotion.speculative-prefetch.max-in-flight-per-tree:8}") int speculativePrefetchBudget) {
+        if (speculativePrefetchEnabled && speculativePrefetchBudget <= 0) {
+            throw new IllegalArgumentException("Speculative prefetch budget must be positive");
+        }
+        this.decisionTreeRepository = decisionTreeRepository;
+        this.expressionCache = expressionCache;
+        this.ioExecutor = ioExecutor;
+        this.responseCaches = responseCaches;
+        this.batchers = batchers;
+        boolean prefetchSupported = ioExecutor.getMode() != BlockingIoExecutor.Mode.CALLER_THREAD;
+        if (speculativePrefetchEnabled && !prefetchSupported) {
+            logger.warn("Speculative prefetch is enabled but I/O execution runs in {} mode; prefetch stays disabled",
+                        ioExecutor.getMode());
+        }
+        this.speculativePrefetchEnabled = speculativePrefetchEnabled && prefetchSupported;
+        this.speculativePrefetchTreeIds = speculativePrefetchTreeIds != null ? Set.copyOf(speculativePrefetchTreeIds) : Set.of();
+        this.speculativePrefetchBudget = speculativePrefetchBudget;
+    }
+
+    /**
+     * 取得啟用中的決策樹
+     *
+     * @throws IllegalArgumentException 當決策樹不存在或未啟用時
+     */
+    public PromotionDecisionTree getActiveTree(String treeId) {
+        if (treeId == null || treeId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tree ID cannot be null or empty");
+        }
+
+        PromotionDecisionTree tree = activeTrees.get(treeId);
+        if (tree != null) {
+            return tree;
+        }
+
+        long observed = generation.get();
+        tree = decisionTreeRepository.findById(treeId)
+            .filter(PromotionDecisionTree::isActive)
+            .orElseThrow(() -> new IllegalArgumentException("Active decision tree not found: " + treeId));
+
+        // 預先編譯執行計畫，讓並行評估共用同一份計畫
+        prepare(tree);
+        synchronized (publishLock) {
+            // 載入期間發生失效時，載入的可能是舊版本，只供本次評估使用
+            if (generation.get() != observed) {
+                return tree;
+            }
+            PromotionDecisionTree existing = activeTrees.putIfAbsent(treeId, tree);
+            return existing != null ? existing : tree;
+        }
+    }
+
+    /**
+     * 取得所有啟用中的決策樹
+     */
+    public List<PromotionDecisionTree> getActiveTrees() {
+        return getPredicateIndex().getTrees();
+    }
+
+    /**
+     * 取得啟用中決策樹的述詞索引
+     * 索引與其決策樹清單一併建立並以單一寫入發布，查詢端不會看到不一致的組合
+     */
+    public PromotionPredicateIndex getPredicateIndex() {
+        PromotionPredicateIndex index = activeTreeIndex;
+        if (index != null) {
+            return index;
+        }
+
+        long observed = generation.get();
+        List<PromotionDecisionTree> loaded = decisionTreeRepository.findActive();
+        for (PromotionDecisionTree tree : loaded) {
+            prepare(tree);
+        }
+        index = PromotionPredicateIndex.build(loaded);
+        synchronized (publishLock) {
+            // 載入期間發生失效時不發布，下一次查詢重新載入
+            if (generation.get() == observed) {
+                for (PromotionDecisionTree tree : loaded) {
+                    activeTrees.putIfAbsent(tree.getId(), tree);
+                }
+                activeTreeIndex = index;
+            }
+        }
+        return index;
+    }
+
+    private void prepare(PromotionDecisionTree tree) {
+        tree.getExecutionPlan();
+        expressionCache.pin(tree.getId(), spelExpressions(tree));
+        if (isSpeculativePrefetchEligible(tree.getId())) {
+            tree.enableSpeculativePrefetch(ioExecutor, speculativePrefetchBudget);
+        }
+    }
+
+    private static List<String> spelExpressions(PromotionDecisionTree tree) {
+        List<String> expressions = new ArrayList<>();
+        for (DecisionNode node : tree.getNodes().values()) {
+            if ("SPEL".equals(node.getConfiguration().getCommandType())) {
+                expressions.add(node.getConfiguration().getExpression());
+            }
+        }
+        return expressions;
+    }
+
+    private static List<String> nodeIds(PromotionDecisionTree tree) {
+        List<String> nodeIds = new ArrayList<>();
+        for (DecisionNode node : tree.getNodes().values()) {
+            nodeIds.add(node.getConfiguration().getNodeId());
+        }
+        return nodeIds;
+    }
+
+    /**
+     * 決策樹是否啟用分支推測預取；未指定決策樹清單時套用於全部決策樹
+     */
+    public boolean isSpeculativePrefetchEligible(String treeId) {
+        return speculativePrefetchEnabled
+            && (speculativePrefetchTreeIds.isEmpty() || speculativePrefetchTreeIds.contains(treeId));
+    }
+
+    /**
+     * 使單一決策樹失效
+     */
+    public void invalidate(String treeId) {
+        synchronized (publishLock) {
+            generation.incrementAndGet();
+            if (treeId != null) {
+                PromotionDecisionTree removed = activeTrees.remove(treeId);
+                expressionCache.unpin(treeId);
+                if (removed != null) {
+                    List<String> nodeIds = nodeIds(removed);
+                    responseCaches.retireNodes(nodeIds);
+                    batchers.retireNodes(nodeIds);
+                }
+            }
+            activeTreeIndex = null;
+        }
+    }
+
+    /**
+     * 使所有決策樹失效
+     */
+    public void invalidateAll() {
+        synchronized (publishLock) {
+            generation.incrementAndGet();
+            activeTrees.clear();
+            expressionCache.unpinAll();
+            responseCaches.retireAll();
+            batchers.retireAll();
+            activeTreeIndex = null;
+        }
+    }
+
+    /**
+     * 決策樹變更於交易提交後才失效，避免並行載入在提交前重新快取舊版本；非交易中發布的事件立即處理
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDecisionTreeChanged(DecisionTreeChangedEvent event) {
+        invalidate(event.getTreeId());
+    }
+}
@@ -0,0 +1,293 @@
+package com.bank.promotion.application.service;
+
+import com.bank.promotion.domain.aggregate.DecisionTreeExecutionPlan;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.command.CommandFactory;
+import com.bank.promotion.domain.command.NodeCommand;
+import com.bank.promotion.domain.entity.DecisionNode;
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
+import com.bank.promotion.domain.event.PromotionRulePublishedEvent;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 可執行產物預熱服務
+ * 啟動完成與決策樹啟用時，預先建立節點命令（解析並編譯 SpEL 表達式、建構 Drools 規則容器、建立外部系統用戶端），
+ * 並以合成客戶資料執行設定次數的評估，讓解析、編譯與 JIT 成本不落在預熱後的第一批請求上
+ *
+ * 啟動預熱期間就緒狀態維持為拒絕流量，完成後才接受流量；決策樹啟用時的預熱於交易提交後非同步執行，不影響就緒狀態；
+ * Drools 規則發佈新版本後，引用該規則的啟用中決策樹同樣非同步預熱。
+ * 外部系統與資料庫查詢節點只建立命令不執行，含這類節點的決策樹不執行合成評估，避免預熱對外部系統送出請求
+ */
+@Service
+public class ExecutableArtifactWarmUpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecutableArtifactWarmUpService.class);
+
+    private static final String OPERATION_TYPE = "WARM_UP";
+
+    /**
+     * 以命令實際執行的節點類型；其餘類型只建立命令
+     */
+    private static final Set<String> EXECUTABLE_COMMAND_TYPES = Set.of("SPEL", "DROOLS");
+
+    /**
+     * 合成客戶資料，交替使用以走訪條件節點的兩個分支
+     */
+    private static final List<CustomerPayload> SYNTHETIC_CUSTOMERS = List.of(
+        new CustomerPayload("WARMUP-001", "VIP", BigDecimal.valueOf(3000000), 820, "台北", 120,
+                            BigDecimal.valueOf(1500000), List.of()),
+        new CustomerPayload("WARMUP-002", "GENERAL", BigDecimal.valueOf(450000), 580, "高雄", 8,
+                            BigDecimal.valueOf(20000), List.of())
+    );
+
+    private final CompiledDecisionTreeRegistry decisionTreeRegistry;
+    private final CommandFactory commandFactory;
+    private final PerformanceMonitoringService performanceMonitoringService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int evaluationsPerTree;
+    private volatile WarmUpReport lastReport;
+
+    @Autowired
+    public ExecutableArtifactWarmUpService(CompiledDecisionTreeRegistry decisionTreeRegistry,
+                                           CommandFactory commandFactory,
+                                           PerformanceMonitoringService performanceMonitoringService,
+                                           ApplicationEventPublisher eventPublisher,
+                                           @Value("${promotion.warm-up.enabled:true}") boolean enabled,
+                                           @Value("${promotion.warm-up.evaluations-per-tree:200}") int evaluationsPerTree) {
+        if (evaluationsPerTree < 0) {
+            throw new IllegalArgumentException("Evaluations per tree cannot be negative");
+        }
+        this.decisionTreeRegistry = decisionTreeRegistry;
+        this.commandFactory = commandFactory;
+        this.performanceMonitoringService = performanceMonitoringService;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.evaluationsPerTree = evaluationsPerTree;
+    }
+
+    /**
+     * 啟動預熱，完成前就緒狀態維持為拒絕流量
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            warmUp("STARTUP", decisionTreeRegistry.getActiveTrees());
+        } catch (RuntimeException e) {
+            logger.error("Startup warm-up failed, accepting traffic without warm-up", e);
+        } finally {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    /**
+     * 決策樹啟用後預熱，於交易提交後執行，註冊表已先依同一事件失效舊版本
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDecisionTreeChanged(DecisionTreeChangedEvent event) {
+        if (!enabled || !event.isActive()) {
+            return;
+        }
+        PromotionDecisionTree tree;
+        try {
+            tree = decisionTreeRegistry.getActiveTree(event.getTreeId());
+        } catch (IllegalArgumentException e) {
+            // 交易提交到非同步預熱之間，決策樹可能已被停用或刪除
+            logger.debug("Decision tree {} is no longer active, skipping warm-up", event.getTreeId());
+            return;
+        }
+        if (tree == null) {
+            return;
+        }
+        try {
+            warmUp("ACTIVATION", List.of(tree));
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up of activated decision tree {} failed: {}", event.getTreeId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 規則發佈後預熱引用該規則的啟用中決策樹，新版本的會話池與規則執行成本不落在發佈後的第一批請求上
+     */
+    @Async
+    @EventListener
+    public void onRulePublished(PromotionRulePublishedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<PromotionDecisionTree> trees = new ArrayList<>();
+            for (PromotionDecisionTree tree : decisionTreeRegistry.getActiveTrees()) {
+                if (referencesRule(tree, event.getRuleName())) {
+                    trees.add(tree);
+                }
+            }
+            if (!trees.isEmpty()) {
+                warmUp("RULE_PUBLISH", trees);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Warm-up after publishing rule {} version {} failed: {}",
+                        event.getRuleName(), event.getVersion(), e.getMessage());
+        }
+    }
+
+    /**
+     * 預熱決策樹
+     *
+     * @param trigger 觸發來源，記錄於報告
+     * @param trees 要預熱的決策樹
+     * @return 預熱報告
+     */
+    public WarmUpReport warmUp(String trigger, List<PromotionDecisionTree> trees) {
+        long startTime = System.currentTimeMillis();
+        int commands = 0;
+        long evaluations = 0;
+        int failures = 0;
+
+        for (PromotionDecisionTree tree : trees) {
+            for (DecisionNode node : tree.getNodes().values()) {
+                if (!isWarmable(node)) {
+                    continue;
+                }
+                try {
+                    NodeCommand command = commandFactory.createCommand(node.getConfiguration());
+                    commands++;
+                    if (EXECUTABLE_COMMAND_TYPES.contains(node.getConfiguration().getCommandType())) {
+                        for (int i = 0; i < evaluationsPerTree; i++) {
+                            command.execute(new ExecutionContext(syntheticCustomer(i), Map.of()));
+                        }
+                        evaluations += evaluationsPerTree;
+                    }
+                } catch (RuntimeException e) {
+                    failures++;
+                    logger.debug("Warm-up of node {} in tree {} failed: {}", node.getId(), tree.getId(), e.getMessage());
+                }
+            }
+
+            DecisionTreeExecutionPlan plan = tree.getExecutionPlan();
+            if (plan.hasIoBoundNodes()) {
+                continue;
+            }
+            for (int i = 0; i < evaluationsPerTree; i++) {
+                try {
+                    tree.evaluate(syntheticCustomer(i));
+                    evaluations++;
+                } catch (RuntimeException e) {
+                    failures++;
+                    break;
+                }
+            }
+        }
+
+        long durationMs = System.currentTimeMillis() - startTime;
+        WarmUpReport report = new WarmUpReport(trigger, trees.size(), commands, evaluations, failures, durationMs);
+        lastReport = report;
+        performanceMonitoringService.recordOperationTime(OPERATION_TYPE, durationMs);
+        logger.info("Warm-up completed: {}", report);
+        return report;
+    }
+
+    /**
+     * 最近一次預熱的報告，尚未預熱時為 null
+     */
+    public WarmUpReport getLastReport() {
+        return lastReport;
+    }
+
+    /**
+     * 未指定 ruleName 的 Drools 節點每次建立命令都以隨機名稱註冊新的規則容器，預熱無法被之後的命令沿用，因此略過
+     */
+    private static boolean isWarmable(DecisionNode node) {
+        return !"DROOLS".equals(node.getConfiguration().getCommandType())
+            || node.getConfiguration().getParameters().containsKey("ruleName");
+    }
+
+    private static boolean referencesRule(PromotionDecisionTree tree, String ruleName) {
+        for (DecisionNode node : tree.getNodes().values()) {
+            if ("DROOLS".equals(node.getConfiguration().getCommandType())
+                && ruleName.equals(node.getConfiguration().getParameters().get("ruleName"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CustomerPayload syntheticCustomer(int iteration) {
+        return SYNTHETIC_CUSTOMERS.get(iteration % SYNTHETIC_CUSTOMERS.size());
+    }
+
+    /**
+     * 預熱報告
+     */
+    public static final class WarmUpReport {
+        private final String trigger;
+        private final int trees;
+        private final int commands;
+        private final long evaluations;
+        private final int failures;
+        private final long durationMs;
+
+        private WarmUpReport(String trigger, int trees, int commands, long evaluations, int failures, long durationMs) {
+            this.trigger = trigger;
+            this.trees = trees;
+            this.commands = commands;
+            this.evaluations = evaluations;
+            this.failures = failures;
+            this.durationMs = durationMs;
+        }
+
+        public String getTrigger() {
+            return trigger;
+        }
+
+        public int getTrees() {
+            return trees;
+        }
+
+        public int getCommands() {
+            return commands;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("WarmUpReport{trigger=%s, trees=%d, commands=%d, evaluations=%d, failures=%d, " +
+                                 "durationMs=%d}", trigger, trees, commands, evaluations, failures, durationMs);
+        }
+    }
+}
@@ -14,16 +14,22 @@ import com.bank.promotion.application.query.view.AvailablePromotionView;
 import com.bank.promotion.application.query.view.PagedResult;
 import com.bank.promotion.application.query.view.PromotionHistoryView;
 import com.bank.promotion.application.service.audit.AuditService;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
 import com.bank.promotion.domain.valueobject.PromotionResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 優惠應用服務
  * 協調命令和查詢處理器，提供統一的應用層介面
+ *
+ * 決策樹更新與刪除發布 {@link DecisionTreeChangedEvent}，已編譯決策樹、評估結果快取與預熱於交易提交後據以失效或重建
  */
 @Service
 @Transactional
@@ -36,6 +42,7 @@ public class PromotionApplicationService {
     private final GetAvailablePromotionsQueryHandler getAvailablePromotionsHandler;
     private final AuditService auditService;
     private final PerformanceMonitoringService performanceMonitoringService;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired
     public PromotionApplicationService(
@@ -45,7 +52,8 @@ public class PromotionApplicationService {
             GetPromotionHistoryQueryHandler getPromotionHistoryHandler,
             GetAvailablePromotionsQueryHandler getAvailablePromotionsHandler,
             AuditService auditService,
-            PerformanceMonitoringService performanceMonitoringService) {
+            PerformanceMonitoringService performanceMonitoringService,
+            ApplicationEventPublisher eventPublisher) {
         this.createDecisionTreeHandler = createDecisionTreeHandler;
         this.updatePromotionRuleHandler = updatePromotionRuleHandler;
         this.evaluatePromotionHandler = evaluatePromotionHandler;
@@ -53,6 +61,7 @@ public class PromotionApplicationService {
         this.getAvailablePromotionsHandler = getAvailablePromotionsHandler;
         this.auditService = auditService;
         this.performanceMonitoringService = performanceMonitoringService;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
@@ -80,6 +89,29 @@ public class PromotionApplicationService {
         }
     }
     
+    /**
+     * 更新決策樹
+     *
+     * @param treeId 決策樹ID
+     * @param status 更新後的狀態，未知時為 null
+     */
+    public void updateDecisionTree(String treeId, String status) {
+        if (treeId == null || treeId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tree ID cannot be null or empty");
+        }
+        eventPublisher.publishEvent(DecisionTreeChangedEvent.updated(treeId, status));
+    }
+    
+    /**
+     * 刪除決策樹
+     */
+    public void deleteDecisionTree(String treeId) {
+        if (treeId == null || treeId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tree ID cannot be null or empty");
+        }
+        eventPublisher.publishEvent(DecisionTreeChangedEvent.deleted(treeId));
+    }
+    
     /**
      * 更新優惠規則
      */
@@ -198,6 +230,39 @@ public class PromotionApplicationService {
         }
     }
     
+    /**
+     * 非同步查詢可用優惠
+     * 多決策樹評估於評估執行緒池中進行，呼叫端執行緒不等待外部系統或資料庫查詢節點
+     */
+    @Transactional(readOnly = true)
+    public CompletableFuture<List<AvailablePromotionView>> getAvailablePromotionsAsync(GetAvailablePromotionsQuery query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        
+        long startTime = System.currentTimeMillis();
+        
+        CompletableFuture<List<AvailablePromotionView>> pending;
+        try {
+            pending = getAvailablePromotionsHandler.handleAsync(query);
+        } catch (Exception e) {
+            pending = CompletableFuture.failedFuture(e);
+        }
+        
+        return pending.handle((result, failure) -> {
+            long executionTime = System.currentTimeMillis() - startTime;
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+                performanceMonitoringService.recordOperationError("GET_AVAILABLE_PROMOTIONS", executionTime,
+                    cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+                throw new RuntimeException("Failed to get available promotions", cause);
+            }
+            performanceMonitoringService.recordOperationTime("GET_AVAILABLE_PROMOTIONS", executionTime);
+            return result;
+        });
+    }
+    
     private PromotionResult createErrorPromotionResult(Exception e) {
         return new PromotionResult(
             "ERROR",
@@ -0,0 +1,182 @@
+package com.bank.promotion.application.service;
+
+import com.bank.promotion.application.service.audit.DecisionPathTraceWriter;
+import com.bank.promotion.domain.aggregate.DecisionPathTrace;
+import com.bank.promotion.domain.aggregate.DecisionTreeExecutionPlan;
+import com.bank.promotion.domain.aggregate.DecisionTreeFeatureSet;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * 優惠評估結果快取
+ * 以（決策樹ID、編譯版本、決策樹實際讀取的客戶欄位值）為鍵快取評估結果，
+ * 讀取欄位相同的客戶共用同一筆結果
+ *
+ * 不可快取的決策樹（含外部系統、資料庫查詢、Drools 規則或標示為不可快取的節點）一律直接評估；
+ * 決策樹變更事件會移除該決策樹的所有項目
+ *
+ * 計算節點的有效期限相對於評估當下，命中快取時依結果快取後經過的時間順延，與重新評估的結果一致
+ *
+ * 啟用決策路徑追蹤時，被取樣的評估於實際執行決策樹時記錄走訪路徑；命中快取的評估沒有執行路徑，不產生追蹤
+ */
+@Service
+public class PromotionResultCache {
+
+    private final boolean enabled;
+    private final Cache<EvaluationKey, CachedResult> cache;
+    private final DecisionPathTraceWriter traceWriter;
+
+    @Autowired
+    public PromotionResultCache(@Value("${promotion.result-cache.enabled:true}") boolean enabled,
+                                @Value("${promotion.result-cache.maximum-size:100000}") long maximumSize,
+                                @Value("${promotion.result-cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds,
+                                DecisionPathTraceWriter traceWriter) {
+        this.enabled = enabled;
+        this.traceWriter = traceWriter;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * 評估決策樹，可快取時優先使用快取結果
+     */
+    public PromotionResult evaluate(PromotionDecisionTree tree, CustomerPayload customerPayload) {
+        return evaluate(tree, customerPayload, null);
+    }
+
+    /**
+     * 評估決策樹，可快取時優先使用快取結果
+     *
+     * @param requestId 決策路徑追蹤使用的請求ID，null 時由追蹤寫入器產生
+     */
+    public PromotionResult evaluate(PromotionDecisionTree tree, CustomerPayload customerPayload, String requestId) {
+        if (tree == null || customerPayload == null) {
+            throw new IllegalArgumentException("Tree and customer payload cannot be null");
+        }
+        if (!enabled || !tree.isActive()) {
+            return evaluateTraced(tree, customerPayload, requestId);
+        }
+
+        DecisionTreeExecutionPlan plan = tree.getExecutionPlan();
+        DecisionTreeFeatureSet featureSet = plan.getFeatureSet();
+        if (!featureSet.isCacheable()) {
+            return evaluateTraced(tree, customerPayload, requestId);
+        }
+
+        EvaluationKey key = new EvaluationKey(tree.getId(), plan.getVersion(), featureSet.project(customerPayload));
+        CachedResult cached = cache.get(key, ignored ->
+            new CachedResult(evaluateTraced(tree, customerPayload, requestId), LocalDateTime.now()));
+        return cached.resultAt(LocalDateTime.now());
+    }
+
+    private PromotionResult evaluateTraced(PromotionDecisionTree tree, CustomerPayload customerPayload, String requestId) {
+        DecisionPathTrace trace = traceWriter.begin(tree, requestId);
+        if (trace == null) {
+            return tree.evaluate(customerPayload);
+        }
+        try {
+            return tree.evaluate(customerPayload, trace);
+        } finally {
+            traceWriter.submit(trace);
+        }
+    }
+
+    /**
+     * 移除單一決策樹的快取結果
+     */
+    public void invalidate(String treeId) {
+        if (treeId != null) {
+            cache.asMap().keySet().removeIf(key -> key.treeId.equals(treeId));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDecisionTreeChanged(DecisionTreeChangedEvent event) {
+        invalidate(event.getTreeId());
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 快取項目，記錄評估時間以順延相對的有效期限
+     */
+    private static final class CachedResult {
+
+        private final PromotionResult result;
+        private final LocalDateTime evaluatedAt;
+
+        private CachedResult(PromotionResult result, LocalDateTime evaluatedAt) {
+            this.result = result;
+            this.evaluatedAt = evaluatedAt;
+        }
+
+        private PromotionResult resultAt(LocalDateTime now) {
+            if (result == null || result.getValidUntil() == null || !now.isAfter(evaluatedAt)) {
+                return result;
+            }
+            return result.withValidUntil(result.getValidUntil().plus(Duration.between(evaluatedAt, now)));
+        }
+    }
+
+    /**
+     * 快取鍵
+     * 保存投影後的欄位值並預先計算雜湊，相等性以實際值比對，不依賴雜湊唯一
+     */
+    private static final class EvaluationKey {
+
+        private final String treeId;
+        private final long version;
+        private final Object[] features;
+        private final int hash;
+
+        private EvaluationKey(String treeId, long version, Object[] features) {
+            this.treeId = treeId;
+            this.version = version;
+            this.features = features;
+            this.hash = 31 * (31 * treeId.hashCode() + Long.hashCode(version)) + Arrays.hashCode(features);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof EvaluationKey)) return false;
+            EvaluationKey that = (EvaluationKey) o;
+            return hash == that.hash &&
+                   version == that.version &&
+                   treeId.equals(that.treeId) &&
+                   Arrays.equals(features, that.features);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
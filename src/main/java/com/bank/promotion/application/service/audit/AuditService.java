@@ -93,6 +93,43 @@ public class AuditService {
         }
     }
     
+    /**
+     * 記錄批次評估區塊
+     * 每個區塊僅寫入一筆彙總稽核，避免大量客戶逐筆寫入
+     */
+    public void recordBatchEvaluationChunk(String batchId, String treeId, int chunkIndex,
+                                         int customerCount, int eligibleCount, int failedCount,
+                                         long executionTimeMs) {
+        if (batchId == null || treeId == null) {
+            throw new IllegalArgumentException("Batch ID and tree ID cannot be null");
+        }
+
+        try {
+            Map<String, Object> operationDetails = Map.of(
+                "treeId", treeId,
+                "chunkIndex", chunkIndex,
+                "customerCount", customerCount,
+                "eligibleCount", eligibleCount,
+                "failedCount", failedCount
+            );
+
+            AuditTrail auditTrail = new AuditTrail(
+                batchId,
+                "SYSTEM",
+                "BATCH_EVALUATION_CHUNK",
+                operationDetails,
+                (int) executionTimeMs,
+                failedCount == 0 ? "SUCCESS" : "PARTIAL_FAILURE",
+                null
+            );
+
+            auditTrails.computeIfAbsent(batchId, k -> new ArrayList<>()).add(auditTrail);
+
+        } catch (Exception e) {
+            System.err.println("Failed to record batch evaluation chunk: " + e.getMessage());
+        }
+    }
+
     /**
      * 記錄外部系統呼叫
      */
@@ -0,0 +1,241 @@
+package com.bank.promotion.application.service.audit;
+
+import com.bank.promotion.domain.aggregate.DecisionPathTrace;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.repository.DecisionPathTraceRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 決策路徑追蹤寫入器
+ * 依取樣率為評估建立追蹤緩衝區，完成的追蹤放入有界佇列，由背景執行緒批次寫入決策步驟記錄
+ *
+ * 評估執行緒只做一次非阻塞的入列；佇列已滿時直接捨棄該筆追蹤並計數，寫入延遲不會影響評估延遲
+ */
+@Service
+public class DecisionPathTraceWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecisionPathTraceWriter.class);
+
+    private final DecisionPathTraceRepository traceRepository;
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final BlockingQueue<DecisionPathTrace> queue;
+    private final Thread flusher;
+    private volatile boolean running;
+
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @Autowired
+    public DecisionPathTraceWriter(DecisionPathTraceRepository traceRepository,
+                                   @Value("${promotion.decision-trace.enabled:false}") boolean enabled,
+                                   @Value("${promotion.decision-trace.sample-rate:0.01}") double sampleRate,
+                                   @Value("${promotion.decision-trace.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${promotion.decision-trace.batch-size:500}") int batchSize,
+                                   @Value("${promotion.decision-trace.flush-interval-ms:1000}") long flushIntervalMillis) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        if (enabled && (queueCapacity <= 0 || batchSize <= 0 || flushIntervalMillis <= 0)) {
+            throw new IllegalArgumentException("Queue capacity, batch size and flush interval must be positive");
+        }
+        this.traceRepository = traceRepository;
+        this.enabled = enabled && sampleRate > 0.0;
+        this.sampleRate = sampleRate;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.running = this.enabled;
+        if (this.enabled) {
+            this.flusher = new Thread(this::flushLoop, "decision-trace-writer");
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * 依取樣率開始追蹤
+     *
+     * @param requestId 請求ID，null 時產生新的ID
+     * @return 追蹤緩衝區；未啟用或未被取樣時回傳 null
+     */
+    public DecisionPathTrace begin(PromotionDecisionTree tree, String requestId) {
+        if (!running || !tree.isActive()) {
+            return null;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+        sampled.increment();
+        return tree.newTrace(requestId != null ? requestId : UUID.randomUUID().toString());
+    }
+
+    /**
+     * 提交已完成的追蹤，不會阻塞
+     */
+    public void submit(DecisionPathTrace trace) {
+        if (trace == null || trace.size() == 0) {
+            return;
+        }
+        if (!running || !queue.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 立即寫入佇列中所有追蹤
+     */
+    public void flush() {
+        List<DecisionPathTrace> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(enabled, sampleRate, queue.size(), sampled.sum(), dropped.sum(),
+                              written.sum(), failed.sum(), batches.sum());
+    }
+
+    private void flushLoop() {
+        List<DecisionPathTrace> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                DecisionPathTrace first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                if (running) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<DecisionPathTrace> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            traceRepository.saveAll(batch);
+            written.add(batch.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            failed.add(batch.size());
+            logger.warn("Failed to write {} decision path traces: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 追蹤寫入統計
+     */
+    public static final class Statistics {
+        private final boolean enabled;
+        private final double sampleRate;
+        private final int queued;
+        private final long sampled;
+        private final long dropped;
+        private final long written;
+        private final long failed;
+        private final long batches;
+
+        private Statistics(boolean enabled, double sampleRate, int queued, long sampled, long dropped,
+                           long written, long failed, long batches) {
+            this.enabled = enabled;
+            this.sampleRate = sampleRate;
+            this.queued = queued;
+            this.sampled = sampled;
+            this.dropped = dropped;
+            this.written = written;
+            this.failed = failed;
+            this.batches = batches;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public long getSampled() {
+            return sampled;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DecisionTraceStatistics{enabled=%s, sampleRate=%.4f, queued=%d, sampled=%d, " +
+                                 "dropped=%d, written=%d, failed=%d, batches=%d}",
+                                 enabled, sampleRate, queued, sampled, dropped, written, failed, batches);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.promotion.application.service.batch;
+
+import com.bank.promotion.domain.valueobject.PromotionResult;
+
+/**
+ * 批次評估單筆結果
+ * 成功時帶有優惠結果，失敗時帶有錯誤訊息，不影響同批次其他客戶
+ */
+public final class BatchEvaluationItem {
+
+    private final long index;
+    private final String customerId;
+    private final PromotionResult result;
+    private final String errorMessage;
+
+    private BatchEvaluationItem(long index, String customerId, PromotionResult result, String errorMessage) {
+        this.index = index;
+        this.customerId = customerId;
+        this.result = result;
+        this.errorMessage = errorMessage;
+    }
+
+    public static BatchEvaluationItem success(long index, String customerId, PromotionResult result) {
+        return new BatchEvaluationItem(index, customerId, result, null);
+    }
+
+    public static BatchEvaluationItem failure(long index, String customerId, String errorMessage) {
+        return new BatchEvaluationItem(index, customerId, null, errorMessage);
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public PromotionResult getResult() {
+        return result;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isSuccess() {
+        return result != null;
+    }
+
+    public boolean isEligible() {
+        return result != null && result.isEligible();
+    }
+
+    @Override
+    public String toString() {
+        return "BatchEvaluationItem{" +
+               "index=" + index +
+               ", customerId='" + customerId + '\'' +
+               ", success=" + isSuccess() +
+               '}';
+    }
+}
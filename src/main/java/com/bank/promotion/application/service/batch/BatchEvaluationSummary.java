@@ -0,0 +1,67 @@
+package com.bank.promotion.application.service.batch;
+
+/**
+ * 批次評估摘要
+ */
+public final class BatchEvaluationSummary {
+
+    private final String batchId;
+    private final String treeId;
+    private final long totalCount;
+    private final long eligibleCount;
+    private final long failedCount;
+    private final int chunkCount;
+    private final long executionTimeMs;
+
+    public BatchEvaluationSummary(String batchId, String treeId, long totalCount, long eligibleCount,
+                                  long failedCount, int chunkCount, long executionTimeMs) {
+        this.batchId = batchId;
+        this.treeId = treeId;
+        this.totalCount = totalCount;
+        this.eligibleCount = eligibleCount;
+        this.failedCount = failedCount;
+        this.chunkCount = chunkCount;
+        this.executionTimeMs = executionTimeMs;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public String getTreeId() {
+        return treeId;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getEligibleCount() {
+        return eligibleCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchEvaluationSummary{" +
+               "batchId='" + batchId + '\'' +
+               ", treeId='" + treeId + '\'' +
+               ", totalCount=" + totalCount +
+               ", eligibleCount=" + eligibleCount +
+               ", failedCount=" + failedCount +
+               ", chunkCount=" + chunkCount +
+               ", executionTimeMs=" + executionTimeMs +
+               '}';
+    }
+}
@@ -0,0 +1,267 @@
+package com.bank.promotion.application.service.batch;
+
+import com.bank.promotion.application.service.CompiledDecisionTreeRegistry;
+import com.bank.promotion.application.service.PerformanceMonitoringService;
+import com.bank.promotion.application.service.PromotionResultCache;
+import com.bank.promotion.application.service.audit.AuditService;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * 批次優惠評估服務
+ * 以區塊方式讀取客戶資料，於專用的 work-stealing 執行緒池中並行評估同一棵已編譯決策樹，
+ * 並逐區塊交給輸出端，整批資料不會同時保留在記憶體中
+ *
+ * 讀取下一個區塊與評估目前區塊重疊進行，記憶體中最多保留兩個區塊；
+ * 稽核記錄以區塊為單位彙總寫入
+ */
+@Service
+public class BatchPromotionEvaluationService {
+
+    /**
+     * 單一 fork-join 子任務直接評估的客戶數量上限
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+
+    private final CompiledDecisionTreeRegistry decisionTreeRegistry;
+    private final PromotionResultCache resultCache;
+    private final AuditService auditService;
+    private final PerformanceMonitoringService performanceMonitoringService;
+    private final ForkJoinPool evaluationPool;
+    private final int chunkSize;
+
+    @Autowired
+    public BatchPromotionEvaluationService(CompiledDecisionTreeRegistry decisionTreeRegistry,
+                                           PromotionResultCache resultCache,
+                                           AuditService auditService,
+                                           PerformanceMonitoringService performanceMonitoringService,
+                                           @Value("${promotion.batch.parallelism:0}") int parallelism,
+                                           @Value("${promotion.batch.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Batch chunk size must be positive");
+        }
+        this.decisionTreeRegistry = decisionTreeRegistry;
+        this.resultCache = resultCache;
+        this.auditService = auditService;
+        this.performanceMonitoringService = performanceMonitoringService;
+        this.evaluationPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 區塊輸出端
+     * 依輸入順序逐區塊接收評估結果
+     */
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(int chunkIndex, List<BatchEvaluationItem> items) throws IOException;
+    }
+
+    /**
+     * 驗證決策樹可用於批次評估
+     *
+     * @throws IllegalArgumentException 當決策樹不存在或未啟用時
+     */
+    public void validateTree(String treeId) {
+        decisionTreeRegistry.getActiveTree(treeId);
+    }
+
+    public BatchEvaluationSummary evaluateStream(String treeId, String batchId,
+                                                 Iterator<CustomerPayload> customers,
+                                                 ChunkSink sink) throws IOException {
+        return evaluateStream(treeId, batchId, customers, Function.identity(), sink);
+    }
+
+    /**
+     * 串流評估客戶資料
+     * 單筆轉換或評估失敗只會產生錯誤項目，不會中斷整個批次
+     *
+     * @param treeId 決策樹ID
+     * @param batchId 批次ID，用於稽核追蹤
+     * @param requests 請求資料來源
+     * @param mapper 請求資料轉換為客戶資料的函式，於評估執行緒上執行
+     * @param sink 區塊輸出端
+     * @return 批次摘要
+     */
+    public <T> BatchEvaluationSummary evaluateStream(String treeId, String batchId, Iterator<T> requests,
+                                                     Function<? super T, CustomerPayload> mapper,
+                                                     ChunkSink sink) throws IOException {
+        if (batchId == null || requests == null || mapper == null || sink == null) {
+            throw new IllegalArgumentException("Batch ID, requests, mapper and sink cannot be null");
+        }
+
+        PromotionDecisionTree tree = decisionTreeRegistry.getActiveTree(treeId);
+        long startTime = System.currentTimeMillis();
+
+        long nextIndex = 0;
+        int chunkIndex = 0;
+        long eligibleCount = 0;
+        long failedCount = 0;
+        ChunkTask<T> inFlight = null;
+
+        try {
+            while (requests.hasNext()) {
+                List<T> chunk = new ArrayList<>(chunkSize);
+                while (chunk.size() < chunkSize && requests.hasNext()) {
+                    chunk.add(requests.next());
+                }
+
+                ChunkTask<T> task = new ChunkTask<>(tree, resultCache, mapper, chunk, nextIndex, chunkIndex++);
+                nextIndex += chunk.size();
+                evaluationPool.execute(task);
+
+                if (inFlight != null) {
+                    ChunkOutcome outcome = complete(tree, batchId, inFlight, sink);
+                    eligibleCount += outcome.eligible;
+                    failedCount += outcome.failed;
+                }
+                inFlight = task;
+            }
+
+            if (inFlight != null) {
+                ChunkOutcome outcome = complete(tree, batchId, inFlight, sink);
+                eligibleCount += outcome.eligible;
+                failedCount += outcome.failed;
+                inFlight = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (inFlight != null) {
+                inFlight.cancel(true);
+            }
+            performanceMonitoringService.recordOperationError("BATCH_EVALUATION",
+                System.currentTimeMillis() - startTime, e);
+            throw e;
+        }
+
+        long executionTime = System.currentTimeMillis() - startTime;
+        performanceMonitoringService.recordOperationTime("BATCH_EVALUATION", executionTime);
+
+        return new BatchEvaluationSummary(batchId, tree.getId(), nextIndex, eligibleCount,
+                                          failedCount, chunkIndex, executionTime);
+    }
+
+    private ChunkOutcome complete(PromotionDecisionTree tree, String batchId, ChunkTask<?> task,
+                                  ChunkSink sink) throws IOException {
+        task.join();
+        List<BatchEvaluationItem> items = Arrays.asList(task.results);
+
+        int eligible = 0;
+        int failed = 0;
+        for (BatchEvaluationItem item : items) {
+            if (!item.isSuccess()) {
+                failed++;
+            } else if (item.isEligible()) {
+                eligible++;
+            }
+        }
+
+        auditService.recordBatchEvaluationChunk(batchId, tree.getId(), task.chunkIndex, items.size(),
+                                                eligible, failed, task.executionTimeMs);
+        sink.accept(task.chunkIndex, items);
+        return new ChunkOutcome(eligible, failed);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evaluationPool.shutdown();
+    }
+
+    private static final class ChunkOutcome {
+        private final int eligible;
+        private final int failed;
+
+        private ChunkOutcome(int eligible, int failed) {
+            this.eligible = eligible;
+            this.failed = failed;
+        }
+    }
+
+    /**
+     * 區塊評估任務
+     * 結果依輸入位置寫入陣列，保留原始順序
+     */
+    private static final class ChunkTask<T> extends RecursiveAction {
+
+        private final PromotionDecisionTree tree;
+        private final PromotionResultCache resultCache;
+        private final Function<? super T, CustomerPayload> mapper;
+        private final List<T> requests;
+        private final long firstIndex;
+        private final int chunkIndex;
+        private final BatchEvaluationItem[] results;
+        private long executionTimeMs;
+
+        private ChunkTask(PromotionDecisionTree tree, PromotionResultCache resultCache,
+                          Function<? super T, CustomerPayload> mapper,
+                          List<T> requests, long firstIndex, int chunkIndex) {
+            this.tree = tree;
+            this.resultCache = resultCache;
+            this.mapper = mapper;
+            this.requests = requests;
+            this.firstIndex = firstIndex;
+            this.chunkIndex = chunkIndex;
+            this.results = new BatchEvaluationItem[requests.size()];
+        }
+
+        @Override
+        protected void compute() {
+            long startTime = System.currentTimeMillis();
+            new RangeTask(0, requests.size()).invoke();
+            executionTimeMs = System.currentTimeMillis() - startTime;
+        }
+
+        private BatchEvaluationItem evaluate(int position) {
+            long index = firstIndex + position;
+            String customerId = null;
+            try {
+                CustomerPayload customerPayload = mapper.apply(requests.get(position));
+                if (customerPayload == null) {
+                    return BatchEvaluationItem.failure(index, null, "Customer payload cannot be null");
+                }
+                customerId = customerPayload.getCustomerId();
+                PromotionResult result = resultCache.evaluate(tree, customerPayload);
+                return BatchEvaluationItem.success(index, customerId, result);
+            } catch (RuntimeException e) {
+                return BatchEvaluationItem.failure(index, customerId, e.getMessage());
+            }
+        }
+
+        private final class RangeTask extends RecursiveAction {
+
+            private final int from;
+            private final int to;
+
+            private RangeTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= SEQUENTIAL_THRESHOLD) {
+                    for (int i = from; i < to; i++) {
+                        results[i] = evaluate(i);
+                    }
+                    return;
+                }
+                int middle = (from + to) >>> 1;
+                ForkJoinTask.invokeAll(new RangeTask(from, middle), new RangeTask(middle, to));
+            }
+        }
+    }
+}
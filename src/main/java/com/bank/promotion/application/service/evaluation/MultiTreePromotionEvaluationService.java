@@ -0,0 +1,325 @@
+package com.bank.promotion.application.service.evaluation;
+
+import com.bank.promotion.application.service.CompiledDecisionTreeRegistry;
+import com.bank.promotion.application.service.PerformanceMonitoringService;
+import com.bank.promotion.application.service.PromotionResultCache;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 多決策樹優惠評估服務
+ * 針對所有啟用中的決策樹評估客戶，回傳依優惠價值排序的結果
+ *
+ * 根條件明確不成立的決策樹在分派前即由述詞索引以位元集合運算排除；其餘決策樹切分為少量區段，
+ * 於有界執行緒池中並行評估，並受延遲預算限制，逾時未完成的決策樹不列入結果；
+ * 僅有單一區段時同樣於執行緒池中評估，呼叫端只等待至預算用盡，單一緩慢的決策樹不會讓請求超出預算
+ *
+ * {@link #evaluateAsync} 不佔用呼叫端執行緒：區段完成或預算用盡時才組成結果，
+ * 供 Web 請求在等待外部系統或資料庫查詢節點期間釋放 Servlet 執行緒
+ */
+@Service
+public class MultiTreePromotionEvaluationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiTreePromotionEvaluationService.class);
+
+    /**
+     * 每個並行任務至少評估的決策樹數量，避免少量決策樹時的分派成本大於評估成本
+     */
+    private static final int MIN_TREES_PER_TASK = 8;
+
+    private static final Comparator<Candidate> RANKING = Comparator
+        .comparing((Candidate candidate) -> amountOrZero(candidate.result.getDiscountAmount())).reversed()
+        .thenComparing(candidate -> amountOrZero(candidate.result.getDiscountPercentage()), Comparator.reverseOrder())
+        .thenComparing(candidate -> candidate.tree.getId());
+
+    private final CompiledDecisionTreeRegistry decisionTreeRegistry;
+    private final PromotionResultCache resultCache;
+    private final PerformanceMonitoringService performanceMonitoringService;
+    private final ThreadPoolExecutor executor;
+    private final int parallelism;
+    private final long latencyBudgetNanos;
+
+    @Autowired
+    public MultiTreePromotionEvaluationService(CompiledDecisionTreeRegistry decisionTreeRegistry,
+                                               PromotionResultCache resultCache,
+                                               PerformanceMonitoringService performanceMonitoringService,
+                                               @Value("${promotion.multi-tree.parallelism:0}") int parallelism,
+                                               @Value("${promotion.multi-tree.queue-capacity:1000}") int queueCapacity,
+                                               @Value("${promotion.multi-tree.latency-budget-ms:200}") long latencyBudgetMs) {
+        if (latencyBudgetMs <= 0) {
+            throw new IllegalArgumentException("Latency budget must be positive");
+        }
+        this.decisionTreeRegistry = decisionTreeRegistry;
+        this.resultCache = resultCache;
+        this.performanceMonitoringService = performanceMonitoringService;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.latencyBudgetNanos = TimeUnit.MILLISECONDS.toNanos(latencyBudgetMs);
+        this.executor = new ThreadPoolExecutor(this.parallelism, this.parallelism, 60L, TimeUnit.SECONDS,
+                                               new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                                               new EvaluationThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 評估客戶於所有啟用中決策樹的優惠
+     *
+     * @param customerPayload 客戶資料
+     * @return 依折扣金額、折扣比例遞減排序的符合資格優惠
+     */
+    public List<RankedPromotion> evaluate(CustomerPayload customerPayload) {
+        if (customerPayload == null) {
+            throw new IllegalArgumentException("Customer payload cannot be null");
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + latencyBudgetNanos;
+
+        List<PromotionDecisionTree> candidates = decisionTreeRegistry.getPredicateIndex().candidates(customerPayload);
+
+        AtomicReferenceArray<PromotionResult> results = new AtomicReferenceArray<>(candidates.size());
+        boolean completed = evaluateWithinBudget(candidates, customerPayload, results, deadline);
+        return rank(candidates, results, customerPayload, startTime, completed);
+    }
+
+    /**
+     * 非同步評估客戶於所有啟用中決策樹的優惠
+     * 區段於執行緒池中執行，執行緒池已滿的區段不於呼叫端執行，其決策樹不列入結果；
+     * 預算用盡時以已完成的決策樹組成結果並中斷未完成的區段
+     *
+     * @param customerPayload 客戶資料
+     * @return 於所有區段完成或預算用盡時完成的排序結果
+     */
+    public CompletableFuture<List<RankedPromotion>> evaluateAsync(CustomerPayload customerPayload) {
+        if (customerPayload == null) {
+            throw new IllegalArgumentException("Customer payload cannot be null");
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + latencyBudgetNanos;
+
+        List<PromotionDecisionTree> candidates = decisionTreeRegistry.getPredicateIndex().candidates(customerPayload);
+        AtomicReferenceArray<PromotionResult> results = new AtomicReferenceArray<>(candidates.size());
+        if (candidates.isEmpty()) {
+            return CompletableFuture.completedFuture(rank(candidates, results, customerPayload, startTime, true));
+        }
+
+        int taskCount = taskCount(candidates.size());
+        List<FutureTask<Boolean>> tasks = new ArrayList<>(taskCount);
+        CompletableFuture<?>[] completions = new CompletableFuture<?>[taskCount];
+        boolean submitted = true;
+        for (int offset = 0; offset < taskCount; offset++) {
+            CompletableFuture<Boolean> completion = new CompletableFuture<>();
+            Slice slice = new Slice(candidates, resultCache, customerPayload, results, offset, taskCount, deadline);
+            FutureTask<Boolean> task = new FutureTask<>(slice) {
+                @Override
+                protected void done() {
+                    // 正常完成、失敗或取消皆只觸發一次
+                    try {
+                        completion.complete(isCancelled() ? Boolean.FALSE : get());
+                    } catch (InterruptedException | ExecutionException e) {
+                        completion.complete(Boolean.FALSE);
+                    }
+                }
+            };
+            completions[offset] = completion;
+            try {
+                executor.execute(task);
+                tasks.add(task);
+            } catch (RejectedExecutionException e) {
+                submitted = false;
+                completion.complete(Boolean.FALSE);
+            }
+        }
+
+        boolean allSubmitted = submitted;
+        long remaining = Math.max(0L, deadline - System.nanoTime());
+        return CompletableFuture.allOf(completions)
+            .thenApply(ignored -> Boolean.TRUE)
+            .completeOnTimeout(Boolean.FALSE, remaining, TimeUnit.NANOSECONDS)
+            .thenApply(inTime -> {
+                boolean completed = allSubmitted && inTime;
+                if (inTime) {
+                    for (CompletableFuture<?> completion : completions) {
+                        completed &= Boolean.TRUE.equals(completion.join());
+                    }
+                } else {
+                    tasks.forEach(task -> task.cancel(true));
+                }
+                return rank(candidates, results, customerPayload, startTime, completed);
+            });
+    }
+
+    private List<RankedPromotion> rank(List<PromotionDecisionTree> candidates,
+                                       AtomicReferenceArray<PromotionResult> results,
+                                       CustomerPayload customerPayload, long startTime, boolean completed) {
+        List<Candidate> eligible = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            PromotionResult result = results.get(i);
+            if (result != null && result.isEligible()) {
+                eligible.add(new Candidate(candidates.get(i), result));
+            }
+        }
+        eligible.sort(RANKING);
+
+        List<RankedPromotion> ranked = new ArrayList<>(eligible.size());
+        for (Candidate candidate : eligible) {
+            ranked.add(new RankedPromotion(ranked.size() + 1, candidate.tree.getId(),
+                                           candidate.tree.getName(), candidate.result));
+        }
+
+        long executionTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        performanceMonitoringService.recordOperationTime("MULTI_TREE_EVALUATION", executionTime);
+        if (!completed) {
+            logger.warn("Multi-tree evaluation for customer {} exceeded latency budget; returning partial results",
+                        customerPayload.getCustomerId());
+        }
+        return ranked;
+    }
+
+    /**
+     * 於延遲預算內評估候選決策樹
+     *
+     * @return 所有候選決策樹是否都在預算內完成
+     */
+    private boolean evaluateWithinBudget(List<PromotionDecisionTree> candidates, CustomerPayload customerPayload,
+                                         AtomicReferenceArray<PromotionResult> results, long deadline) {
+        if (candidates.isEmpty()) {
+            return true;
+        }
+        int taskCount = taskCount(candidates.size());
+
+        List<Future<Boolean>> futures = new ArrayList<>(taskCount);
+        boolean completed = true;
+        for (int offset = 0; offset < taskCount; offset++) {
+            Slice slice = new Slice(candidates, resultCache, customerPayload, results, offset, taskCount, deadline);
+            try {
+                futures.add(executor.submit(slice));
+            } catch (RejectedExecutionException e) {
+                // 執行緒池已滿時於呼叫端執行，區段內仍受預算限制
+                completed &= slice.call();
+            }
+        }
+
+        for (Future<Boolean> future : futures) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                completed &= future.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                completed = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                return false;
+            } catch (ExecutionException e) {
+                logger.warn("Multi-tree evaluation task failed", e.getCause());
+                completed = false;
+            }
+        }
+        return completed;
+    }
+
+    private int taskCount(int candidateCount) {
+        return Math.max(1, Math.min(parallelism, (candidateCount + MIN_TREES_PER_TASK - 1) / MIN_TREES_PER_TASK));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static BigDecimal amountOrZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    private static final class Candidate {
+        private final PromotionDecisionTree tree;
+        private final PromotionResult result;
+
+        private Candidate(PromotionDecisionTree tree, PromotionResult result) {
+            this.tree = tree;
+            this.result = result;
+        }
+    }
+
+    /**
+     * 評估區段
+     * 以固定間隔挑選決策樹，讓各區段的工作量大致平均
+     */
+    private static final class Slice implements Callable<Boolean> {
+
+        private final List<PromotionDecisionTree> trees;
+        private final PromotionResultCache resultCache;
+        private final CustomerPayload customerPayload;
+        private final AtomicReferenceArray<PromotionResult> results;
+        private final int offset;
+        private final int stride;
+        private final long deadline;
+
+        private Slice(List<PromotionDecisionTree> trees, PromotionResultCache resultCache,
+                      CustomerPayload customerPayload, AtomicReferenceArray<PromotionResult> results,
+                      int offset, int stride, long deadline) {
+            this.trees = trees;
+            this.resultCache = resultCache;
+            this.customerPayload = customerPayload;
+            this.results = results;
+            this.offset = offset;
+            this.stride = stride;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Boolean call() {
+            for (int i = offset; i < trees.size(); i += stride) {
+                if (System.nanoTime() - deadline > 0 || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                PromotionDecisionTree tree = trees.get(i);
+                try {
+                    results.set(i, resultCache.evaluate(tree, customerPayload));
+                } catch (RuntimeException e) {
+                    logger.debug("Decision tree {} failed for customer {}: {}",
+                                 tree.getId(), customerPayload.getCustomerId(), e.getMessage());
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class EvaluationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "multi-tree-eval-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
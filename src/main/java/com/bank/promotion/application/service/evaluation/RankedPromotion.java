@@ -0,0 +1,67 @@
+package com.bank.promotion.application.service.evaluation;
+
+import com.bank.promotion.domain.valueobject.PromotionResult;
+
+import java.util.Objects;
+
+/**
+ * 排序後的優惠結果
+ * 記錄產生優惠的決策樹與排名
+ */
+public final class RankedPromotion {
+
+    private final int rank;
+    private final String treeId;
+    private final String treeName;
+    private final PromotionResult result;
+
+    public RankedPromotion(int rank, String treeId, String treeName, PromotionResult result) {
+        if (result == null) {
+            throw new IllegalArgumentException("Promotion result cannot be null");
+        }
+        this.rank = rank;
+        this.treeId = treeId;
+        this.treeName = treeName;
+        this.result = result;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public String getTreeId() {
+        return treeId;
+    }
+
+    public String getTreeName() {
+        return treeName;
+    }
+
+    public PromotionResult getResult() {
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RankedPromotion that = (RankedPromotion) o;
+        return rank == that.rank &&
+               Objects.equals(treeId, that.treeId) &&
+               Objects.equals(result, that.result);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rank, treeId, result);
+    }
+
+    @Override
+    public String toString() {
+        return "RankedPromotion{" +
+               "rank=" + rank +
+               ", treeId='" + treeId + '\'' +
+               ", promotionId='" + result.getPromotionId() + '\'' +
+               '}';
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.promotion.domain.aggregate;
+
+/**
+ * 決策路徑追蹤
+ * 記錄單次評估依序走訪的節點、分支結果與節點耗時
+ *
+ * 緩衝區於建立時依執行計畫的節點數預先配置；執行計畫保證無循環，走訪路徑不會超過節點數，
+ * 評估時的記錄只是三個基本型別陣列的寫入，不建立任何物件
+ */
+public final class DecisionPathTrace {
+
+    /**
+     * 節點執行結果
+     */
+    public enum Outcome {
+        TRUE,
+        FALSE,
+        RESULT,
+        FAILED
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final String requestId;
+    private final DecisionTreeExecutionPlan plan;
+    private final int[] nodeIndexes;
+    private final byte[] outcomes;
+    private final long[] nanos;
+    private int size;
+
+    DecisionPathTrace(String requestId, DecisionTreeExecutionPlan plan) {
+        if (requestId == null || requestId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Request ID cannot be null or empty");
+        }
+        this.requestId = requestId;
+        this.plan = plan;
+        int capacity = plan.getNodeCount();
+        this.nodeIndexes = new int[capacity];
+        this.outcomes = new byte[capacity];
+        this.nanos = new long[capacity];
+    }
+
+    void record(int nodeIndex, Outcome outcome, long elapsedNanos) {
+        if (size == nodeIndexes.length) {
+            return;
+        }
+        nodeIndexes[size] = nodeIndex;
+        outcomes[size] = (byte) outcome.ordinal();
+        nanos[size] = elapsedNanos;
+        size++;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getTreeId() {
+        return plan.getTreeId();
+    }
+
+    /**
+     * 產生此追蹤的執行計畫版本
+     */
+    public long getPlanVersion() {
+        return plan.getVersion();
+    }
+
+    DecisionTreeExecutionPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * 已記錄的步驟數
+     */
+    public int size() {
+        return size;
+    }
+
+    public String getNodeId(int step) {
+        return plan.nodeAt(nodeIndexAt(step)).getId();
+    }
+
+    public String getNodeType(int step) {
+        return plan.isCalculation(nodeIndexAt(step)) ? "CALCULATION" : "CONDITION";
+    }
+
+    public Outcome getOutcome(int step) {
+        checkStep(step);
+        return OUTCOMES[outcomes[step]];
+    }
+
+    public long getNanos(int step) {
+        checkStep(step);
+        return nanos[step];
+    }
+
+    /**
+     * 所有步驟的總耗時
+     */
+    public long getTotalNanos() {
+        long total = 0L;
+        for (int i = 0; i < size; i++) {
+            total += nanos[i];
+        }
+        return total;
+    }
+
+    private int nodeIndexAt(int step) {
+        checkStep(step);
+        return nodeIndexes[step];
+    }
+
+    private void checkStep(int step) {
+        if (step < 0 || step >= size) {
+            throw new IndexOutOfBoundsException("Step " + step + " out of range [0, " + size + ")");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionPathTrace{" +
+               "requestId='" + requestId + '\'' +
+               ", treeId='" + plan.getTreeId() + '\'' +
+               ", steps=" + size +
+               '}';
+    }
+}
@@ -0,0 +1,477 @@
+package com.bank.promotion.domain.aggregate;
+
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.entity.ContextLayout;
+import com.bank.promotion.domain.entity.DecisionNode;
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.entity.NodeResult;
+import com.bank.promotion.domain.exception.DecisionTreeExecutionException;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 決策樹執行計畫
+ * 於決策樹啟用時將節點編譯為扁平的陣列結構，預先計算後繼節點索引並完成循環檢查，
+ * 評估時以迴圈依索引走訪，不再進行字串查找或配置每次請求的走訪集合
+ *
+ * 條件節點可透過 {@code outputKey} 參數將分支結果發布為衍生值，
+ * 對應的欄位槽於編譯時配置到 {@link ContextLayout}
+ *
+ * 根條件節點沒有否定分支時，根條件不成立即不可能產生優惠，
+ * 編譯時會嘗試將其運算式轉為前置判斷，供多棵樹評估時提早略過
+ *
+ * 每次編譯產生遞增的版本號，並附帶 {@link DecisionTreeFeatureSet} 描述評估結果依賴的客戶欄位
+ *
+ * 由外部系統或資料庫查詢支撐、且不發布衍生值的條件節點於編譯時標記為可推測節點，
+ * 搭配 {@link SpeculativeBranchPrefetcher} 執行時，其 I/O 子節點會與條件本身並行預取
+ */
+public final class DecisionTreeExecutionPlan {
+
+    static final int NO_SUCCESSOR = -1;
+    static final String OUTPUT_KEY_PARAMETER = "outputKey";
+    static final Set<String> IO_BOUND_COMMAND_TYPES = Set.of("EXTERNAL_SYSTEM", "DATABASE_QUERY");
+
+    private static final AtomicLong VERSION_SEQUENCE = new AtomicLong();
+
+    private final String treeId;
+    private final int rootIndex;
+    private final DecisionNode[] nodes;
+    private final String[] nodeIds;
+    private final boolean[] calculationNodes;
+    private final String[] trueNodeIds;
+    private final String[] falseNodeIds;
+    private final int[] trueSuccessors;
+    private final int[] falseSuccessors;
+    private final String[] outputKeys;
+    private final boolean[] speculativeNodes;
+    private final boolean hasSpeculativeNodes;
+    private final ContextLayout contextLayout;
+    private final RootPredicateGuard rootGuard;
+    private final DecisionTreeFeatureSet featureSet;
+    private final long version;
+
+    private DecisionTreeExecutionPlan(String treeId, int rootIndex, DecisionNode[] nodes, String[] nodeIds,
+                                      boolean[] calculationNodes, String[] trueNodeIds, String[] falseNodeIds,
+                                      int[] trueSuccessors, int[] falseSuccessors, String[] outputKeys,
+                                      boolean[] speculativeNodes, ContextLayout contextLayout,
+                                      RootPredicateGuard rootGuard, DecisionTreeFeatureSet featureSet) {
+        this.treeId = treeId;
+        this.rootIndex = rootIndex;
+        this.nodes = nodes;
+        this.nodeIds = nodeIds;
+        this.calculationNodes = calculationNodes;
+        this.trueNodeIds = trueNodeIds;
+        this.falseNodeIds = falseNodeIds;
+        this.trueSuccessors = trueSuccessors;
+        this.falseSuccessors = falseSuccessors;
+        this.outputKeys = outputKeys;
+        this.speculativeNodes = speculativeNodes;
+        boolean anySpeculative = false;
+        for (boolean speculative : speculativeNodes) {
+            anySpeculative |= speculative;
+        }
+        this.hasSpeculativeNodes = anySpeculative;
+        this.contextLayout = contextLayout;
+        this.rootGuard = rootGuard;
+        this.featureSet = featureSet;
+        this.version = VERSION_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * 編譯執行計畫
+     * 只收錄自根節點可達的節點，並以前序順序配置索引
+     *
+     * @throws DecisionTreeExecutionException 當根節點不存在、節點類型不支援或存在循環參照時
+     */
+    public static DecisionTreeExecutionPlan compile(String treeId, String rootNodeId, Map<String, DecisionNode> nodeMap) {
+        if (rootNodeId == null || nodeMap == null || !nodeMap.containsKey(rootNodeId)) {
+            throw new DecisionTreeExecutionException("Root node not found or not configured", treeId, rootNodeId);
+        }
+
+        // 依前序走訪配置索引
+        Map<String, Integer> indexById = new HashMap<>();
+        List<DecisionNode> ordered = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        pending.add(rootNodeId);
+        while (!pending.isEmpty()) {
+            String nodeId = pending.remove(pending.size() - 1);
+            if (nodeId == null || indexById.containsKey(nodeId)) {
+                continue;
+            }
+            DecisionNode node = nodeMap.get(nodeId);
+            if (node == null) {
+                continue;
+            }
+            indexById.put(nodeId, ordered.size());
+            ordered.add(node);
+            if (node instanceof ConditionNode) {
+                ConditionNode conditionNode = (ConditionNode) node;
+                pending.add(conditionNode.getFalseNodeId());
+                pending.add(conditionNode.getTrueNodeId());
+            }
+        }
+
+        int size = ordered.size();
+        DecisionNode[] nodes = ordered.toArray(new DecisionNode[0]);
+        String[] nodeIds = new String[size];
+        boolean[] calculationNodes = new boolean[size];
+        String[] trueNodeIds = new String[size];
+        String[] falseNodeIds = new String[size];
+        int[] trueSuccessors = new int[size];
+        int[] falseSuccessors = new int[size];
+        String[] outputKeys = new String[size];
+        Set<String> derivedKeys = new HashSet<>();
+        ContextLayout.Builder layoutBuilder = ContextLayout.builder();
+
+        for (int i = 0; i < size; i++) {
+            DecisionNode node = nodes[i];
+            nodeIds[i] = node.getId();
+            trueSuccessors[i] = NO_SUCCESSOR;
+            falseSuccessors[i] = NO_SUCCESSOR;
+
+            if (node instanceof CalculationNode) {
+                calculationNodes[i] = true;
+            } else if (node instanceof ConditionNode) {
+                ConditionNode conditionNode = (ConditionNode) node;
+                trueNodeIds[i] = conditionNode.getTrueNodeId();
+                falseNodeIds[i] = conditionNode.getFalseNodeId();
+                trueSuccessors[i] = indexOf(indexById, trueNodeIds[i]);
+                falseSuccessors[i] = indexOf(indexById, falseNodeIds[i]);
+                outputKeys[i] = resolveOutputKey(conditionNode);
+                if (outputKeys[i] != null) {
+                    layoutBuilder.addDerivedSlot(outputKeys[i], Boolean.class);
+                    derivedKeys.add(outputKeys[i]);
+                }
+            } else {
+                throw new DecisionTreeExecutionException("Unknown node type", treeId, node.getId());
+            }
+        }
+
+        int rootIndex = indexById.get(rootNodeId);
+        detectCycles(treeId, rootIndex, nodeIds, trueSuccessors, falseSuccessors);
+
+        boolean[] speculativeNodes = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            speculativeNodes[i] = !calculationNodes[i] && outputKeys[i] == null && isIoBound(nodes[i])
+                && (isIoBound(nodes, trueSuccessors[i]) || isIoBound(nodes, falseSuccessors[i]));
+        }
+
+        RootPredicateGuard rootGuard = null;
+        if (!calculationNodes[rootIndex] && falseSuccessors[rootIndex] == NO_SUCCESSOR) {
+            rootGuard = RootPredicateGuard.parse(nodes[rootIndex].getConfiguration().getExpression());
+        }
+
+        return new DecisionTreeExecutionPlan(treeId, rootIndex, nodes, nodeIds,
+                                             calculationNodes, trueNodeIds, falseNodeIds,
+                                             trueSuccessors, falseSuccessors, outputKeys,
+                                             speculativeNodes, layoutBuilder.build(), rootGuard,
+                                             DecisionTreeFeatureSet.analyze(nodes, derivedKeys));
+    }
+
+    private static String resolveOutputKey(DecisionNode node) {
+        Object outputKey = node.getConfiguration().getParameters().get(OUTPUT_KEY_PARAMETER);
+        if (outputKey == null || outputKey.toString().trim().isEmpty()) {
+            return null;
+        }
+        return outputKey.toString().trim();
+    }
+
+    private static boolean isIoBound(DecisionNode node) {
+        return IO_BOUND_COMMAND_TYPES.contains(node.getConfiguration().getCommandType());
+    }
+
+    private static boolean isIoBound(DecisionNode[] nodes, int index) {
+        return index != NO_SUCCESSOR && isIoBound(nodes[index]);
+    }
+
+    private static int indexOf(Map<String, Integer> indexById, String nodeId) {
+        if (nodeId == null) {
+            return NO_SUCCESSOR;
+        }
+        Integer index = indexById.get(nodeId);
+        return index != null ? index : NO_SUCCESSOR;
+    }
+
+    /**
+     * 以三色標記的深度優先走訪檢查循環參照
+     */
+    private static void detectCycles(String treeId, int rootIndex, String[] nodeIds,
+                                     int[] trueSuccessors, int[] falseSuccessors) {
+        final byte inProgress = 1;
+        final byte done = 2;
+
+        byte[] marks = new byte[nodeIds.length];
+        int[] stack = new int[nodeIds.length];
+        int[] edgeCursor = new int[nodeIds.length];
+        int top = 0;
+        stack[top++] = rootIndex;
+        marks[rootIndex] = inProgress;
+
+        while (top > 0) {
+            int current = stack[top - 1];
+            int cursor = edgeCursor[current]++;
+            if (cursor > 1) {
+                marks[current] = done;
+                top--;
+                continue;
+            }
+
+            int successor = cursor == 0 ? trueSuccessors[current] : falseSuccessors[current];
+            if (successor == NO_SUCCESSOR || marks[successor] == done) {
+                continue;
+            }
+            if (marks[successor] == inProgress) {
+                throw new DecisionTreeExecutionException("Circular reference detected in decision tree",
+                                                         treeId, nodeIds[successor]);
+            }
+            marks[successor] = inProgress;
+            stack[top++] = successor;
+        }
+    }
+
+    /**
+     * 依編譯後的欄位配置建立執行上下文
+     */
+    public ExecutionContext newContext(CustomerPayload customerPayload) {
+        return ExecutionContext.forCustomer(customerPayload, contextLayout);
+    }
+
+    /**
+     * 判斷根條件是否明確不成立
+     * 僅在根條件節點無否定分支且運算式可解析時才可能回傳 true，此時評估不會產生優惠
+     */
+    public boolean isRootPredicateUnsatisfied(CustomerPayload customerPayload) {
+        return rootGuard != null && customerPayload != null && rootGuard.isUnsatisfiedBy(customerPayload);
+    }
+
+    /**
+     * 執行計畫
+     * 自根節點開始依預先計算的索引迭代走訪，直到計算節點產生優惠結果；
+     * 每個節點的上下文寫入在節點成功後才提交
+     */
+    public PromotionResult execute(ExecutionContext context) {
+        return execute(context, null, null);
+    }
+
+    /**
+     * 建立此計畫專用的決策路徑追蹤緩衝區
+     */
+    public DecisionPathTrace newTrace(String requestId) {
+        return new DecisionPathTrace(requestId, this);
+    }
+
+    /**
+     * 執行計畫，並於可推測節點預取兩個分支的 I/O 子節點
+     * 條件節點本身有上下文寫入時，預取結果可能依據過時的上下文，會被捨棄並改為直接執行
+     *
+     * 提供追蹤緩衝區時，每個節點的分支結果與耗時會依走訪順序寫入
+     *
+     * @param prefetcher 分支推測預取器，null 表示不預取
+     * @param trace 決策路徑追蹤，null 表示不追蹤
+     */
+    public PromotionResult execute(ExecutionContext context, SpeculativeBranchPrefetcher prefetcher,
+                                   DecisionPathTrace trace) {
+        int index = rootIndex;
+        SpeculativeBranchPrefetcher.Speculation prefetched = null;
+
+        while (true) {
+            SpeculativeBranchPrefetcher.Speculation onTrue = null;
+            SpeculativeBranchPrefetcher.Speculation onFalse = null;
+            if (prefetcher != null && speculativeNodes[index]) {
+                onTrue = speculate(prefetcher, trueSuccessors[index], context);
+                onFalse = speculate(prefetcher, falseSuccessors[index], context);
+            }
+
+            ExecutionContext.NodeScope scope = context.openNodeScope(nodeIds[index]);
+            long startTime = trace != null ? System.nanoTime() : 0L;
+            NodeResult result;
+            try {
+                result = prefetched != null ? adopt(prefetched, context, index) : nodes[index].execute(context);
+            } catch (RuntimeException e) {
+                scope.discard();
+                cancel(onTrue);
+                cancel(onFalse);
+                record(trace, index, DecisionPathTrace.Outcome.FAILED, startTime);
+                throw e;
+            }
+            prefetched = null;
+            if (!result.isSuccess()) {
+                scope.discard();
+                record(trace, index, DecisionPathTrace.Outcome.FAILED, startTime);
+                cancel(onTrue);
+                cancel(onFalse);
+                throw new DecisionTreeExecutionException("Node execution failed: " + result.getErrorMessage(),
+                                                         treeId, nodeIds[index]);
+            }
+
+            Object resultValue = result.getResult();
+
+            if (calculationNodes[index]) {
+                if (resultValue instanceof PromotionResult) {
+                    scope.commit();
+                    record(trace, index, DecisionPathTrace.Outcome.RESULT, startTime);
+                    return (PromotionResult) resultValue;
+                }
+                scope.discard();
+                record(trace, index, DecisionPathTrace.Outcome.FAILED, startTime);
+                throw new DecisionTreeExecutionException("Calculation node must return PromotionResult",
+                                                         treeId, nodeIds[index]);
+            }
+
+            int next = resolveSuccessor(index, resultValue);
+            if (next == NO_SUCCESSOR) {
+                scope.discard();
+                cancel(onTrue);
+                cancel(onFalse);
+                record(trace, index, DecisionPathTrace.Outcome.FAILED, startTime);
+                throw new DecisionTreeExecutionException("Condition node must return valid next node ID",
+                                                         treeId, nodeIds[index]);
+            }
+            if (onTrue != null || onFalse != null) {
+                boolean stale = !scope.getPendingValues().isEmpty();
+                boolean wentTrue = resultValue.equals(trueNodeIds[index]);
+                SpeculativeBranchPrefetcher.Speculation winner = wentTrue ? onTrue : onFalse;
+                cancel(wentTrue ? onFalse : onTrue);
+                if (stale) {
+                    cancel(winner);
+                } else {
+                    prefetched = winner;
+                }
+            }
+            if (outputKeys[index] != null) {
+                context.setContextValue(outputKeys[index], resultValue.equals(trueNodeIds[index]));
+            }
+            scope.commit();
+            record(trace, index, resultValue.equals(trueNodeIds[index])
+                ? DecisionPathTrace.Outcome.TRUE : DecisionPathTrace.Outcome.FALSE, startTime);
+            index = next;
+        }
+    }
+
+    private static void record(DecisionPathTrace trace, int index, DecisionPathTrace.Outcome outcome, long startTime) {
+        if (trace != null) {
+            trace.record(index, outcome, System.nanoTime() - startTime);
+        }
+    }
+
+    private SpeculativeBranchPrefetcher.Speculation speculate(SpeculativeBranchPrefetcher prefetcher, int index,
+                                                              ExecutionContext context) {
+        if (!isIoBound(nodes, index)) {
+            return null;
+        }
+        return prefetcher.start(nodes[index], context.fork());
+    }
+
+    /**
+     * 採用預取結果並將其寫入重播到目前的節點範圍
+     * 預取失敗時回傳其失敗結果，不重新執行節點：節點已於預取中發出外部呼叫並套用自身的降級策略
+     */
+    private NodeResult adopt(SpeculativeBranchPrefetcher.Speculation speculation, ExecutionContext context, int index) {
+        SpeculativeBranchPrefetcher.Outcome outcome = speculation.await();
+        if (outcome.getResult() == null) {
+            return NodeResult.failure("Speculative prefetch of node " + nodeIds[index] + " returned no result");
+        }
+        for (Map.Entry<String, Object> write : outcome.getWrites().entrySet()) {
+            context.setContextValue(write.getKey(), write.getValue());
+        }
+        return outcome.getResult();
+    }
+
+    private static void cancel(SpeculativeBranchPrefetcher.Speculation speculation) {
+        if (speculation != null) {
+            speculation.cancel();
+        }
+    }
+
+    private int resolveSuccessor(int index, Object resultValue) {
+        if (!(resultValue instanceof String)) {
+            return NO_SUCCESSOR;
+        }
+        // 條件節點回傳的即為其 true/false 欄位本身，equals 會先比對參考
+        if (resultValue.equals(trueNodeIds[index])) {
+            return trueSuccessors[index];
+        }
+        if (resultValue.equals(falseNodeIds[index])) {
+            return falseSuccessors[index];
+        }
+        return NO_SUCCESSOR;
+    }
+
+    // 供決策路徑追蹤讀取的計畫結構
+    DecisionNode nodeAt(int index) {
+        return nodes[index];
+    }
+
+    boolean isCalculation(int index) {
+        return calculationNodes[index];
+    }
+
+    RootPredicateGuard rootGuard() {
+        return rootGuard;
+    }
+
+    public String getTreeId() {
+        return treeId;
+    }
+
+    public String getRootNodeId() {
+        return nodeIds[rootIndex];
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * 是否含有可推測的條件節點
+     */
+    public boolean hasSpeculativeNodes() {
+        return hasSpeculativeNodes;
+    }
+
+    /**
+     * 是否含有外部系統或資料庫查詢節點
+     */
+    public boolean hasIoBoundNodes() {
+        for (DecisionNode node : nodes) {
+            if (isIoBound(node)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public ContextLayout getContextLayout() {
+        return contextLayout;
+    }
+
+    public DecisionTreeFeatureSet getFeatureSet() {
+        return featureSet;
+    }
+
+    /**
+     * 編譯版本號
+     * 每次編譯遞增，決策樹結構變更後重新編譯即取得新版本
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "DecisionTreeExecutionPlan{" +
+               "treeId='" + treeId + '\'' +
+               ", rootNodeId='" + nodeIds[rootIndex] + '\'' +
+               ", nodeCount=" + nodes.length +
+               '}';
+    }
+}
@@ -0,0 +1,217 @@
+package com.bank.promotion.domain.aggregate;
+
+import com.bank.promotion.domain.entity.DecisionNode;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 決策樹特徵集合
+ * 於編譯時靜態分析節點的 SpEL 運算式與參數，找出決策樹實際讀取的客戶欄位；
+ * 評估結果只取決於這些欄位時，可用其投影值作為結果快取的鍵
+ *
+ * 含外部系統或資料庫查詢節點、Drools 規則節點、讀取評估時間、使用型別參照或建構式、
+ * 讀取無法追溯來源的上下文鍵，或節點參數明確標示 {@code cacheable=false} 的決策樹皆不可快取；
+ * Drools 規則內容由規則管理器另行發布，發布新版本時決策樹的結果即可能改變，因此不快取
+ */
+public final class DecisionTreeFeatureSet {
+
+    static final String CACHEABLE_PARAMETER = "cacheable";
+    static final String INPUT_FIELDS_PARAMETER = "inputFields";
+
+    private static final Pattern VARIABLE = Pattern.compile("#(\\w+)(\\??\\.(\\w+)(\\(\\s*\\))?)?");
+    private static final Pattern TYPE_OR_CONSTRUCTOR = Pattern.compile("\\bT\\s*\\(|\\bnew\\s+[\\w.]+\\s*\\(");
+    private static final String PARAMETER_PREFIX = "param_";
+    private static final String CUSTOMER_VARIABLE = "customer";
+
+    private static final Map<String, Function<CustomerPayload, Object>> CUSTOMER_FIELDS = Map.of(
+        "customerId", CustomerPayload::getCustomerId,
+        "accountType", CustomerPayload::getAccountType,
+        "annualIncome", CustomerPayload::getAnnualIncome,
+        "creditScore", CustomerPayload::getCreditScore,
+        "region", CustomerPayload::getRegion,
+        "transactionCount", CustomerPayload::getTransactionCount,
+        "accountBalance", CustomerPayload::getAccountBalance,
+        "transactionHistory", CustomerPayload::getTransactionHistory
+    );
+
+    private static final List<String> ALL_FIELDS = List.of(
+        "customerId", "accountType", "annualIncome", "creditScore",
+        "region", "transactionCount", "accountBalance", "transactionHistory");
+
+    private static final Set<String> NON_CACHEABLE_COMMAND_TYPES = DecisionTreeExecutionPlan.IO_BOUND_COMMAND_TYPES;
+    private static final String DROOLS_COMMAND_TYPE = "DROOLS";
+    private static final Set<String> SPEL_BUILTIN_VARIABLES = Set.of("root", "this");
+
+    private final boolean cacheable;
+    private final String[] fieldNames;
+    private final String reason;
+
+    private DecisionTreeFeatureSet(boolean cacheable, String[] fieldNames, String reason) {
+        this.cacheable = cacheable;
+        this.fieldNames = fieldNames;
+        this.reason = reason;
+    }
+
+    /**
+     * 分析節點讀取的客戶欄位
+     *
+     * @param nodes 自根節點可達的節點
+     * @param derivedKeys 由條件節點發布的衍生值鍵，其值本身即由客戶欄位推得
+     */
+    static DecisionTreeFeatureSet analyze(DecisionNode[] nodes, Collection<String> derivedKeys) {
+        Set<String> fields = new LinkedHashSet<>();
+
+        for (DecisionNode node : nodes) {
+            NodeConfiguration configuration = node.getConfiguration();
+            String commandType = configuration.getCommandType();
+
+            if (NON_CACHEABLE_COMMAND_TYPES.contains(commandType) || DROOLS_COMMAND_TYPE.equals(commandType)) {
+                return nonCacheable(commandType + " node " + node.getId());
+            }
+            Object cacheableFlag = configuration.getParameters().get(CACHEABLE_PARAMETER);
+            if (cacheableFlag != null && "false".equalsIgnoreCase(cacheableFlag.toString())) {
+                return nonCacheable("node " + node.getId() + " is marked non-cacheable");
+            }
+
+            String unresolved = collectFields(configuration.getExpression(), derivedKeys, fields);
+            for (Map.Entry<String, Object> parameter : configuration.getParameters().entrySet()) {
+                if (unresolved != null) {
+                    break;
+                }
+                if (INPUT_FIELDS_PARAMETER.equals(parameter.getKey())) {
+                    unresolved = collectDeclaredFields(parameter.getValue(), fields);
+                } else if (parameter.getValue() instanceof String) {
+                    unresolved = collectFields((String) parameter.getValue(), derivedKeys, fields);
+                }
+            }
+            if (unresolved != null) {
+                return nonCacheable("node " + node.getId() + " reads " + unresolved);
+            }
+        }
+
+        // 依固定順序排列，讓相同輸入產生相同的鍵
+        String[] ordered = ALL_FIELDS.stream().filter(fields::contains).toArray(String[]::new);
+        return new DecisionTreeFeatureSet(true, ordered, null);
+    }
+
+    /**
+     * 收集運算式讀取的欄位
+     *
+     * @return 無法追溯來源的讀取描述；全部可追溯時回傳 null
+     */
+    private static String collectFields(String expression, Collection<String> derivedKeys, Set<String> fields) {
+        if (expression == null || expression.isEmpty()) {
+            return null;
+        }
+        if (TYPE_OR_CONSTRUCTOR.matcher(expression).find()) {
+            return "type reference or constructor";
+        }
+
+        Matcher matcher = VARIABLE.matcher(expression);
+        while (matcher.find()) {
+            String variable = matcher.group(1);
+            if (variable.startsWith(PARAMETER_PREFIX) || SPEL_BUILTIN_VARIABLES.contains(variable)
+                    || derivedKeys.contains(variable)) {
+                continue;
+            }
+            if (CUSTOMER_VARIABLE.equals(variable)) {
+                String property = customerProperty(matcher.group(3));
+                if (property != null) {
+                    fields.add(property);
+                } else {
+                    fields.addAll(ALL_FIELDS);
+                }
+                continue;
+            }
+            if (CUSTOMER_FIELDS.containsKey(variable)) {
+                fields.add(variable);
+                continue;
+            }
+            return "context key " + variable;
+        }
+        return null;
+    }
+
+    private static String collectDeclaredFields(Object declared, Set<String> fields) {
+        Collection<?> names = declared instanceof Collection
+            ? (Collection<?>) declared
+            : Arrays.asList(declared.toString().split(","));
+        for (Object name : names) {
+            String field = name.toString().trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!CUSTOMER_FIELDS.containsKey(field)) {
+                return "declared input " + field;
+            }
+            fields.add(field);
+        }
+        return null;
+    }
+
+    /**
+     * 將 {@code #customer.creditScore} 或 {@code #customer.getCreditScore()} 對應到欄位名稱
+     */
+    private static String customerProperty(String member) {
+        if (member == null) {
+            return null;
+        }
+        String property = member;
+        if (member.startsWith("get") && member.length() > 3) {
+            property = Character.toLowerCase(member.charAt(3)) + member.substring(4);
+        }
+        return CUSTOMER_FIELDS.containsKey(property) ? property : null;
+    }
+
+    private static DecisionTreeFeatureSet nonCacheable(String reason) {
+        return new DecisionTreeFeatureSet(false, new String[0], reason);
+    }
+
+    /**
+     * 依特徵欄位投影客戶資料
+     * 回傳值依欄位固定順序排列，可直接作為快取鍵的一部分
+     */
+    public Object[] project(CustomerPayload customerPayload) {
+        if (!cacheable) {
+            throw new IllegalStateException("Decision tree is not cacheable: " + reason);
+        }
+        Object[] values = new Object[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            values[i] = CUSTOMER_FIELDS.get(fieldNames[i]).apply(customerPayload);
+        }
+        return values;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    public List<String> getFieldNames() {
+        return Collections.unmodifiableList(Arrays.asList(fieldNames));
+    }
+
+    /**
+     * 不可快取的原因
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return cacheable
+            ? "DecisionTreeFeatureSet{fields=" + Arrays.toString(fieldNames) + '}'
+            : "DecisionTreeFeatureSet{nonCacheable='" + reason + "'}";
+    }
+}
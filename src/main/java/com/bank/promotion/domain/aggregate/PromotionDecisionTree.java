@@ -1,10 +1,9 @@
 package com.bank.promotion.domain.aggregate;
 
+import com.bank.promotion.domain.command.BlockingIoExecutor;
 import com.bank.promotion.domain.entity.DecisionNode;
 import com.bank.promotion.domain.entity.ConditionNode;
-import com.bank.promotion.domain.entity.CalculationNode;
 import com.bank.promotion.domain.entity.ExecutionContext;
-import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.CustomerPayload;
 import com.bank.promotion.domain.valueobject.PromotionResult;
 import com.bank.promotion.domain.exception.DecisionTreeExecutionException;
@@ -25,6 +24,8 @@ public class PromotionDecisionTree {
     private final Map<String, DecisionNode> nodes;
     private final LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private volatile DecisionTreeExecutionPlan executionPlan;
+    private volatile SpeculativeBranchPrefetcher speculativePrefetcher;
     
     public PromotionDecisionTree(String name) {
         this.id = UUID.randomUUID().toString();
@@ -65,6 +66,16 @@ public class PromotionDecisionTree {
      * 遍歷決策樹並返回優惠結果
      */
     public PromotionResult evaluate(CustomerPayload customerPayload) {
+        return evaluate(customerPayload, null);
+    }
+    
+    /**
+     * 評估客戶優惠資格並記錄決策路徑
+     * 追蹤的評估一律以直譯方式執行；追蹤緩衝區須由目前的執行計畫建立，否則不記錄
+     *
+     * @param trace 由 {@link #newTrace(String)} 建立的追蹤緩衝區，null 表示不追蹤
+     */
+    public PromotionResult evaluate(CustomerPayload customerPayload, DecisionPathTrace trace) {
         if (customerPayload == null) {
             throw new IllegalArgumentException("Customer payload cannot be null");
         }
@@ -78,65 +89,77 @@ public class PromotionDecisionTree {
         }
         
         try {
-            ExecutionContext context = new ExecutionContext(customerPayload, createContextData(customerPayload));
-            return traverseTree(rootNodeId, context, new HashSet<>());
+            SpeculativeBranchPrefetcher prefetcher = speculativePrefetcher;
+            if (trace != null) {
+                DecisionTreeExecutionPlan plan = getExecutionPlan();
+                if (trace.getPlan() == plan) {
+                    return plan.execute(plan.newContext(customerPayload),
+                                        plan.hasSpeculativeNodes() ? prefetcher : null, trace);
+                }
+            }
+            if (prefetcher != null) {
+                DecisionTreeExecutionPlan plan = getExecutionPlan();
+                if (plan.hasSpeculativeNodes()) {
+                    return plan.execute(plan.newContext(customerPayload), prefetcher, null);
+                }
+            }
+            
+            DecisionTreeExecutionPlan plan = getExecutionPlan();
+            ExecutionContext context = plan.newContext(customerPayload);
+            return plan.execute(context);
         } catch (Exception e) {
             throw new DecisionTreeExecutionException("Failed to evaluate decision tree", id, rootNodeId, e);
         }
     }
     
-    private Map<String, Object> createContextData(CustomerPayload customerPayload) {
-        Map<String, Object> contextData = new HashMap<>();
-        contextData.put("customerId", customerPayload.getCustomerId());
-        contextData.put("accountType", customerPayload.getAccountType());
-        contextData.put("annualIncome", customerPayload.getAnnualIncome());
-        contextData.put("creditScore", customerPayload.getCreditScore());
-        contextData.put("region", customerPayload.getRegion());
-        contextData.put("transactionCount", customerPayload.getTransactionCount());
-        contextData.put("evaluationTime", LocalDateTime.now());
-        return contextData;
+    /**
+     * 獲取執行計畫
+     * 啟用時已編譯；由持久層重建為啟用狀態的決策樹則於首次評估時編譯
+     */
+    public DecisionTreeExecutionPlan getExecutionPlan() {
+        DecisionTreeExecutionPlan plan = executionPlan;
+        if (plan == null) {
+            plan = DecisionTreeExecutionPlan.compile(id, rootNodeId, nodes);
+            executionPlan = plan;
+        }
+        return plan;
     }
     
-    private PromotionResult traverseTree(String nodeId, ExecutionContext context, Set<String> visitedNodes) {
-        // 防止無限循環
-        if (visitedNodes.contains(nodeId)) {
-            throw new DecisionTreeExecutionException("Circular reference detected in decision tree", id, nodeId);
-        }
-        visitedNodes.add(nodeId);
-        
-        DecisionNode node = nodes.get(nodeId);
-        if (node == null) {
-            throw new DecisionTreeExecutionException("Node not found", id, nodeId);
-        }
-        
-        NodeResult result = node.execute(context);
-        if (!result.isSuccess()) {
-            throw new DecisionTreeExecutionException("Node execution failed: " + result.getErrorMessage(), id, nodeId);
-        }
-        
-        Object resultValue = result.getResult();
-        
-        // 如果是計算節點，返回優惠結果
-        if (node instanceof CalculationNode) {
-            if (resultValue instanceof PromotionResult) {
-                return (PromotionResult) resultValue;
-            } else {
-                throw new DecisionTreeExecutionException("Calculation node must return PromotionResult", id, nodeId);
-            }
-        }
-        
-        // 如果是條件節點，繼續遍歷
-        if (node instanceof ConditionNode) {
-            if (resultValue instanceof String) {
-                String nextNodeId = (String) resultValue;
-                if (nextNodeId != null && !nextNodeId.trim().isEmpty()) {
-                    return traverseTree(nextNodeId, context, visitedNodes);
-                }
-            }
-            throw new DecisionTreeExecutionException("Condition node must return valid next node ID", id, nodeId);
-        }
-        
-        throw new DecisionTreeExecutionException("Unknown node type", id, nodeId);
+    /**
+     * 建立目前執行計畫的決策路徑追蹤緩衝區
+     */
+    public DecisionPathTrace newTrace(String requestId) {
+        return getExecutionPlan().newTrace(requestId);
+    }
+    
+    /**
+     * 啟用分支推測預取
+     * 外部系統或資料庫查詢條件節點執行時，同時預取兩個分支的 I/O 子節點
+     *
+     * @param ioExecutor 執行預取的 I/O 執行器
+     * @param maxInFlight 此決策樹同時進行的預取上限
+     */
+    public void enableSpeculativePrefetch(BlockingIoExecutor ioExecutor, int maxInFlight) {
+        this.speculativePrefetcher = new SpeculativeBranchPrefetcher(ioExecutor, maxInFlight);
+    }
+    
+    /**
+     * 停用分支推測預取
+     */
+    public void disableSpeculativePrefetch() {
+        this.speculativePrefetcher = null;
+    }
+    
+    public boolean isSpeculativePrefetchEnabled() {
+        return speculativePrefetcher != null;
+    }
+    
+    /**
+     * 獲取分支推測預取統計，未啟用時回傳 null
+     */
+    public SpeculativeBranchPrefetcher.Statistics getSpeculativePrefetchStatistics() {
+        SpeculativeBranchPrefetcher prefetcher = speculativePrefetcher;
+        return prefetcher != null ? prefetcher.getStatistics() : null;
     }
     
     /**
@@ -152,6 +175,7 @@ public class PromotionDecisionTree {
         }
         
         nodes.put(node.getId(), node);
+        this.executionPlan = null;
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -168,6 +192,7 @@ public class PromotionDecisionTree {
         }
         
         nodes.remove(nodeId);
+        this.executionPlan = null;
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -184,6 +209,7 @@ public class PromotionDecisionTree {
         }
         
         this.rootNodeId = nodeId;
+        this.executionPlan = null;
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -267,6 +293,13 @@ public class PromotionDecisionTree {
             throw new IllegalStateException("Cannot activate tree with validation errors: " + validation.getErrors());
         }
         
+        // 編譯執行計畫，循環參照等結構問題在此即被拒絕
+        try {
+            this.executionPlan = DecisionTreeExecutionPlan.compile(id, rootNodeId, nodes);
+        } catch (DecisionTreeExecutionException e) {
+            throw new IllegalStateException("Cannot activate tree: " + e.getMessage(), e);
+        }
+        
         this.status = TreeStatus.ACTIVE;
         this.updatedAt = LocalDateTime.now();
     }
@@ -276,6 +309,7 @@ public class PromotionDecisionTree {
      */
     public void deactivate() {
         this.status = TreeStatus.INACTIVE;
+        this.executionPlan = null;
         this.updatedAt = LocalDateTime.now();
     }
     
@@ -0,0 +1,343 @@
+package com.bank.promotion.domain.aggregate;
+
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 優惠述詞索引
+ * 彙整所有啟用中決策樹根條件的原子比較式，依客戶欄位建立索引：
+ * 文字欄位以「值 → 決策樹位元集合」對應，數值欄位將所有區間端點排序切分為基本區段，
+ * 每個區段預先計算不涵蓋該區段的決策樹位元集合
+ *
+ * 查詢時每個欄位只需一次查找與一次位元集合運算，即可排除根條件明確不成立的決策樹；
+ * 無法解析的根條件、數值不等式及互相矛盾的等值條件一律保守視為可能成立，
+ * 索引只會縮小候選範圍，最終結果仍由完整評估決定
+ */
+public final class PromotionPredicateIndex {
+
+    private static final BitSet NONE = new BitSet();
+
+    private final List<PromotionDecisionTree> trees;
+    private final List<FieldIndex> fieldIndexes;
+    private final int indexedTreeCount;
+
+    private PromotionPredicateIndex(List<PromotionDecisionTree> trees, List<FieldIndex> fieldIndexes,
+                                    int indexedTreeCount) {
+        this.trees = trees;
+        this.fieldIndexes = fieldIndexes;
+        this.indexedTreeCount = indexedTreeCount;
+    }
+
+    /**
+     * 由啟用中的決策樹建立索引
+     */
+    public static PromotionPredicateIndex build(List<PromotionDecisionTree> trees) {
+        if (trees == null) {
+            throw new IllegalArgumentException("Trees cannot be null");
+        }
+        List<PromotionDecisionTree> indexed = List.copyOf(trees);
+
+        Map<String, TextFieldBuilder> textFields = new LinkedHashMap<>();
+        Map<String, NumericFieldBuilder> numericFields = new LinkedHashMap<>();
+        int indexedTreeCount = 0;
+
+        for (int i = 0; i < indexed.size(); i++) {
+            RootPredicateGuard guard = indexed.get(i).getExecutionPlan().rootGuard();
+            if (guard == null) {
+                continue;
+            }
+            indexedTreeCount++;
+            for (RootPredicateGuard.Comparison comparison : guard.comparisons()) {
+                if (comparison.operand() instanceof String) {
+                    textFields.computeIfAbsent(comparison.field(), TextFieldBuilder::new)
+                        .add(i, comparison.operator(), (String) comparison.operand());
+                } else {
+                    numericFields.computeIfAbsent(comparison.field(), NumericFieldBuilder::new)
+                        .add(i, comparison.operator(), (BigDecimal) comparison.operand());
+                }
+            }
+        }
+
+        List<FieldIndex> fieldIndexes = new ArrayList<>();
+        textFields.values().forEach(builder -> fieldIndexes.add(builder.build()));
+        numericFields.values().forEach(builder -> fieldIndexes.add(builder.build()));
+        return new PromotionPredicateIndex(indexed, List.copyOf(fieldIndexes), indexedTreeCount);
+    }
+
+    /**
+     * 找出根條件可能成立的決策樹
+     *
+     * @return 候選決策樹，維持建立索引時的順序
+     */
+    public List<PromotionDecisionTree> candidates(CustomerPayload customerPayload) {
+        if (customerPayload == null) {
+            throw new IllegalArgumentException("Customer payload cannot be null");
+        }
+
+        BitSet matched = new BitSet(trees.size());
+        matched.set(0, trees.size());
+        for (FieldIndex fieldIndex : fieldIndexes) {
+            Object value = RootPredicateGuard.fieldValue(fieldIndex.field, customerPayload);
+            if (value != null) {
+                matched.andNot(fieldIndex.rejected(value));
+            }
+        }
+
+        List<PromotionDecisionTree> candidates = new ArrayList<>(matched.cardinality());
+        for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+            candidates.add(trees.get(i));
+        }
+        return candidates;
+    }
+
+    public List<PromotionDecisionTree> getTrees() {
+        return trees;
+    }
+
+    /**
+     * 根條件可被索引的決策樹數量
+     */
+    public int getIndexedTreeCount() {
+        return indexedTreeCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionPredicateIndex{" +
+               "trees=" + trees.size() +
+               ", indexedTrees=" + indexedTreeCount +
+               ", fields=" + fieldIndexes.size() +
+               '}';
+    }
+
+    /**
+     * 單一欄位的索引
+     */
+    private abstract static class FieldIndex {
+
+        final String field;
+
+        FieldIndex(String field) {
+            this.field = field;
+        }
+
+        /**
+         * 欄位值為 value 時根條件明確不成立的決策樹
+         */
+        abstract BitSet rejected(Object value);
+    }
+
+    /**
+     * 文字欄位索引
+     * 每個出現過的比較值預先計算被排除的決策樹；未出現過的值排除所有帶等值條件的決策樹
+     */
+    private static final class TextFieldIndex extends FieldIndex {
+
+        private final Map<String, BitSet> rejectedByValue;
+        private final BitSet rejectedOtherwise;
+
+        TextFieldIndex(String field, Map<String, BitSet> rejectedByValue, BitSet rejectedOtherwise) {
+            super(field);
+            this.rejectedByValue = rejectedByValue;
+            this.rejectedOtherwise = rejectedOtherwise;
+        }
+
+        @Override
+        BitSet rejected(Object value) {
+            return rejectedByValue.getOrDefault(value.toString(), rejectedOtherwise);
+        }
+    }
+
+    /**
+     * 數值欄位索引
+     * 端點 b0 < b1 < ... 將數線切分為 (-∞, b0)、[b0]、(b0, b1)、[b1] ... (bk, +∞) 共 2k+1 個基本區段，
+     * 以二分搜尋定位區段後直接取得預先計算的排除集合
+     */
+    private static final class NumericFieldIndex extends FieldIndex {
+
+        private final BigDecimal[] boundaries;
+        private final BitSet[] rejectedBySegment;
+
+        NumericFieldIndex(String field, BigDecimal[] boundaries, BitSet[] rejectedBySegment) {
+            super(field);
+            this.boundaries = boundaries;
+            this.rejectedBySegment = rejectedBySegment;
+        }
+
+        @Override
+        BitSet rejected(Object value) {
+            BigDecimal number;
+            try {
+                number = new BigDecimal(value.toString());
+            } catch (NumberFormatException e) {
+                return NONE;
+            }
+            return rejectedBySegment[segmentOf(boundaries, number)];
+        }
+    }
+
+    private static int segmentOf(BigDecimal[] boundaries, BigDecimal value) {
+        int position = Arrays.binarySearch(boundaries, value);
+        return position >= 0 ? 2 * position + 1 : 2 * (-position - 1);
+    }
+
+    private static final class TextFieldBuilder {
+
+        private final String field;
+        private final BitSet constrained = new BitSet();
+        private final Map<String, BitSet> equalTo = new HashMap<>();
+        private final Map<String, BitSet> notEqualTo = new HashMap<>();
+
+        TextFieldBuilder(String field) {
+            this.field = field;
+        }
+
+        void add(int tree, String operator, String operand) {
+            if ("==".equals(operator)) {
+                constrained.set(tree);
+                equalTo.computeIfAbsent(operand, ignored -> new BitSet()).set(tree);
+            } else if ("!=".equals(operator)) {
+                notEqualTo.computeIfAbsent(operand, ignored -> new BitSet()).set(tree);
+            }
+        }
+
+        FieldIndex build() {
+            Map<String, BitSet> rejectedByValue = new HashMap<>();
+            for (String value : equalTo.keySet()) {
+                rejectedByValue.put(value, rejectedFor(value));
+            }
+            for (String value : notEqualTo.keySet()) {
+                rejectedByValue.put(value, rejectedFor(value));
+            }
+            return new TextFieldIndex(field, rejectedByValue, (BitSet) constrained.clone());
+        }
+
+        private BitSet rejectedFor(String value) {
+            BitSet rejected = (BitSet) constrained.clone();
+            rejected.andNot(equalTo.getOrDefault(value, NONE));
+            rejected.or(notEqualTo.getOrDefault(value, NONE));
+            return rejected;
+        }
+    }
+
+    private static final class NumericFieldBuilder {
+
+        private final String field;
+        private final Map<Integer, Interval> intervals = new LinkedHashMap<>();
+
+        NumericFieldBuilder(String field) {
+            this.field = field;
+        }
+
+        void add(int tree, String operator, BigDecimal operand) {
+            if ("!=".equals(operator)) {
+                return;
+            }
+            Interval interval = intervals.computeIfAbsent(tree, ignored -> new Interval());
+            switch (operator) {
+                case ">":
+                    interval.raiseLower(operand, false);
+                    break;
+                case ">=":
+                    interval.raiseLower(operand, true);
+                    break;
+                case "<":
+                    interval.reduceUpper(operand, false);
+                    break;
+                case "<=":
+                    interval.reduceUpper(operand, true);
+                    break;
+                case "==":
+                    interval.raiseLower(operand, true);
+                    interval.reduceUpper(operand, true);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        FieldIndex build() {
+            TreeSet<BigDecimal> distinct = new TreeSet<>();
+            for (Interval interval : intervals.values()) {
+                if (interval.lower != null) {
+                    distinct.add(interval.lower);
+                }
+                if (interval.upper != null) {
+                    distinct.add(interval.upper);
+                }
+            }
+            BigDecimal[] boundaries = distinct.toArray(new BigDecimal[0]);
+            int segmentCount = 2 * boundaries.length + 1;
+
+            // 以掃描線建立各區段的涵蓋集合：區間於起始區段加入、結束區段之後移除
+            List<List<Integer>> starts = new ArrayList<>(segmentCount);
+            List<List<Integer>> ends = new ArrayList<>(segmentCount);
+            for (int i = 0; i < segmentCount; i++) {
+                starts.add(new ArrayList<>());
+                ends.add(new ArrayList<>());
+            }
+            BitSet constrained = new BitSet();
+            for (Map.Entry<Integer, Interval> entry : intervals.entrySet()) {
+                int tree = entry.getKey();
+                Interval interval = entry.getValue();
+                constrained.set(tree);
+
+                int first = interval.lower == null ? 0
+                    : 2 * Arrays.binarySearch(boundaries, interval.lower) + (interval.lowerInclusive ? 1 : 2);
+                int last = interval.upper == null ? segmentCount - 1
+                    : 2 * Arrays.binarySearch(boundaries, interval.upper) + (interval.upperInclusive ? 1 : 0);
+                if (first <= last) {
+                    starts.get(first).add(tree);
+                    ends.get(last).add(tree);
+                }
+            }
+
+            BitSet[] rejectedBySegment = new BitSet[segmentCount];
+            BitSet covering = new BitSet();
+            for (int segment = 0; segment < segmentCount; segment++) {
+                starts.get(segment).forEach(covering::set);
+                BitSet rejected = (BitSet) constrained.clone();
+                rejected.andNot(covering);
+                rejectedBySegment[segment] = rejected;
+                ends.get(segment).forEach(covering::clear);
+            }
+            return new NumericFieldIndex(field, boundaries, rejectedBySegment);
+        }
+    }
+
+    /**
+     * 單一決策樹於單一數值欄位的可成立區間，多個比較式取交集
+     */
+    private static final class Interval {
+
+        private BigDecimal lower;
+        private boolean lowerInclusive;
+        private BigDecimal upper;
+        private boolean upperInclusive;
+
+        void raiseLower(BigDecimal value, boolean inclusive) {
+            int compared = lower == null ? 1 : value.compareTo(lower);
+            if (compared > 0 || (compared == 0 && !inclusive)) {
+                lower = value;
+                lowerInclusive = inclusive;
+            }
+        }
+
+        void reduceUpper(BigDecimal value, boolean inclusive) {
+            int compared = upper == null ? -1 : value.compareTo(upper);
+            if (compared < 0 || (compared == 0 && !inclusive)) {
+                upper = value;
+                upperInclusive = inclusive;
+            }
+        }
+    }
+}
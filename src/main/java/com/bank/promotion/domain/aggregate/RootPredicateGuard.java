@@ -0,0 +1,160 @@
+package com.bank.promotion.domain.aggregate;
+
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 根節點前置判斷
+ * 針對根條件節點中以 AND 串接的簡單比較式（如 {@code #creditScore > 700 and #accountType == 'VIP'}），
+ * 於評估前直接以客戶資料判斷；只有在條件明確不成立時才略過整棵樹，無法解析的運算式一律視為可能成立
+ */
+final class RootPredicateGuard {
+
+    private static final Pattern CONJUNCTION = Pattern.compile("\\s+(?:and|AND)\\s+|\\s*&&\\s*");
+    private static final Pattern COMPARISON = Pattern.compile(
+        "^\\s*#(\\w+)\\s*(>=|<=|==|!=|>|<)\\s*('([^']*)'|-?\\d+(?:\\.\\d+)?)\\s*$");
+
+    private final List<Comparison> comparisons;
+
+    private RootPredicateGuard(List<Comparison> comparisons) {
+        this.comparisons = comparisons;
+    }
+
+    /**
+     * 解析根條件運算式
+     *
+     * @return 前置判斷；運算式無法完整解析時回傳 null
+     */
+    static RootPredicateGuard parse(String expression) {
+        if (expression == null || expression.trim().isEmpty() || expression.contains("||")
+                || expression.matches("(?s).*\\s(?:or|OR)\\s.*")) {
+            return null;
+        }
+
+        List<Comparison> comparisons = new ArrayList<>();
+        for (String term : CONJUNCTION.split(expression.trim())) {
+            Matcher matcher = COMPARISON.matcher(term);
+            if (!matcher.matches()) {
+                return null;
+            }
+            String field = matcher.group(1);
+            String operator = matcher.group(2);
+            boolean textual = matcher.group(4) != null;
+            Object operand = textual ? matcher.group(4) : new BigDecimal(matcher.group(3));
+            if (!isSupported(field, textual, operator)) {
+                return null;
+            }
+            comparisons.add(new Comparison(field, operator, operand));
+        }
+        return comparisons.isEmpty() ? null : new RootPredicateGuard(List.copyOf(comparisons));
+    }
+
+    private static boolean isSupported(String field, boolean textual, String operator) {
+        switch (field) {
+            case "customerId":
+            case "accountType":
+            case "region":
+                return textual && ("==".equals(operator) || "!=".equals(operator));
+            case "annualIncome":
+            case "creditScore":
+            case "transactionCount":
+                return !textual;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 判斷根條件是否明確不成立
+     */
+    boolean isUnsatisfiedBy(CustomerPayload customerPayload) {
+        for (Comparison comparison : comparisons) {
+            Object actual = fieldValue(comparison.field, customerPayload);
+            if (actual != null && !comparison.test(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    List<Comparison> comparisons() {
+        return comparisons;
+    }
+
+    static Object fieldValue(String field, CustomerPayload customerPayload) {
+        switch (field) {
+            case "customerId":
+                return customerPayload.getCustomerId();
+            case "accountType":
+                return customerPayload.getAccountType();
+            case "region":
+                return customerPayload.getRegion();
+            case "annualIncome":
+                return customerPayload.getAnnualIncome();
+            case "creditScore":
+                return customerPayload.getCreditScore();
+            case "transactionCount":
+                return customerPayload.getTransactionCount();
+            default:
+                return null;
+        }
+    }
+
+    static final class Comparison {
+
+        private final String field;
+        private final String operator;
+        private final Object operand;
+
+        private Comparison(String field, String operator, Object operand) {
+            this.field = field;
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        String field() {
+            return field;
+        }
+
+        String operator() {
+            return operator;
+        }
+
+        /**
+         * 比較值，文字比較為 String，數值比較為 BigDecimal
+         */
+        Object operand() {
+            return operand;
+        }
+
+        private boolean test(Object actual) {
+            if (operand instanceof String) {
+                boolean equal = operand.equals(actual.toString());
+                return "==".equals(operator) == equal;
+            }
+
+            int compared = new BigDecimal(actual.toString()).compareTo((BigDecimal) operand);
+            switch (operator) {
+                case ">":
+                    return compared > 0;
+                case ">=":
+                    return compared >= 0;
+                case "<":
+                    return compared < 0;
+                case "<=":
+                    return compared <= 0;
+                case "==":
+                    return compared == 0;
+                case "!=":
+                    return compared != 0;
+                default:
+                    return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.bank.promotion.domain.aggregate;
+
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import com.bank.promotion.domain.entity.DecisionNode;
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.entity.NodeResult;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分支推測預取器
+ * 由外部系統或資料庫查詢支撐的條件節點執行時，同時於共用 I/O 執行器上預先執行兩個分支中屬於 I/O 節點的子節點；
+ * 條件結果確定後採用勝出分支的結果並取消另一分支
+ *
+ * 預取節點於上下文的分離複本上執行，其寫入在採用時才重播到正式上下文；
+ * 每棵決策樹以並行預算限制同時進行的預取，預算用盡時直接改為依序執行；
+ * 採用的預取失敗時以失敗結果作為節點結果，不重新執行節點，避免重複發出外部呼叫
+ *
+ * 預取需要能非同步執行的 I/O 執行器，{@link BlockingIoExecutor.Mode#CALLER_THREAD} 模式下每次預取都會被拒絕而改為依序執行，
+ * 決策樹註冊表於此模式下不啟用預取
+ */
+public final class SpeculativeBranchPrefetcher {
+
+    private final BlockingIoExecutor ioExecutor;
+    private final Semaphore budget;
+    private final int maxInFlight;
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder adopted = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * @param ioExecutor 執行預取的 I/O 執行器，呼叫端模式無法預取
+     * @param maxInFlight 同時進行的預取上限
+     */
+    public SpeculativeBranchPrefetcher(BlockingIoExecutor ioExecutor, int maxInFlight) {
+        if (ioExecutor == null) {
+            throw new IllegalArgumentException("I/O executor cannot be null");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Speculative prefetch budget must be positive");
+        }
+        this.ioExecutor = ioExecutor;
+        this.maxInFlight = maxInFlight;
+        this.budget = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * 開始預取單一節點
+     *
+     * @param node 預取的節點
+     * @param snapshot 上下文的分離複本，僅供此次預取使用
+     * @return 預取結果；預算用盡或 I/O 執行器無法接受時回傳 null
+     */
+    Speculation start(DecisionNode node, ExecutionContext snapshot) {
+        if (!budget.tryAcquire()) {
+            skipped.increment();
+            return null;
+        }
+
+        Speculation speculation = new Speculation(node.getId());
+        try {
+            speculation.future = ioExecutor.submit(() -> {
+                try {
+                    ExecutionContext.NodeScope scope = snapshot.openNodeScope(node.getId());
+                    NodeResult result = node.execute(snapshot);
+                    Map<String, Object> writes = scope.getPendingValues();
+                    scope.discard();
+                    return new Outcome(result, writes);
+                } finally {
+                    speculation.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            speculation.release();
+            skipped.increment();
+            return null;
+        }
+        issued.increment();
+        return speculation;
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(maxInFlight, maxInFlight - budget.availablePermits(),
+                              issued.sum(), adopted.sum(), cancelled.sum(), skipped.sum());
+    }
+
+    /**
+     * 進行中的預取
+     */
+    final class Speculation {
+
+        private final String nodeId;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile Future<Outcome> future;
+
+        private Speculation(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * 等待並採用預取結果
+         *
+         * @return 預取結果；預取失敗、被取消或被中斷時為不含寫入的失敗結果
+         */
+        Outcome await() {
+            try {
+                Outcome outcome = future.get();
+                adopted.increment();
+                return outcome;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                return Outcome.failure(nodeId, e);
+            } catch (ExecutionException e) {
+                return Outcome.failure(nodeId, e.getCause() != null ? e.getCause() : e);
+            } catch (CancellationException e) {
+                return Outcome.failure(nodeId, e);
+            }
+        }
+
+        /**
+         * 取消預取，執行中的 I/O 會被中斷
+         */
+        void cancel() {
+            if (future.cancel(true)) {
+                cancelled.increment();
+            }
+            release();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                budget.release();
+            }
+        }
+    }
+
+    /**
+     * 預取結果：節點結果與其暫存的上下文寫入
+     */
+    static final class Outcome {
+
+        private final NodeResult result;
+        private final Map<String, Object> writes;
+
+        private Outcome(NodeResult result, Map<String, Object> writes) {
+            this.result = result;
+            this.writes = writes;
+        }
+
+        private static Outcome failure(String nodeId, Throwable cause) {
+            return new Outcome(NodeResult.failure("Speculative prefetch of node " + nodeId + " failed", cause), Map.of());
+        }
+
+        NodeResult getResult() {
+            return result;
+        }
+
+        Map<String, Object> getWrites() {
+            return writes;
+        }
+    }
+
+    /**
+     * 預取統計
+     */
+    public static final class Statistics {
+        private final int budget;
+        private final int inFlight;
+        private final long issued;
+        private final long adopted;
+        private final long cancelled;
+        private final long skipped;
+
+        private Statistics(int budget, int inFlight, long issued, long adopted, long cancelled, long skipped) {
+            this.budget = budget;
+            this.inFlight = inFlight;
+            this.issued = issued;
+            this.adopted = adopted;
+            this.cancelled = cancelled;
+            this.skipped = skipped;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getIssued() {
+            return issued;
+        }
+
+        public long getAdopted() {
+            return adopted;
+        }
+
+        public long getCancelled() {
+            return cancelled;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("SpeculativePrefetchStatistics{budget=%d, inFlight=%d, issued=%d, adopted=%d, " +
+                                 "cancelled=%d, skipped=%d}", budget, inFlight, issued, adopted, cancelled, skipped);
+        }
+    }
+}
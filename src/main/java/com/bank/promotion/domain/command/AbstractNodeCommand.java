@@ -4,6 +4,9 @@ import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 抽象節點命令基礎類別
  * 提供命令的通用功能和模板方法
@@ -46,6 +49,73 @@ public abstract class AbstractNodeCommand implements NodeCommand {
         }
     }
     
+    /**
+     * 批次執行命令
+     * 所有上下文皆不為 null、配置有效且子類別可一次處理時，逐一執行前置處理後交由 {@link #doExecuteBatch} 一次執行，
+     * 再逐一執行後置處理；否則逐筆呼叫 {@link #execute}
+     * 
+     * @param contexts 執行上下文列表
+     * @return 與上下文順序對應的節點執行結果
+     */
+    @Override
+    public final List<NodeResult> executeBatch(List<ExecutionContext> contexts) {
+        if (contexts.size() < 2 || !isValidConfiguration() || !allPresent(contexts) || !canExecuteBatch(contexts)) {
+            return NodeCommand.super.executeBatch(contexts);
+        }
+        
+        List<NodeResult> results;
+        try {
+            for (ExecutionContext context : contexts) {
+                preExecute(context);
+            }
+            results = doExecuteBatch(contexts);
+        } catch (Exception e) {
+            results = new ArrayList<>(contexts.size());
+            for (ExecutionContext context : contexts) {
+                results.add(handleExecutionError(e, context));
+            }
+            return results;
+        }
+        
+        for (int i = 0; i < contexts.size(); i++) {
+            try {
+                postExecute(contexts.get(i), results.get(i));
+            } catch (Exception e) {
+                results.set(i, handleExecutionError(e, contexts.get(i)));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * 是否可一次處理這些上下文，預設為否
+     * 
+     * @param contexts 執行上下文列表，皆不為 null
+     * @return 是否交由 {@link #doExecuteBatch} 執行
+     */
+    protected boolean canExecuteBatch(List<ExecutionContext> contexts) {
+        return false;
+    }
+    
+    /**
+     * 一次執行多筆上下文的核心邏輯，{@link #canExecuteBatch} 返回 true 時才會呼叫
+     * 
+     * @param contexts 執行上下文列表
+     * @return 與上下文順序對應的可修改結果列表
+     */
+    protected List<NodeResult> doExecuteBatch(List<ExecutionContext> contexts) {
+        throw new UnsupportedOperationException("Batch execution is not supported by " + getCommandType());
+    }
+    
+    private static boolean allPresent(List<ExecutionContext> contexts) {
+        for (ExecutionContext context : contexts) {
+            if (context == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * 執行核心邏輯的抽象方法
      * 子類別必須實作具體的執行邏輯
@@ -0,0 +1,397 @@
+package com.bank.promotion.domain.command;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 阻塞式 I/O 執行器
+ * 外部系統與資料庫查詢節點透過此執行器執行阻塞呼叫，以並行上限隔離下游延遲，並讓逾時的呼叫不再拖住請求
+ *
+ * 執行模式：
+ * <ul>
+ *   <li>{@link Mode#CALLER_THREAD}：於呼叫端執行緒直接執行（原有行為）</li>
+ *   <li>{@link Mode#VIRTUAL_THREAD}：每次呼叫使用一條虛擬執行緒，JDK 不支援時退回有界執行緒池</li>
+ *   <li>{@link Mode#BOUNDED_POOL}：使用專屬的有界執行緒池，佇列滿時立即拒絕</li>
+ * </ul>
+ * 所有模式皆以並行上限限制同時進行的呼叫數量，並記錄執行緒使用量與阻塞時間
+ *
+ * {@link #call} 於呼叫期間佔用呼叫端執行緒等待結果；Web 請求不在 Servlet 執行緒上評估含 I/O 節點的決策樹，
+ * 多決策樹評估於其評估執行緒池、批次評估於非同步請求執行緒上呼叫，Servlet 執行緒於評估期間即已釋放
+ *
+ * 被拒絕的呼叫只計入拒絕次數，不計入失敗次數
+ */
+public final class BlockingIoExecutor {
+
+    /**
+     * 執行模式
+     */
+    public enum Mode {
+        CALLER_THREAD,
+        VIRTUAL_THREAD,
+        BOUNDED_POOL
+    }
+
+    private final Mode mode;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final AtomicInteger peakActiveCalls = new AtomicInteger();
+    private final LongAdder completedCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder timedOutCalls = new LongAdder();
+    private final LongAdder totalBlockingNanos = new LongAdder();
+    private final AtomicLong maxBlockingNanos = new AtomicLong();
+
+    private BlockingIoExecutor(Mode mode, ExecutorService executor, int maxConcurrentCalls, int queueCapacity) {
+        this.mode = mode;
+        this.executor = executor;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        // 有界執行緒池本身已限制並行數，許可數再加上佇列容量
+        this.permits = maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls + Math.max(0, queueCapacity)) : null;
+    }
+
+    /**
+     * 建立執行器
+     *
+     * @param requestedMode 要求的執行模式
+     * @param maxConcurrentCalls 同時進行的呼叫上限，0 表示不限制（僅適用於呼叫端模式）
+     * @param queueCapacity 有界執行緒池的等待佇列容量
+     * @return 執行器；要求虛擬執行緒但 JDK 不支援時回傳有界執行緒池模式
+     */
+    public static BlockingIoExecutor create(Mode requestedMode, int maxConcurrentCalls, int queueCapacity) {
+        if (requestedMode == null) {
+            throw new IllegalArgumentException("Execution mode cannot be null");
+        }
+        if (requestedMode != Mode.CALLER_THREAD && maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("Max concurrent calls must be positive for mode " + requestedMode);
+        }
+
+        switch (requestedMode) {
+            case VIRTUAL_THREAD:
+                ExecutorService virtualExecutor = newVirtualThreadExecutor();
+                if (virtualExecutor != null) {
+                    return new BlockingIoExecutor(Mode.VIRTUAL_THREAD, virtualExecutor, maxConcurrentCalls, 0);
+                }
+                return createBoundedPool(maxConcurrentCalls, queueCapacity);
+            case BOUNDED_POOL:
+                return createBoundedPool(maxConcurrentCalls, queueCapacity);
+            default:
+                return new BlockingIoExecutor(Mode.CALLER_THREAD, null, maxConcurrentCalls, 0);
+        }
+    }
+
+    private static BlockingIoExecutor createBoundedPool(int maxThreads, int queueCapacity) {
+        // 佇列容量為 0 時直接交付執行緒，不保留等待位置
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity)
+                                                          : new SynchronousQueue<>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                                                         queue, new IoThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        return new BlockingIoExecutor(Mode.BOUNDED_POOL, pool, maxThreads, queueCapacity);
+    }
+
+    /**
+     * 以反射取得虛擬執行緒執行器，讓程式在未提供虛擬執行緒的 JDK 上仍可編譯與執行
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 執行阻塞呼叫並等待結果
+     *
+     * @param task 阻塞呼叫
+     * @param timeout 等待上限
+     * @param timeUnit 時間單位
+     * @return 呼叫結果
+     * @throws RejectedExecutionException 並行上限已滿或執行緒池拒絕時
+     * @throws TimeoutException 等待逾時時，呼叫會被中斷
+     * @throws Exception 呼叫本身拋出的例外
+     */
+    public <T> T call(Callable<T> task, long timeout, TimeUnit timeUnit) throws Exception {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (permits != null && !permits.tryAcquire()) {
+            rejectedCalls.increment();
+            throw new RejectedExecutionException("Blocking I/O capacity exhausted (" + maxConcurrentCalls + " calls)");
+        }
+
+        try {
+            Future<T> future = null;
+            if (executor != null) {
+                try {
+                    future = executor.submit(task);
+                } catch (RejectedExecutionException e) {
+                    rejectedCalls.increment();
+                    throw e;
+                }
+            }
+
+            long startTime = System.nanoTime();
+            int active = activeCalls.incrementAndGet();
+            peakActiveCalls.accumulateAndGet(active, Math::max);
+            try {
+                T result = future == null ? task.call() : await(future, timeout, timeUnit);
+                completedCalls.increment();
+                return result;
+            } catch (Exception e) {
+                failedCalls.increment();
+                throw e;
+            } finally {
+                activeCalls.decrementAndGet();
+                long blockingNanos = System.nanoTime() - startTime;
+                totalBlockingNanos.add(blockingNanos);
+                maxBlockingNanos.accumulateAndGet(blockingNanos, Math::max);
+            }
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private <T> T await(Future<T> future, long timeout, TimeUnit timeUnit) throws Exception {
+        try {
+            return future.get(timeout, timeUnit);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOutCalls.increment();
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 非同步提交阻塞呼叫，供需要與呼叫端並行發出的預取使用
+     * 呼叫佔用的並行額度於完成或取消時釋放
+     *
+     * @param task 阻塞呼叫
+     * @return 呼叫結果的 Future
+     * @throws RejectedExecutionException 呼叫端模式無法非同步執行，或並行上限已滿時
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Task cannot be null");
+        }
+        if (executor == null) {
+            rejectedCalls.increment();
+            throw new RejectedExecutionException("Asynchronous submission is not available in " + mode + " mode");
+        }
+        if (permits != null && !permits.tryAcquire()) {
+            rejectedCalls.increment();
+            throw new RejectedExecutionException("Blocking I/O capacity exhausted (" + maxConcurrentCalls + " calls)");
+        }
+
+        FutureTask<T> future = new FutureTask<>(() -> {
+            long startTime = System.nanoTime();
+            int active = activeCalls.incrementAndGet();
+            peakActiveCalls.accumulateAndGet(active, Math::max);
+            try {
+                T result = task.call();
+                completedCalls.increment();
+                return result;
+            } catch (Exception e) {
+                failedCalls.increment();
+                throw e;
+            } finally {
+                activeCalls.decrementAndGet();
+                long blockingNanos = System.nanoTime() - startTime;
+                totalBlockingNanos.add(blockingNanos);
+                maxBlockingNanos.accumulateAndGet(blockingNanos, Math::max);
+            }
+        }) {
+            @Override
+            protected void done() {
+                // 正常完成、失敗或取消皆只觸發一次
+                if (permits != null) {
+                    permits.release();
+                }
+            }
+        };
+
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            future.cancel(false);
+            rejectedCalls.increment();
+            throw e;
+        }
+        return future;
+    }
+
+    /**
+     * 實際使用的執行模式
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * 獲取執行統計
+     */
+    public Statistics getStatistics() {
+        int poolSize = 0;
+        int queuedCalls = 0;
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            poolSize = pool.getPoolSize();
+            queuedCalls = pool.getQueue().size();
+        }
+        return new Statistics(mode, maxConcurrentCalls, activeCalls.get(), peakActiveCalls.get(), poolSize,
+                              queuedCalls, completedCalls.sum(), failedCalls.sum(), rejectedCalls.sum(),
+                              timedOutCalls.sum(), totalBlockingNanos.sum(), maxBlockingNanos.get());
+    }
+
+    /**
+     * 關閉執行器；已提交的呼叫會執行完畢
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 執行統計
+     */
+    public static final class Statistics {
+        private final Mode mode;
+        private final int maxConcurrentCalls;
+        private final int activeCalls;
+        private final int peakActiveCalls;
+        private final int poolSize;
+        private final int queuedCalls;
+        private final long completedCalls;
+        private final long failedCalls;
+        private final long rejectedCalls;
+        private final long timedOutCalls;
+        private final long totalBlockingNanos;
+        private final long maxBlockingNanos;
+
+        private Statistics(Mode mode, int maxConcurrentCalls, int activeCalls, int peakActiveCalls, int poolSize,
+                           int queuedCalls, long completedCalls, long failedCalls, long rejectedCalls,
+                           long timedOutCalls, long totalBlockingNanos, long maxBlockingNanos) {
+            this.mode = mode;
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            this.activeCalls = activeCalls;
+            this.peakActiveCalls = peakActiveCalls;
+            this.poolSize = poolSize;
+            this.queuedCalls = queuedCalls;
+            this.completedCalls = completedCalls;
+            this.failedCalls = failedCalls;
+            this.rejectedCalls = rejectedCalls;
+            this.timedOutCalls = timedOutCalls;
+            this.totalBlockingNanos = totalBlockingNanos;
+            this.maxBlockingNanos = maxBlockingNanos;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public int getActiveCalls() {
+            return activeCalls;
+        }
+
+        public int getPeakActiveCalls() {
+            return peakActiveCalls;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public int getQueuedCalls() {
+            return queuedCalls;
+        }
+
+        public long getCompletedCalls() {
+            return completedCalls;
+        }
+
+        public long getFailedCalls() {
+            return failedCalls;
+        }
+
+        public long getRejectedCalls() {
+            return rejectedCalls;
+        }
+
+        public long getTimedOutCalls() {
+            return timedOutCalls;
+        }
+
+        public long getTotalBlockingNanos() {
+            return totalBlockingNanos;
+        }
+
+        public long getMaxBlockingNanos() {
+            return maxBlockingNanos;
+        }
+
+        public double getAverageBlockingMillis() {
+            long calls = completedCalls + failedCalls;
+            return calls > 0 ? totalBlockingNanos / 1_000_000.0 / calls : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BlockingIoStatistics{mode=%s, active=%d, peak=%d, completed=%d, failed=%d, " +
+                                 "rejected=%d, timedOut=%d, avgBlocking=%.2fms}",
+                                 mode, activeCalls, peakActiveCalls, completedCalls, failedCalls,
+                                 rejectedCalls, timedOutCalls, getAverageBlockingMillis());
+        }
+    }
+
+    private static final class IoThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "blocking-io-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.bank.promotion.domain.command;
 
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
 import com.bank.promotion.domain.exception.PromotionSystemException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -11,14 +12,22 @@ import java.util.function.Function;
 /**
  * 命令工廠
  * 負責創建和管理不同類型的節點命令
+ * 命令建立時取得 {@link CommandResources} 中的共用元件
  */
 @Component
 public class CommandFactory {
     
     private final Map<String, Function<NodeConfiguration, NodeCommand>> commandCreators;
+    private final CommandResources resources;
     
     public CommandFactory() {
+        this(CommandResources.defaults());
+    }
+    
+    @Autowired
+    public CommandFactory(CommandResources resources) {
         this.commandCreators = new HashMap<>();
+        this.resources = resources;
         registerDefaultCommands();
     }
     
@@ -27,20 +36,20 @@ public class CommandFactory {
      */
     private void registerDefaultCommands() {
         // SpEL 命令
-        registerCommand("SPEL_CONDITION", config -> new com.bank.promotion.domain.command.spel.SpELConditionCommand(config));
-        registerCommand("SPEL_CALCULATION", config -> new com.bank.promotion.domain.command.spel.SpELCalculationCommand(config));
+        registerCommand("SPEL_CONDITION", config -> new com.bank.promotion.domain.command.spel.SpELConditionCommand(config, resources.getExpressionCache()));
+        registerCommand("SPEL_CALCULATION", config -> new com.bank.promotion.domain.command.spel.SpELCalculationCommand(config, resources.getExpressionCache()));
         
         // Drools 命令
-        registerCommand("DROOLS_CONDITION", config -> new com.bank.promotion.domain.command.drools.DroolsRuleCommand(config));
-        registerCommand("DROOLS_CALCULATION", config -> new com.bank.promotion.domain.command.drools.DroolsRuleCommand(config));
+        registerCommand("DROOLS_CONDITION", config -> new com.bank.promotion.domain.command.drools.DroolsRuleCommand(config, resources.getRuleManager()));
+        registerCommand("DROOLS_CALCULATION", config -> new com.bank.promotion.domain.command.drools.DroolsRuleCommand(config, resources.getRuleManager()));
         
         // 外部系統命令
-        registerCommand("EXTERNAL_SYSTEM_CONDITION", config -> new com.bank.promotion.domain.command.external.ExternalSystemCommand(config));
-        registerCommand("EXTERNAL_SYSTEM_CALCULATION", config -> new com.bank.promotion.domain.command.external.ExternalSystemCommand(config));
+        registerCommand("EXTERNAL_SYSTEM_CONDITION", config -> new com.bank.promotion.domain.command.external.ExternalSystemCommand(config, resources));
+        registerCommand("EXTERNAL_SYSTEM_CALCULATION", config -> new com.bank.promotion.domain.command.external.ExternalSystemCommand(config, resources));
         
         // 資料庫查詢命令
-        registerCommand("DATABASE_QUERY_CONDITION", config -> new com.bank.promotion.domain.command.database.DatabaseQueryCommand(config));
-        registerCommand("DATABASE_QUERY_CALCULATION", config -> new com.bank.promotion.domain.command.database.DatabaseQueryCommand(config));
+        registerCommand("DATABASE_QUERY_CONDITION", config -> new com.bank.promotion.domain.command.database.DatabaseQueryCommand(config, resources));
+        registerCommand("DATABASE_QUERY_CALCULATION", config -> new com.bank.promotion.domain.command.database.DatabaseQueryCommand(config, resources));
     }
     
     /**
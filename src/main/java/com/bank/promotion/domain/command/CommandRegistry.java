@@ -1,6 +1,7 @@
 package com.bank.promotion.domain.command;
 
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.concurrent.ConcurrentHashMap;
@@ -18,8 +19,13 @@ public class CommandRegistry {
     private final CommandFactory commandFactory;
     
     public CommandRegistry() {
+        this(new CommandFactory());
+    }
+    
+    @Autowired
+    public CommandRegistry(CommandFactory commandFactory) {
         this.registeredCommands = new ConcurrentHashMap<>();
-        this.commandFactory = new CommandFactory();
+        this.commandFactory = commandFactory;
     }
     
     /**
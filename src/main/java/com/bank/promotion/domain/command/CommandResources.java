@@ -0,0 +1,110 @@
+package com.bank.promotion.domain.command;
+
+import com.bank.promotion.domain.command.drools.DroolsRuleManager;
+import com.bank.promotion.domain.command.external.ExternalSystemBatchers;
+import com.bank.promotion.domain.command.external.ExternalSystemCircuitBreakers;
+import com.bank.promotion.domain.command.external.ExternalSystemResponseCaches;
+import com.bank.promotion.domain.command.external.HttpClientRegistry;
+import com.bank.promotion.domain.command.external.RequestCoalescer;
+import com.bank.promotion.domain.command.spel.SpELExpressionCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 節點命令共用元件
+ * 彙整節點命令執行時共用的執行器、快取與註冊表，由 {@link CommandFactory} 傳入各命令；
+ * 應用程式中各元件由設定類別依組態建立為容器管理的 Bean，命令建立時即取得設定後的實例
+ *
+ * 未經容器建立的命令（例如單元測試直接建立的命令）使用 {@link #defaults()} 的預設元件，
+ * 預設元件於首次使用時建立，之後不可替換
+ */
+@Component
+public final class CommandResources {
+
+    private final BlockingIoExecutor ioExecutor;
+    private final SpELExpressionCache expressionCache;
+    private final DroolsRuleManager ruleManager;
+    private final HttpClientRegistry httpClients;
+    private final ExternalSystemCircuitBreakers circuitBreakers;
+    private final ExternalSystemResponseCaches responseCaches;
+    private final RequestCoalescer coalescer;
+    private final ExternalSystemBatchers batchers;
+
+    @Autowired
+    public CommandResources(BlockingIoExecutor ioExecutor,
+                            SpELExpressionCache expressionCache,
+                            DroolsRuleManager ruleManager,
+                            HttpClientRegistry httpClients,
+                            ExternalSystemCircuitBreakers circuitBreakers,
+                            ExternalSystemResponseCaches responseCaches,
+                            RequestCoalescer coalescer,
+                            ExternalSystemBatchers batchers) {
+        if (ioExecutor == null || expressionCache == null || ruleManager == null || httpClients == null ||
+            circuitBreakers == null || responseCaches == null || coalescer == null || batchers == null) {
+            throw new IllegalArgumentException("Command resources cannot be null");
+        }
+        this.ioExecutor = ioExecutor;
+        this.expressionCache = expressionCache;
+        this.ruleManager = ruleManager;
+        this.httpClients = httpClients;
+        this.circuitBreakers = circuitBreakers;
+        this.responseCaches = responseCaches;
+        this.coalescer = coalescer;
+        this.batchers = batchers;
+    }
+
+    /**
+     * 預設元件：呼叫端執行緒執行 I/O、不啟用斷路器、合併相同請求
+     */
+    public static CommandResources defaults() {
+        return Defaults.INSTANCE;
+    }
+
+    public BlockingIoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    public SpELExpressionCache getExpressionCache() {
+        return expressionCache;
+    }
+
+    public DroolsRuleManager getRuleManager() {
+        return ruleManager;
+    }
+
+    public HttpClientRegistry getHttpClients() {
+        return httpClients;
+    }
+
+    public ExternalSystemCircuitBreakers getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    public ExternalSystemResponseCaches getResponseCaches() {
+        return responseCaches;
+    }
+
+    public RequestCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    public ExternalSystemBatchers getBatchers() {
+        return batchers;
+    }
+
+    private static final class Defaults {
+
+        private static final CommandResources INSTANCE = new CommandResources(
+            BlockingIoExecutor.create(BlockingIoExecutor.Mode.CALLER_THREAD, 0, 0),
+            new SpELExpressionCache(),
+            new DroolsRuleManager(),
+            new HttpClientRegistry(Duration.ofSeconds(30), 0),
+            new ExternalSystemCircuitBreakers(null),
+            new ExternalSystemResponseCaches(2, 1000),
+            new RequestCoalescer(true),
+            new ExternalSystemBatchers(1)
+        );
+    }
+}
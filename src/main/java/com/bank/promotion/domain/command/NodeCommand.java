@@ -3,6 +3,9 @@ package com.bank.promotion.domain.command;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 節點命令介面
  * 定義所有節點命令的統一介面，實現Command Pattern
@@ -17,6 +20,21 @@ public interface NodeCommand {
      */
     NodeResult execute(ExecutionContext context);
     
+    /**
+     * 批次執行命令
+     * 預設逐筆執行，可一次處理多筆上下文的命令（例如 Drools 規則）可覆寫以分攤每次執行的固定成本
+     * 
+     * @param contexts 執行上下文列表
+     * @return 與上下文順序對應的節點執行結果
+     */
+    default List<NodeResult> executeBatch(List<ExecutionContext> contexts) {
+        List<NodeResult> results = new ArrayList<>(contexts.size());
+        for (ExecutionContext context : contexts) {
+            results.add(execute(context));
+        }
+        return results;
+    }
+    
     /**
      * 獲取命令類型
      * 
@@ -1,9 +1,12 @@
 package com.bank.promotion.domain.command.database;
 
 import com.bank.promotion.domain.command.AbstractNodeCommand;
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import com.bank.promotion.domain.command.CommandResources;
 import com.bank.promotion.domain.command.external.DatabaseExternalSystemAdapter;
 import com.bank.promotion.domain.command.external.ExternalSystemRequest;
 import com.bank.promotion.domain.command.external.ExternalSystemResponse;
+import com.bank.promotion.domain.command.external.RequestCoalescer;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
@@ -13,19 +16,29 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 資料庫查詢命令
  * 透過資料庫查詢執行條件判斷或計算邏輯
+ * 
+ * 相同連線、查詢模板與參數的並行查詢經 {@link RequestCoalescer} 合併為一次查詢，
+ * 節點參數 requestCoalescing 設為 false 時停用
  */
 public class DatabaseQueryCommand extends AbstractNodeCommand {
     
     private final DatabaseExternalSystemAdapter adapter;
     private final boolean isConditionCommand;
     private final int timeoutSeconds;
+    private final RequestCoalescer coalescer;
+    private final BlockingIoExecutor ioExecutor;
     
     public DatabaseQueryCommand(NodeConfiguration configuration) {
+        this(configuration, CommandResources.defaults());
+    }
+    
+    public DatabaseQueryCommand(NodeConfiguration configuration, CommandResources resources) {
         super(configuration);
         
         this.isConditionCommand = "CONDITION".equals(configuration.getNodeType());
@@ -38,6 +51,8 @@ public class DatabaseQueryCommand extends AbstractNodeCommand {
         }
         
         this.adapter = new DatabaseExternalSystemAdapter(connectionString, configuration.getParameters());
+        this.coalescer = getBooleanParameter("requestCoalescing", true) ? resources.getCoalescer() : null;
+        this.ioExecutor = resources.getIoExecutor();
     }
     
     @Override
@@ -46,8 +61,8 @@ public class DatabaseQueryCommand extends AbstractNodeCommand {
             // 建立資料庫查詢請求
             ExternalSystemRequest request = buildDatabaseRequest(context);
             
-            // 執行資料庫查詢
-            ExternalSystemResponse response = adapter.call(request, timeoutSeconds, TimeUnit.SECONDS);
+            // 執行資料庫查詢，阻塞呼叫交由共用 I/O 執行器執行
+            ExternalSystemResponse response = executeQuery(request);
             
             // 處理查詢結果
             if (response.isSuccess()) {
@@ -61,6 +76,20 @@ public class DatabaseQueryCommand extends AbstractNodeCommand {
         }
     }
     
+    /**
+     * 執行資料庫查詢，相同查詢進行中時等待其結果
+     */
+    private ExternalSystemResponse executeQuery(ExternalSystemRequest request) throws Exception {
+        Callable<ExternalSystemResponse> query = () -> ioExecutor.call(
+            () -> adapter.call(request, timeoutSeconds, TimeUnit.SECONDS), timeoutSeconds, TimeUnit.SECONDS);
+        if (coalescer == null) {
+            return query.call();
+        }
+        String scope = "DATABASE " + getStringParameter("connectionString", "") + " " +
+                       getStringParameter("queryTemplate", "");
+        return coalescer.call(scope, request, query, timeoutSeconds, TimeUnit.SECONDS);
+    }
+    
     /**
      * 建立資料庫查詢請求
      */
@@ -0,0 +1,201 @@
+package com.bank.promotion.domain.command.drools;
+
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.runtime.KieSession;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Drools 批次事實
+ * 將多位客戶一次插入同一個會話並只觸發一次規則，再依關聯鍵將規則結果分回各客戶
+ *
+ * 關聯鍵為客戶資料在批次中的位置，以插入的事實物件識別：規則觸發前由監聽器取得該次匹配的客戶事實，
+ * 規則對全域變數 results 的寫入即導向該客戶的結果，既有規則不需修改即可批次執行。
+ * 只有 {@link DroolsFactSchema#isBatchable()} 的規則會批次執行，每次匹配都應含一位客戶事實；
+ * 仍出現不含客戶事實的匹配時，其寫入不分給任何客戶，並由 {@link #hasUncorrelatedMatches()} 回報
+ *
+ * 非客戶的事實必須由所有上下文共用（同一物件），否則不同客戶的上下文資料會在同一工作記憶體中交叉匹配，
+ * 規則不比對客戶事實時亦無法關聯，此時 {@link #of} 返回 null，由呼叫端逐筆執行
+ */
+final class DroolsFactBatch extends DefaultAgendaEventListener {
+
+    private final List<CustomerPayload> customers;
+    private final List<Object> sharedFacts;
+    private final Map<Object, Integer> correlationKeys;
+    private final List<Map<String, Object>> customerResults;
+    private final int[] firedRules;
+    private final Map<String, Object> uncorrelatedResults = new HashMap<>();
+    private final CorrelatedResults results = new CorrelatedResults();
+    private int uncorrelatedMatches;
+    private Map<String, Object> currentResults = uncorrelatedResults;
+
+    private DroolsFactBatch(List<CustomerPayload> customers, List<Object> sharedFacts) {
+        this.customers = customers;
+        this.sharedFacts = sharedFacts;
+        this.correlationKeys = new IdentityHashMap<>(customers.size() * 2);
+        this.customerResults = new ArrayList<>(customers.size());
+        for (int i = 0; i < customers.size(); i++) {
+            correlationKeys.put(customers.get(i), i);
+            customerResults.add(new HashMap<>());
+        }
+        this.firedRules = new int[customers.size()];
+    }
+
+    /**
+     * 建立批次；上下文無法在同一個會話中正確關聯時返回 null
+     *
+     * @param contexts 執行上下文
+     * @param factSchema 規則的事實結構
+     */
+    static DroolsFactBatch of(List<ExecutionContext> contexts, DroolsFactSchema factSchema) {
+        List<CustomerPayload> customers = new ArrayList<>(contexts.size());
+        Map<Object, Boolean> seenCustomers = new IdentityHashMap<>();
+        List<Object> sharedFacts = null;
+        for (ExecutionContext context : contexts) {
+            if (context == null) {
+                return null;
+            }
+            CustomerPayload customer = context.getCustomerPayload();
+            if (customer == null || seenCustomers.put(customer, Boolean.TRUE) != null) {
+                return null;
+            }
+            List<Object> facts = factSchema.selectFacts(context);
+            if (facts.isEmpty() || facts.get(0) != customer) {
+                // 規則不比對客戶事實，結果無法分回各客戶
+                return null;
+            }
+            List<Object> contextFacts = facts.subList(1, facts.size());
+            if (sharedFacts == null) {
+                sharedFacts = new ArrayList<>(contextFacts);
+            } else if (!sameFacts(sharedFacts, contextFacts)) {
+                return null;
+            }
+            customers.add(customer);
+        }
+        return new DroolsFactBatch(customers, sharedFacts != null ? sharedFacts : List.of());
+    }
+
+    /**
+     * 插入所有客戶與共用事實
+     */
+    void insertFacts(KieSession kieSession) {
+        for (Object fact : sharedFacts) {
+            kieSession.insert(fact);
+        }
+        for (CustomerPayload customer : customers) {
+            kieSession.insert(customer);
+        }
+    }
+
+    /**
+     * 規則使用的全域結果，寫入導向目前觸發規則所屬的客戶
+     */
+    Map<String, Object> getResults() {
+        return results;
+    }
+
+    int size() {
+        return customerResults.size();
+    }
+
+    /**
+     * 客戶的規則結果
+     */
+    Map<String, Object> resultsOf(int index) {
+        return customerResults.get(index);
+    }
+
+    /**
+     * 客戶觸發的規則數
+     */
+    int firedRulesOf(int index) {
+        return firedRules[index];
+    }
+
+    /**
+     * 是否有匹配不含任何客戶事實，此時批次結果不可信
+     */
+    boolean hasUncorrelatedMatches() {
+        return uncorrelatedMatches > 0;
+    }
+
+    @Override
+    public void beforeMatchFired(BeforeMatchFiredEvent event) {
+        Integer index = correlationKeyOf(event.getMatch().getObjects());
+        if (index != null) {
+            currentResults = customerResults.get(index);
+            firedRules[index]++;
+        } else {
+            currentResults = uncorrelatedResults;
+            uncorrelatedMatches++;
+        }
+    }
+
+    @Override
+    public void afterMatchFired(AfterMatchFiredEvent event) {
+        currentResults = uncorrelatedResults;
+    }
+
+    private Integer correlationKeyOf(List<? extends Object> matchedObjects) {
+        for (Object matched : matchedObjects) {
+            Integer index = correlationKeys.get(matched);
+            if (index != null) {
+                return index;
+            }
+        }
+        return null;
+    }
+
+    private static boolean sameFacts(List<Object> expected, List<Object> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i) != actual.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 導向目前客戶結果的 Map，規則於 fireAllRules 的呼叫執行緒上依序執行，因此不需同步
+     */
+    private final class CorrelatedResults extends AbstractMap<String, Object> {
+
+        @Override
+        public Object put(String key, Object value) {
+            return currentResults.put(key, value);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return currentResults.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return currentResults.containsKey(key);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return currentResults.remove(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return currentResults.entrySet();
+        }
+    }
+}
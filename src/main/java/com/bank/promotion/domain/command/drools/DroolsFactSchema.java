@@ -0,0 +1,180 @@
+package com.bank.promotion.domain.command.drools;
+
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drools 事實結構
+ * 決定一次規則執行要插入工作記憶體的事實，只插入規則條件實際比對的型別
+ *
+ * 節點以 factKeys 參數宣告要插入的上下文鍵值時，只插入這些鍵值；
+ * 未宣告時由規則條件區段（when 與 then 之間）的模式型別推導，例如 {@code CustomerPayload(...)}、{@code Map(...)}，
+ * 事實的類別或其任一父型別、介面名稱符合模式型別時才插入。條件含 {@code Object(...)} 模式時接受所有事實
+ *
+ * 多位客戶插入同一個會話時，只有每個規則恰好以一個模式比對客戶、且不以量詞或彙總跨客戶比對才能正確分回結果；
+ * 含 not、exists、forall、accumulate、collect、activation-group，或規則條件不含或含多個可比對客戶的模式時不批次執行
+ */
+final class DroolsFactSchema {
+
+    static final String FACT_KEYS_PARAMETER = "factKeys";
+
+    private static final Pattern CONDITION_SECTION = Pattern.compile("\\bwhen\\b(.*?)\\bthen\\b", Pattern.DOTALL);
+    private static final Pattern PATTERN_TYPE = Pattern.compile("(?<![\\w.])((?:[a-z_]\\w*\\.)*[A-Z]\\w*)\\s*\\(");
+    private static final String ANY_TYPE = "Object";
+    private static final Pattern CROSS_FACT_KEYWORD =
+        Pattern.compile("(?<![\\w.$\"])(not|exists|forall|accumulate|collect)(?![\\w\"])");
+    private static final Pattern ACTIVATION_GROUP = Pattern.compile("(?m)^[ \\t]*activation-group\\b");
+    private static final Set<String> CUSTOMER_TYPES = typeNamesOf(CustomerPayload.class);
+
+    private final Set<String> patternTypes;
+    private final List<String> factKeys;
+    private final boolean acceptsAnyType;
+    private final boolean batchable;
+    private final Map<Class<?>, Boolean> typeDecisions = new ConcurrentHashMap<>();
+
+    private DroolsFactSchema(Set<String> patternTypes, List<String> factKeys, boolean batchable) {
+        this.patternTypes = patternTypes;
+        this.factKeys = factKeys;
+        this.acceptsAnyType = patternTypes.contains(ANY_TYPE);
+        this.batchable = batchable;
+    }
+
+    /**
+     * 依完整規則檔內容與節點宣告的 factKeys 建立事實結構
+     *
+     * @param ruleContent 完整規則檔內容（含包裝後的預設規則）
+     * @param declaredFactKeys factKeys 參數，可為集合或逗號分隔字串，未宣告時為 null
+     */
+    static DroolsFactSchema of(String ruleContent, Object declaredFactKeys) {
+        Set<String> types = new HashSet<>();
+        boolean batchable = !ACTIVATION_GROUP.matcher(ruleContent).find();
+        boolean anySection = false;
+        Matcher section = CONDITION_SECTION.matcher(ruleContent);
+        while (section.find()) {
+            anySection = true;
+            int customerPatterns = 0;
+            Matcher type = PATTERN_TYPE.matcher(section.group(1));
+            while (type.find()) {
+                String name = type.group(1);
+                String simpleName = name.substring(name.lastIndexOf('.') + 1);
+                types.add(simpleName);
+                if (CUSTOMER_TYPES.contains(simpleName)) {
+                    customerPatterns++;
+                }
+            }
+            if (customerPatterns != 1 || CROSS_FACT_KEYWORD.matcher(section.group(1)).find()) {
+                batchable = false;
+            }
+        }
+        return new DroolsFactSchema(Collections.unmodifiableSet(types), parseFactKeys(declaredFactKeys),
+                                    batchable && anySection);
+    }
+
+    /**
+     * 依結構挑選要插入的事實
+     */
+    List<Object> selectFacts(ExecutionContext context) {
+        List<Object> facts = new ArrayList<>();
+        if (context.getCustomerPayload() != null && accepts(context.getCustomerPayload())) {
+            facts.add(context.getCustomerPayload());
+        }
+        Map<String, Object> contextData = context.getContextData();
+        if (factKeys != null) {
+            for (String key : factKeys) {
+                Object value = contextData.get(key);
+                if (value != null) {
+                    facts.add(value);
+                }
+            }
+            return facts;
+        }
+        for (Object value : contextData.values()) {
+            if (value != null && accepts(value)) {
+                facts.add(value);
+            }
+        }
+        return facts;
+    }
+
+    Set<String> getPatternTypes() {
+        return patternTypes;
+    }
+
+    /**
+     * 多位客戶能否插入同一個會話批次執行：每個規則恰好以一個模式比對客戶，且不跨事實量化或彙總
+     */
+    boolean isBatchable() {
+        return batchable;
+    }
+
+    private boolean accepts(Object fact) {
+        if (acceptsAnyType) {
+            return true;
+        }
+        return typeDecisions.computeIfAbsent(fact.getClass(), this::matchesPatternType);
+    }
+
+    private boolean matchesPatternType(Class<?> factType) {
+        for (String typeName : typeNamesOf(factType)) {
+            if (patternTypes.contains(typeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 類別與其所有父型別、介面的簡單名稱
+     */
+    private static Set<String> typeNamesOf(Class<?> factType) {
+        Set<String> names = new HashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        Set<Class<?>> visited = new HashSet<>();
+        pending.push(factType);
+        while (!pending.isEmpty()) {
+            Class<?> type = pending.pop();
+            if (!visited.add(type)) {
+                continue;
+            }
+            names.add(type.getSimpleName());
+            if (type.getSuperclass() != null) {
+                pending.push(type.getSuperclass());
+            }
+            for (Class<?> anInterface : type.getInterfaces()) {
+                pending.push(anInterface);
+            }
+        }
+        return names;
+    }
+
+    private static List<String> parseFactKeys(Object declared) {
+        if (declared == null) {
+            return null;
+        }
+        Collection<?> names = declared instanceof Collection
+            ? (Collection<?>) declared
+            : Arrays.asList(declared.toString().split(","));
+        List<String> keys = new ArrayList<>();
+        for (Object name : names) {
+            String key = name.toString().trim();
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return Collections.unmodifiableList(keys);
+    }
+}
@@ -0,0 +1,291 @@
+package com.bank.promotion.domain.command.drools;
+
+import org.kie.api.KieServices;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Drools 預編譯模組快取
+ * 將規則建構完成的 KieModule（kjar 位元組，含已編譯的規則類別與 kbase.cache）存放於本機目錄，
+ * 以規則ID、完整規則檔內容與 Drools 版本的 SHA-256 雜湊為鍵值；
+ * 重新啟動或擴充節點時命中快取即直接載入模組，內容或版本變更時雜湊不同而重新編譯
+ *
+ * 寫入先寫暫存檔再以原子搬移取代，多個程序共用同一目錄時不會讀到寫入一半的檔案；
+ * 讀取失敗的檔案視為未命中並刪除
+ *
+ * 檔名以規則ID的雜湊為前綴，寫入規則的新版本時刪除同一規則的舊版本；
+ * 目錄內的模組數超過上限時依最近使用時間刪除最舊的模組
+ */
+public final class DroolsKieModuleCache {
+
+    private static final String FILE_SUFFIX = ".kjar";
+    private static final String DROOLS_VERSION = droolsVersion();
+    private static final int DEFAULT_MAX_MODULES = 1000;
+    private static final int RULE_PREFIX_LENGTH = 16;
+
+    private final Path directory;
+    private final int maxModules;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DroolsKieModuleCache(Path directory) {
+        this(directory, DEFAULT_MAX_MODULES);
+    }
+
+    /**
+     * @param maxModules 目錄內保留的模組數上限
+     */
+    public DroolsKieModuleCache(Path directory, int maxModules) {
+        if (directory == null) {
+            throw new IllegalArgumentException("Cache directory cannot be null");
+        }
+        if (maxModules <= 0) {
+            throw new IllegalArgumentException("Max modules must be positive");
+        }
+        this.maxModules = maxModules;
+        try {
+            this.directory = Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create Drools module cache directory " + directory, e);
+        }
+    }
+
+    /**
+     * 計算快取鍵值
+     *
+     * @param ruleId 規則ID
+     * @param fullRuleContent 實際編譯的完整規則檔內容
+     * @return 規則ID雜湊前綴與十六進位 SHA-256 雜湊
+     */
+    public String keyOf(String ruleId, String fullRuleContent) {
+        MessageDigest digest = sha256();
+        digest.update(DROOLS_VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(ruleId.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(fullRuleContent.getBytes(StandardCharsets.UTF_8));
+        return rulePrefix(ruleId) + HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 讀取快取的模組
+     *
+     * @param key 快取鍵值
+     * @return kjar 位元組，未命中時為 null
+     */
+    public byte[] load(String key) {
+        Path file = fileOf(key);
+        if (!Files.isRegularFile(file)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            hits.incrementAndGet();
+            touch(file);
+            return bytes;
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            misses.incrementAndGet();
+            evict(key);
+            return null;
+        }
+    }
+
+    /**
+     * 寫入模組，並刪除同一規則的其他版本與超過上限的最舊模組；寫入失敗只計數不拋出，編譯結果仍可使用
+     */
+    public void store(String key, byte[] moduleBytes) {
+        Path file = fileOf(key);
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, moduleBytes);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stores.incrementAndGet();
+            prune(key);
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                    // 暫存檔留待下次清理
+                }
+            }
+        }
+    }
+
+    /**
+     * 刪除無法載入的模組
+     */
+    public void evict(String key) {
+        try {
+            Files.deleteIfExists(fileOf(key));
+        } catch (IOException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(hits.get(), misses.get(), stores.get(), failures.get(), evictions.get());
+    }
+
+    private Path fileOf(String key) {
+        return directory.resolve(key + FILE_SUFFIX);
+    }
+
+    /**
+     * 刪除同一規則的其他版本，再依最近使用時間刪除超過上限的模組
+     */
+    private void prune(String storedKey) {
+        String sameRulePrefix = storedKey.substring(0, RULE_PREFIX_LENGTH + 1);
+        String storedName = storedKey + FILE_SUFFIX;
+        List<Path> modules = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(FILE_SUFFIX)) {
+                    continue;
+                }
+                if (name.startsWith(sameRulePrefix) && !name.equals(storedName)) {
+                    delete(file);
+                } else {
+                    modules.add(file);
+                }
+            }
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            return;
+        }
+        if (modules.size() <= maxModules) {
+            return;
+        }
+        Map<Path, Long> lastUsed = new HashMap<>();
+        for (Path module : modules) {
+            lastUsed.put(module, lastModifiedMillis(module));
+        }
+        modules.sort(Comparator.comparing(lastUsed::get));
+        for (Path module : modules.subList(0, modules.size() - maxModules)) {
+            delete(module);
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            if (Files.deleteIfExists(file)) {
+                evictions.incrementAndGet();
+            }
+        } catch (IOException e) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * 以修改時間記錄最近使用時間，供超過上限時淘汰
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // 只影響淘汰順序
+        }
+    }
+
+    private static long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static String rulePrefix(String ruleId) {
+        byte[] hash = sha256().digest(ruleId.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash).substring(0, RULE_PREFIX_LENGTH) + "-";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String droolsVersion() {
+        String version = KieServices.class.getPackage().getImplementationVersion();
+        return version != null ? version : "unknown";
+    }
+
+    /**
+     * 快取統計資訊
+     */
+    public static final class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long stores;
+        private final long failures;
+        private final long evictions;
+
+        public Statistics(long hits, long misses, long stores, long failures, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.stores = stores;
+            this.failures = failures;
+            this.evictions = evictions;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getStores() {
+            return stores;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * 因規則改版或超過上限而刪除的模組數
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("DroolsKieModuleCache.Statistics{hits=%d, misses=%d, stores=%d, failures=%d, " +
+                                 "evictions=%d}", hits, misses, stores, failures, evictions);
+        }
+    }
+}
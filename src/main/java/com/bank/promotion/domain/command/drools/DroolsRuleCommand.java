@@ -1,76 +1,122 @@
 package com.bank.promotion.domain.command.drools;
 
 import com.bank.promotion.domain.command.AbstractNodeCommand;
+import com.bank.promotion.domain.command.CommandResources;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
 import com.bank.promotion.domain.valueobject.PromotionResult;
-import org.kie.api.KieServices;
-import org.kie.api.builder.KieBuilder;
-import org.kie.api.builder.KieFileSystem;
-import org.kie.api.builder.Message;
-import org.kie.api.runtime.KieContainer;
+import org.kie.api.event.rule.AgendaEventListener;
 import org.kie.api.runtime.KieSession;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 /**
  * Drools 規則命令
  * 使用 Drools 規則引擎執行業務規則
+ *
+ * 以 ruleName 參數命名的規則由規則管理器持有內容，命令只依名稱查詢目前發佈的版本，不以節點的表達式註冊，
+ * 規則發佈後既有命令即使用新版本，尚未發佈的規則執行時回報失敗；
+ * 未指定 ruleName 的節點以表達式為規則內容，建立命令時以隨機名稱註冊
+ *
+ * 會話取自規則管理器的會話池，執行後歸還；只插入事實結構允許的事實，
+ * 可透過 factKeys 參數限定要插入的上下文鍵值
+ *
+ * 批次執行時將所有客戶插入同一個會話並只觸發一次規則，結果依客戶事實分回各上下文，
+ * 見 {@link DroolsFactBatch}；規則條件會跨客戶比對時逐筆執行
+ *
+ * 依規則管理器的指標取樣率，取樣的執行掛上監聽器記錄各 DRL 規則的匹配、觸發次數與執行時間；
+ * 只記錄以 ruleName 參數命名的規則
  */
 public class DroolsRuleCommand extends AbstractNodeCommand {
     
-    private static final DroolsRuleManager RULE_MANAGER = new DroolsRuleManager();
+    private final DroolsRuleManager ruleManager;
     private final String ruleName;
     private final boolean isConditionRule;
+    private final Object declaredFactKeys;
+    private final boolean namedRule;
+    private volatile SchemaBinding schemaBinding;
+    private volatile Boolean validConfiguration;
     
     public DroolsRuleCommand(NodeConfiguration configuration) {
+        this(configuration, CommandResources.defaults().getRuleManager());
+    }
+    
+    public DroolsRuleCommand(NodeConfiguration configuration, DroolsRuleManager ruleManager) {
         super(configuration);
+        this.ruleManager = ruleManager;
+        
+        this.namedRule = configuration.getParameters().get("ruleName") != null;
+        this.isConditionRule = "CONDITION".equals(configuration.getNodeType());
+        this.declaredFactKeys = configuration.getParameters().get(DroolsFactSchema.FACT_KEYS_PARAMETER);
+        
+        if (namedRule) {
+            this.ruleName = getStringParameter("ruleName", null).trim();
+            if (ruleName.isEmpty()) {
+                throw new IllegalArgumentException("Drools rule name cannot be empty");
+            }
+            return;
+        }
         
         if (configuration.getExpression() == null || configuration.getExpression().trim().isEmpty()) {
             throw new IllegalArgumentException("Drools rule content cannot be null or empty");
         }
+        this.ruleName = "DefaultRule_" + UUID.randomUUID().toString();
         
-        this.ruleName = getStringParameter("ruleName", "DefaultRule_" + UUID.randomUUID().toString());
-        this.isConditionRule = "CONDITION".equals(configuration.getNodeType());
-        
-        // 註冊規則到管理器
-        if (!RULE_MANAGER.registerRule(this.ruleName, configuration.getExpression())) {
+        // 未命名的規則以節點表達式註冊到管理器
+        if (!ruleManager.registerRule(this.ruleName, configuration.getExpression())) {
             throw new IllegalArgumentException("Failed to register Drools rule: " + this.ruleName);
         }
     }
     
-
+    /**
+     * 目前發佈版本的事實結構；規則發佈新版本時重新解析，規則不存在時為 null
+     */
+    private DroolsFactSchema factSchema() {
+        String ruleContent = ruleManager.getRuleContent(ruleName);
+        if (ruleContent == null) {
+            return null;
+        }
+        SchemaBinding binding = schemaBinding;
+        if (binding == null || binding.ruleContent != ruleContent) {
+            String ruleSource = ruleManager.getRuleSource(ruleName);
+            if (ruleSource == null) {
+                return null;
+            }
+            binding = new SchemaBinding(ruleContent, DroolsFactSchema.of(ruleSource, declaredFactKeys));
+            schemaBinding = binding;
+        }
+        return binding.schema;
+    }
     
+
     @Override
     protected NodeResult doExecute(ExecutionContext context) {
         KieSession kieSession = null;
+        AgendaEventListener metricsListener = null;
         try {
-            // 從管理器獲取 KieContainer
-            KieContainer kieContainer = RULE_MANAGER.getRuleContainer(ruleName);
-            if (kieContainer == null) {
+            DroolsFactSchema factSchema = factSchema();
+            // 從規則的會話池取得 KieSession
+            kieSession = factSchema != null ? ruleManager.borrowSession(ruleName) : null;
+            if (kieSession == null) {
                 return NodeResult.failure("Drools rule not found: " + ruleName);
             }
-            
-            // 建立 KieSession
-            kieSession = kieContainer.newKieSession();
+            metricsListener = attachRuleMetrics(kieSession);
             
             // 準備規則執行的資料
             Map<String, Object> results = new HashMap<>();
             kieSession.setGlobal("results", results);
             
-            // 插入客戶資料作為事實
-            if (context.getCustomerPayload() != null) {
-                kieSession.insert(context.getCustomerPayload());
-            }
-            
-            // 插入上下文資料作為事實
-            for (Map.Entry<String, Object> entry : context.getContextData().entrySet()) {
-                kieSession.insert(entry.getValue());
+            // 只插入規則條件比對的事實
+            List<Object> facts = factSchema.selectFacts(context);
+            for (Object fact : facts) {
+                kieSession.insert(fact);
             }
             
             // 執行規則
@@ -91,11 +137,114 @@ public class DroolsRuleCommand extends AbstractNodeCommand {
             return NodeResult.failure("Drools rule execution failed: " + e.getMessage(), e);
         } finally {
             if (kieSession != null) {
-                kieSession.dispose();
+                detachRuleMetrics(kieSession, metricsListener);
+                // 池化會話重設並歸還會話池
+                ruleManager.releaseSession(kieSession);
             }
         }
     }
     
+    /**
+     * 規則條件可在同一個會話中區分各客戶時才批次執行，見 {@link DroolsFactSchema#isBatchable()}
+     */
+    @Override
+    protected boolean canExecuteBatch(List<ExecutionContext> contexts) {
+        DroolsFactSchema factSchema = factSchema();
+        return factSchema != null && factSchema.isBatchable();
+    }
+    
+    @Override
+    protected List<NodeResult> doExecuteBatch(List<ExecutionContext> contexts) {
+        DroolsFactSchema factSchema = factSchema();
+        DroolsFactBatch batch = factSchema != null ? DroolsFactBatch.of(contexts, factSchema) : null;
+        if (batch == null) {
+            // 上下文資料各不相同，無法在同一個會話中區分，逐筆執行
+            List<NodeResult> results = new ArrayList<>(contexts.size());
+            for (ExecutionContext context : contexts) {
+                results.add(doExecute(context));
+            }
+            return results;
+        }
+        
+        KieSession kieSession = null;
+        AgendaEventListener metricsListener = null;
+        try {
+            kieSession = ruleManager.borrowSession(ruleName);
+            if (kieSession == null) {
+                return failAll(contexts.size(), NodeResult.failure("Drools rule not found: " + ruleName));
+            }
+            metricsListener = attachRuleMetrics(kieSession);
+            kieSession.setGlobal("results", batch.getResults());
+            kieSession.addEventListener(batch);
+            batch.insertFacts(kieSession);
+            
+            // 整批只觸發一次規則
+            kieSession.fireAllRules();
+            
+            if (batch.hasUncorrelatedMatches()) {
+                return failAll(contexts.size(),
+                               NodeResult.failure("Drools rule matched without a customer fact in batch execution"));
+            }
+            List<NodeResult> results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(toNodeResult(batch, i, contexts.get(i)));
+            }
+            return results;
+            
+        } catch (Exception e) {
+            return failAll(contexts.size(), NodeResult.failure("Drools rule execution failed: " + e.getMessage(), e));
+        } finally {
+            if (kieSession != null) {
+                kieSession.removeEventListener(batch);
+                detachRuleMetrics(kieSession, metricsListener);
+                ruleManager.releaseSession(kieSession);
+            }
+        }
+    }
+    
+    /**
+     * 未指定 ruleName 的節點每次建立命令都以隨機名稱註冊規則，不記錄指標，避免指標標籤數量無上限
+     */
+    private AgendaEventListener attachRuleMetrics(KieSession kieSession) {
+        if (!namedRule) {
+            return null;
+        }
+        AgendaEventListener listener = ruleManager.sampleRuleMetrics(ruleName);
+        if (listener != null) {
+            kieSession.addEventListener(listener);
+        }
+        return listener;
+    }
+    
+    /**
+     * 監聽器須在歸還會話池前移除，否則會留在池化會話上
+     */
+    private void detachRuleMetrics(KieSession kieSession, AgendaEventListener listener) {
+        if (listener != null) {
+            kieSession.removeEventListener(listener);
+        }
+    }
+    
+    private NodeResult toNodeResult(DroolsFactBatch batch, int index, ExecutionContext context) {
+        if (batch.firedRulesOf(index) == 0) {
+            return NodeResult.failure("No Drools rules were fired");
+        }
+        Map<String, Object> results = batch.resultsOf(index);
+        if (isConditionRule) {
+            return handleConditionResult(results);
+        } else {
+            return handleCalculationResult(results, context);
+        }
+    }
+    
+    private static List<NodeResult> failAll(int size, NodeResult failure) {
+        List<NodeResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(failure);
+        }
+        return results;
+    }
+    
     /**
      * 處理條件規則的執行結果
      */
@@ -179,8 +328,20 @@ public class DroolsRuleCommand extends AbstractNodeCommand {
         return isConditionRule ? "DROOLS_CONDITION" : "DROOLS_CALCULATION";
     }
     
+    /**
+     * 配置於建構後不變，驗證結果只計算一次，避免每次執行都編譯暫存容器
+     */
     @Override
     public boolean isValidConfiguration() {
+        Boolean valid = validConfiguration;
+        if (valid == null) {
+            valid = validateConfiguration();
+            validConfiguration = valid;
+        }
+        return valid;
+    }
+    
+    private boolean validateConfiguration() {
         if (configuration == null) {
             return false;
         }
@@ -190,13 +351,31 @@ public class DroolsRuleCommand extends AbstractNodeCommand {
             return false;
         }
         
+        // 命名規則的內容由規則管理器持有，發佈時已驗證
+        if (namedRule) {
+            return true;
+        }
+        
         // 驗證規則內容
         if (configuration.getExpression() == null || configuration.getExpression().trim().isEmpty()) {
             return false;
         }
         
         // 使用規則管理器驗證規則語法
-        DroolsRuleManager.RuleValidationResult validationResult = RULE_MANAGER.validateRule(configuration.getExpression());
+        DroolsRuleManager.RuleValidationResult validationResult = ruleManager.validateRule(configuration.getExpression());
         return validationResult.isValid();
     }
-}
\ No newline at end of file
+    
+    /**
+     * 事實結構與其解析來源的規則內容
+     */
+    private static final class SchemaBinding {
+        private final String ruleContent;
+        private final DroolsFactSchema schema;
+        
+        private SchemaBinding(String ruleContent, DroolsFactSchema schema) {
+            this.ruleContent = ruleContent;
+            this.schema = schema;
+        }
+    }
+}
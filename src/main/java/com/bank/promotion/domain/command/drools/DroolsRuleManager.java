@@ -1,42 +1,197 @@
 package com.bank.promotion.domain.command.drools;
 
+import org.drools.core.impl.InternalRuleBase;
+import org.kie.api.KieBase;
 import org.kie.api.KieServices;
 import org.kie.api.builder.KieBuilder;
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
 import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.KieModule;
 import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.definition.KiePackage;
+import org.kie.api.event.rule.AgendaEventListener;
 import org.kie.api.runtime.KieContainer;
-import org.springframework.stereotype.Component;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionsPool;
+import org.kie.internal.builder.IncrementalResults;
+import org.kie.internal.builder.InternalKieBuilder;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Drools 規則管理器
  * 提供規則的熱更新和快取管理功能
+ *
+ * 每個規則容器附帶一個會話池，執行時由池中取得會話，dispose 時重設工作記憶體並歸還，
+ * 不必每次執行都建立與銷毀會話
+ *
+ * 規則庫有兩種模式：
+ * PER_RULE 每個規則各自建構 KieContainer，擁有獨立的 Rete 網路與類別載入器；
+ * SHARED 所有規則編譯進同一個 KieBase，每個規則放在獨立的 package 並指派以規則ID命名的 agenda group，
+ * 執行時只讓該 agenda group 取得焦點，規則變更時只增量編譯該規則的檔案，再以新建的容器替換共用規則庫，
+ * 不就地更新評估中會話所用的 KieBase
+ *
+ * 規則編譯在專用的編譯執行緒上以版本化工作進行，不佔用呼叫端與評估流量的執行緒。
+ * 編譯完成的規則以 AtomicReference 無鎖發佈，版本較舊的工作不會覆蓋較新的版本；
+ * 發佈前取得的會話繼續使用舊版本直到歸還，舊版本的會話池於替換後關閉，容器於最後一個會話歸還後釋放；
+ * 兩種模式的規則庫都以借出會話數計數的 {@link RuleBase} 管理
+ *
+ * PER_RULE 模式可搭配預編譯模組快取，規則內容雜湊未變更時直接載入先前建構的模組，不重新編譯
  */
-@Component
 public class DroolsRuleManager {
     
-    private final ConcurrentMap<String, KieContainer> ruleContainers;
-    private final ConcurrentMap<String, String> ruleContents;
+    /**
+     * 規則庫模式
+     */
+    public enum KieBaseMode {
+        PER_RULE,
+        SHARED
+    }
+    
+    /**
+     * 編譯工作狀態
+     */
+    public enum CompileStatus {
+        QUEUED,
+        COMPILING,
+        PUBLISHED,
+        FAILED,
+        SUPERSEDED
+    }
+    
+    /**
+     * 會話池初始大小，池會依並行需求自動擴充
+     */
+    private static final int SESSION_POOL_INITIAL_SIZE = Runtime.getRuntime().availableProcessors();
+    
+    private static final int DEFAULT_COMPILE_PARALLELISM = 1;
+    
+    /**
+     * 同步等待編譯工作的上限
+     */
+    private static final Duration COMPILE_AWAIT_TIMEOUT = Duration.ofSeconds(60);
+    
+    private static final String RULE_PACKAGE = "com.bank.promotion.rules";
+    private static final Pattern RULE_HEADER = Pattern.compile("(?m)^([ \\t]*rule[ \\t]+(?:\"[^\"]*\"|'[^']*'|\\S+).*)$");
+    private static final Pattern AGENDA_GROUP_ATTRIBUTE = Pattern.compile("(?m)^[ \\t]*agenda-group[ \\t]+(?:\"[^\"]*\"|'[^']*'|\\S+)[ \\t]*\\R?");
+    
+    /**
+     * 載入快取模組時串行化同一 ReleaseId 的 KieRepository 操作
+     */
+    private static final Object[] MODULE_LOAD_LOCKS = new Object[32];
+    
+    static {
+        for (int i = 0; i < MODULE_LOAD_LOCKS.length; i++) {
+            MODULE_LOAD_LOCKS[i] = new Object();
+        }
+    }
+    
+    private final KieBaseMode mode;
+    private final ConcurrentMap<String, RuleSlot> ruleSlots;
+    private final ThreadPoolExecutor compileExecutor;
     private final KieServices kieServices;
+    private final DroolsKieModuleCache moduleCache;
+    private final DroolsRuleMetrics ruleMetrics;
+    private final ConcurrentMap<KieSession, RuleBase> borrowedSessions = new ConcurrentHashMap<>();
+    
+    // SHARED 模式的增量編譯狀態，由 synchronized 方法維護；共用規則庫以 CAS 發佈
+    private final ReleaseId sharedReleaseId;
+    private KieFileSystem sharedFileSystem;
+    private KieBuilder sharedBuilder;
+    private final AtomicReference<RuleBase> sharedBase = new AtomicReference<>();
     
     public DroolsRuleManager() {
-        this.ruleContainers = new ConcurrentHashMap<>();
-        this.ruleContents = new ConcurrentHashMap<>();
+        this(KieBaseMode.PER_RULE);
+    }
+    
+    public DroolsRuleManager(KieBaseMode mode) {
+        this(mode, DEFAULT_COMPILE_PARALLELISM);
+    }
+    
+    public DroolsRuleManager(KieBaseMode mode, int compileParallelism) {
+        this(mode, compileParallelism, null);
+    }
+    
+    /**
+     * @param moduleCache 預編譯模組快取，為 null 時每次都重新編譯；SHARED 模式以增量編譯維護共用規則庫，不使用此快取
+     */
+    public DroolsRuleManager(KieBaseMode mode, int compileParallelism, DroolsKieModuleCache moduleCache) {
+        this(mode, compileParallelism, moduleCache, new DroolsRuleMetrics(0.0));
+    }
+    
+    /**
+     * @param ruleMetrics 規則執行指標，取樣率為 0 時不記錄
+     */
+    public DroolsRuleManager(KieBaseMode mode, int compileParallelism, DroolsKieModuleCache moduleCache,
+                             DroolsRuleMetrics ruleMetrics) {
+        if (mode == null) {
+            throw new IllegalArgumentException("KieBase mode cannot be null");
+        }
+        if (compileParallelism <= 0) {
+            throw new IllegalArgumentException("Compile parallelism must be positive");
+        }
+        if (ruleMetrics == null) {
+            throw new IllegalArgumentException("Rule metrics cannot be null");
+        }
+        this.mode = mode;
+        this.ruleSlots = new ConcurrentHashMap<>();
+        this.compileExecutor = new ThreadPoolExecutor(compileParallelism, compileParallelism, 60L, TimeUnit.SECONDS,
+                                                      new LinkedBlockingQueue<>(), new CompileThreadFactory());
+        this.compileExecutor.allowCoreThreadTimeOut(true);
         this.kieServices = KieServices.Factory.get();
+        this.moduleCache = moduleCache;
+        this.ruleMetrics = ruleMetrics;
+        this.sharedReleaseId = kieServices.newReleaseId("com.bank.promotion", "shared-rules-" + System.identityHashCode(this), "1.0.0");
+    }
+    
+    public KieBaseMode getMode() {
+        return mode;
     }
     
     /**
-     * 註冊或更新規則
+     * 註冊或更新規則，等待編譯完成
      * 
      * @param ruleId 規則ID
      * @param ruleContent 規則內容
-     * @return 是否成功註冊/更新
+     * @return 是否成功註冊/更新；等待逾時視為失敗
      */
     public boolean registerRule(String ruleId, String ruleContent) {
+        CompileStatus status = submitRule(ruleId, ruleContent).await();
+        return status == CompileStatus.PUBLISHED || status == CompileStatus.SUPERSEDED;
+    }
+    
+    /**
+     * 提交規則編譯工作，立即返回
+     * 內容與最近一次未失敗的工作相同時直接返回該工作，不重新編譯
+     * 
+     * @param ruleId 規則ID
+     * @param ruleContent 規則內容
+     * @return 編譯工作，可查詢狀態或等待完成
+     */
+    public CompileJob submitRule(String ruleId, String ruleContent) {
         if (ruleId == null || ruleId.trim().isEmpty()) {
             throw new IllegalArgumentException("Rule ID cannot be null or empty");
         }
@@ -45,25 +200,173 @@ public class DroolsRuleManager {
             throw new IllegalArgumentException("Rule content cannot be null or empty");
         }
         
+        String normalizedId = ruleId.trim();
+        RuleSlot slot = ruleSlots.computeIfAbsent(normalizedId, id -> new RuleSlot());
+        
+        // 內容未變更時沿用已建構的容器，預熱後建立的命令不必重新編譯
+        CompileJob latestJob = slot.latestJob;
+        if (latestJob != null && latestJob.getStatus() != CompileStatus.FAILED
+            && ruleContent.equals(latestJob.ruleContent)) {
+            return latestJob;
+        }
+        
+        CompileJob job = new CompileJob(normalizedId, slot.versions.incrementAndGet(), ruleContent);
+        slot.latestJob = job;
         try {
-            // 建構新的 KieContainer
-            KieContainer newContainer = buildKieContainer(ruleId, ruleContent);
-            
-            // 更新快取
-            KieContainer oldContainer = ruleContainers.put(ruleId, newContainer);
-            ruleContents.put(ruleId, ruleContent);
-            
-            // 清理舊的容器
-            if (oldContainer != null) {
-                oldContainer.dispose();
+            compileExecutor.execute(new CompileTask(slot, job));
+        } catch (RejectedExecutionException e) {
+            job.complete(CompileStatus.FAILED, "Rule compiler is shut down");
+        }
+        return job;
+    }
+    
+    /**
+     * 執行編譯工作；已有更新版本的工作或移除時略過
+     */
+    private void compile(RuleSlot slot, CompileJob job) {
+        if (job.version < slot.versions.get()) {
+            job.complete(CompileStatus.SUPERSEDED, null);
+            return;
+        }
+        job.status = CompileStatus.COMPILING;
+        try {
+            if (mode == KieBaseMode.SHARED) {
+                compileSharedRule(slot, job);
+            } else {
+                compileRule(slot, job);
             }
-            
-            return true;
-            
         } catch (Exception e) {
             // 如果更新失敗，保持原有的規則
+            job.complete(CompileStatus.FAILED, e.getMessage());
+        }
+    }
+    
+    /**
+     * 建構規則專屬的 KieContainer 與會話池，以 CAS 發佈；發佈時已有較新版本則捨棄
+     */
+    private void compileRule(RuleSlot slot, CompileJob job) {
+        KieContainer container = loadOrBuildKieContainer(job.ruleId, job.ruleContent);
+        int drlRules = 0;
+        for (KiePackage kiePackage : container.getKieBase().getKiePackages()) {
+            drlRules += kiePackage.getRules().size();
+        }
+        CompiledRule candidate = new CompiledRule(job.version, job.ruleContent, new RuleBase(container), drlRules);
+        while (true) {
+            CompiledRule current = slot.published.get();
+            if (current != null && current.version > job.version) {
+                candidate.retire();
+                job.complete(CompileStatus.SUPERSEDED, null);
+                return;
+            }
+            if (slot.published.compareAndSet(current, candidate)) {
+                if (current != null) {
+                    current.retire();
+                    // 新版本的 DRL 規則名稱可能不同，舊版本的指標不再更新
+                    ruleMetrics.remove(job.ruleId);
+                }
+                job.complete(CompileStatus.PUBLISHED, null);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 於共用規則庫新增或替換規則，只增量編譯該規則的檔案並發佈新的共用規則庫；
+     * 編譯失敗時還原編譯狀態，已發佈的規則庫不受影響
+     */
+    private synchronized void compileSharedRule(RuleSlot slot, CompileJob job) {
+        CompiledRule current = slot.published.get();
+        if (current != null && current.version > job.version) {
+            job.complete(CompileStatus.SUPERSEDED, null);
+            return;
+        }
+        String path = sharedRulePath(job.ruleId);
+        ensureSharedBase();
+        sharedFileSystem.write(path, buildSharedRuleContent(job.ruleId, job.ruleContent));
+        String errors = buildSharedChange(path);
+        if (errors != null) {
+            if (current != null && !current.isRemoved()) {
+                sharedFileSystem.write(path, buildSharedRuleContent(job.ruleId, current.ruleContent));
+            } else {
+                sharedFileSystem.delete(path);
+            }
+            buildSharedChange(path);
+            job.complete(CompileStatus.FAILED, errors);
+            return;
+        }
+        RuleBase base = publishSharedBase();
+        if (current != null) {
+            ruleMetrics.remove(job.ruleId);
+        }
+        KiePackage kiePackage = base.container.getKieBase()
+                                              .getKiePackage(RULE_PACKAGE + "." + sharedPackageName(job.ruleId));
+        slot.published.set(new CompiledRule(job.version, job.ruleContent, null,
+                                            kiePackage != null ? kiePackage.getRules().size() : 0));
+        job.complete(CompileStatus.PUBLISHED, null);
+    }
+    
+    /**
+     * 由共用規則庫移除規則
+     */
+    private synchronized boolean removeSharedRule(RuleSlot slot, String ruleId) {
+        CompiledRule current = slot.published.getAndSet(CompiledRule.removed(slot.versions.incrementAndGet()));
+        if (current == null || current.isRemoved()) {
             return false;
         }
+        String path = sharedRulePath(ruleId);
+        sharedFileSystem.delete(path);
+        if (buildSharedChange(path) == null) {
+            publishSharedBase();
+        }
+        return true;
+    }
+    
+    /**
+     * 首次註冊規則時建立空的共用規則庫
+     */
+    private void ensureSharedBase() {
+        if (sharedBuilder != null) {
+            return;
+        }
+        sharedFileSystem = kieServices.newKieFileSystem().generateAndWritePomXML(sharedReleaseId);
+        sharedBuilder = kieServices.newKieBuilder(sharedFileSystem).buildAll();
+        publishSharedBase();
+    }
+    
+    /**
+     * 增量編譯變更的規則檔，更新共用模組；已發佈的規則庫不受影響
+     * 
+     * @return 編譯錯誤訊息，成功時為 null
+     */
+    private String buildSharedChange(String path) {
+        IncrementalResults results = ((InternalKieBuilder) sharedBuilder).createFileSet(path).build();
+        List<String> errors = new ArrayList<>();
+        for (Message message : results.getAddedMessages()) {
+            if (message.getLevel() == Message.Level.ERROR) {
+                errors.add(message.getText());
+            }
+        }
+        if (!errors.isEmpty()) {
+            return "Drools rule compilation errors: " + String.join(", ", errors);
+        }
+        return null;
+    }
+    
+    /**
+     * 由共用模組建立新的容器與會話池，以 CAS 替換共用規則庫並停用舊的規則庫；
+     * 舊規則庫借出的會話繼續執行，於最後一個會話歸還後釋放
+     */
+    private RuleBase publishSharedBase() {
+        RuleBase candidate = new RuleBase(kieServices.newKieContainer(sharedReleaseId));
+        while (true) {
+            RuleBase current = sharedBase.get();
+            if (sharedBase.compareAndSet(current, candidate)) {
+                if (current != null) {
+                    current.retire();
+                }
+                return candidate;
+            }
+        }
     }
     
     /**
@@ -73,10 +376,132 @@ public class DroolsRuleManager {
      * @return KieContainer，如果不存在則返回 null
      */
     public KieContainer getRuleContainer(String ruleId) {
+        CompiledRule rule = publishedRule(ruleId);
+        if (rule == null) {
+            return null;
+        }
+        RuleBase base = mode == KieBaseMode.SHARED ? sharedBase.get() : rule.base;
+        return base != null ? base.container : null;
+    }
+    
+    /**
+     * 由規則的會話池取得會話，使用完畢呼叫 {@link #releaseSession(KieSession)} 歸還
+     * SHARED 模式下會話來自共用規則庫，並已將焦點設定於該規則的 agenda group
+     * 
+     * @param ruleId 規則ID
+     * @return 池化的 KieSession，如果規則不存在則返回 null
+     */
+    public KieSession borrowSession(String ruleId) {
+        while (true) {
+            CompiledRule rule = publishedRule(ruleId);
+            if (rule == null) {
+                return null;
+            }
+            boolean shared = mode == KieBaseMode.SHARED;
+            RuleBase base = shared ? sharedBase.get() : rule.base;
+            if (base == null) {
+                return null;
+            }
+            if (!base.acquire()) {
+                // 取得會話前剛好被新版本替換，改由新版本的會話池取得
+                continue;
+            }
+            try {
+                KieSession session = base.sessionPool.newKieSession();
+                if (shared) {
+                    session.getAgenda().getAgendaGroup(ruleId.trim()).setFocus();
+                }
+                borrowedSessions.put(session, base);
+                return session;
+            } catch (IllegalStateException e) {
+                base.release();
+                RuleBase latest = shared ? sharedBase.get() : rule.base;
+                if (latest == base && publishedRule(ruleId) == rule) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 歸還 {@link #borrowSession(String)} 取得的會話：重設工作記憶體並歸還會話池，
+     * 會話所屬的版本已被替換或移除且沒有其他借出的會話時，一併釋放該版本的容器
+     * 
+     * @param session 借出的會話，可為 null
+     */
+    public void releaseSession(KieSession session) {
+        if (session == null) {
+            return;
+        }
+        RuleBase base = borrowedSessions.remove(session);
+        try {
+            session.dispose();
+        } finally {
+            if (base != null) {
+                base.release();
+            }
+        }
+    }
+    
+    /**
+     * 依取樣率為規則的一次會話執行建立指標監聽器
+     * 呼叫端於執行前掛到會話，歸還會話前移除
+     * 
+     * @param ruleId 規則ID
+     * @return 監聽器，未取樣時為 null
+     */
+    AgendaEventListener sampleRuleMetrics(String ruleId) {
+        String normalizedId = ruleId.trim();
+        String rulePackage = mode == KieBaseMode.SHARED ? RULE_PACKAGE + "." + sharedPackageName(normalizedId) : null;
+        return ruleMetrics.sample(normalizedId, rulePackage);
+    }
+    
+    public DroolsRuleMetrics getRuleMetrics() {
+        return ruleMetrics;
+    }
+    
+    /**
+     * 獲取編譯用的完整規則檔內容
+     * 
+     * @param ruleId 規則ID
+     * @return 完整規則檔內容，如果不存在則返回 null
+     */
+    String getRuleSource(String ruleId) {
+        String ruleContent = getRuleContent(ruleId);
+        if (ruleContent == null) {
+            return null;
+        }
+        return mode == KieBaseMode.SHARED
+            ? buildSharedRuleContent(ruleId.trim(), ruleContent)
+            : buildFullRuleContent(ruleId.trim(), ruleContent);
+    }
+    
+    /**
+     * 獲取規則最近一次提交的編譯工作
+     * 
+     * @param ruleId 規則ID
+     * @return 編譯工作，如果從未提交則返回 null
+     */
+    public CompileJob getCompileJob(String ruleId) {
         if (ruleId == null || ruleId.trim().isEmpty()) {
             return null;
         }
-        return ruleContainers.get(ruleId.trim());
+        RuleSlot slot = ruleSlots.get(ruleId.trim());
+        return slot != null ? slot.latestJob : null;
+    }
+    
+    /**
+     * 獲取各規則最近一次提交的編譯工作
+     */
+    public List<CompileJob> getCompileJobs() {
+        List<CompileJob> jobs = new ArrayList<>();
+        for (RuleSlot slot : ruleSlots.values()) {
+            CompileJob job = slot.latestJob;
+            if (job != null) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
     }
     
     /**
@@ -86,14 +511,12 @@ public class DroolsRuleManager {
      * @return 是否存在
      */
     public boolean hasRule(String ruleId) {
-        if (ruleId == null || ruleId.trim().isEmpty()) {
-            return false;
-        }
-        return ruleContainers.containsKey(ruleId.trim());
+        return publishedRule(ruleId) != null;
     }
     
     /**
      * 移除規則
+     * 排隊中或編譯中的舊版本工作不會在移除後重新發佈
      * 
      * @param ruleId 規則ID
      * @return 是否成功移除
@@ -104,15 +527,33 @@ public class DroolsRuleManager {
         }
         
         String normalizedId = ruleId.trim();
-        KieContainer container = ruleContainers.remove(normalizedId);
-        ruleContents.remove(normalizedId);
-        
-        if (container != null) {
-            container.dispose();
-            return true;
+        RuleSlot slot = ruleSlots.get(normalizedId);
+        if (slot == null) {
+            return false;
         }
-        
-        return false;
+        slot.latestJob = null;
+        ruleMetrics.remove(normalizedId);
+        if (mode == KieBaseMode.SHARED) {
+            return removeSharedRule(slot, normalizedId);
+        }
+        CompiledRule current = slot.published.getAndSet(CompiledRule.removed(slot.versions.incrementAndGet()));
+        if (current == null || current.isRemoved()) {
+            return false;
+        }
+        current.retire();
+        return true;
+    }
+    
+    private CompiledRule publishedRule(String ruleId) {
+        if (ruleId == null || ruleId.trim().isEmpty()) {
+            return null;
+        }
+        RuleSlot slot = ruleSlots.get(ruleId.trim());
+        if (slot == null) {
+            return null;
+        }
+        CompiledRule rule = slot.published.get();
+        return rule != null && !rule.isRemoved() ? rule : null;
     }
     
     /**
@@ -128,19 +569,53 @@ public class DroolsRuleManager {
         
         try {
             String tempRuleId = "temp_validation_" + System.currentTimeMillis();
-            buildKieContainer(tempRuleId, ruleContent);
+            buildKieContainer(tempRuleId, ruleContent, null).dispose();
             return new RuleValidationResult(true, List.of());
-            
+        
         } catch (Exception e) {
             return new RuleValidationResult(false, List.of(e.getMessage()));
         }
     }
     
+    /**
+     * 由預編譯模組快取載入 KieContainer，未命中或載入失敗時重新編譯並寫入快取
+     * 快取的模組沿用首次建構時的 ReleaseId，同一模組的並行載入以鎖串行化加入、建立容器與移除的步驟，
+     * 避免一方移除另一方剛加入的模組；KieRepository 為整個 JVM 共用，因此鎖為類別層級
+     */
+    private KieContainer loadOrBuildKieContainer(String ruleId, String ruleContent) {
+        if (moduleCache == null) {
+            return buildKieContainer(ruleId, ruleContent, null);
+        }
+        String cacheKey = moduleCache.keyOf(ruleId, buildFullRuleContent(ruleId, ruleContent));
+        byte[] cachedModule = moduleCache.load(cacheKey);
+        if (cachedModule != null) {
+            synchronized (MODULE_LOAD_LOCKS[Math.floorMod(cacheKey.hashCode(), MODULE_LOAD_LOCKS.length)]) {
+                KieModule kieModule = null;
+                try {
+                    kieModule = kieServices.getRepository()
+                                           .addKieModule(kieServices.getResources().newByteArrayResource(cachedModule));
+                    return kieServices.newKieContainer(kieModule.getReleaseId());
+                } catch (RuntimeException e) {
+                    moduleCache.evict(cacheKey);
+                } finally {
+                    if (kieModule != null) {
+                        kieServices.getRepository().removeKieModule(kieModule.getReleaseId());
+                    }
+                }
+            }
+        }
+        return buildKieContainer(ruleId, ruleContent, moduleBytes -> moduleCache.store(cacheKey, moduleBytes));
+    }
+    
     /**
      * 建構 KieContainer
+     * 每次建構使用獨立的 ReleaseId，並行編譯時不會取得其他規則的模組；建立容器後即自儲存庫移除模組
+     * 
+     * @param moduleSink 接收建構完成的模組位元組，可為 null
      */
-    private KieContainer buildKieContainer(String ruleId, String ruleContent) {
-        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+    private KieContainer buildKieContainer(String ruleId, String ruleContent, Consumer<byte[]> moduleSink) {
+        ReleaseId releaseId = kieServices.newReleaseId("com.bank.promotion", "rule-" + UUID.randomUUID(), "1.0.0");
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem().generateAndWritePomXML(releaseId);
         
         // 建立完整的規則檔案內容
         String fullRuleContent = buildFullRuleContent(ruleId, ruleContent);
@@ -154,6 +629,7 @@ public class DroolsRuleManager {
         
         // 檢查建構錯誤
         if (kieBuilder.getResults().hasMessages(Message.Level.ERROR)) {
+            kieServices.getRepository().removeKieModule(releaseId);
             List<String> errors = new ArrayList<>();
             for (Message message : kieBuilder.getResults().getMessages(Message.Level.ERROR)) {
                 errors.add(message.getText());
@@ -161,17 +637,48 @@ public class DroolsRuleManager {
             throw new IllegalArgumentException("Drools rule compilation errors: " + String.join(", ", errors));
         }
         
-        return kieServices.newKieContainer(kieBuilder.getKieModule().getReleaseId());
+        if (moduleSink != null) {
+            moduleSink.accept(((InternalKieModule) kieBuilder.getKieModule()).getBytes());
+        }
+        
+        KieContainer container = kieServices.newKieContainer(releaseId);
+        kieServices.getRepository().removeKieModule(releaseId);
+        return container;
     }
-    
+
     /**
      * 建構完整的規則檔案內容
      */
     private String buildFullRuleContent(String ruleId, String ruleContent) {
+        return buildFullRuleContent(RULE_PACKAGE, ruleId, ruleContent);
+    }
+    
+    /**
+     * 建構共用規則庫中的規則檔內容
+     * 每個規則使用獨立的 package 避免規則名稱衝突，所有規則指派以規則ID命名的 agenda group，
+     * 原本宣告的 agenda group 會被取代
+     */
+    private String buildSharedRuleContent(String ruleId, String ruleContent) {
+        String fullContent = buildFullRuleContent(RULE_PACKAGE + "." + sharedPackageName(ruleId), ruleId, ruleContent);
+        String withoutAgendaGroups = AGENDA_GROUP_ATTRIBUTE.matcher(fullContent).replaceAll("");
+        String agendaGroup = "agenda-group \"" + ruleId.replace("\"", "\\\"") + "\"";
+        return RULE_HEADER.matcher(withoutAgendaGroups)
+                          .replaceAll("$1\n    " + Matcher.quoteReplacement(agendaGroup));
+    }
+    
+    private static String sharedPackageName(String ruleId) {
+        return "rule_" + ruleId.replaceAll("[^A-Za-z0-9_]", "_") + "_" + Integer.toHexString(ruleId.hashCode());
+    }
+    
+    private static String sharedRulePath(String ruleId) {
+        return "src/main/resources/rules/shared/" + sharedPackageName(ruleId) + ".drl";
+    }
+    
+    private String buildFullRuleContent(String packageName, String ruleId, String ruleContent) {
         StringBuilder fullContent = new StringBuilder();
         
         // 加入 package 宣告
-        fullContent.append("package com.bank.promotion.rules;\n\n");
+        fullContent.append("package ").append(packageName).append(";\n\n");
         
         // 加入必要的 import
         fullContent.append("import com.bank.promotion.domain.valueobject.CustomerPayload;\n");
@@ -206,7 +713,14 @@ public class DroolsRuleManager {
      * @return 規則ID列表
      */
     public List<String> getAllRuleIds() {
-        return new ArrayList<>(ruleContainers.keySet());
+        List<String> ruleIds = new ArrayList<>();
+        for (Map.Entry<String, RuleSlot> entry : ruleSlots.entrySet()) {
+            CompiledRule rule = entry.getValue().published.get();
+            if (rule != null && !rule.isRemoved()) {
+                ruleIds.add(entry.getKey());
+            }
+        }
+        return ruleIds;
     }
     
     /**
@@ -216,23 +730,49 @@ public class DroolsRuleManager {
      * @return 規則內容，如果不存在則返回 null
      */
     public String getRuleContent(String ruleId) {
-        if (ruleId == null || ruleId.trim().isEmpty()) {
-            return null;
-        }
-        return ruleContents.get(ruleId.trim());
+        CompiledRule rule = publishedRule(ruleId);
+        return rule != null ? rule.ruleContent : null;
     }
     
     /**
      * 清除所有規則
      */
-    public void clearAllRules() {
-        // 清理所有容器
-        for (KieContainer container : ruleContainers.values()) {
-            container.dispose();
+    public synchronized void clearAllRules() {
+        // 清理所有會話池與容器
+        for (RuleSlot slot : ruleSlots.values()) {
+            CompiledRule rule = slot.published.getAndSet(CompiledRule.removed(slot.versions.incrementAndGet()));
+            slot.latestJob = null;
+            if (rule != null) {
+                rule.retire();
+            }
+        }
+        RuleBase shared = sharedBase.getAndSet(null);
+        if (shared != null) {
+            shared.retire();
         }
         
-        ruleContainers.clear();
-        ruleContents.clear();
+        ruleSlots.clear();
+        ruleMetrics.clear();
+        sharedBuilder = null;
+        sharedFileSystem = null;
+    }
+    
+    /**
+     * 預編譯模組快取的統計資訊，未啟用快取時為 null
+     */
+    public DroolsKieModuleCache.Statistics getModuleCacheStatistics() {
+        return moduleCache != null ? moduleCache.getStatistics() : null;
+    }
+    
+    /**
+     * 停止編譯執行緒，排隊中的工作不再執行並以失敗完成
+     */
+    public void shutdown() {
+        for (Runnable task : compileExecutor.shutdownNow()) {
+            if (task instanceof CompileTask) {
+                ((CompileTask) task).job.complete(CompileStatus.FAILED, "Rule compiler is shut down");
+            }
+        }
     }
     
     /**
@@ -241,9 +781,251 @@ public class DroolsRuleManager {
      * @return 統計資訊
      */
     public RuleStatistics getStatistics() {
-        return new RuleStatistics(ruleContainers.size());
+        Map<String, Integer> drlRuleCounts = new HashMap<>();
+        Map<String, KieBaseFootprint> ruleFootprints = new HashMap<>();
+        for (Map.Entry<String, RuleSlot> entry : ruleSlots.entrySet()) {
+            CompiledRule rule = entry.getValue().published.get();
+            if (rule != null && !rule.isRemoved()) {
+                drlRuleCounts.put(entry.getKey(), rule.drlRules);
+                if (rule.base != null) {
+                    ruleFootprints.put(entry.getKey(), rule.base.footprint);
+                }
+            }
+        }
+        RuleBase shared = sharedBase.get();
+        int kieBases = mode == KieBaseMode.SHARED ? (shared != null ? 1 : 0) : drlRuleCounts.size();
+        return new RuleStatistics(drlRuleCounts.size(), mode, kieBases, drlRuleCounts, ruleMetrics.snapshot(),
+                                  ruleFootprints, shared != null ? shared.footprint : null);
     }
     
+    /**
+     * 規則的編譯版本與目前發佈的版本
+     */
+    private static final class RuleSlot {
+        private final AtomicLong versions = new AtomicLong();
+        private final AtomicReference<CompiledRule> published = new AtomicReference<>();
+        private volatile CompileJob latestJob;
+    }
+    
+    /**
+     * 已發佈的規則版本；ruleContent 為 null 表示規則已移除
+     * SHARED 模式不持有規則庫，規則位於共用規則庫
+     */
+    private static final class CompiledRule {
+        private final long version;
+        private final String ruleContent;
+        private final RuleBase base;
+        private final int drlRules;
+        
+        private CompiledRule(long version, String ruleContent, RuleBase base, int drlRules) {
+            this.version = version;
+            this.ruleContent = ruleContent;
+            this.base = base;
+            this.drlRules = drlRules;
+        }
+        
+        private static CompiledRule removed(long version) {
+            return new CompiledRule(version, null, null, 0);
+        }
+        
+        private boolean isRemoved() {
+            return ruleContent == null;
+        }
+        
+        private void retire() {
+            if (base != null) {
+                base.retire();
+            }
+        }
+    }
+    
+    /**
+     * 規則庫的容器與會話池
+     * 以借出會話數計數，停用後於計數歸零時釋放容器
+     */
+    private static final class RuleBase {
+        private final KieContainer container;
+        private final KieSessionsPool sessionPool;
+        private final KieBaseFootprint footprint;
+        private final AtomicInteger leases = new AtomicInteger();
+        private final AtomicBoolean disposed = new AtomicBoolean();
+        private volatile boolean retired;
+        
+        private RuleBase(KieContainer container) {
+            this.container = container;
+            this.sessionPool = container.newKieSessionsPool(SESSION_POOL_INITIAL_SIZE);
+            // 容器的 KieBase 建立後不再變更，發佈時量測一次
+            this.footprint = KieBaseFootprint.of(container.getKieBase());
+        }
+        
+        /**
+         * 借出會話前登記；版本已停用時返回 false
+         */
+        private boolean acquire() {
+            leases.incrementAndGet();
+            if (retired) {
+                release();
+                return false;
+            }
+            return true;
+        }
+        
+        private void release() {
+            if (leases.decrementAndGet() == 0 && retired) {
+                disposeContainer();
+            }
+        }
+        
+        /**
+         * 關閉會話池；已借出的會話仍可完成執行，歸還時直接銷毀，
+         * 容器於沒有借出的會話時釋放
+         */
+        private void retire() {
+            retired = true;
+            sessionPool.shutdown();
+            if (leases.get() == 0) {
+                disposeContainer();
+            }
+        }
+        
+        private void disposeContainer() {
+            if (disposed.compareAndSet(false, true)) {
+                container.dispose();
+            }
+        }
+    }
+    
+    /**
+     * 編譯執行緒上的工作，停止時可由佇列取回並完成對應的編譯工作
+     */
+    private final class CompileTask implements Runnable {
+        private final RuleSlot slot;
+        private final CompileJob job;
+        
+        private CompileTask(RuleSlot slot, CompileJob job) {
+            this.slot = slot;
+            this.job = job;
+        }
+        
+        @Override
+        public void run() {
+            compile(slot, job);
+        }
+    }
+    
+    /**
+     * 規則編譯工作
+     */
+    public static final class CompileJob {
+        private final String ruleId;
+        private final long version;
+        private final String ruleContent;
+        private final long submittedAt;
+        private final CompletableFuture<CompileStatus> completion = new CompletableFuture<>();
+        private volatile CompileStatus status = CompileStatus.QUEUED;
+        private volatile String errorMessage;
+        private volatile long completedAt;
+        
+        private CompileJob(String ruleId, long version, String ruleContent) {
+            this.ruleId = ruleId;
+            this.version = version;
+            this.ruleContent = ruleContent;
+            this.submittedAt = System.currentTimeMillis();
+        }
+        
+        /**
+         * 只採用第一次完成的狀態，停止時已取回的工作不會再被編譯執行緒覆寫
+         */
+        private void complete(CompileStatus finalStatus, String message) {
+            synchronized (this) {
+                if (completion.isDone()) {
+                    return;
+                }
+                this.errorMessage = message;
+                this.completedAt = System.currentTimeMillis();
+                this.status = finalStatus;
+            }
+            completion.complete(finalStatus);
+        }
+        
+        /**
+         * 等待工作完成，最多等待 60 秒
+         * 
+         * @return 最終狀態；逾時時為目前狀態（QUEUED 或 COMPILING）
+         */
+        public CompileStatus await() {
+            return await(COMPILE_AWAIT_TIMEOUT);
+        }
+        
+        /**
+         * 等待工作完成
+         * 
+         * @param timeout 等待上限
+         * @return 最終狀態；逾時或等待中斷時為目前狀態（QUEUED 或 COMPILING）
+         */
+        public CompileStatus await(Duration timeout) {
+            try {
+                return completion.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return status;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return status;
+            } catch (ExecutionException e) {
+                return CompileStatus.FAILED;
+            }
+        }
+        
+        public CompletableFuture<CompileStatus> getCompletion() {
+            return completion;
+        }
+        
+        public String getRuleId() {
+            return ruleId;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        public CompileStatus getStatus() {
+            return status;
+        }
+        
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+        
+        public long getSubmittedAt() {
+            return submittedAt;
+        }
+        
+        /**
+         * 完成時間，尚未完成時為 0
+         */
+        public long getCompletedAt() {
+            return completedAt;
+        }
+        
+        @Override
+        public String toString() {
+            return "CompileJob{ruleId=" + ruleId + ", version=" + version + ", status=" + status +
+                   (errorMessage != null ? ", error=" + errorMessage : "") + "}";
+        }
+    }
+    
+    private static final class CompileThreadFactory implements ThreadFactory {
+        
+        private final AtomicInteger sequence = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "drools-compiler-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     /**
      * 規則驗證結果
      */
@@ -270,23 +1052,168 @@ public class DroolsRuleManager {
         }
     }
     
+    /**
+     * 規則庫的 Rete 網路規模，作為記憶體用量的代理指標，與編譯當下的堆積狀態無關
+     * 節點數反映規則庫常駐的網路大小，節點記憶體數為每個會話依此配置的工作記憶體區塊數
+     */
+    public static final class KieBaseFootprint {
+        private static final KieBaseFootprint UNKNOWN = new KieBaseFootprint(0, 0, 0);
+        
+        private final int reteNodes;
+        private final int objectTypeNodes;
+        private final int nodeMemories;
+        
+        public KieBaseFootprint(int reteNodes, int objectTypeNodes, int nodeMemories) {
+            this.reteNodes = reteNodes;
+            this.objectTypeNodes = objectTypeNodes;
+            this.nodeMemories = nodeMemories;
+        }
+        
+        /**
+         * 量測 KieBase 的 Rete 網路；非 Drools 內部實作時各項為 0
+         */
+        static KieBaseFootprint of(KieBase kieBase) {
+            if (!(kieBase instanceof InternalRuleBase)) {
+                return UNKNOWN;
+            }
+            InternalRuleBase ruleBase = (InternalRuleBase) kieBase;
+            return new KieBaseFootprint(ruleBase.getNodeCount(), ruleBase.getRete().getObjectTypeNodes().size(),
+                                        ruleBase.getMemoryCount());
+        }
+        
+        /**
+         * Rete 網路的節點數
+         */
+        public int getReteNodes() {
+            return reteNodes;
+        }
+        
+        /**
+         * 依事實型別分派的 ObjectTypeNode 數
+         */
+        public int getObjectTypeNodes() {
+            return objectTypeNodes;
+        }
+        
+        /**
+         * 每個會話配置的節點記憶體數
+         */
+        public int getNodeMemories() {
+            return nodeMemories;
+        }
+        
+        @Override
+        public String toString() {
+            return "KieBaseFootprint{reteNodes=" + reteNodes + ", objectTypeNodes=" + objectTypeNodes +
+                   ", nodeMemories=" + nodeMemories + "}";
+        }
+    }
+    
     /**
      * 規則統計資訊
+     * 規模以各規則編譯進規則庫的 DRL 規則數表示；記憶體用量另以各規則庫的 Rete 網路規模回報，
+     * PER_RULE 模式依規則分列，SHARED 模式回報共用規則庫
      */
     public static class RuleStatistics {
         private final int totalRules;
+        private final KieBaseMode mode;
+        private final int kieBases;
+        private final Map<String, Integer> drlRuleCounts;
+        private final List<DroolsRuleMetrics.RuleMetric> ruleMetrics;
+        private final Map<String, KieBaseFootprint> ruleFootprints;
+        private final KieBaseFootprint sharedFootprint;
         
         public RuleStatistics(int totalRules) {
+            this(totalRules, KieBaseMode.PER_RULE, totalRules, Map.of());
+        }
+        
+        public RuleStatistics(int totalRules, KieBaseMode mode, int kieBases, Map<String, Integer> drlRuleCounts) {
+            this(totalRules, mode, kieBases, drlRuleCounts, List.of());
+        }
+        
+        public RuleStatistics(int totalRules, KieBaseMode mode, int kieBases, Map<String, Integer> drlRuleCounts,
+                              List<DroolsRuleMetrics.RuleMetric> ruleMetrics) {
+            this(totalRules, mode, kieBases, drlRuleCounts, ruleMetrics, Map.of(), null);
+        }
+        
+        public RuleStatistics(int totalRules, KieBaseMode mode, int kieBases, Map<String, Integer> drlRuleCounts,
+                              List<DroolsRuleMetrics.RuleMetric> ruleMetrics,
+                              Map<String, KieBaseFootprint> ruleFootprints, KieBaseFootprint sharedFootprint) {
             this.totalRules = totalRules;
+            this.mode = mode;
+            this.kieBases = kieBases;
+            this.drlRuleCounts = drlRuleCounts;
+            this.ruleMetrics = ruleMetrics;
+            this.ruleFootprints = ruleFootprints;
+            this.sharedFootprint = sharedFootprint;
         }
         
         public int getTotalRules() {
             return totalRules;
         }
         
+        public KieBaseMode getMode() {
+            return mode;
+        }
+        
+        /**
+         * 規則庫數量，PER_RULE 模式每個規則一個，SHARED 模式至多一個
+         */
+        public int getKieBases() {
+            return kieBases;
+        }
+        
+        /**
+         * 各規則編譯出的 DRL 規則數
+         */
+        public Map<String, Integer> getDrlRuleCounts() {
+            return drlRuleCounts;
+        }
+        
+        /**
+         * 各 DRL 規則的取樣執行指標
+         */
+        public List<DroolsRuleMetrics.RuleMetric> getRuleMetrics() {
+            return ruleMetrics;
+        }
+        
+        public int getTotalDrlRules() {
+            int total = 0;
+            for (int count : drlRuleCounts.values()) {
+                total += count;
+            }
+            return total;
+        }
+        
+        /**
+         * PER_RULE 模式各規則容器的 Rete 網路規模；SHARED 模式為空
+         */
+        public Map<String, KieBaseFootprint> getRuleFootprints() {
+            return ruleFootprints;
+        }
+        
+        /**
+         * SHARED 模式共用規則庫的 Rete 網路規模；PER_RULE 模式或尚未建立時為 null
+         */
+        public KieBaseFootprint getSharedFootprint() {
+            return sharedFootprint;
+        }
+        
+        /**
+         * 所有規則庫的 Rete 節點總數
+         */
+        public int getTotalReteNodes() {
+            int total = sharedFootprint != null ? sharedFootprint.getReteNodes() : 0;
+            for (KieBaseFootprint footprint : ruleFootprints.values()) {
+                total += footprint.getReteNodes();
+            }
+            return total;
+        }
+        
         @Override
         public String toString() {
-            return "RuleStatistics{totalRules=" + totalRules + "}";
+            return "RuleStatistics{totalRules=" + totalRules + ", mode=" + mode + ", kieBases=" + kieBases +
+                   ", totalDrlRules=" + getTotalDrlRules() + ", totalReteNodes=" + getTotalReteNodes() + "}";
         }
     }
 }
\ No newline at end of file
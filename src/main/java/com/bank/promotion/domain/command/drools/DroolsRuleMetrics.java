@@ -0,0 +1,290 @@
+package com.bank.promotion.domain.command.drools;
+
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.MatchCreatedEvent;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drools 規則執行指標
+ * 依取樣率為會話執行掛上 agenda 監聽器，累計各 DRL 規則的匹配次數、觸發次數與右側（then）執行時間
+ *
+ * 計數使用 LongAdder 分段累加，多個評估執行緒同時更新同一規則時不互相爭用；
+ * 未取樣的執行不掛監聽器，除一次亂數判斷外沒有額外成本。計數為取樣值，估計總量需除以取樣率
+ */
+public final class DroolsRuleMetrics {
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final double sampleRate;
+    private final ConcurrentMap<String, RuleCounters> counters = new ConcurrentHashMap<>();
+    private final LongAdder sampledExecutions = new LongAdder();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param sampleRate 取樣率，0 表示停用，1 表示記錄每次執行
+     */
+    public DroolsRuleMetrics(double sampleRate) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * 決定本次執行是否取樣
+     *
+     * @param ruleId 規則ID
+     * @param rulePackage 只記錄此 package 的 DRL 規則，為 null 時記錄所有規則
+     * @return 取樣時返回要掛到會話的監聽器，否則為 null
+     */
+    AgendaEventListener sample(String ruleId, String rulePackage) {
+        if (sampleRate <= 0.0 || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        sampledExecutions.increment();
+        return new Recorder(ruleId, rulePackage);
+    }
+
+    /**
+     * 移除規則的指標
+     */
+    void remove(String ruleId) {
+        for (RuleCounters ruleCounters : counters.values()) {
+            if (ruleCounters.ruleId.equals(ruleId) && counters.remove(ruleCounters.key(), ruleCounters)) {
+                notifyRemoved(ruleCounters);
+            }
+        }
+    }
+
+    void clear() {
+        for (RuleCounters ruleCounters : counters.values()) {
+            if (counters.remove(ruleCounters.key(), ruleCounters)) {
+                notifyRemoved(ruleCounters);
+            }
+        }
+    }
+
+    /**
+     * 註冊計數器建立與移除的通知，註冊時會先通知既有的計數器
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        for (RuleCounters ruleCounters : counters.values()) {
+            listener.countersAdded(ruleCounters);
+        }
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getSampledExecutions() {
+        return sampledExecutions.sum();
+    }
+
+    /**
+     * 各 DRL 規則目前的指標，依規則ID與規則名稱排序
+     */
+    public List<RuleMetric> snapshot() {
+        List<RuleMetric> metrics = new ArrayList<>(counters.size());
+        for (RuleCounters ruleCounters : counters.values()) {
+            metrics.add(ruleCounters.snapshot());
+        }
+        metrics.sort(Comparator.comparing(RuleMetric::getRuleId).thenComparing(RuleMetric::getRuleName));
+        return metrics;
+    }
+
+    private RuleCounters countersOf(String ruleId, String ruleName) {
+        String key = ruleId + KEY_SEPARATOR + ruleName;
+        RuleCounters ruleCounters = counters.get(key);
+        if (ruleCounters != null) {
+            return ruleCounters;
+        }
+        RuleCounters created = new RuleCounters(ruleId, ruleName);
+        ruleCounters = counters.putIfAbsent(key, created);
+        if (ruleCounters != null) {
+            return ruleCounters;
+        }
+        for (Listener listener : listeners) {
+            listener.countersAdded(created);
+        }
+        return created;
+    }
+
+    private void notifyRemoved(RuleCounters ruleCounters) {
+        for (Listener listener : listeners) {
+            listener.countersRemoved(ruleCounters);
+        }
+    }
+
+    /**
+     * 計數器建立與移除的通知，用於註冊外部監控指標
+     */
+    public interface Listener {
+
+        void countersAdded(RuleCounters ruleCounters);
+
+        void countersRemoved(RuleCounters ruleCounters);
+    }
+
+    /**
+     * 單次會話執行的監聽器，規則於 fireAllRules 的呼叫執行緒上依序執行，因此不需同步
+     */
+    private final class Recorder extends DefaultAgendaEventListener {
+
+        private final String ruleId;
+        private final String rulePackage;
+        private RuleCounters firing;
+        private long firingStartedAt;
+
+        private Recorder(String ruleId, String rulePackage) {
+            this.ruleId = ruleId;
+            this.rulePackage = rulePackage;
+        }
+
+        @Override
+        public void matchCreated(MatchCreatedEvent event) {
+            RuleCounters ruleCounters = countersOf(event.getMatch().getRule());
+            if (ruleCounters != null) {
+                ruleCounters.matches.increment();
+            }
+        }
+
+        @Override
+        public void beforeMatchFired(BeforeMatchFiredEvent event) {
+            firing = countersOf(event.getMatch().getRule());
+            firingStartedAt = System.nanoTime();
+        }
+
+        @Override
+        public void afterMatchFired(AfterMatchFiredEvent event) {
+            if (firing != null) {
+                firing.fires.increment();
+                firing.rhsNanos.add(System.nanoTime() - firingStartedAt);
+                firing = null;
+            }
+        }
+
+        private RuleCounters countersOf(Rule rule) {
+            // SHARED 模式的規則庫含其他規則，只記錄本規則所屬 package
+            if (rulePackage != null && !rulePackage.equals(rule.getPackageName())) {
+                return null;
+            }
+            return DroolsRuleMetrics.this.countersOf(ruleId, rule.getName());
+        }
+    }
+
+    /**
+     * 單一 DRL 規則的即時計數器
+     */
+    public static final class RuleCounters {
+        private final String ruleId;
+        private final String ruleName;
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder fires = new LongAdder();
+        private final LongAdder rhsNanos = new LongAdder();
+
+        private RuleCounters(String ruleId, String ruleName) {
+            this.ruleId = ruleId;
+            this.ruleName = ruleName;
+        }
+
+        public String getRuleId() {
+            return ruleId;
+        }
+
+        public String getRuleName() {
+            return ruleName;
+        }
+
+        public long getMatches() {
+            return matches.sum();
+        }
+
+        public long getFires() {
+            return fires.sum();
+        }
+
+        public long getRhsNanos() {
+            return rhsNanos.sum();
+        }
+
+        private String key() {
+            return ruleId + KEY_SEPARATOR + ruleName;
+        }
+
+        private RuleMetric snapshot() {
+            return new RuleMetric(ruleId, ruleName, matches.sum(), fires.sum(), rhsNanos.sum());
+        }
+    }
+
+    /**
+     * 單一 DRL 規則的取樣指標
+     */
+    public static final class RuleMetric {
+        private final String ruleId;
+        private final String ruleName;
+        private final long matches;
+        private final long fires;
+        private final long rhsNanos;
+
+        public RuleMetric(String ruleId, String ruleName, long matches, long fires, long rhsNanos) {
+            this.ruleId = ruleId;
+            this.ruleName = ruleName;
+            this.matches = matches;
+            this.fires = fires;
+            this.rhsNanos = rhsNanos;
+        }
+
+        /**
+         * 規則管理器中的規則ID
+         */
+        public String getRuleId() {
+            return ruleId;
+        }
+
+        /**
+         * DRL 中宣告的規則名稱
+         */
+        public String getRuleName() {
+            return ruleName;
+        }
+
+        public long getMatches() {
+            return matches;
+        }
+
+        public long getFires() {
+            return fires;
+        }
+
+        /**
+         * 累計右側執行時間（奈秒）
+         */
+        public long getRhsNanos() {
+            return rhsNanos;
+        }
+
+        public double getAverageRhsNanos() {
+            return fires > 0 ? (double) rhsNanos / fires : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RuleMetric{ruleId=%s, ruleName=%s, matches=%d, fires=%d, rhsNanos=%d}",
+                                 ruleId, ruleName, matches, fires, rhsNanos);
+        }
+    }
+}
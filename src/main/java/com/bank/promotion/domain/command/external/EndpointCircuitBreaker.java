@@ -0,0 +1,423 @@
+package com.bank.promotion.domain.command.external;
+
+import java.time.Duration;
+
+/**
+ * 外部端點斷路器與隔艙
+ * 以最近 N 次呼叫的滑動視窗計算失敗率與慢呼叫率，任一達門檻即斷開，斷開期間立即拒絕呼叫由節點降級處理；
+ * 斷開時間過後進入半開狀態，只放行少量探測呼叫，探測結果低於門檻才恢復閉合，否則重新斷開。
+ * 隔艙限制同一端點同時進行的呼叫數，下游變慢時等待中的評估不會無限累積
+ *
+ * 狀態轉換以代次區分，轉換前發出的呼叫在轉換後才完成時只計入總數，不影響新狀態的判斷
+ */
+public final class EndpointCircuitBreaker {
+
+    /**
+     * 斷路器狀態
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String endpoint;
+    private final Settings settings;
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+
+    // 以下狀態皆由 this 鎖保護
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int windowIndex;
+    private int bufferedCalls;
+    private int bufferedFailures;
+    private int bufferedSlowCalls;
+    private int halfOpenPermits;
+    private int halfOpenCalls;
+    private int halfOpenFailures;
+    private int halfOpenSlowCalls;
+    private int inFlightCalls;
+    private long successfulCallCount;
+    private long failedCallCount;
+    private long slowCallCount;
+    private long rejectedByCircuit;
+    private long rejectedByBulkhead;
+    private long openTransitions;
+
+    public EndpointCircuitBreaker(String endpoint, Settings settings) {
+        if (endpoint == null || settings == null) {
+            throw new IllegalArgumentException("Endpoint and settings cannot be null");
+        }
+        this.endpoint = endpoint;
+        this.settings = settings;
+        this.failedCalls = new boolean[settings.slidingWindowSize];
+        this.slowCalls = new boolean[settings.slidingWindowSize];
+    }
+
+    /**
+     * 取得呼叫許可
+     *
+     * @return 許可；斷路器斷開、半開探測額度用盡或隔艙已滿時為 null
+     */
+    public synchronized Permit tryAcquire() {
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            if (now - openedAt < settings.openDuration.toNanos()) {
+                rejectedByCircuit++;
+                return null;
+            }
+            transitionTo(State.HALF_OPEN, now);
+        }
+        if (settings.maxConcurrentCalls > 0 && inFlightCalls >= settings.maxConcurrentCalls) {
+            rejectedByBulkhead++;
+            return null;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                rejectedByCircuit++;
+                return null;
+            }
+            halfOpenPermits--;
+        }
+        inFlightCalls++;
+        return new Permit(generation, now);
+    }
+
+    public synchronized State getState() {
+        // 斷開時間已過但尚未有呼叫時仍回報斷開
+        return state;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized Statistics getStatistics() {
+        int calls = state == State.HALF_OPEN ? halfOpenCalls : bufferedCalls;
+        int failures = state == State.HALF_OPEN ? halfOpenFailures : bufferedFailures;
+        int slow = state == State.HALF_OPEN ? halfOpenSlowCalls : bufferedSlowCalls;
+        return new Statistics(endpoint, state, rate(failures, calls), rate(slow, calls), calls, inFlightCalls,
+                              successfulCallCount, failedCallCount, slowCallCount, rejectedByCircuit,
+                              rejectedByBulkhead, openTransitions);
+    }
+
+    private synchronized void onCompleted(Permit permit, boolean success, long durationNanos) {
+        inFlightCalls--;
+        boolean slow = durationNanos >= settings.slowCallDuration.toNanos();
+        if (success) {
+            successfulCallCount++;
+        } else {
+            failedCallCount++;
+        }
+        if (slow) {
+            slowCallCount++;
+        }
+        if (permit.generation != generation) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (state == State.HALF_OPEN) {
+            halfOpenCalls++;
+            halfOpenFailures += success ? 0 : 1;
+            halfOpenSlowCalls += slow ? 1 : 0;
+            if (halfOpenCalls >= settings.halfOpenProbes) {
+                transitionTo(exceedsThresholds(halfOpenFailures, halfOpenSlowCalls, halfOpenCalls)
+                             ? State.OPEN : State.CLOSED, now);
+            }
+            return;
+        }
+
+        if (bufferedCalls == failedCalls.length) {
+            bufferedFailures -= failedCalls[windowIndex] ? 1 : 0;
+            bufferedSlowCalls -= slowCalls[windowIndex] ? 1 : 0;
+        } else {
+            bufferedCalls++;
+        }
+        failedCalls[windowIndex] = !success;
+        slowCalls[windowIndex] = slow;
+        bufferedFailures += success ? 0 : 1;
+        bufferedSlowCalls += slow ? 1 : 0;
+        windowIndex = (windowIndex + 1) % failedCalls.length;
+
+        if (bufferedCalls >= settings.minimumCalls
+                && exceedsThresholds(bufferedFailures, bufferedSlowCalls, bufferedCalls)) {
+            transitionTo(State.OPEN, now);
+        }
+    }
+
+    private synchronized void onCancelled(Permit permit) {
+        inFlightCalls--;
+        if (permit.generation == generation && state == State.HALF_OPEN) {
+            // 未完成的探測歸還額度
+            halfOpenPermits++;
+        }
+    }
+
+    private boolean exceedsThresholds(int failures, int slow, int calls) {
+        return rate(failures, calls) >= settings.failureRateThreshold
+            || rate(slow, calls) >= settings.slowCallRateThreshold;
+    }
+
+    private void transitionTo(State newState, long now) {
+        state = newState;
+        generation++;
+        windowIndex = 0;
+        bufferedCalls = 0;
+        bufferedFailures = 0;
+        bufferedSlowCalls = 0;
+        halfOpenCalls = 0;
+        halfOpenFailures = 0;
+        halfOpenSlowCalls = 0;
+        halfOpenPermits = newState == State.HALF_OPEN ? settings.halfOpenProbes : 0;
+        if (newState == State.OPEN) {
+            openedAt = now;
+            openTransitions++;
+        }
+    }
+
+    private static double rate(int count, int calls) {
+        return calls > 0 ? count * 100.0 / calls : 0.0;
+    }
+
+    /**
+     * 呼叫許可，呼叫結束時必須以 {@link #complete} 或 {@link #cancel} 釋放一次
+     */
+    public final class Permit {
+        private final long generation;
+        private final long startedAt;
+        private boolean released;
+
+        private Permit(long generation, long startedAt) {
+            this.generation = generation;
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * 記錄呼叫結果並釋放隔艙額度
+         *
+         * @param success 下游是否成功回應
+         */
+        public void complete(boolean success) {
+            if (!released) {
+                released = true;
+                onCompleted(this, success, System.nanoTime() - startedAt);
+            }
+        }
+
+        /**
+         * 呼叫未送達下游（例如本機資源不足而被拒絕）時釋放額度，不計入失敗率
+         */
+        public void cancel() {
+            if (!released) {
+                released = true;
+                onCancelled(this);
+            }
+        }
+    }
+
+    /**
+     * 斷路器設定
+     */
+    public static final class Settings {
+        private final int slidingWindowSize;
+        private final int minimumCalls;
+        private final double failureRateThreshold;
+        private final double slowCallRateThreshold;
+        private final Duration slowCallDuration;
+        private final Duration openDuration;
+        private final int halfOpenProbes;
+        private final int maxConcurrentCalls;
+
+        private Settings(Builder builder) {
+            if (builder.slidingWindowSize <= 0 || builder.minimumCalls <= 0 || builder.halfOpenProbes <= 0) {
+                throw new IllegalArgumentException("Window size, minimum calls and half-open probes must be positive");
+            }
+            if (builder.maxConcurrentCalls < 0) {
+                throw new IllegalArgumentException("Max concurrent calls cannot be negative");
+            }
+            this.slidingWindowSize = builder.slidingWindowSize;
+            this.minimumCalls = Math.min(builder.minimumCalls, builder.slidingWindowSize);
+            this.failureRateThreshold = builder.failureRateThreshold;
+            this.slowCallRateThreshold = builder.slowCallRateThreshold;
+            this.slowCallDuration = builder.slowCallDuration;
+            this.openDuration = builder.openDuration;
+            this.halfOpenProbes = builder.halfOpenProbes;
+            this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public static final class Builder {
+            private int slidingWindowSize = 50;
+            private int minimumCalls = 20;
+            private double failureRateThreshold = 50.0;
+            private double slowCallRateThreshold = 80.0;
+            private Duration slowCallDuration = Duration.ofSeconds(2);
+            private Duration openDuration = Duration.ofSeconds(10);
+            private int halfOpenProbes = 5;
+            private int maxConcurrentCalls = 0;
+
+            /**
+             * 滑動視窗的呼叫數
+             */
+            public Builder slidingWindowSize(int slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+                return this;
+            }
+
+            /**
+             * 視窗累積的呼叫數達此值才計算失敗率
+             */
+            public Builder minimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+                return this;
+            }
+
+            /**
+             * 失敗率門檻（百分比）
+             */
+            public Builder failureRateThreshold(double failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+                return this;
+            }
+
+            /**
+             * 慢呼叫率門檻（百分比）
+             */
+            public Builder slowCallRateThreshold(double slowCallRateThreshold) {
+                this.slowCallRateThreshold = slowCallRateThreshold;
+                return this;
+            }
+
+            public Builder slowCallDuration(Duration slowCallDuration) {
+                this.slowCallDuration = slowCallDuration;
+                return this;
+            }
+
+            public Builder openDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+                return this;
+            }
+
+            public Builder halfOpenProbes(int halfOpenProbes) {
+                this.halfOpenProbes = halfOpenProbes;
+                return this;
+            }
+
+            /**
+             * 隔艙：同一端點同時進行的呼叫上限，0 表示不限制
+             */
+            public Builder maxConcurrentCalls(int maxConcurrentCalls) {
+                this.maxConcurrentCalls = maxConcurrentCalls;
+                return this;
+            }
+
+            public Settings build() {
+                return new Settings(this);
+            }
+        }
+    }
+
+    /**
+     * 斷路器統計資訊
+     */
+    public static final class Statistics {
+        private final String endpoint;
+        private final State state;
+        private final double failureRate;
+        private final double slowCallRate;
+        private final int bufferedCalls;
+        private final int inFlightCalls;
+        private final long successfulCalls;
+        private final long failedCalls;
+        private final long slowCalls;
+        private final long rejectedByCircuit;
+        private final long rejectedByBulkhead;
+        private final long openTransitions;
+
+        private Statistics(String endpoint, State state, double failureRate, double slowCallRate, int bufferedCalls,
+                           int inFlightCalls, long successfulCalls, long failedCalls, long slowCalls,
+                           long rejectedByCircuit, long rejectedByBulkhead, long openTransitions) {
+            this.endpoint = endpoint;
+            this.state = state;
+            this.failureRate = failureRate;
+            this.slowCallRate = slowCallRate;
+            this.bufferedCalls = bufferedCalls;
+            this.inFlightCalls = inFlightCalls;
+            this.successfulCalls = successfulCalls;
+            this.failedCalls = failedCalls;
+            this.slowCalls = slowCalls;
+            this.rejectedByCircuit = rejectedByCircuit;
+            this.rejectedByBulkhead = rejectedByBulkhead;
+            this.openTransitions = openTransitions;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        /**
+         * 目前視窗（半開時為探測呼叫）的失敗率百分比
+         */
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        public double getSlowCallRate() {
+            return slowCallRate;
+        }
+
+        public int getBufferedCalls() {
+            return bufferedCalls;
+        }
+
+        public int getInFlightCalls() {
+            return inFlightCalls;
+        }
+
+        public long getSuccessfulCalls() {
+            return successfulCalls;
+        }
+
+        public long getFailedCalls() {
+            return failedCalls;
+        }
+
+        public long getSlowCalls() {
+            return slowCalls;
+        }
+
+        public long getRejectedByCircuit() {
+            return rejectedByCircuit;
+        }
+
+        public long getRejectedByBulkhead() {
+            return rejectedByBulkhead;
+        }
+
+        public long getOpenTransitions() {
+            return openTransitions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CircuitBreakerStatistics{endpoint=%s, state=%s, failureRate=%.1f%%, " +
+                                 "slowCallRate=%.1f%%, inFlight=%d, rejectedByCircuit=%d, rejectedByBulkhead=%d}",
+                                 endpoint, state, failureRate, slowCallRate, inFlightCalls,
+                                 rejectedByCircuit, rejectedByBulkhead);
+        }
+    }
+}
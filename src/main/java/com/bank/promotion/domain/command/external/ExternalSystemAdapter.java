@@ -1,5 +1,6 @@
 package com.bank.promotion.domain.command.external;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -20,6 +21,34 @@ public interface ExternalSystemAdapter {
     ExternalSystemResponse call(ExternalSystemRequest request, long timeout, TimeUnit timeUnit) 
             throws ExternalSystemException;
     
+    /**
+     * 非同步呼叫外部系統
+     * 預設於呼叫端執行緒執行同步呼叫並返回已完成的 Future，支援非阻塞 I/O 的適配器應覆寫
+     * 
+     * @param request 請求資料
+     * @param timeout 超時時間
+     * @param timeUnit 時間單位
+     * @return 外部系統回應；呼叫失敗時以 {@link ExternalSystemException} 失敗
+     */
+    default CompletableFuture<ExternalSystemResponse> callAsync(ExternalSystemRequest request, long timeout,
+                                                                TimeUnit timeUnit) {
+        try {
+            return CompletableFuture.completedFuture(call(request, timeout, timeUnit));
+        } catch (ExternalSystemException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * 是否以非阻塞 I/O 實作 {@link #callAsync}
+     * 為 true 時節點命令改用非同步呼叫，等待回應期間不佔用 I/O 執行器的執行緒
+     * 
+     * @return 是否支援非阻塞呼叫
+     */
+    default boolean isNonBlocking() {
+        return false;
+    }
+    
     /**
      * 檢查外部系統是否可用
      * 
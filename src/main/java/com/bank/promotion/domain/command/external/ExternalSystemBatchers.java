@@ -0,0 +1,161 @@
+package com.bank.promotion.domain.command.external;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 外部系統微批次器註冊表
+ * 批次端點與批次設定相同的節點共用同一批次器，不同決策樹送往同一批量端點的請求可合併於同一批次；
+ * 節點命令重建時沿用既有批次器。批次器記錄使用的節點，決策樹失效時由 {@link #retireNodes} 移除其節點，
+ * 不再有任何節點使用的批次器即淘汰；淘汰的批次器仍會送出已收集的請求，仍持有的適配器可繼續使用至被釋放
+ *
+ * 時間窗口由共用的小型排程執行緒池觸發，批次呼叫本身為非阻塞呼叫
+ */
+public final class ExternalSystemBatchers {
+
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, Registration> batchers = new ConcurrentHashMap<>();
+    private final List<Consumer<MicroBatcher>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<MicroBatcher>> retirementListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param flushThreads 觸發時間窗口的排程執行緒數
+     */
+    public ExternalSystemBatchers(int flushThreads) {
+        if (flushThreads <= 0) {
+            throw new IllegalArgumentException("Flush threads must be positive");
+        }
+        this.scheduler = new ScheduledThreadPoolExecutor(flushThreads, new FlushThreadFactory());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 取得批次器，首次使用時以傳入的批次呼叫建立
+     *
+     * @param nodeId 使用批次器的節點ID
+     * @param batchEndpoint 批次端點
+     * @param settings 影響批次呼叫內容的設定描述，設定不同的節點不共用批次器
+     * @param maxBatchSize 單一批次的請求上限
+     * @param window 時間窗口
+     * @param bulkCall 批次呼叫
+     */
+    public synchronized MicroBatcher forEndpoint(String nodeId, String batchEndpoint, String settings,
+                                                 int maxBatchSize, Duration window, MicroBatcher.BulkCall bulkCall) {
+        String key = batchEndpoint + " [maxBatchSize=" + maxBatchSize + ", window=" + window + ", " + settings + "]";
+        Registration registration = batchers.get(key);
+        if (registration == null) {
+            registration = new Registration(new MicroBatcher(batchEndpoint, maxBatchSize, window, bulkCall, scheduler));
+            batchers.put(key, registration);
+            for (Consumer<MicroBatcher> listener : listeners) {
+                listener.accept(registration.batcher);
+            }
+        }
+        registration.nodeIds.add(nodeId);
+        return registration.batcher;
+    }
+
+    /**
+     * 移除節點對批次器的使用，不再有節點使用的批次器即淘汰
+     *
+     * @param nodeIds 節點ID
+     * @return 淘汰的批次器數
+     */
+    public synchronized int retireNodes(Collection<String> nodeIds) {
+        Set<String> retired = new HashSet<>(nodeIds);
+        int count = 0;
+        for (Iterator<Registration> iterator = batchers.values().iterator(); iterator.hasNext(); ) {
+            Registration registration = iterator.next();
+            registration.nodeIds.removeAll(retired);
+            if (registration.nodeIds.isEmpty()) {
+                iterator.remove();
+                notifyRetired(registration.batcher);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 淘汰所有批次器
+     */
+    public synchronized void retireAll() {
+        for (Iterator<Registration> iterator = batchers.values().iterator(); iterator.hasNext(); ) {
+            Registration registration = iterator.next();
+            iterator.remove();
+            notifyRetired(registration.batcher);
+        }
+    }
+
+    private void notifyRetired(MicroBatcher batcher) {
+        for (Consumer<MicroBatcher> listener : retirementListeners) {
+            listener.accept(batcher);
+        }
+    }
+
+    /**
+     * 註冊批次器建立與淘汰時的通知，註冊時會先通知既有的批次器，用於註冊與移除監控指標
+     *
+     * @param onCreated 批次器建立時的通知
+     * @param onRetired 批次器淘汰時的通知
+     */
+    public synchronized void addListener(Consumer<MicroBatcher> onCreated, Consumer<MicroBatcher> onRetired) {
+        listeners.add(onCreated);
+        retirementListeners.add(onRetired);
+        for (Registration registration : batchers.values()) {
+            onCreated.accept(registration.batcher);
+        }
+    }
+
+    /**
+     * 各批次器的統計，依名稱排序
+     */
+    public List<MicroBatcher.Statistics> getStatistics() {
+        List<MicroBatcher.Statistics> statistics = new ArrayList<>();
+        for (Registration registration : batchers.values()) {
+            statistics.add(registration.batcher.getStatistics());
+        }
+        statistics.sort(Comparator.comparing(MicroBatcher.Statistics::getName));
+        return statistics;
+    }
+
+    /**
+     * 關閉排程執行緒池，之後加入的請求不等待時間窗口直接送出
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private static final class Registration {
+        private final MicroBatcher batcher;
+        private final Set<String> nodeIds = new HashSet<>();
+
+        private Registration(MicroBatcher batcher) {
+            this.batcher = batcher;
+        }
+    }
+
+    private static final class FlushThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "external-batch-flush-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.promotion.domain.command.external;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 外部系統斷路器註冊表
+ * 每個外部端點一個斷路器，同一端點的所有節點與決策樹共用失敗統計與隔艙額度
+ */
+public final class ExternalSystemCircuitBreakers {
+
+    private final EndpointCircuitBreaker.Settings settings;
+    private final ConcurrentMap<String, EndpointCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final List<Consumer<EndpointCircuitBreaker>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param settings 斷路器設定，為 null 時停用斷路器（原有行為）
+     */
+    public ExternalSystemCircuitBreakers(EndpointCircuitBreaker.Settings settings) {
+        this.settings = settings;
+    }
+
+    public boolean isEnabled() {
+        return settings != null;
+    }
+
+    /**
+     * 取得端點的斷路器，首次使用時建立
+     *
+     * @param endpoint 端點
+     * @return 斷路器，停用時為 null
+     */
+    public EndpointCircuitBreaker forEndpoint(String endpoint) {
+        if (settings == null) {
+            return null;
+        }
+        String key = endpoint.trim();
+        EndpointCircuitBreaker circuitBreaker = circuitBreakers.get(key);
+        if (circuitBreaker != null) {
+            return circuitBreaker;
+        }
+        EndpointCircuitBreaker created = new EndpointCircuitBreaker(key, settings);
+        circuitBreaker = circuitBreakers.putIfAbsent(key, created);
+        if (circuitBreaker != null) {
+            return circuitBreaker;
+        }
+        for (Consumer<EndpointCircuitBreaker> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    /**
+     * 註冊新斷路器建立時的通知，註冊時會先通知既有的斷路器，用於註冊監控指標
+     */
+    public void addListener(Consumer<EndpointCircuitBreaker> listener) {
+        listeners.add(listener);
+        for (EndpointCircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            listener.accept(circuitBreaker);
+        }
+    }
+
+    /**
+     * 各端點的斷路器統計，依端點排序
+     */
+    public List<EndpointCircuitBreaker.Statistics> getStatistics() {
+        List<EndpointCircuitBreaker.Statistics> statistics = new ArrayList<>(circuitBreakers.size());
+        for (EndpointCircuitBreaker circuitBreaker : circuitBreakers.values()) {
+            statistics.add(circuitBreaker.getStatistics());
+        }
+        statistics.sort(Comparator.comparing(EndpointCircuitBreaker.Statistics::getEndpoint));
+        return statistics;
+    }
+}
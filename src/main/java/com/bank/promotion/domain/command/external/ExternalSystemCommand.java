@@ -1,55 +1,155 @@
 package com.bank.promotion.domain.command.external;
 
 import com.bank.promotion.domain.command.AbstractNodeCommand;
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import com.bank.promotion.domain.command.CommandResources;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
 import com.bank.promotion.domain.valueobject.PromotionResult;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 外部系統命令
  * 負責呼叫外部系統並處理回應
+ * 
+ * 呼叫經過端點共用的斷路器：斷路器斷開或隔艙已滿時不呼叫外部系統，直接套用降級策略，
+ * 下游變慢時評估不必等到逾時才降級
+ * 
+ * 節點參數 responseCacheEnabled 為 true 時快取外部系統回應，須以 responseCacheKeys 指定組成鍵值的請求參數，
+ * 未指定時建立命令失敗，見 {@link ExternalSystemResponseCache}
+ * 
+ * 相同端點、適配器設定（HTTP 方法與標頭、查詢模板等）與請求參數的並行呼叫經 {@link RequestCoalescer} 合併為一次呼叫；
+ * HTTP 節點預設只合併 GET 呼叫，其他方法需將節點參數 requestCoalescing 設為 true 啟用，
+ * SOAP 與資料庫節點預設合併，非冪等的端點可設為 false 停用
+ * 
+ * HTTP 節點參數 batchingEnabled 為 true 時，個別請求合併為批量請求送往下游的批量查詢端點，
+ * 見 {@link HttpBatchExternalSystemAdapter}
  */
 public class ExternalSystemCommand extends AbstractNodeCommand {
     
+    /**
+     * 決定適配器呼叫內容的節點參數，參數不同的節點不合併呼叫
+     */
+    private static final List<String> ADAPTER_PARAMETERS = List.of(
+        "httpMethod", "headers", "queryTemplate", "databaseType", "soapAction", "namespace",
+        "batchingEnabled", "batchEndpoint", "batchRequestField", "batchResponseField", "batchCorrelationKey"
+    );
+    
     private final ExternalSystemAdapter adapter;
     private final boolean isConditionCommand;
     private final int timeoutSeconds;
     private final boolean enableFallback;
+    private final EndpointCircuitBreaker circuitBreaker;
+    private final ExternalSystemResponseCache responseCache;
+    private final RequestCoalescer coalescer;
+    private final String coalescingScope;
+    private final BlockingIoExecutor ioExecutor;
     
     public ExternalSystemCommand(NodeConfiguration configuration) {
-        super(configuration);
-        
-        this.isConditionCommand = "CONDITION".equals(configuration.getNodeType());
-        this.timeoutSeconds = getIntParameter("timeoutSeconds", 30);
-        this.enableFallback = getBooleanParameter("enableFallback", true);
-        
-        // 建立外部系統適配器
-        this.adapter = createAdapter(configuration);
+        this(configuration, CommandResources.defaults());
+    }
+    
+    public ExternalSystemCommand(NodeConfiguration configuration, CommandResources resources) {
+        this(configuration, null, resources, resources.getCircuitBreakers());
     }
     
     /**
      * 測試專用構造函數，允許注入 mock adapter
      */
     public ExternalSystemCommand(NodeConfiguration configuration, ExternalSystemAdapter adapter) {
+        this(configuration, adapter, CommandResources.defaults().getCircuitBreakers());
+    }
+    
+    /**
+     * 測試專用構造函數，允許注入 mock adapter 與斷路器註冊表
+     */
+    public ExternalSystemCommand(NodeConfiguration configuration, ExternalSystemAdapter adapter,
+                                 ExternalSystemCircuitBreakers circuitBreakers) {
+        this(configuration, adapter, CommandResources.defaults(), circuitBreakers);
+    }
+    
+    private ExternalSystemCommand(NodeConfiguration configuration, ExternalSystemAdapter adapter,
+                                  CommandResources resources, ExternalSystemCircuitBreakers circuitBreakers) {
         super(configuration);
         
         this.isConditionCommand = "CONDITION".equals(configuration.getNodeType());
         this.timeoutSeconds = getIntParameter("timeoutSeconds", 30);
         this.enableFallback = getBooleanParameter("enableFallback", true);
-        this.adapter = adapter;
+        
+        // 未注入適配器時依設定建立
+        this.adapter = adapter != null ? adapter : createAdapter(configuration, resources);
+        this.circuitBreaker = resolveCircuitBreaker(circuitBreakers);
+        this.responseCache = resolveResponseCache(resources.getResponseCaches());
+        this.coalescer = getBooleanParameter("requestCoalescing", isIdempotentByDefault()) ? resources.getCoalescer() : null;
+        this.coalescingScope = resolveCoalescingScope();
+        this.ioExecutor = resources.getIoExecutor();
+    }
+    
+    private EndpointCircuitBreaker resolveCircuitBreaker(ExternalSystemCircuitBreakers circuitBreakers) {
+        String endpoint = getStringParameter("endpoint", "");
+        return endpoint.isEmpty() ? null : circuitBreakers.forEndpoint(endpoint);
+    }
+    
+    /**
+     * HTTP 節點只有 GET 預設視為可合併，其餘系統類型為查詢
+     */
+    private boolean isIdempotentByDefault() {
+        String systemType = getStringParameter("systemType", "HTTP").toUpperCase();
+        if (!"HTTP".equals(systemType) && !"REST".equals(systemType)) {
+            return true;
+        }
+        return "GET".equalsIgnoreCase(getStringParameter("httpMethod", "POST"));
+    }
+    
+    /**
+     * 合併範圍：系統類型、端點與決定適配器呼叫內容的節點參數
+     */
+    private String resolveCoalescingScope() {
+        StringBuilder scope = new StringBuilder(getStringParameter("systemType", "HTTP").toUpperCase())
+            .append(' ').append(getStringParameter("endpoint", ""));
+        for (String name : ADAPTER_PARAMETERS) {
+            Object value = configuration.getParameters().get(name);
+            if (value != null) {
+                // 標頭依名稱排序，內容相同的設定得到相同範圍
+                Object normalized = value instanceof Map ? new TreeMap<>((Map<?, ?>) value) : value;
+                scope.append(' ').append(name).append('=').append(normalized);
+            }
+        }
+        return scope.toString();
+    }
+    
+    private ExternalSystemResponseCache resolveResponseCache(ExternalSystemResponseCaches responseCaches) {
+        if (!getBooleanParameter("responseCacheEnabled", false)) {
+            return null;
+        }
+        ExternalSystemResponseCache.Settings settings = new ExternalSystemResponseCache.Settings(
+            ExternalSystemResponseCache.Settings.parseKeyParameters(getConfigurationParameter("responseCacheKeys", null)),
+            Duration.ofSeconds(getIntParameter("responseCacheTtlSeconds", 300)),
+            Duration.ofSeconds(getIntParameter("responseCacheStaleSeconds", 60)),
+            Duration.ofSeconds(getIntParameter("responseCacheNegativeTtlSeconds", 30)),
+            getIntParameter("responseCacheMaxWeight", 10000)
+        );
+        return responseCaches.forNode(configuration.getNodeId(), getStringParameter("endpoint", ""), settings);
     }
     
     /**
      * 建立外部系統適配器
      */
-    private ExternalSystemAdapter createAdapter(NodeConfiguration configuration) {
+    private ExternalSystemAdapter createAdapter(NodeConfiguration configuration, CommandResources resources) {
         String systemType = getStringParameter("systemType", "HTTP");
         String endpoint = getStringParameter("endpoint", "");
         
@@ -60,7 +160,12 @@ public class ExternalSystemCommand extends AbstractNodeCommand {
         switch (systemType.toUpperCase()) {
             case "HTTP":
             case "REST":
-                return new HttpExternalSystemAdapter(endpoint, configuration.getParameters());
+                if (getBooleanParameter("batchingEnabled", false)) {
+                    return new HttpBatchExternalSystemAdapter(configuration.getNodeId(), endpoint,
+                                                              configuration.getParameters(),
+                                                              resources.getHttpClients(), resources.getBatchers());
+                }
+                return new HttpExternalSystemAdapter(endpoint, configuration.getParameters(), resources.getHttpClients());
             case "SOAP":
                 return new SoapExternalSystemAdapter(endpoint, configuration.getParameters());
             case "DATABASE":
@@ -76,8 +181,10 @@ public class ExternalSystemCommand extends AbstractNodeCommand {
             // 準備請求資料
             ExternalSystemRequest request = buildRequest(context);
             
-            // 呼叫外部系統
-            ExternalSystemResponse response = adapter.call(request, timeoutSeconds, TimeUnit.SECONDS);
+            // 呼叫外部系統，啟用回應快取時優先使用快取
+            ExternalSystemResponse response = responseCache != null
+                ? responseCache.get(request, () -> callExternalSystem(request))
+                : callExternalSystem(request);
             
             // 處理回應
             if (response.isSuccess()) {
@@ -86,11 +193,136 @@ public class ExternalSystemCommand extends AbstractNodeCommand {
                 return handleErrorResponse(response, context);
             }
             
+        } catch (CallNotPermittedException e) {
+            return handleRejection(context);
         } catch (Exception e) {
             return handleException(e, context);
         }
     }
     
+    /**
+     * 呼叫外部系統，相同請求進行中時等待其結果
+     */
+    private ExternalSystemResponse callExternalSystem(ExternalSystemRequest request) throws Exception {
+        if (coalescer == null) {
+            return callThroughCircuitBreaker(request);
+        }
+        return coalescer.call(coalescingScope, request, () -> callThroughCircuitBreaker(request),
+                              timeoutSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * 經斷路器呼叫外部系統
+     * 非阻塞適配器以 {@link ExternalSystemAdapter#callAsync} 呼叫並於呼叫端執行緒等待回應，
+     * 其餘適配器的阻塞呼叫交由共用 I/O 執行器執行
+     * 
+     * @throws CallNotPermittedException 斷路器斷開或隔艙已滿時
+     */
+    private ExternalSystemResponse callThroughCircuitBreaker(ExternalSystemRequest request) throws Exception {
+        EndpointCircuitBreaker.Permit permit = null;
+        if (circuitBreaker != null) {
+            permit = circuitBreaker.tryAcquire();
+            if (permit == null) {
+                throw new CallNotPermittedException();
+            }
+        }
+        
+        if (adapter.isNonBlocking()) {
+            return callAsync(request, permit);
+        }
+        if (permit == null) {
+            return ioExecutor.call(() -> adapter.call(request, timeoutSeconds, TimeUnit.SECONDS),
+                                   timeoutSeconds, TimeUnit.SECONDS);
+        }
+        
+        // 呼叫開始執行後由執行呼叫的執行緒於結束時釋放額度，等待逾時不提前釋放；
+        // 未開始即被拒絕或逾時的呼叫由呼叫端釋放
+        EndpointCircuitBreaker.Permit held = permit;
+        AtomicBoolean claimed = new AtomicBoolean();
+        try {
+            return ioExecutor.call(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    throw new CancellationException("External system call abandoned before start");
+                }
+                try {
+                    ExternalSystemResponse response = adapter.call(request, timeoutSeconds, TimeUnit.SECONDS);
+                    held.complete(response.isSuccess());
+                    return response;
+                } catch (Exception | Error e) {
+                    held.complete(false);
+                    throw e;
+                }
+            }, timeoutSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            if (claimed.compareAndSet(false, true)) {
+                // 本機 I/O 額度不足或排隊逾時而未送出的呼叫不計入端點失敗率
+                held.cancel();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 以非同步呼叫外部系統並等待回應，不經 I/O 執行器
+     * 適配器的 Future 依請求逾時自行完成，隔艙額度於 Future 完成時釋放；
+     * 呼叫端等待逾時不取消呼叫，避免下游仍在處理時提前釋放額度
+     */
+    private ExternalSystemResponse callAsync(ExternalSystemRequest request, EndpointCircuitBreaker.Permit permit)
+            throws Exception {
+        CompletableFuture<ExternalSystemResponse> future;
+        try {
+            future = adapter.callAsync(request, timeoutSeconds, TimeUnit.SECONDS);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        if (permit != null) {
+            future.whenComplete((response, error) -> {
+                // 本機連線額度不足而未送出的呼叫不計入端點失敗率
+                if (error != null && isLocalRejection(error)) {
+                    permit.cancel();
+                } else {
+                    permit.complete(error == null && response.isSuccess());
+                }
+            });
+        }
+        
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+    
+    private static boolean isLocalRejection(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 處理斷路器拒絕的呼叫
+     */
+    private NodeResult handleRejection(ExecutionContext context) {
+        String reason = circuitBreaker.getState() == EndpointCircuitBreaker.State.CLOSED
+            ? "External system bulkhead full: " + circuitBreaker.getEndpoint()
+            : "External system circuit open: " + circuitBreaker.getEndpoint();
+        if (enableFallback) {
+            return handleFallback(context, reason);
+        } else {
+            return NodeResult.failure(reason);
+        }
+    }
+    
     /**
      * 建立外部系統請求
      */
@@ -334,4 +566,14 @@ public class ExternalSystemCommand extends AbstractNodeCommand {
                "SOAP".equals(normalizedType) || 
                "DATABASE".equals(normalizedType);
     }
+    
+    /**
+     * 斷路器拒絕呼叫
+     */
+    private static final class CallNotPermittedException extends Exception {
+        
+        private CallNotPermittedException() {
+            super(null, null, false, false);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,371 @@
+package com.bank.promotion.domain.command.external;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 外部系統回應快取
+ * 以節點設定的請求參數子集為鍵值快取外部系統回應，適用於信用評分、會員等級等變動緩慢的查詢
+ *
+ * 回應於 TTL 內直接使用；TTL 過後的過期寬限期內仍返回舊回應，同時於背景重新呼叫外部系統更新（stale-while-revalidate），
+ * 每個鍵值同時只有一個背景更新；寬限期過後移除，下一次評估同步呼叫。
+ * 錯誤回應以較短的負面快取時間保存，避免對持續失敗的查詢反覆呼叫；呼叫拋出的例外不快取
+ *
+ * 請求缺少任一鍵值參數時不使用快取，直接呼叫外部系統，避免不同客戶共用同一鍵值
+ */
+public final class ExternalSystemResponseCache {
+
+    /**
+     * 外部系統呼叫
+     */
+    @FunctionalInterface
+    public interface Loader {
+        ExternalSystemResponse load() throws Exception;
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final Executor refreshExecutor;
+    private final Cache<ResponseKey, CachedResponse> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncachedRequests = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    ExternalSystemResponseCache(String name, Settings settings, Executor refreshExecutor) {
+        this.name = name;
+        this.settings = settings;
+        this.refreshExecutor = refreshExecutor;
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(settings.maximumWeight)
+            .weigher((ResponseKey key, CachedResponse value) -> value.weight)
+            .expireAfter(new CachedResponseExpiry())
+            .build();
+    }
+
+    /**
+     * 取得請求的回應，未命中時同步呼叫外部系統
+     *
+     * @param request 外部系統請求
+     * @param loader 呼叫外部系統，背景更新時也使用此呼叫
+     * @return 外部系統回應
+     * @throws Exception 同步呼叫失敗時
+     */
+    public ExternalSystemResponse get(ExternalSystemRequest request, Loader loader) throws Exception {
+        ResponseKey key = keyOf(request);
+        if (key == null) {
+            uncachedRequests.increment();
+            return loader.load();
+        }
+        CachedResponse cached = cache.getIfPresent(key);
+        long now = System.nanoTime();
+        if (cached != null) {
+            if (!cached.response.isSuccess()) {
+                negativeHits.increment();
+                return cached.response;
+            }
+            if (now < cached.freshUntil) {
+                hits.increment();
+                return cached.response;
+            }
+            staleHits.increment();
+            refreshInBackground(key, cached, loader);
+            return cached.response;
+        }
+
+        misses.increment();
+        ExternalSystemResponse response = loader.load();
+        store(key, response);
+        return response;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public Statistics getStatistics() {
+        return new Statistics(name, cache.estimatedSize(), hits.sum(), staleHits.sum(), negativeHits.sum(),
+                              misses.sum(), uncachedRequests.sum(), refreshes.sum(), refreshFailures.sum());
+    }
+
+    private void refreshInBackground(ResponseKey key, CachedResponse stale, Loader loader) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    store(key, loader.load());
+                    refreshes.increment();
+                } catch (Exception e) {
+                    // 更新失敗時保留舊回應至寬限期結束
+                    refreshFailures.increment();
+                    stale.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshFailures.increment();
+            stale.refreshing.set(false);
+        }
+    }
+
+    private void store(ResponseKey key, ExternalSystemResponse response) {
+        long now = System.nanoTime();
+        if (response.isSuccess()) {
+            cache.put(key, new CachedResponse(response, now + settings.ttl.toNanos(),
+                                              settings.ttl.plus(settings.staleWhileRevalidate).toNanos()));
+        } else if (!settings.negativeTtl.isZero()) {
+            cache.put(key, new CachedResponse(response, now, settings.negativeTtl.toNanos()));
+        }
+    }
+
+    /**
+     * 以鍵值參數組成快取鍵，缺少任一參數時返回 null
+     */
+    private ResponseKey keyOf(ExternalSystemRequest request) {
+        Map<String, Object> parameters = request.getParameters();
+        Object[] values = new Object[settings.keyParameters.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parameters.get(settings.keyParameters.get(i));
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return new ResponseKey(values);
+    }
+
+    /**
+     * 快取設定
+     */
+    public static final class Settings {
+
+        private final List<String> keyParameters;
+        private final Duration ttl;
+        private final Duration staleWhileRevalidate;
+        private final Duration negativeTtl;
+        private final long maximumWeight;
+
+        /**
+         * @param keyParameters 組成鍵值的請求參數名稱，不可為空
+         * @param ttl 回應直接使用的時間
+         * @param staleWhileRevalidate TTL 過後仍可返回舊回應並背景更新的時間
+         * @param negativeTtl 錯誤回應的快取時間，0 表示不快取錯誤回應
+         * @param maximumWeight 權重上限，每筆回應權重為 1 加上回應資料欄位數
+         */
+        public Settings(List<String> keyParameters, Duration ttl, Duration staleWhileRevalidate,
+                        Duration negativeTtl, long maximumWeight) {
+            if (keyParameters == null || keyParameters.isEmpty()) {
+                throw new IllegalArgumentException("Response cache key parameters are required");
+            }
+            if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("Response cache TTL must be positive");
+            }
+            if (staleWhileRevalidate == null || staleWhileRevalidate.isNegative()
+                    || negativeTtl == null || negativeTtl.isNegative()) {
+                throw new IllegalArgumentException("Stale and negative TTLs cannot be negative");
+            }
+            if (maximumWeight <= 0) {
+                throw new IllegalArgumentException("Response cache maximum weight must be positive");
+            }
+            this.keyParameters = List.copyOf(keyParameters);
+            this.ttl = ttl;
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            this.negativeTtl = negativeTtl;
+            this.maximumWeight = maximumWeight;
+        }
+
+        /**
+         * 解析參數名稱清單，可為集合或逗號分隔字串
+         */
+        public static List<String> parseKeyParameters(Object declared) {
+            if (declared == null) {
+                return List.of();
+            }
+            Collection<?> names = declared instanceof Collection
+                ? (Collection<?>) declared
+                : Arrays.asList(declared.toString().split(","));
+            List<String> keys = new ArrayList<>();
+            for (Object name : names) {
+                String key = name.toString().trim();
+                if (!key.isEmpty()) {
+                    keys.add(key);
+                }
+            }
+            return Collections.unmodifiableList(keys);
+        }
+
+        @Override
+        public String toString() {
+            return "keys=" + keyParameters + ", ttl=" + ttl + ", stale=" + staleWhileRevalidate +
+                   ", negativeTtl=" + negativeTtl + ", maximumWeight=" + maximumWeight;
+        }
+    }
+
+    /**
+     * 快取統計資訊
+     */
+    public static final class Statistics {
+        private final String name;
+        private final long size;
+        private final long hits;
+        private final long staleHits;
+        private final long negativeHits;
+        private final long misses;
+        private final long uncachedRequests;
+        private final long refreshes;
+        private final long refreshFailures;
+
+        private Statistics(String name, long size, long hits, long staleHits, long negativeHits, long misses,
+                           long uncachedRequests, long refreshes, long refreshFailures) {
+            this.name = name;
+            this.size = size;
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.negativeHits = negativeHits;
+            this.misses = misses;
+            this.uncachedRequests = uncachedRequests;
+            this.refreshes = refreshes;
+            this.refreshFailures = refreshFailures;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * 返回舊回應並觸發背景更新的次數
+         */
+        public long getStaleHits() {
+            return staleHits;
+        }
+
+        public long getNegativeHits() {
+            return negativeHits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * 缺少鍵值參數而未使用快取的請求數
+         */
+        public long getUncachedRequests() {
+            return uncachedRequests;
+        }
+
+        public long getRefreshes() {
+            return refreshes;
+        }
+
+        public long getRefreshFailures() {
+            return refreshFailures;
+        }
+
+        public double getHitRate() {
+            long requests = hits + staleHits + negativeHits + misses;
+            return requests > 0 ? (double) (hits + staleHits + negativeHits) / requests : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ResponseCacheStatistics{name=%s, size=%d, hits=%d, staleHits=%d, " +
+                                 "negativeHits=%d, misses=%d, refreshes=%d}",
+                                 name, size, hits, staleHits, negativeHits, misses, refreshes);
+        }
+    }
+
+    private static final class CachedResponse {
+        private final ExternalSystemResponse response;
+        private final long freshUntil;
+        private final long lifetimeNanos;
+        private final int weight;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CachedResponse(ExternalSystemResponse response, long freshUntil, long lifetimeNanos) {
+            this.response = response;
+            this.freshUntil = freshUntil;
+            this.lifetimeNanos = lifetimeNanos;
+            this.weight = 1 + response.getData().size();
+        }
+    }
+
+    /**
+     * 每筆回應依寫入時決定的存活時間過期，讀取不延長
+     */
+    private static final class CachedResponseExpiry implements Expiry<ResponseKey, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(ResponseKey key, CachedResponse value, long currentTime) {
+            return value.lifetimeNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(ResponseKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.lifetimeNanos;
+        }
+
+        @Override
+        public long expireAfterRead(ResponseKey key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    /**
+     * 快取鍵，相等性以參數值比對
+     */
+    private static final class ResponseKey {
+
+        private final Object[] values;
+        private final int hash;
+
+        private ResponseKey(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ResponseKey)) {
+                return false;
+            }
+            return Arrays.equals(values, ((ResponseKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
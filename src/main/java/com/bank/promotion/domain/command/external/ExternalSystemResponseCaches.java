@@ -0,0 +1,171 @@
+package com.bank.promotion.domain.command.external;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 外部系統回應快取註冊表
+ * 節點命令可能因預熱或決策樹重新載入而重建，快取依節點與端點保存於此，設定相同時重建的命令沿用同一快取；
+ * 設定變更的節點改用新的快取並淘汰舊快取，決策樹失效時由 {@link #retireNodes} 淘汰其節點的快取。
+ * 淘汰的快取不再提供給新建立的命令，仍持有的命令可繼續使用至被釋放
+ *
+ * 背景更新使用專屬的小型執行緒池，佇列已滿時放棄更新，舊回應於寬限期結束後由同步呼叫取代
+ */
+public final class ExternalSystemResponseCaches {
+
+    private final ThreadPoolExecutor refreshExecutor;
+    private final Map<String, Registration> caches = new ConcurrentHashMap<>();
+    private final List<Consumer<ExternalSystemResponseCache>> listeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<ExternalSystemResponseCache>> retirementListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param refreshThreads 背景更新執行緒數
+     * @param refreshQueueCapacity 等待中的背景更新上限
+     */
+    public ExternalSystemResponseCaches(int refreshThreads, int refreshQueueCapacity) {
+        if (refreshThreads <= 0 || refreshQueueCapacity <= 0) {
+            throw new IllegalArgumentException("Refresh threads and queue capacity must be positive");
+        }
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60L, TimeUnit.SECONDS,
+                                                      new ArrayBlockingQueue<>(refreshQueueCapacity),
+                                                      new RefreshThreadFactory());
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 取得節點的回應快取
+     *
+     * @param nodeId 節點ID
+     * @param endpoint 外部系統端點
+     * @param settings 快取設定
+     */
+    public synchronized ExternalSystemResponseCache forNode(String nodeId, String endpoint,
+                                                            ExternalSystemResponseCache.Settings settings) {
+        String name = nodeId + "@" + endpoint;
+        String settingsKey = settings.toString();
+        Registration existing = caches.get(name);
+        if (existing != null && existing.settingsKey.equals(settingsKey)) {
+            return existing.cache;
+        }
+        if (existing != null) {
+            retire(existing);
+        }
+        ExternalSystemResponseCache created = new ExternalSystemResponseCache(name, settings, refreshExecutor);
+        caches.put(name, new Registration(nodeId, settingsKey, created));
+        for (Consumer<ExternalSystemResponseCache> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    /**
+     * 淘汰節點的快取，之後建立的命令使用新的快取
+     *
+     * @param nodeIds 節點ID
+     * @return 淘汰的快取數
+     */
+    public synchronized int retireNodes(Collection<String> nodeIds) {
+        Set<String> retired = new HashSet<>(nodeIds);
+        int count = 0;
+        for (Iterator<Registration> iterator = caches.values().iterator(); iterator.hasNext(); ) {
+            Registration registration = iterator.next();
+            if (retired.contains(registration.nodeId)) {
+                iterator.remove();
+                notifyRetired(registration.cache);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 淘汰所有快取
+     */
+    public synchronized void retireAll() {
+        for (Iterator<Registration> iterator = caches.values().iterator(); iterator.hasNext(); ) {
+            Registration registration = iterator.next();
+            iterator.remove();
+            notifyRetired(registration.cache);
+        }
+    }
+
+    private void retire(Registration registration) {
+        caches.remove(registration.cache.getName());
+        notifyRetired(registration.cache);
+    }
+
+    private void notifyRetired(ExternalSystemResponseCache cache) {
+        for (Consumer<ExternalSystemResponseCache> listener : retirementListeners) {
+            listener.accept(cache);
+        }
+    }
+
+    /**
+     * 註冊快取建立與淘汰時的通知，註冊時會先通知既有的快取，用於註冊與移除監控指標
+     *
+     * @param onCreated 快取建立時的通知
+     * @param onRetired 快取淘汰時的通知
+     */
+    public synchronized void addListener(Consumer<ExternalSystemResponseCache> onCreated,
+                                         Consumer<ExternalSystemResponseCache> onRetired) {
+        listeners.add(onCreated);
+        retirementListeners.add(onRetired);
+        for (Registration registration : caches.values()) {
+            onCreated.accept(registration.cache);
+        }
+    }
+
+    /**
+     * 各節點快取的統計，依名稱排序
+     */
+    public List<ExternalSystemResponseCache.Statistics> getStatistics() {
+        List<ExternalSystemResponseCache.Statistics> statistics = new ArrayList<>();
+        for (Registration registration : caches.values()) {
+            statistics.add(registration.cache.getStatistics());
+        }
+        statistics.sort(Comparator.comparing(ExternalSystemResponseCache.Statistics::getName));
+        return statistics;
+    }
+
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    private static final class Registration {
+        private final String nodeId;
+        private final String settingsKey;
+        private final ExternalSystemResponseCache cache;
+
+        private Registration(String nodeId, String settingsKey, ExternalSystemResponseCache cache) {
+            this.nodeId = nodeId;
+            this.settingsKey = settingsKey;
+            this.cache = cache;
+        }
+    }
+
+    private static final class RefreshThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "external-response-refresh-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.bank.promotion.domain.command.external;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * HTTP 批次外部系統適配器
+ * 個別客戶的請求經 {@link MicroBatcher} 於短暫的時間窗口內收集，以一次 POST 送往下游的批量查詢端點，
+ * 再將批量回應分派回各呼叫端
+ *
+ * 節點參數：
+ * <ul>
+ *   <li>batchEndpoint：批量查詢端點，預設為節點端點</li>
+ *   <li>batchWindowMillis：第一個請求進入後等待其他請求的毫秒數，預設 5</li>
+ *   <li>batchMaxSize：單一批次的請求上限，預設 200</li>
+ *   <li>batchRequestField：請求本文中承載個別請求參數陣列的欄位，預設 requests</li>
+ *   <li>batchResponseField：回應本文中承載個別回應陣列的欄位，預設 responses</li>
+ *   <li>batchCorrelationKey：以個別回應的此欄位對應請求參數的同名欄位；未設定時依陣列順序對應，
+ *       請求缺少此參數時該請求得到錯誤回應</li>
+ * </ul>
+ * 批量請求只帶節點設定的標頭，個別請求的標頭不會送出
+ *
+ * 批次大小受同時等待回應的呼叫端數量限制：節點命令以 {@link #callAsync} 呼叫，不佔用 I/O 執行器的執行緒，
+ * 但每個評估仍於自己的執行緒等待結果，且受端點隔艙（max-concurrent-calls-per-endpoint，預設 50）限制。
+ * 批次評估以 CPU 核心數的執行緒執行，單一批次約為核心數；線上請求的批次不超過隔艙上限。
+ * 超過這些上限的 batchMaxSize 不會達到，批次於時間窗口結束時送出，實際批次大小見批次統計的平均批次大小與送出原因
+ */
+public class HttpBatchExternalSystemAdapter implements ExternalSystemAdapter {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String batchEndpoint;
+    private final URI batchUri;
+    private final HttpClientRegistry.EndpointClient client;
+    private final Map<String, String> defaultHeaders;
+    private final String requestField;
+    private final String responseField;
+    private final String correlationKey;
+    private final int timeoutSeconds;
+    private final MicroBatcher batcher;
+
+    /**
+     * @param nodeId 節點ID，決策樹失效時據以淘汰不再使用的批次器
+     * @param endpoint 節點端點，未設定 batchEndpoint 時作為批次端點
+     * @param parameters 節點參數
+     * @param clientRegistry HTTP 用戶端註冊表
+     * @param batchers 批次器註冊表
+     */
+    public HttpBatchExternalSystemAdapter(String nodeId, String endpoint, Map<String, Object> parameters,
+                                          HttpClientRegistry clientRegistry, ExternalSystemBatchers batchers) {
+        this.batchEndpoint = validateEndpoint(getStringParameter(parameters, "batchEndpoint", endpoint));
+        this.batchUri = URI.create(batchEndpoint);
+        this.defaultHeaders = getDefaultHeaders(parameters);
+        this.requestField = getStringParameter(parameters, "batchRequestField", "requests");
+        this.responseField = getStringParameter(parameters, "batchResponseField", "responses");
+        this.correlationKey = getStringParameter(parameters, "batchCorrelationKey", "");
+        this.timeoutSeconds = getIntParameter(parameters, "timeoutSeconds", 30);
+        this.client = clientRegistry.clientFor(batchUri);
+
+        String settings = "requestField=" + requestField + ", responseField=" + responseField +
+                          ", correlationKey=" + correlationKey + ", timeoutSeconds=" + timeoutSeconds +
+                          ", headers=" + defaultHeaders;
+        this.batcher = batchers.forEndpoint(nodeId, batchEndpoint, settings,
+                                            getIntParameter(parameters, "batchMaxSize", 200),
+                                            Duration.ofMillis(getIntParameter(parameters, "batchWindowMillis", 5)),
+                                            this::sendBatch);
+    }
+
+    private String validateEndpoint(String endpoint) {
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            throw new IllegalArgumentException("HTTP batch endpoint cannot be null or empty");
+        }
+
+        String normalizedEndpoint = endpoint.trim();
+        if (!normalizedEndpoint.startsWith("http://") && !normalizedEndpoint.startsWith("https://")) {
+            throw new IllegalArgumentException("HTTP batch endpoint must start with http:// or https://");
+        }
+
+        return normalizedEndpoint;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> getDefaultHeaders(Map<String, Object> parameters) {
+        Object headersObj = parameters.get("headers");
+        if (headersObj instanceof Map) {
+            return (Map<String, String>) headersObj;
+        }
+        return Map.of(
+            "Content-Type", "application/json",
+            "Accept", "application/json"
+        );
+    }
+
+    private String getStringParameter(Map<String, Object> parameters, String key, String defaultValue) {
+        Object value = parameters.get(key);
+        return value != null ? value.toString() : defaultValue;
+    }
+
+    private int getIntParameter(Map<String, Object> parameters, String key, int defaultValue) {
+        Object value = parameters.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Integer.parseInt((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public ExternalSystemResponse call(ExternalSystemRequest request, long timeout, TimeUnit timeUnit)
+            throws ExternalSystemException {
+        CompletableFuture<ExternalSystemResponse> future = batcher.submit(request);
+        try {
+            return future.get(timeout, timeUnit);
+        } catch (TimeoutException e) {
+            // 尚未送出的請求不再列入批次
+            future.cancel(false);
+            throw new ExternalSystemException(
+                "Batched HTTP request timed out after " + timeUnit.toMillis(timeout) + "ms", e, "HTTP", batchEndpoint, -1
+            );
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ExternalSystemException(
+                "Batched HTTP request interrupted: " + e.getMessage(), e, "HTTP", batchEndpoint, -1
+            );
+        } catch (ExecutionException e) {
+            throw toExternalSystemException(e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<ExternalSystemResponse> callAsync(ExternalSystemRequest request, long timeout,
+                                                               TimeUnit timeUnit) {
+        return batcher.submit(request).orTimeout(timeout, timeUnit);
+    }
+
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+
+    /**
+     * 送出批量請求，回應依請求順序排列
+     */
+    private CompletableFuture<List<ExternalSystemResponse>> sendBatch(List<ExternalSystemRequest> requests) {
+        long startTime = System.currentTimeMillis();
+        HttpRequest httpRequest;
+        try {
+            httpRequest = buildBatchRequest(requests);
+        } catch (ExternalSystemException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new CompletionException(toExternalSystemException(error));
+                    }
+                    try {
+                        return demultiplex(requests, response, System.currentTimeMillis() - startTime);
+                    } catch (ExternalSystemException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private HttpRequest buildBatchRequest(List<ExternalSystemRequest> requests) throws ExternalSystemException {
+        try {
+            List<Map<String, Object>> items = new ArrayList<>(requests.size());
+            for (ExternalSystemRequest request : requests) {
+                items.add(request.getParameters());
+            }
+            String jsonBody = OBJECT_MAPPER.writeValueAsString(Map.of(requestField, items));
+
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .uri(batchUri)
+                    .timeout(Duration.ofSeconds(timeoutSeconds))
+                    .POST(HttpRequest.BodyPublishers.ofString(jsonBody));
+            for (Map.Entry<String, String> header : defaultHeaders.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            return builder.build();
+
+        } catch (Exception e) {
+            throw new ExternalSystemException("Failed to build HTTP batch request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 將批量回應分派為個別回應
+     * 非 2xx 狀態時每個請求皆得到錯誤回應；以對應欄位對應時，缺少對應值或找不到對應項目的請求得到錯誤回應，
+     * 缺少對應值的回應項目不分派
+     */
+    private List<ExternalSystemResponse> demultiplex(List<ExternalSystemRequest> requests,
+                                                     HttpResponse<String> response, long executionTime)
+            throws ExternalSystemException {
+        int statusCode = response.statusCode();
+        List<ExternalSystemResponse> responses = new ArrayList<>(requests.size());
+
+        if (statusCode < 200 || statusCode >= 300) {
+            String errorMessage = String.format("HTTP batch request failed with status %d: %s",
+                                                statusCode, response.body());
+            for (int i = 0; i < requests.size(); i++) {
+                responses.add(ExternalSystemResponse.failure(errorMessage)
+                        .statusCode(statusCode)
+                        .executionTimeMs(executionTime)
+                        .responseTime(LocalDateTime.now())
+                        .build());
+            }
+            return responses;
+        }
+
+        List<?> items = parseResponseItems(response.body(), statusCode);
+        if (correlationKey.isEmpty()) {
+            if (items.size() != requests.size()) {
+                throw new ExternalSystemException(
+                    "HTTP batch returned " + items.size() + " item(s) for " + requests.size() + " request(s)",
+                    "HTTP", batchEndpoint, statusCode
+                );
+            }
+            for (Object item : items) {
+                responses.add(toResponse(item, statusCode, executionTime));
+            }
+            return responses;
+        }
+
+        Map<String, Object> itemsByKey = new HashMap<>();
+        for (Object item : items) {
+            Object value = item instanceof Map ? ((Map<?, ?>) item).get(correlationKey) : null;
+            if (value != null) {
+                itemsByKey.put(String.valueOf(value), item);
+            }
+        }
+        for (ExternalSystemRequest request : requests) {
+            Object value = request.getParameter(correlationKey);
+            Object item = value != null ? itemsByKey.get(String.valueOf(value)) : null;
+            if (item != null) {
+                responses.add(toResponse(item, statusCode, executionTime));
+            } else if (value == null) {
+                responses.add(failure("Batch request has no " + correlationKey + " to correlate a response",
+                                      statusCode, executionTime));
+            } else {
+                responses.add(failure("No batch response item for " + correlationKey + "=" + value,
+                                      statusCode, executionTime));
+            }
+        }
+        return responses;
+    }
+
+    private static ExternalSystemResponse failure(String errorMessage, int statusCode, long executionTime) {
+        return ExternalSystemResponse.failure(errorMessage)
+                .statusCode(statusCode)
+                .executionTimeMs(executionTime)
+                .responseTime(LocalDateTime.now())
+                .build();
+    }
+
+    private List<?> parseResponseItems(String responseBody, int statusCode) throws ExternalSystemException {
+        try {
+            Map<?, ?> body = OBJECT_MAPPER.readValue(responseBody, Map.class);
+            Object items = body.get(responseField);
+            if (items instanceof List) {
+                return (List<?>) items;
+            }
+        } catch (IOException e) {
+            throw new ExternalSystemException(
+                "Failed to parse batch response body: " + e.getMessage(), e, "HTTP", batchEndpoint, statusCode
+            );
+        }
+        throw new ExternalSystemException(
+            "Batch response has no '" + responseField + "' array", "HTTP", batchEndpoint, statusCode
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private ExternalSystemResponse toResponse(Object item, int statusCode, long executionTime) {
+        Map<String, Object> data = item instanceof Map
+            ? (Map<String, Object>) item
+            : Map.of("response", String.valueOf(item));
+        return ExternalSystemResponse.success()
+                .addData(data)
+                .statusCode(statusCode)
+                .executionTimeMs(executionTime)
+                .responseTime(LocalDateTime.now())
+                .build();
+    }
+
+    private ExternalSystemException toExternalSystemException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ExternalSystemException) {
+            return (ExternalSystemException) cause;
+        }
+        if (cause instanceof IOException) {
+            return new ExternalSystemException(
+                "HTTP batch request failed: " + cause.getMessage(), cause, "HTTP", batchEndpoint, -1
+            );
+        }
+        if (cause instanceof CancellationException) {
+            return new ExternalSystemException(
+                "Batched HTTP request cancelled", cause, "HTTP", batchEndpoint, -1
+            );
+        }
+        return new ExternalSystemException(
+            "Unexpected error during HTTP batch request: " + cause.getMessage(), cause, "HTTP", batchEndpoint, -1
+        );
+    }
+
+    /**
+     * 批次統計
+     */
+    public MicroBatcher.Statistics getBatchStatistics() {
+        return batcher.getStatistics();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(batchUri)
+                    .timeout(Duration.ofSeconds(5))
+                    .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .build();
+
+            HttpResponse<Void> response = client.getHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() < 500;
+
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String getAdapterType() {
+        return "HTTP_BATCH";
+    }
+
+    @Override
+    public void close() {
+        // 批次器與 HttpClient 由註冊表共用，不隨適配器關閉
+    }
+}
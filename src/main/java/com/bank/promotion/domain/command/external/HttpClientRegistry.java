@@ -0,0 +1,352 @@
+package com.bank.promotion.domain.command.external;
+
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * HTTP 用戶端註冊表
+ * 依端點來源（scheme、主機與連接埠）共用 HttpClient，同一外部系統的所有節點與決策樹共用連線、TLS 會話與選擇器執行緒
+ *
+ * HTTPS 端點使用 HTTP/2，同一來源的請求多工於同一條連線；HTTP 端點使用 HTTP/1.1 keep-alive，
+ * 避免每條新連線都嘗試 h2c 升級。每個來源以並行上限限制同時進行的請求數（即 HTTP/1.1 的連線數），
+ * 超過時立即拒絕，由節點降級策略處理
+ */
+public final class HttpClientRegistry {
+
+    private static final int MAX_TRACKED_TLS_SESSIONS = 256;
+
+    private final Duration connectTimeout;
+    private final int maxConcurrentRequests;
+    private final ConcurrentMap<String, EndpointClient> clients = new ConcurrentHashMap<>();
+    private final List<Consumer<EndpointClient>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param connectTimeout 建立連線的逾時
+     * @param maxConcurrentRequests 每個來源同時進行的請求上限，0 表示不限制
+     */
+    public HttpClientRegistry(Duration connectTimeout, int maxConcurrentRequests) {
+        if (connectTimeout == null || connectTimeout.isNegative() || connectTimeout.isZero()) {
+            throw new IllegalArgumentException("Connect timeout must be positive");
+        }
+        if (maxConcurrentRequests < 0) {
+            throw new IllegalArgumentException("Max concurrent requests cannot be negative");
+        }
+        this.connectTimeout = connectTimeout;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    /**
+     * 取得端點來源的共用用戶端，首次使用時建立
+     *
+     * @param endpoint 端點 URI
+     * @return 端點來源的用戶端
+     */
+    public EndpointClient clientFor(URI endpoint) {
+        String authority = authorityOf(endpoint);
+        EndpointClient client = clients.get(authority);
+        if (client != null) {
+            return client;
+        }
+        EndpointClient created = new EndpointClient(authority, newHttpClient(endpoint), maxConcurrentRequests);
+        client = clients.putIfAbsent(authority, created);
+        if (client != null) {
+            return client;
+        }
+        for (Consumer<EndpointClient> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    /**
+     * 註冊新來源用戶端建立時的通知，註冊時會先通知既有的用戶端，用於註冊監控指標
+     */
+    public void addListener(Consumer<EndpointClient> listener) {
+        listeners.add(listener);
+        for (EndpointClient client : clients.values()) {
+            listener.accept(client);
+        }
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * 各來源的連線使用統計，依來源排序
+     */
+    public List<Statistics> getStatistics() {
+        List<Statistics> statistics = new ArrayList<>(clients.size());
+        for (EndpointClient client : clients.values()) {
+            statistics.add(client.getStatistics());
+        }
+        statistics.sort(Comparator.comparing(Statistics::getAuthority));
+        return statistics;
+    }
+
+    private HttpClient newHttpClient(URI endpoint) {
+        HttpClient.Version version = "https".equalsIgnoreCase(endpoint.getScheme())
+            ? HttpClient.Version.HTTP_2
+            : HttpClient.Version.HTTP_1_1;
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    /**
+     * 端點來源，未指定連接埠時補上 scheme 的預設連接埠
+     */
+    static String authorityOf(URI endpoint) {
+        if (endpoint == null || endpoint.getScheme() == null || endpoint.getHost() == null) {
+            throw new IllegalArgumentException("HTTP endpoint must be an absolute URI: " + endpoint);
+        }
+        String scheme = endpoint.getScheme().toLowerCase(Locale.ROOT);
+        int port = endpoint.getPort() >= 0 ? endpoint.getPort() : ("https".equals(scheme) ? 443 : 80);
+        return scheme + "://" + endpoint.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    /**
+     * 單一來源的共用用戶端
+     */
+    public static final class EndpointClient {
+        private final String authority;
+        private final HttpClient httpClient;
+        private final int maxConcurrentRequests;
+        private final Semaphore permits;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peakInFlight = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder http2Responses = new LongAdder();
+        private final LongAdder newTlsSessions = new LongAdder();
+        private final LongAdder reusedTlsSessions = new LongAdder();
+        private final Set<String> tlsSessionIds = ConcurrentHashMap.newKeySet();
+
+        private EndpointClient(String authority, HttpClient httpClient, int maxConcurrentRequests) {
+            this.authority = authority;
+            this.httpClient = httpClient;
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.permits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests) : null;
+        }
+
+        /**
+         * 發送請求並等待回應
+         *
+         * @throws RejectedExecutionException 來源的並行上限已滿時
+         */
+        public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+                throws IOException, InterruptedException {
+            acquire();
+            try {
+                HttpResponse<T> response = httpClient.send(request, bodyHandler);
+                recordResponse(response);
+                return response;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                failed.increment();
+                throw e;
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * 非同步發送請求，不佔用呼叫端執行緒等待回應
+         * 並行上限已滿時返回以 {@link RejectedExecutionException} 失敗的 Future
+         */
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                                HttpResponse.BodyHandler<T> bodyHandler) {
+            try {
+                acquire();
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<HttpResponse<T>> future;
+            try {
+                future = httpClient.sendAsync(request, bodyHandler);
+            } catch (RuntimeException e) {
+                failed.increment();
+                release();
+                return CompletableFuture.failedFuture(e);
+            }
+            return future.whenComplete((response, error) -> {
+                if (error != null) {
+                    failed.increment();
+                } else {
+                    recordResponse(response);
+                }
+                release();
+            });
+        }
+
+        public HttpClient getHttpClient() {
+            return httpClient;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        public Statistics getStatistics() {
+            return new Statistics(authority, httpClient.version(), maxConcurrentRequests, inFlight.get(),
+                                  peakInFlight.get(), completed.sum(), failed.sum(), rejected.sum(),
+                                  http2Responses.sum(), newTlsSessions.sum(), reusedTlsSessions.sum());
+        }
+
+        private void acquire() {
+            if (permits != null && !permits.tryAcquire()) {
+                rejected.increment();
+                throw new RejectedExecutionException(
+                    "HTTP connection limit reached for " + authority + " (" + maxConcurrentRequests + " requests)");
+            }
+            int active = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(active, Math::max);
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
+        private void recordResponse(HttpResponse<?> response) {
+            completed.increment();
+            if (response.version() == HttpClient.Version.HTTP_2) {
+                http2Responses.increment();
+            }
+            response.sslSession().ifPresent(this::recordTlsSession);
+        }
+
+        /**
+         * 以 TLS 會話ID判斷連線或會話是否重用；只保留最近的會話ID，超過上限時重新計算
+         */
+        private void recordTlsSession(SSLSession session) {
+            byte[] id = session.getId();
+            if (id == null || id.length == 0) {
+                return;
+            }
+            if (tlsSessionIds.size() >= MAX_TRACKED_TLS_SESSIONS) {
+                tlsSessionIds.clear();
+            }
+            if (tlsSessionIds.add(HexFormat.of().formatHex(id))) {
+                newTlsSessions.increment();
+            } else {
+                reusedTlsSessions.increment();
+            }
+        }
+    }
+
+    /**
+     * 來源的連線使用統計
+     */
+    public static final class Statistics {
+        private final String authority;
+        private final HttpClient.Version version;
+        private final int maxConcurrentRequests;
+        private final int inFlightRequests;
+        private final int peakInFlightRequests;
+        private final long completedRequests;
+        private final long failedRequests;
+        private final long rejectedRequests;
+        private final long http2Responses;
+        private final long newTlsSessions;
+        private final long reusedTlsSessions;
+
+        private Statistics(String authority, HttpClient.Version version, int maxConcurrentRequests,
+                           int inFlightRequests, int peakInFlightRequests, long completedRequests,
+                           long failedRequests, long rejectedRequests, long http2Responses,
+                           long newTlsSessions, long reusedTlsSessions) {
+            this.authority = authority;
+            this.version = version;
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.inFlightRequests = inFlightRequests;
+            this.peakInFlightRequests = peakInFlightRequests;
+            this.completedRequests = completedRequests;
+            this.failedRequests = failedRequests;
+            this.rejectedRequests = rejectedRequests;
+            this.http2Responses = http2Responses;
+            this.newTlsSessions = newTlsSessions;
+            this.reusedTlsSessions = reusedTlsSessions;
+        }
+
+        public String getAuthority() {
+            return authority;
+        }
+
+        /**
+         * 用戶端偏好的 HTTP 版本，伺服器不支援 HTTP/2 時實際以 HTTP/1.1 連線
+         */
+        public HttpClient.Version getVersion() {
+            return version;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public int getInFlightRequests() {
+            return inFlightRequests;
+        }
+
+        public int getPeakInFlightRequests() {
+            return peakInFlightRequests;
+        }
+
+        public long getCompletedRequests() {
+            return completedRequests;
+        }
+
+        public long getFailedRequests() {
+            return failedRequests;
+        }
+
+        public long getRejectedRequests() {
+            return rejectedRequests;
+        }
+
+        /**
+         * 以 HTTP/2 多工連線完成的回應數
+         */
+        public long getHttp2Responses() {
+            return http2Responses;
+        }
+
+        public long getNewTlsSessions() {
+            return newTlsSessions;
+        }
+
+        public long getReusedTlsSessions() {
+            return reusedTlsSessions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("HttpClientStatistics{authority=%s, version=%s, inFlight=%d, peak=%d, " +
+                                 "completed=%d, failed=%d, rejected=%d, http2=%d, tlsReused=%d}",
+                                 authority, version, inFlightRequests, peakInFlightRequests, completedRequests,
+                                 failedRequests, rejectedRequests, http2Responses, reusedTlsSessions);
+        }
+    }
+}
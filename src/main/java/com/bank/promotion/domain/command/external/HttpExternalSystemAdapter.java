@@ -4,34 +4,40 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
 
 /**
  * HTTP 外部系統適配器
  * 透過 HTTP/REST API 與外部系統互動
+ * 
+ * HttpClient 取自 {@link HttpClientRegistry}，同一端點來源的所有適配器共用連線；
+ * 非同步呼叫使用 sendAsync，等待回應時不佔用執行緒
  */
 public class HttpExternalSystemAdapter implements ExternalSystemAdapter {
     
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    
     private final String endpoint;
-    private final HttpClient httpClient;
+    private final URI endpointUri;
+    private final HttpClientRegistry.EndpointClient client;
     private final ObjectMapper objectMapper;
     private final String httpMethod;
     private final Map<String, String> defaultHeaders;
     
-    public HttpExternalSystemAdapter(String endpoint, Map<String, Object> parameters) {
+    public HttpExternalSystemAdapter(String endpoint, Map<String, Object> parameters, HttpClientRegistry clientRegistry) {
         this.endpoint = validateEndpoint(endpoint);
+        this.endpointUri = URI.create(this.endpoint);
         this.httpMethod = getStringParameter(parameters, "httpMethod", "POST");
         this.defaultHeaders = getDefaultHeaders(parameters);
-        this.objectMapper = new ObjectMapper();
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+        this.objectMapper = OBJECT_MAPPER;
+        this.client = clientRegistry.clientFor(endpointUri);
     }
     
     private String validateEndpoint(String endpoint) {
@@ -74,8 +80,8 @@ public class HttpExternalSystemAdapter implements ExternalSystemAdapter {
             // 建立 HTTP 請求
             HttpRequest httpRequest = buildHttpRequest(request, timeout, timeUnit);
             
-            // 發送請求
-            HttpResponse<String> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+            // 透過來源共用的用戶端發送請求
+            HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
             
             long executionTime = System.currentTimeMillis() - startTime;
             
@@ -98,6 +104,50 @@ public class HttpExternalSystemAdapter implements ExternalSystemAdapter {
         }
     }
     
+    @Override
+    public CompletableFuture<ExternalSystemResponse> callAsync(ExternalSystemRequest request, long timeout,
+                                                               TimeUnit timeUnit) {
+        long startTime = System.currentTimeMillis();
+        HttpRequest httpRequest;
+        try {
+            httpRequest = buildHttpRequest(request, timeout, timeUnit);
+        } catch (ExternalSystemException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        
+        return client.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new CompletionException(toExternalSystemException(error));
+                    }
+                    try {
+                        return handleHttpResponse(response, System.currentTimeMillis() - startTime);
+                    } catch (ExternalSystemException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+    
+    @Override
+    public boolean isNonBlocking() {
+        return true;
+    }
+    
+    private ExternalSystemException toExternalSystemException(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ExternalSystemException) {
+            return (ExternalSystemException) cause;
+        }
+        if (cause instanceof IOException) {
+            return new ExternalSystemException(
+                "HTTP request failed: " + cause.getMessage(), cause, "HTTP", endpoint, -1
+            );
+        }
+        return new ExternalSystemException(
+            "Unexpected error during HTTP request: " + cause.getMessage(), cause, "HTTP", endpoint, -1
+        );
+    }
+    
     /**
      * 建立 HTTP 請求
      */
@@ -106,7 +156,7 @@ public class HttpExternalSystemAdapter implements ExternalSystemAdapter {
         
         try {
             HttpRequest.Builder builder = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
+                    .uri(endpointUri)
                     .timeout(Duration.of(timeout, timeUnit.toChronoUnit()));
             
             // 設定標頭
@@ -202,12 +252,12 @@ public class HttpExternalSystemAdapter implements ExternalSystemAdapter {
     public boolean isAvailable() {
         try {
             HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
+                    .uri(endpointUri)
                     .timeout(Duration.ofSeconds(5))
                     .method("HEAD", HttpRequest.BodyPublishers.noBody())
                     .build();
                     
-            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            HttpResponse<Void> response = client.getHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
             return response.statusCode() < 500;
             
         } catch (Exception e) {
@@ -222,6 +272,6 @@ public class HttpExternalSystemAdapter implements ExternalSystemAdapter {
     
     @Override
     public void close() {
-        // HttpClient 不需要明確關閉
+        // HttpClient 由註冊表共用，不隨適配器關閉
     }
 }
\ No newline at end of file
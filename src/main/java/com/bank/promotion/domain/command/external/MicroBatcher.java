@@ -0,0 +1,282 @@
+package com.bank.promotion.domain.command.external;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 外部系統請求微批次器
+ * 收集送往同一批次端點的個別請求，於時間窗口結束或達到批次大小上限時以一次批次呼叫送出，
+ * 再依批次回應的順序將結果分派回各呼叫端的 Future
+ *
+ * 送出前已取消或逾時的請求不列入批次；批次呼叫失敗時，批次內所有請求以相同例外失敗
+ */
+public final class MicroBatcher {
+
+    /**
+     * 批次呼叫，回應清單需與請求清單順序相同、數量一致
+     */
+    @FunctionalInterface
+    public interface BulkCall {
+        CompletableFuture<List<ExternalSystemResponse>> call(List<ExternalSystemRequest> requests);
+    }
+
+    private final String name;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BulkCall bulkCall;
+    private final ScheduledExecutorService scheduler;
+    private final Object lock = new Object();
+    private List<PendingRequest> pending = new ArrayList<>();
+    private ScheduledFuture<?> windowFlush;
+    private long generation;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder sizeFlushes = new LongAdder();
+    private final LongAdder windowFlushes = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder abandonedRequests = new LongAdder();
+
+    /**
+     * @param name 批次器名稱，通常為批次端點
+     * @param maxBatchSize 單一批次的請求上限
+     * @param window 第一個請求進入後等待其他請求的時間
+     * @param bulkCall 批次呼叫，應為非阻塞呼叫
+     * @param scheduler 時間窗口結束時送出批次的排程器
+     */
+    public MicroBatcher(String name, int maxBatchSize, Duration window, BulkCall bulkCall,
+                        ScheduledExecutorService scheduler) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        if (window == null || window.isNegative()) {
+            throw new IllegalArgumentException("Batch window cannot be negative");
+        }
+        this.name = name;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.bulkCall = bulkCall;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 加入請求
+     *
+     * @param request 個別請求
+     * @return 該請求的回應；批次呼叫失敗時以批次的例外失敗，取消時不列入尚未送出的批次
+     */
+    public CompletableFuture<ExternalSystemResponse> submit(ExternalSystemRequest request) {
+        PendingRequest item = new PendingRequest(request);
+        List<PendingRequest> full = null;
+        synchronized (lock) {
+            pending.add(item);
+            if (pending.size() >= maxBatchSize) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                long scheduledGeneration = generation;
+                try {
+                    windowFlush = scheduler.schedule(() -> flushWindow(scheduledGeneration), windowNanos,
+                                                     TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // 排程器已關閉時不等待窗口，直接送出
+                    full = drain();
+                }
+            }
+        }
+        if (full != null) {
+            if (full.size() >= maxBatchSize) {
+                sizeFlushes.increment();
+            }
+            dispatch(full);
+        }
+        return item.future;
+    }
+
+    private void flushWindow(long scheduledGeneration) {
+        List<PendingRequest> batch;
+        synchronized (lock) {
+            // 批次已因達到上限送出時，排程中的窗口屬於前一批次
+            if (scheduledGeneration != generation || pending.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        windowFlushes.increment();
+        dispatch(batch);
+    }
+
+    private List<PendingRequest> drain() {
+        List<PendingRequest> batch = pending;
+        pending = new ArrayList<>();
+        generation++;
+        if (windowFlush != null) {
+            windowFlush.cancel(false);
+            windowFlush = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(List<PendingRequest> batch) {
+        List<PendingRequest> live = new ArrayList<>(batch.size());
+        for (PendingRequest item : batch) {
+            if (item.future.isDone()) {
+                abandonedRequests.increment();
+            } else {
+                live.add(item);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+
+        List<ExternalSystemRequest> requests = new ArrayList<>(live.size());
+        for (PendingRequest item : live) {
+            requests.add(item.request);
+        }
+        batches.increment();
+        batchedRequests.add(live.size());
+
+        CompletableFuture<List<ExternalSystemResponse>> responses;
+        try {
+            responses = bulkCall.call(requests);
+        } catch (RuntimeException e) {
+            responses = CompletableFuture.failedFuture(e);
+        }
+        responses.whenComplete((results, error) -> {
+            if (error == null && (results == null || results.size() != live.size())) {
+                error = new ExternalSystemException("Batch response count " +
+                    (results == null ? 0 : results.size()) + " does not match request count " + live.size() +
+                    ": " + name);
+            }
+            if (error != null) {
+                failedBatches.increment();
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                for (PendingRequest item : live) {
+                    item.future.completeExceptionally(cause);
+                }
+                return;
+            }
+            for (int i = 0; i < live.size(); i++) {
+                live.get(i).future.complete(results.get(i));
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 獲取批次統計
+     */
+    public Statistics getStatistics() {
+        int pendingRequests;
+        synchronized (lock) {
+            pendingRequests = pending.size();
+        }
+        return new Statistics(name, maxBatchSize, pendingRequests, batches.sum(), batchedRequests.sum(),
+                              sizeFlushes.sum(), windowFlushes.sum(), failedBatches.sum(), abandonedRequests.sum());
+    }
+
+    /**
+     * 批次統計資訊
+     */
+    public static final class Statistics {
+        private final String name;
+        private final int maxBatchSize;
+        private final int pendingRequests;
+        private final long batches;
+        private final long batchedRequests;
+        private final long sizeFlushes;
+        private final long windowFlushes;
+        private final long failedBatches;
+        private final long abandonedRequests;
+
+        private Statistics(String name, int maxBatchSize, int pendingRequests, long batches, long batchedRequests,
+                           long sizeFlushes, long windowFlushes, long failedBatches, long abandonedRequests) {
+            this.name = name;
+            this.maxBatchSize = maxBatchSize;
+            this.pendingRequests = pendingRequests;
+            this.batches = batches;
+            this.batchedRequests = batchedRequests;
+            this.sizeFlushes = sizeFlushes;
+            this.windowFlushes = windowFlushes;
+            this.failedBatches = failedBatches;
+            this.abandonedRequests = abandonedRequests;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        public int getPendingRequests() {
+            return pendingRequests;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public long getBatchedRequests() {
+            return batchedRequests;
+        }
+
+        /**
+         * 因達到批次大小上限而送出的批次數
+         */
+        public long getSizeFlushes() {
+            return sizeFlushes;
+        }
+
+        /**
+         * 因時間窗口結束而送出的批次數
+         */
+        public long getWindowFlushes() {
+            return windowFlushes;
+        }
+
+        public long getFailedBatches() {
+            return failedBatches;
+        }
+
+        /**
+         * 送出前已取消或逾時而未列入批次的請求數
+         */
+        public long getAbandonedRequests() {
+            return abandonedRequests;
+        }
+
+        public double getAverageBatchSize() {
+            return batches > 0 ? (double) batchedRequests / batches : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("MicroBatchStatistics{name=%s, pending=%d, batches=%d, avgSize=%.1f, " +
+                                 "sizeFlushes=%d, windowFlushes=%d, failed=%d, abandoned=%d}",
+                                 name, pendingRequests, batches, getAverageBatchSize(), sizeFlushes,
+                                 windowFlushes, failedBatches, abandonedRequests);
+        }
+    }
+
+    private static final class PendingRequest {
+        private final ExternalSystemRequest request;
+        private final CompletableFuture<ExternalSystemResponse> future = new CompletableFuture<>();
+
+        private PendingRequest(ExternalSystemRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.bank.promotion.domain.command.external;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 進行中請求合併器（singleflight）
+ * 活動上線時重試與多決策樹評估會對同一客戶同時發出相同的外部系統或資料庫查詢，
+ * 相同範圍與請求參數的並行呼叫只由第一個呼叫端實際執行，其餘呼叫端等待同一結果
+ *
+ * 逾時與取消語意：
+ * <ul>
+ *   <li>執行呼叫的呼叫端沿用原本的逾時；呼叫的結果、回應或例外由所有等待者共用</li>
+ *   <li>等待者各自以自己的逾時等待，等待逾時或被中斷只影響該等待者，進行中的呼叫不受影響</li>
+ *   <li>執行呼叫的呼叫端被中斷時，等待者不共用該中斷，於剩餘時間內重新發出呼叫</li>
+ * </ul>
+ * 呼叫完成後即移除，不快取結果；需要快取時見 {@link ExternalSystemResponseCache}
+ */
+public final class RequestCoalescer {
+
+    private final boolean enabled;
+    private final ConcurrentMap<RequestKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executedCalls = new LongAdder();
+    private final LongAdder coalescedCalls = new LongAdder();
+    private final LongAdder waiterTimeouts = new LongAdder();
+
+    /**
+     * @param enabled 是否合併請求，停用時每次直接執行呼叫
+     */
+    public RequestCoalescer(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 執行呼叫，相同鍵值已有進行中的呼叫時等待其結果
+     *
+     * @param scope 呼叫範圍，例如系統類型與端點或查詢模板，範圍不同的請求不合併
+     * @param request 請求，以請求參數比對，請求ID不列入比對
+     * @param call 實際呼叫
+     * @param timeout 等待上限
+     * @param timeUnit 時間單位
+     * @return 呼叫結果
+     * @throws TimeoutException 等待其他呼叫端的呼叫逾時時
+     * @throws Exception 呼叫本身拋出的例外
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(String scope, ExternalSystemRequest request, Callable<T> call,
+                      long timeout, TimeUnit timeUnit) throws Exception {
+        if (!enabled) {
+            return call.call();
+        }
+        RequestKey key = new RequestKey(scope, request.getParameters());
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        while (true) {
+            CompletableFuture<Object> created = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                return execute(key, created, call);
+            }
+
+            coalescedCalls.increment();
+            long remaining = deadline - System.nanoTime();
+            try {
+                return (T) existing.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                waiterTimeouts.increment();
+                throw new TimeoutException("Timed out waiting for in-flight request to " + scope);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof LeaderInterruptedException) {
+                    // 執行呼叫的呼叫端被中斷，重新競爭執行
+                    continue;
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private <T> T execute(RequestKey key, CompletableFuture<Object> future, Callable<T> call) throws Exception {
+        executedCalls.increment();
+        try {
+            T result = call.call();
+            future.complete(result);
+            return result;
+        } catch (InterruptedException e) {
+            future.completeExceptionally(new LeaderInterruptedException());
+            throw e;
+        } catch (Exception e) {
+            future.completeExceptionally(Thread.currentThread().isInterrupted()
+                                             ? new LeaderInterruptedException() : e);
+            throw e;
+        } catch (Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * 獲取合併統計
+     */
+    public Statistics getStatistics() {
+        return new Statistics(inFlight.size(), executedCalls.sum(), coalescedCalls.sum(), waiterTimeouts.sum());
+    }
+
+    /**
+     * 合併統計資訊
+     */
+    public static final class Statistics {
+        private final int inFlightCalls;
+        private final long executedCalls;
+        private final long coalescedCalls;
+        private final long waiterTimeouts;
+
+        private Statistics(int inFlightCalls, long executedCalls, long coalescedCalls, long waiterTimeouts) {
+            this.inFlightCalls = inFlightCalls;
+            this.executedCalls = executedCalls;
+            this.coalescedCalls = coalescedCalls;
+            this.waiterTimeouts = waiterTimeouts;
+        }
+
+        public int getInFlightCalls() {
+            return inFlightCalls;
+        }
+
+        /**
+         * 實際執行的呼叫數
+         */
+        public long getExecutedCalls() {
+            return executedCalls;
+        }
+
+        /**
+         * 等待其他呼叫端結果而未發出呼叫的次數
+         */
+        public long getCoalescedCalls() {
+            return coalescedCalls;
+        }
+
+        public long getWaiterTimeouts() {
+            return waiterTimeouts;
+        }
+
+        public double getCoalescingRate() {
+            long calls = executedCalls + coalescedCalls;
+            return calls > 0 ? (double) coalescedCalls / calls : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RequestCoalescingStatistics{inFlight=%d, executed=%d, coalesced=%d, " +
+                                 "waiterTimeouts=%d, rate=%.2f%%}",
+                                 inFlightCalls, executedCalls, coalescedCalls, waiterTimeouts,
+                                 getCoalescingRate() * 100);
+        }
+    }
+
+    /**
+     * 執行呼叫的呼叫端被中斷，通知等待者重新發出呼叫
+     */
+    private static final class LeaderInterruptedException extends Exception {
+
+        private LeaderInterruptedException() {
+            super("In-flight request abandoned by interrupted caller", null, false, false);
+        }
+    }
+
+    /**
+     * 合併鍵，相等性以範圍與請求參數比對
+     */
+    private static final class RequestKey {
+
+        private final String scope;
+        private final Map<String, Object> parameters;
+        private final int hash;
+
+        private RequestKey(String scope, Map<String, Object> parameters) {
+            this.scope = scope;
+            this.parameters = parameters;
+            this.hash = Objects.hash(scope, parameters);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RequestKey)) {
+                return false;
+            }
+            RequestKey other = (RequestKey) o;
+            return scope.equals(other.scope) && parameters.equals(other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.bank.promotion.domain.command.spel;
+
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SpEL 節點評估上下文
+ * 表達式引用變數時才向執行上下文與客戶資料讀取，不在每次評估時逐一設定變數
+ *
+ * 變數解析順序與原本逐一設定變數時的覆寫順序相同：
+ * 表達式內指派的變數、節點常數（param_ 前綴的配置參數與計算函數）、上下文資料、客戶資料欄位
+ *
+ * 屬性存取器、方法解析器與型別轉換器由所有評估共用，反射查詢結果的快取因此跨評估保留；
+ * 每次評估只建立此輕量物件
+ */
+final class NodeEvaluationContext implements EvaluationContext {
+
+    private static final StandardEvaluationContext INFRASTRUCTURE = createInfrastructure();
+
+    private final Map<String, Object> constants;
+    private final ExecutionContext executionContext;
+    private final CustomerPayload customerPayload;
+    private Map<String, Object> assignedVariables;
+
+    private NodeEvaluationContext(Map<String, Object> constants, ExecutionContext executionContext) {
+        this.constants = constants;
+        this.executionContext = executionContext;
+        this.customerPayload = executionContext.getCustomerPayload();
+    }
+
+    /**
+     * 建立節點常數：配置參數以 param_ 前綴綁定，額外常數（例如計算函數）覆寫同名參數
+     * 於命令建構時呼叫一次
+     */
+    static Map<String, Object> bindConstants(NodeConfiguration configuration, Map<String, Object> extraConstants) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Map.Entry<String, Object> entry : configuration.getParameters().entrySet()) {
+            constants.put("param_" + entry.getKey(), entry.getValue());
+        }
+        constants.putAll(extraConstants);
+        return Collections.unmodifiableMap(constants);
+    }
+
+    static NodeEvaluationContext forExecution(Map<String, Object> constants, ExecutionContext executionContext) {
+        return new NodeEvaluationContext(constants, executionContext);
+    }
+
+    @Override
+    public Object lookupVariable(String name) {
+        if (assignedVariables != null && assignedVariables.containsKey(name)) {
+            return assignedVariables.get(name);
+        }
+        if (constants.containsKey(name)) {
+            return constants.get(name);
+        }
+        Object contextValue = executionContext.getContextData().get(name);
+        if (contextValue != null) {
+            return contextValue;
+        }
+        return customerField(name);
+    }
+
+    @Override
+    public void setVariable(String name, Object value) {
+        if (assignedVariables == null) {
+            assignedVariables = new HashMap<>();
+        }
+        assignedVariables.put(name, value);
+    }
+
+    private Object customerField(String name) {
+        if (customerPayload == null) {
+            return null;
+        }
+        switch (name) {
+            case "customer":
+                return customerPayload;
+            case "customerId":
+                return customerPayload.getCustomerId();
+            case "accountType":
+                return customerPayload.getAccountType();
+            case "annualIncome":
+                return customerPayload.getAnnualIncome();
+            case "creditScore":
+                return customerPayload.getCreditScore();
+            case "accountBalance":
+                return customerPayload.getAccountBalance();
+            case "transactionHistory":
+                return customerPayload.getTransactionHistory();
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public TypedValue getRootObject() {
+        return TypedValue.NULL;
+    }
+
+    @Override
+    public List<PropertyAccessor> getPropertyAccessors() {
+        return INFRASTRUCTURE.getPropertyAccessors();
+    }
+
+    @Override
+    public List<ConstructorResolver> getConstructorResolvers() {
+        return INFRASTRUCTURE.getConstructorResolvers();
+    }
+
+    @Override
+    public List<MethodResolver> getMethodResolvers() {
+        return INFRASTRUCTURE.getMethodResolvers();
+    }
+
+    @Override
+    public BeanResolver getBeanResolver() {
+        return null;
+    }
+
+    @Override
+    public TypeLocator getTypeLocator() {
+        return INFRASTRUCTURE.getTypeLocator();
+    }
+
+    @Override
+    public TypeConverter getTypeConverter() {
+        return INFRASTRUCTURE.getTypeConverter();
+    }
+
+    @Override
+    public TypeComparator getTypeComparator() {
+        return INFRASTRUCTURE.getTypeComparator();
+    }
+
+    @Override
+    public OperatorOverloader getOperatorOverloader() {
+        return INFRASTRUCTURE.getOperatorOverloader();
+    }
+
+    /**
+     * 預先初始化共用元件；StandardEvaluationContext 的解析器清單為延遲建立，
+     * 於類別載入時建立完成後即只供讀取，可安全地跨執行緒共用
+     */
+    private static StandardEvaluationContext createInfrastructure() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.getPropertyAccessors();
+        context.getConstructorResolvers();
+        context.getMethodResolvers();
+        context.getTypeLocator();
+        context.getTypeConverter();
+        return context;
+    }
+}
@@ -1,14 +1,11 @@
 package com.bank.promotion.domain.command.spel;
 
 import com.bank.promotion.domain.command.AbstractNodeCommand;
+import com.bank.promotion.domain.command.CommandResources;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
 import com.bank.promotion.domain.valueobject.PromotionResult;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -21,29 +18,39 @@ import java.util.UUID;
  */
 public class SpELCalculationCommand extends AbstractNodeCommand {
     
-    private static final ExpressionParser PARSER = new SpelExpressionParser();
-    private static final SpELExpressionCache EXPRESSION_CACHE = new SpELExpressionCache();
-    private final Expression expression;
+    private final SpELExpressionCache expressionCache;
+    private final SpELExpressionCache.CachedExpression expression;
+    private final Map<String, Object> constants;
     
     public SpELCalculationCommand(NodeConfiguration configuration) {
+        this(configuration, CommandResources.defaults().getExpressionCache());
+    }
+    
+    public SpELCalculationCommand(NodeConfiguration configuration, SpELExpressionCache expressionCache) {
         super(configuration);
         
         if (configuration.getExpression() == null || configuration.getExpression().trim().isEmpty()) {
             throw new IllegalArgumentException("SpEL expression cannot be null or empty");
         }
         
+        this.expressionCache = expressionCache;
         try {
-            this.expression = EXPRESSION_CACHE.getExpression(configuration.getExpression());
+            this.expression = expressionCache.getCachedExpression(configuration.getExpression());
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid SpEL expression: " + configuration.getExpression(), e);
         }
+        this.constants = NodeEvaluationContext.bindConstants(configuration, Map.of(
+            "min", new MinFunction(),
+            "max", new MaxFunction(),
+            "round", new RoundFunction()
+        ));
     }
     
     @Override
     protected NodeResult doExecute(ExecutionContext context) {
         try {
-            // 建立 SpEL 評估上下文
-            StandardEvaluationContext evaluationContext = createEvaluationContext(context);
+            // 建立 SpEL 評估上下文，變數於表達式引用時才解析
+            NodeEvaluationContext evaluationContext = NodeEvaluationContext.forExecution(constants, context);
             
             // 評估表達式
             Object result = expression.getValue(evaluationContext);
@@ -58,44 +65,6 @@ public class SpELCalculationCommand extends AbstractNodeCommand {
         }
     }
     
-    /**
-     * 建立 SpEL 評估上下文
-     * 將客戶資料和上下文資料設定為 SpEL 變數
-     */
-    private StandardEvaluationContext createEvaluationContext(ExecutionContext context) {
-        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
-        
-        // 設定客戶資料變數
-        if (context.getCustomerPayload() != null) {
-            evaluationContext.setVariable("customer", context.getCustomerPayload());
-            
-            // 為了方便使用，也可以直接設定客戶資料的各個欄位
-            evaluationContext.setVariable("customerId", context.getCustomerPayload().getCustomerId());
-            evaluationContext.setVariable("accountType", context.getCustomerPayload().getAccountType());
-            evaluationContext.setVariable("annualIncome", context.getCustomerPayload().getAnnualIncome());
-            evaluationContext.setVariable("creditScore", context.getCustomerPayload().getCreditScore());
-            evaluationContext.setVariable("accountBalance", context.getCustomerPayload().getAccountBalance());
-            evaluationContext.setVariable("transactionHistory", context.getCustomerPayload().getTransactionHistory());
-        }
-        
-        // 設定上下文資料變數
-        for (Map.Entry<String, Object> entry : context.getContextData().entrySet()) {
-            evaluationContext.setVariable(entry.getKey(), entry.getValue());
-        }
-        
-        // 設定配置參數變數
-        for (Map.Entry<String, Object> entry : configuration.getParameters().entrySet()) {
-            evaluationContext.setVariable("param_" + entry.getKey(), entry.getValue());
-        }
-        
-        // 設定常用的計算函數
-        evaluationContext.setVariable("min", new MinFunction());
-        evaluationContext.setVariable("max", new MaxFunction());
-        evaluationContext.setVariable("round", new RoundFunction());
-        
-        return evaluationContext;
-    }
-    
     /**
      * 根據表達式結果建立優惠結果
      */
@@ -195,7 +164,7 @@ public class SpELCalculationCommand extends AbstractNodeCommand {
         
         // 嘗試解析表達式以驗證語法
         try {
-            EXPRESSION_CACHE.getExpression(configuration.getExpression());
+            expressionCache.getExpression(configuration.getExpression());
             return true;
         } catch (Exception e) {
             return false;
@@ -1,13 +1,10 @@
 package com.bank.promotion.domain.command.spel;
 
 import com.bank.promotion.domain.command.AbstractNodeCommand;
+import com.bank.promotion.domain.command.CommandResources;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
 import com.bank.promotion.domain.valueobject.NodeConfiguration;
-import org.springframework.expression.Expression;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
 
 import java.util.Map;
 
@@ -17,22 +14,28 @@ import java.util.Map;
  */
 public class SpELConditionCommand extends AbstractNodeCommand {
     
-    private static final ExpressionParser PARSER = new SpelExpressionParser();
-    private static final SpELExpressionCache EXPRESSION_CACHE = new SpELExpressionCache();
-    private final Expression expression;
+    private final SpELExpressionCache expressionCache;
+    private final SpELExpressionCache.CachedExpression expression;
+    private final Map<String, Object> constants;
     
     public SpELConditionCommand(NodeConfiguration configuration) {
+        this(configuration, CommandResources.defaults().getExpressionCache());
+    }
+    
+    public SpELConditionCommand(NodeConfiguration configuration, SpELExpressionCache expressionCache) {
         super(configuration);
         
         if (configuration.getExpression() == null || configuration.getExpression().trim().isEmpty()) {
             throw new IllegalArgumentException("SpEL expression cannot be null or empty");
         }
         
+        this.expressionCache = expressionCache;
         try {
-            this.expression = EXPRESSION_CACHE.getExpression(configuration.getExpression());
+            this.expression = expressionCache.getCachedExpression(configuration.getExpression());
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid SpEL expression: " + configuration.getExpression(), e);
         }
+        this.constants = NodeEvaluationContext.bindConstants(configuration, Map.of());
     }
     
     @Override
@@ -44,8 +47,8 @@ public class SpELConditionCommand extends AbstractNodeCommand {
                     new IllegalArgumentException("Customer payload cannot be null"));
             }
             
-            // 建立 SpEL 評估上下文
-            StandardEvaluationContext evaluationContext = createEvaluationContext(context);
+            // 建立 SpEL 評估上下文，變數於表達式引用時才解析
+            NodeEvaluationContext evaluationContext = NodeEvaluationContext.forExecution(constants, context);
             
             // 評估表達式
             Object result = expression.getValue(evaluationContext);
@@ -60,48 +63,6 @@ public class SpELConditionCommand extends AbstractNodeCommand {
         }
     }
     
-    /**
-     * 建立 SpEL 評估上下文
-     * 將客戶資料和上下文資料設定為 SpEL 變數
-     */
-    private StandardEvaluationContext createEvaluationContext(ExecutionContext context) {
-        StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
-        
-        // 設定客戶資料變數
-        if (context.getCustomerPayload() != null) {
-            evaluationContext.setVariable("customer", context.getCustomerPayload());
-            
-            // 為了方便使用，也可以直接設定客戶資料的各個欄位
-            evaluationContext.setVariable("customerId", context.getCustomerPayload().getCustomerId());
-            evaluationContext.setVariable("accountType", context.getCustomerPayload().getAccountType());
-            evaluationContext.setVariable("annualIncome", context.getCustomerPayload().getAnnualIncome());
-            evaluationContext.setVariable("creditScore", context.getCustomerPayload().getCreditScore());
-            evaluationContext.setVariable("accountBalance", context.getCustomerPayload().getAccountBalance());
-            evaluationContext.setVariable("transactionHistory", context.getCustomerPayload().getTransactionHistory());
-        } else {
-            // 如果客戶資料為 null，設定預設值以避免 SpEL 表達式錯誤
-            evaluationContext.setVariable("customer", null);
-            evaluationContext.setVariable("customerId", null);
-            evaluationContext.setVariable("accountType", null);
-            evaluationContext.setVariable("annualIncome", null);
-            evaluationContext.setVariable("creditScore", null);
-            evaluationContext.setVariable("accountBalance", null);
-            evaluationContext.setVariable("transactionHistory", null);
-        }
-        
-        // 設定上下文資料變數
-        for (Map.Entry<String, Object> entry : context.getContextData().entrySet()) {
-            evaluationContext.setVariable(entry.getKey(), entry.getValue());
-        }
-        
-        // 設定配置參數變數
-        for (Map.Entry<String, Object> entry : configuration.getParameters().entrySet()) {
-            evaluationContext.setVariable("param_" + entry.getKey(), entry.getValue());
-        }
-        
-        return evaluationContext;
-    }
-    
     /**
      * 將表達式結果轉換為布林值
      */
@@ -155,7 +116,7 @@ public class SpELConditionCommand extends AbstractNodeCommand {
         
         // 嘗試解析表達式以驗證語法
         try {
-            EXPRESSION_CACHE.getExpression(configuration.getExpression());
+            expressionCache.getExpression(configuration.getExpression());
             return true;
         } catch (Exception e) {
             return false;
@@ -1,32 +1,107 @@
 package com.bank.promotion.domain.command.spel;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * SpEL 表達式快取
  * 快取已解析的 SpEL 表達式以提高效能
+ * 
+ * 可淘汰區以 Caffeine（W-TinyLFU）依權重限制大小，權重依表達式長度計算，淘汰時保留使用頻率高的表達式；
+ * 啟用中決策樹的表達式釘選於獨立區域，不計入權重也不會被淘汰，決策樹停用後才移回可淘汰區
+ * 
+ * 編譯模式：
+ * <ul>
+ *   <li>{@link SpelCompilerMode#OFF}：一律直譯執行（原有行為）</li>
+ *   <li>{@link SpelCompilerMode#IMMEDIATE}：第一次直譯取得型別資訊後立即編譯為位元組碼</li>
+ *   <li>{@link SpelCompilerMode#MIXED}：直譯達到門檻次數後才編譯</li>
+ * </ul>
+ * 編譯由快取自行控制而非交給解析器，因此能記錄每個表達式是否已編譯與退回直譯的次數；
+ * 編譯後的表達式執行失敗（例如變數型別改變）時退回直譯並重新計數，之後再嘗試編譯
  */
-@Component
 public class SpELExpressionCache {
     
-    private static final ExpressionParser PARSER = new SpelExpressionParser();
-    private final ConcurrentMap<String, Expression> expressionCache;
+    /**
+     * MIXED 模式下嘗試編譯前的直譯次數，與 SpEL 內建門檻一致
+     */
+    static final int MIXED_COMPILE_THRESHOLD = 100;
+    
+    /**
+     * 連續編譯失敗達此次數後不再嘗試，避免無法編譯的表達式反覆進入同步編譯區段
+     */
+    static final int MAX_COMPILE_ATTEMPTS = 5;
+    
+    /**
+     * 每個權重單位對應的表達式字元數；一般條件表達式的權重為 1
+     */
+    static final int CHARACTERS_PER_WEIGHT_UNIT = 64;
+    
+    private final ExpressionParser parser;
+    private final SpelCompilerMode compilerMode;
+    private final Cache<String, CachedExpression> expressionCache;
+    private final ConcurrentMap<String, CachedExpression> pinnedExpressions = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> pinsByTree = new HashMap<>();
+    private final LongAdder pinnedHits = new LongAdder();
     private final int maxCacheSize;
     
     public SpELExpressionCache() {
-        this.expressionCache = new ConcurrentHashMap<>();
-        this.maxCacheSize = 1000; // 預設最大快取大小
+        this(1000, SpelCompilerMode.OFF); // 預設最大快取權重
     }
     
     public SpELExpressionCache(int maxCacheSize) {
-        this.expressionCache = new ConcurrentHashMap<>();
+        this(maxCacheSize, SpelCompilerMode.OFF);
+    }
+    
+    /**
+     * @param maxCacheSize 可淘汰區的最大權重；長度在 {@value #CHARACTERS_PER_WEIGHT_UNIT} 字元內的表達式權重為 1
+     * @param compilerMode 編譯模式
+     */
+    public SpELExpressionCache(int maxCacheSize, SpelCompilerMode compilerMode) {
+        if (compilerMode == null) {
+            throw new IllegalArgumentException("Compiler mode cannot be null");
+        }
+        if (maxCacheSize <= 0) {
+            throw new IllegalArgumentException("Max cache size must be positive");
+        }
         this.maxCacheSize = maxCacheSize;
+        this.compilerMode = compilerMode;
+        // 於呼叫端執行淘汰維護，讓權重上限在寫入後立即生效
+        this.expressionCache = Caffeine.newBuilder()
+            .maximumWeight(maxCacheSize)
+            .weigher((String expression, CachedExpression value) -> weigh(expression))
+            .executor(Runnable::run)
+            .recordStats()
+            .build();
+        // 解析器本身維持 OFF，編譯時機由 CachedExpression 決定；編譯後執行失敗時解析器會拋出例外而非自行退回
+        this.parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.OFF, SpELExpressionCache.class.getClassLoader()));
+    }
+    
+    public SpelCompilerMode getCompilerMode() {
+        return compilerMode;
     }
     
     /**
@@ -37,29 +112,129 @@ public class SpELExpressionCache {
      * @throws org.springframework.expression.ParseException 當表達式語法錯誤時
      */
     public Expression getExpression(String expressionString) {
+        return getCachedExpression(expressionString).getExpression();
+    }
+    
+    /**
+     * 獲取已快取的表達式及其編譯狀態，如果不存在則解析並快取
+     * 透過回傳物件評估才會套用編譯模式並記錄評估統計
+     * 
+     * @param expressionString 表達式字串
+     * @return 快取的表達式
+     * @throws org.springframework.expression.ParseException 當表達式語法錯誤時
+     */
+    public CachedExpression getCachedExpression(String expressionString) {
         if (expressionString == null || expressionString.trim().isEmpty()) {
             throw new IllegalArgumentException("Expression string cannot be null or empty");
         }
         
         String normalizedExpression = expressionString.trim();
         
-        // 嘗試從快取中獲取
-        Expression cachedExpression = expressionCache.get(normalizedExpression);
-        if (cachedExpression != null) {
-            return cachedExpression;
+        CachedExpression pinned = pinnedExpressions.get(normalizedExpression);
+        if (pinned != null) {
+            pinnedHits.increment();
+            return pinned;
         }
         
-        // 檢查快取大小限制
-        if (expressionCache.size() >= maxCacheSize) {
-            // 簡單的快取清理策略：清除一半的快取
-            clearHalfCache();
+        // 未命中時解析並加入可淘汰區，解析耗時計入快取統計
+        return expressionCache.get(normalizedExpression, this::parse);
+    }
+    
+    /**
+     * 釘選決策樹使用的表達式，取代該決策樹先前釘選的表達式
+     * 無法解析的表達式不會被釘選
+     * 
+     * @param treeId 決策樹ID
+     * @param expressionStrings 決策樹所有 SpEL 節點的表達式
+     */
+    public synchronized void pin(String treeId, Collection<String> expressionStrings) {
+        if (treeId == null) {
+            throw new IllegalArgumentException("Tree ID cannot be null");
+        }
+        Set<String> expressions = new HashSet<>();
+        for (String expressionString : expressionStrings) {
+            if (expressionString != null && !expressionString.trim().isEmpty()) {
+                expressions.add(expressionString.trim());
+            }
         }
         
-        // 解析表達式並加入快取
-        Expression newExpression = PARSER.parseExpression(normalizedExpression);
-        expressionCache.put(normalizedExpression, newExpression);
-        
-        return newExpression;
+        Set<String> previous = pinsByTree.put(treeId, expressions);
+        for (String expression : expressions) {
+            if (pinnedExpressions.containsKey(expression)) {
+                continue;
+            }
+            CachedExpression entry = expressionCache.asMap().get(expression);
+            if (entry == null) {
+                try {
+                    entry = parse(expression);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+            }
+            // 先放入釘選區再移出可淘汰區，過程中的查詢都能命中
+            entry.pinned = true;
+            pinnedExpressions.put(expression, entry);
+            expressionCache.invalidate(expression);
+        }
+        if (previous != null) {
+            previous.removeAll(expressions);
+            release(previous);
+        }
+    }
+    
+    /**
+     * 解除決策樹的釘選，僅被此決策樹釘選的表達式移回可淘汰區
+     */
+    public synchronized void unpin(String treeId) {
+        Set<String> previous = pinsByTree.remove(treeId);
+        if (previous != null) {
+            release(previous);
+        }
+    }
+    
+    /**
+     * 解除所有決策樹的釘選
+     */
+    public synchronized void unpinAll() {
+        Set<String> previous = new HashSet<>(pinnedExpressions.keySet());
+        pinsByTree.clear();
+        release(previous);
+    }
+    
+    public boolean isPinned(String expressionString) {
+        return expressionString != null && pinnedExpressions.containsKey(expressionString.trim());
+    }
+    
+    private void release(Set<String> expressions) {
+        for (String expression : expressions) {
+            if (isPinnedByAnyTree(expression)) {
+                continue;
+            }
+            CachedExpression entry = pinnedExpressions.get(expression);
+            if (entry != null) {
+                // 先放回可淘汰區再移出釘選區，保留已累積的編譯狀態與統計
+                entry.pinned = false;
+                expressionCache.put(expression, entry);
+                pinnedExpressions.remove(expression);
+            }
+        }
+    }
+    
+    private boolean isPinnedByAnyTree(String expression) {
+        for (Set<String> expressions : pinsByTree.values()) {
+            if (expressions.contains(expression)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private CachedExpression parse(String expression) {
+        return new CachedExpression(expression, parser.parseExpression(expression), compilerMode);
+    }
+    
+    private static int weigh(String expression) {
+        return 1 + expression.length() / CHARACTERS_PER_WEIGHT_UNIT;
     }
     
     /**
@@ -72,7 +247,9 @@ public class SpELExpressionCache {
         if (expressionString == null || expressionString.trim().isEmpty()) {
             return false;
         }
-        return expressionCache.containsKey(expressionString.trim());
+        String normalizedExpression = expressionString.trim();
+        return pinnedExpressions.containsKey(normalizedExpression)
+            || expressionCache.asMap().containsKey(normalizedExpression);
     }
     
     /**
@@ -91,7 +268,7 @@ public class SpELExpressionCache {
     }
     
     /**
-     * 移除快取中的表達式
+     * 移除可淘汰區中的表達式，釘選的表達式不受影響
      * 
      * @param expressionString 表達式字串
      * @return 是否成功移除
@@ -100,32 +277,14 @@ public class SpELExpressionCache {
         if (expressionString == null || expressionString.trim().isEmpty()) {
             return false;
         }
-        return expressionCache.remove(expressionString.trim()) != null;
+        return expressionCache.asMap().remove(expressionString.trim()) != null;
     }
     
     /**
-     * 清除所有快取
+     * 清除可淘汰區，釘選的表達式於決策樹解除釘選前保留
      */
     public void clearCache() {
-        expressionCache.clear();
-    }
-    
-    /**
-     * 清除一半的快取 (簡單的LRU策略替代)
-     */
-    private void clearHalfCache() {
-        int targetSize = maxCacheSize / 2;
-        int currentSize = expressionCache.size();
-        
-        if (currentSize <= targetSize) {
-            return;
-        }
-        
-        // 移除一半的快取項目
-        int toRemove = currentSize - targetSize;
-        expressionCache.keySet().stream()
-                      .limit(toRemove)
-                      .forEach(expressionCache::remove);
+        expressionCache.invalidateAll();
     }
     
     /**
@@ -134,13 +293,157 @@ public class SpELExpressionCache {
      * @return 快取統計資訊
      */
     public CacheStatistics getStatistics() {
+        int compiled = 0;
+        for (CachedExpression expression : allExpressions()) {
+            if (expression.isCompiled()) {
+                compiled++;
+            }
+        }
+        long weightedSize = expressionCache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElse(0L);
+        CacheStats stats = expressionCache.stats();
         return new CacheStatistics(
-            expressionCache.size(),
+            (int) expressionCache.estimatedSize() + pinnedExpressions.size(),
             maxCacheSize,
-            (double) expressionCache.size() / maxCacheSize
+            (double) weightedSize / maxCacheSize,
+            compilerMode.name(),
+            compiled,
+            pinnedExpressions.size(),
+            stats.hitCount() + pinnedHits.sum(),
+            stats.missCount(),
+            stats.evictionCount(),
+            stats.loadFailureCount(),
+            stats.averageLoadPenalty() / 1_000_000.0
         );
     }
     
+    /**
+     * 獲取各表達式的評估統計，依評估次數遞減排序
+     * 
+     * @return 表達式統計列表
+     */
+    public List<ExpressionStatistics> getExpressionStatistics() {
+        List<ExpressionStatistics> statistics = new ArrayList<>();
+        for (CachedExpression expression : allExpressions()) {
+            statistics.add(expression.getStatistics());
+        }
+        statistics.sort(Comparator.comparingLong(ExpressionStatistics::getEvaluations).reversed());
+        return statistics;
+    }
+    
+    private List<CachedExpression> allExpressions() {
+        List<CachedExpression> expressions = new ArrayList<>(pinnedExpressions.values());
+        expressions.addAll(expressionCache.asMap().values());
+        return expressions;
+    }
+    
+    /**
+     * 快取的表達式
+     * 依編譯模式決定何時將表達式編譯為位元組碼，並記錄評估次數與耗時
+     */
+    public static final class CachedExpression {
+        
+        private final String expressionString;
+        private final Expression expression;
+        private final SpelExpression spelExpression;
+        private final int compileThreshold;
+        private final AtomicInteger interpretedSinceCompileAttempt = new AtomicInteger();
+        private final AtomicInteger failedCompileAttempts = new AtomicInteger();
+        private volatile boolean compiled;
+        private volatile boolean pinned;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder compiledEvaluations = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        
+        private CachedExpression(String expressionString, Expression expression, SpelCompilerMode compilerMode) {
+            this.expressionString = expressionString;
+            this.expression = expression;
+            this.spelExpression = compilerMode != SpelCompilerMode.OFF && expression instanceof SpelExpression
+                ? (SpelExpression) expression : null;
+            this.compileThreshold = compilerMode == SpelCompilerMode.IMMEDIATE ? 1 : MIXED_COMPILE_THRESHOLD;
+        }
+        
+        public Expression getExpression() {
+            return expression;
+        }
+        
+        public String getExpressionString() {
+            return expressionString;
+        }
+        
+        public boolean isCompiled() {
+            return compiled;
+        }
+        
+        /**
+         * 是否釘選於啟用中決策樹而不會被淘汰
+         */
+        public boolean isPinned() {
+            return pinned;
+        }
+        
+        /**
+         * 評估表達式
+         * 已編譯時以編譯版本執行，編譯版本執行失敗則退回直譯
+         */
+        public Object getValue(EvaluationContext context) {
+            long startTime = System.nanoTime();
+            try {
+                if (compiled) {
+                    try {
+                        Object value = expression.getValue(context);
+                        compiledEvaluations.increment();
+                        return value;
+                    } catch (SpelEvaluationException e) {
+                        if (e.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                            throw e;
+                        }
+                        revertToInterpreted();
+                    }
+                }
+                Object value = expression.getValue(context);
+                checkCompile();
+                return value;
+            } finally {
+                evaluations.increment();
+                totalNanos.add(System.nanoTime() - startTime);
+            }
+        }
+        
+        private void checkCompile() {
+            if (spelExpression == null || compiled || failedCompileAttempts.get() >= MAX_COMPILE_ATTEMPTS) {
+                return;
+            }
+            // 直譯後 AST 才具備型別資訊，達到門檻的那一次評估負責嘗試編譯
+            if (interpretedSinceCompileAttempt.incrementAndGet() != compileThreshold) {
+                return;
+            }
+            if (spelExpression.compileExpression()) {
+                compiled = true;
+                failedCompileAttempts.set(0);
+            } else {
+                failedCompileAttempts.incrementAndGet();
+            }
+            interpretedSinceCompileAttempt.set(0);
+        }
+        
+        private synchronized void revertToInterpreted() {
+            if (compiled) {
+                compiled = false;
+                spelExpression.revertToInterpreted();
+                interpretedSinceCompileAttempt.set(0);
+                fallbacks.increment();
+            }
+        }
+        
+        public ExpressionStatistics getStatistics() {
+            return new ExpressionStatistics(expressionString, compiled, pinned, evaluations.sum(),
+                                            compiledEvaluations.sum(), fallbacks.sum(), totalNanos.sum());
+        }
+    }
+    
     /**
      * 快取統計資訊
      */
@@ -148,29 +451,167 @@ public class SpELExpressionCache {
         private final int currentSize;
         private final int maxSize;
         private final double utilizationRate;
+        private final String compilerMode;
+        private final int compiledExpressions;
+        private final int pinnedExpressions;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long parseFailureCount;
+        private final double averageParseMillis;
         
         public CacheStatistics(int currentSize, int maxSize, double utilizationRate) {
+            this(currentSize, maxSize, utilizationRate, SpelCompilerMode.OFF.name(), 0, 0, 0L, 0L, 0L, 0L, 0.0);
+        }
+        
+        public CacheStatistics(int currentSize, int maxSize, double utilizationRate,
+                               String compilerMode, int compiledExpressions, int pinnedExpressions,
+                               long hitCount, long missCount, long evictionCount,
+                               long parseFailureCount, double averageParseMillis) {
             this.currentSize = currentSize;
             this.maxSize = maxSize;
             this.utilizationRate = utilizationRate;
+            this.compilerMode = compilerMode;
+            this.compiledExpressions = compiledExpressions;
+            this.pinnedExpressions = pinnedExpressions;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.parseFailureCount = parseFailureCount;
+            this.averageParseMillis = averageParseMillis;
         }
         
+        /**
+         * 快取的表達式數量，含釘選的表達式
+         */
         public int getCurrentSize() {
             return currentSize;
         }
         
+        /**
+         * 可淘汰區的最大權重
+         */
         public int getMaxSize() {
             return maxSize;
         }
         
+        /**
+         * 可淘汰區已使用的權重比例
+         */
         public double getUtilizationRate() {
             return utilizationRate;
         }
         
+        public String getCompilerMode() {
+            return compilerMode;
+        }
+        
+        public int getCompiledExpressions() {
+            return compiledExpressions;
+        }
+        
+        public int getPinnedExpressions() {
+            return pinnedExpressions;
+        }
+        
+        public long getHitCount() {
+            return hitCount;
+        }
+        
+        /**
+         * 未命中次數，每次未命中都會解析一次表達式
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+        
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+        
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+        
+        public long getParseFailureCount() {
+            return parseFailureCount;
+        }
+        
+        public double getAverageParseMillis() {
+            return averageParseMillis;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("CacheStatistics{currentSize=%d, maxSize=%d, utilizationRate=%.2f%%, " +
+                               "compilerMode=%s, compiledExpressions=%d, pinnedExpressions=%d, hitRate=%.2f%%, " +
+                               "evictionCount=%d, averageParseMillis=%.3f}",
+                               currentSize, maxSize, utilizationRate * 100, compilerMode, compiledExpressions,
+                               pinnedExpressions, getHitRate() * 100, evictionCount, averageParseMillis);
+        }
+    }
+    
+    /**
+     * 單一表達式的評估統計
+     */
+    public static final class ExpressionStatistics {
+        private final String expression;
+        private final boolean compiled;
+        private final boolean pinned;
+        private final long evaluations;
+        private final long compiledEvaluations;
+        private final long fallbacks;
+        private final long totalNanos;
+        
+        private ExpressionStatistics(String expression, boolean compiled, boolean pinned, long evaluations,
+                                     long compiledEvaluations, long fallbacks, long totalNanos) {
+            this.expression = expression;
+            this.compiled = compiled;
+            this.pinned = pinned;
+            this.evaluations = evaluations;
+            this.compiledEvaluations = compiledEvaluations;
+            this.fallbacks = fallbacks;
+            this.totalNanos = totalNanos;
+        }
+        
+        public String getExpression() {
+            return expression;
+        }
+        
+        public boolean isCompiled() {
+            return compiled;
+        }
+        
+        public boolean isPinned() {
+            return pinned;
+        }
+        
+        public long getEvaluations() {
+            return evaluations;
+        }
+        
+        public long getCompiledEvaluations() {
+            return compiledEvaluations;
+        }
+        
+        /**
+         * 編譯版本執行失敗而退回直譯的次數
+         */
+        public long getFallbacks() {
+            return fallbacks;
+        }
+        
+        public double getMeanEvaluationMicros() {
+            return evaluations == 0 ? 0.0 : totalNanos / 1000.0 / evaluations;
+        }
+        
         @Override
         public String toString() {
-            return String.format("CacheStatistics{currentSize=%d, maxSize=%d, utilizationRate=%.2f%%}", 
-                               currentSize, maxSize, utilizationRate * 100);
+            return String.format("ExpressionStatistics{expression='%s', compiled=%s, pinned=%s, evaluations=%d, " +
+                               "compiledEvaluations=%d, fallbacks=%d, meanEvaluationMicros=%.3f}",
+                               expression, compiled, pinned, evaluations, compiledEvaluations, fallbacks,
+                               getMeanEvaluationMicros());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,100 @@
+package com.bank.promotion.domain.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 執行上下文欄位配置
+ * 定義客戶欄位與衍生值的固定欄位槽，由決策樹編譯時建立後即不可變
+ */
+public final class ContextLayout {
+    
+    private static final List<ContextSlot<?>> STANDARD_SLOTS = new ArrayList<>();
+    
+    public static final ContextSlot<String> CUSTOMER_ID = standardSlot("customerId", String.class);
+    public static final ContextSlot<String> ACCOUNT_TYPE = standardSlot("accountType", String.class);
+    public static final ContextSlot<BigDecimal> ANNUAL_INCOME = standardSlot("annualIncome", BigDecimal.class);
+    public static final ContextSlot<Integer> CREDIT_SCORE = standardSlot("creditScore", Integer.class);
+    public static final ContextSlot<String> REGION = standardSlot("region", String.class);
+    public static final ContextSlot<Integer> TRANSACTION_COUNT = standardSlot("transactionCount", Integer.class);
+    public static final ContextSlot<LocalDateTime> EVALUATION_TIME = standardSlot("evaluationTime", LocalDateTime.class);
+    
+    /**
+     * 僅包含客戶標準欄位的配置
+     */
+    public static final ContextLayout STANDARD = builder().build();
+    
+    private final List<ContextSlot<?>> slots;
+    private final Map<String, ContextSlot<?>> slotsByName;
+    
+    private ContextLayout(List<ContextSlot<?>> slots) {
+        this.slots = Collections.unmodifiableList(new ArrayList<>(slots));
+        Map<String, ContextSlot<?>> byName = new HashMap<>();
+        for (ContextSlot<?> slot : slots) {
+            byName.put(slot.getName(), slot);
+        }
+        this.slotsByName = byName;
+    }
+    
+    private static <T> ContextSlot<T> standardSlot(String name, Class<T> type) {
+        ContextSlot<T> slot = new ContextSlot<>(name, type, STANDARD_SLOTS.size());
+        STANDARD_SLOTS.add(slot);
+        return slot;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * 依名稱查找欄位槽
+     *
+     * @return 欄位槽，不存在則返回 null
+     */
+    public ContextSlot<?> getSlot(String name) {
+        return slotsByName.get(name);
+    }
+    
+    public List<ContextSlot<?>> getSlots() {
+        return slots;
+    }
+    
+    public int size() {
+        return slots.size();
+    }
+    
+    public static class Builder {
+        private final List<ContextSlot<?>> slots = new ArrayList<>(STANDARD_SLOTS);
+        
+        /**
+         * 新增衍生值欄位槽，同名欄位已存在時沿用既有欄位
+         */
+        public <T> Builder addDerivedSlot(String name, Class<T> type) {
+            for (ContextSlot<?> slot : slots) {
+                if (slot.getName().equals(name)) {
+                    if (!slot.getType().equals(type)) {
+                        throw new IllegalArgumentException("Context slot " + name + " already declared with type " +
+                                                           slot.getType().getSimpleName());
+                    }
+                    return this;
+                }
+            }
+            slots.add(new ContextSlot<>(name, type, slots.size()));
+            return this;
+        }
+        
+        public ContextLayout build() {
+            return new ContextLayout(slots);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ContextLayout{slots=" + slotsByName.keySet() + "}";
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.promotion.domain.entity;
+
+import java.util.Objects;
+
+/**
+ * 執行上下文欄位槽
+ * 具型別的上下文鍵值，於決策樹編譯時配置固定索引
+ *
+ * @param <T> 欄位值型別
+ */
+public final class ContextSlot<T> {
+    
+    private final String name;
+    private final Class<T> type;
+    private final int index;
+    
+    ContextSlot(String name, Class<T> type, int index) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Context slot name cannot be null or empty");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Context slot type cannot be null");
+        }
+        this.name = name.trim();
+        this.type = type;
+        this.index = index;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Class<T> getType() {
+        return type;
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * 檢查值是否符合欄位型別
+     */
+    public boolean accepts(Object value) {
+        return value == null || type.isInstance(value);
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ContextSlot<?> that = (ContextSlot<?>) o;
+        return index == that.index &&
+               Objects.equals(name, that.name) &&
+               Objects.equals(type, that.type);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, type, index);
+    }
+    
+    @Override
+    public String toString() {
+        return "ContextSlot{" +
+               "name='" + name + '\'' +
+               ", type=" + type.getSimpleName() +
+               ", index=" + index +
+               '}';
+    }
+}
@@ -2,40 +2,381 @@ package com.bank.promotion.domain.entity;
 
 import com.bank.promotion.domain.valueobject.CustomerPayload;
 
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * 決策樹執行上下文
  * 包含執行過程中的客戶資料和上下文資訊
+ *
+ * 客戶欄位與衍生值存放於依 {@link ContextLayout} 配置的固定欄位槽，
+ * 讀取端取得唯讀視圖而非複本；節點執行期間的寫入暫存於節點範圍內，成功後才提交
+ *
+ * 所有讀取方式（{@link #getContextData()}、{@link #getContextValue}、{@link #hasContextValue}、{@link #get}）
+ * 看到相同的值：已提交的值加上開啟中節點範圍暫存的寫入，節點可讀到自己的寫入，範圍捨棄後即不再可見
  */
 public class ExecutionContext {
-    
+
     private final CustomerPayload customerPayload;
-    private final Map<String, Object> contextData;
-    
+    private final ContextLayout layout;
+    private final Object[] slots;
+    private final Map<String, Object> readOnlyView;
+    private Map<String, Object> overflow;
+    private NodeScope activeScope;
+
+    /**
+     * 以既有的上下文資料建立執行上下文
+     * 與標準欄位同名但型別不符的值照原樣保存，可由 {@link #getContextValue} 與 {@link #getContextData()} 讀取，
+     * 僅 {@link #get(ContextSlot)} 依型別讀取時拋出 {@link ClassCastException}
+     */
     public ExecutionContext(CustomerPayload customerPayload, Map<String, Object> contextData) {
+        this(customerPayload, ContextLayout.STANDARD);
+        if (contextData != null) {
+            for (Map.Entry<String, Object> entry : contextData.entrySet()) {
+                if (entry.getKey() != null) {
+                    commitValue(entry.getKey(), layout.getSlot(entry.getKey()), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private ExecutionContext(CustomerPayload customerPayload, ContextLayout layout) {
         this.customerPayload = customerPayload;
-        this.contextData = contextData != null ? new HashMap<>(contextData) : new HashMap<>();
+        this.layout = layout;
+        this.slots = new Object[layout.size()];
+        this.readOnlyView = new SlotView();
+    }
+
+    /**
+     * 依欄位配置建立客戶執行上下文
+     * 客戶欄位直接寫入對應欄位槽，不經過中介 Map
+     */
+    public static ExecutionContext forCustomer(CustomerPayload customerPayload, ContextLayout layout) {
+        ExecutionContext context = new ExecutionContext(customerPayload, layout != null ? layout : ContextLayout.STANDARD);
+        if (customerPayload != null) {
+            context.slots[ContextLayout.CUSTOMER_ID.getIndex()] = customerPayload.getCustomerId();
+            context.slots[ContextLayout.ACCOUNT_TYPE.getIndex()] = customerPayload.getAccountType();
+            context.slots[ContextLayout.ANNUAL_INCOME.getIndex()] = customerPayload.getAnnualIncome();
+            context.slots[ContextLayout.CREDIT_SCORE.getIndex()] = customerPayload.getCreditScore();
+            context.slots[ContextLayout.REGION.getIndex()] = customerPayload.getRegion();
+            context.slots[ContextLayout.TRANSACTION_COUNT.getIndex()] = customerPayload.getTransactionCount();
+        }
+        context.slots[ContextLayout.EVALUATION_TIME.getIndex()] = LocalDateTime.now();
+        return context;
+    }
+
+    /**
+     * 建立已提交值的分離複本
+     * 複本的寫入不影響原上下文，供與主要走訪並行的預取使用；開啟中的節點範圍不會被複製
+     */
+    public ExecutionContext fork() {
+        ExecutionContext copy = new ExecutionContext(customerPayload, layout);
+        System.arraycopy(slots, 0, copy.slots, 0, slots.length);
+        if (overflow != null) {
+            copy.overflow = new HashMap<>(overflow);
+        }
+        return copy;
     }
-    
+
     public CustomerPayload getCustomerPayload() {
         return customerPayload;
     }
-    
+
+    /**
+     * 獲取上下文資料的唯讀視圖
+     * 視圖反映已提交的值與開啟中節點範圍的暫存寫入，不會複製底層資料
+     */
     public Map<String, Object> getContextData() {
-        return new HashMap<>(contextData);
+        return readOnlyView;
     }
-    
+
     public Object getContextValue(String key) {
-        return contextData.get(key);
+        if (activeScope != null && activeScope.hasPendingValue(key)) {
+            return activeScope.getPendingValue(key);
+        }
+        return getCommittedValue(key);
     }
-    
+
+    /**
+     * 依欄位槽讀取具型別的值
+     */
+    public <T> T get(ContextSlot<T> slot) {
+        Object value = getContextValue(slot.getName());
+        return slot.getType().cast(value);
+    }
+
     public void setContextValue(String key, Object value) {
-        contextData.put(key, value);
+        if (key == null) {
+            throw new IllegalArgumentException("Context key cannot be null");
+        }
+
+        ContextSlot<?> slot = layout.getSlot(key);
+        if (slot != null && !slot.accepts(value)) {
+            throw new IllegalArgumentException("Context value for " + key + " must be of type " +
+                                               slot.getType().getSimpleName());
+        }
+
+        if (activeScope != null) {
+            activeScope.stage(key, value);
+        } else {
+            commitValue(key, slot, value);
+        }
+    }
+
+    /**
+     * 依欄位槽寫入具型別的值
+     */
+    public <T> void set(ContextSlot<T> slot, T value) {
+        setContextValue(slot.getName(), value);
     }
-    
+
     public boolean hasContextValue(String key) {
-        return contextData.containsKey(key);
+        return getContextValue(key) != null;
+    }
+
+    public ContextLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 開啟節點寫入範圍
+     * 範圍開啟期間的寫入僅對該節點可見，直到提交為止
+     *
+     * @param nodeId 執行中的節點ID
+     * @return 節點寫入範圍
+     */
+    public NodeScope openNodeScope(String nodeId) {
+        if (activeScope != null) {
+            throw new IllegalStateException("Node scope already open for node: " + activeScope.getNodeId());
+        }
+        activeScope = new NodeScope(nodeId);
+        return activeScope;
+    }
+
+    private boolean hasPendingValues() {
+        return activeScope != null && activeScope.pendingValues != null && !activeScope.pendingValues.isEmpty();
+    }
+
+    /**
+     * 已提交的值加上暫存寫入的複本，僅於節點範圍有暫存寫入時走訪視圖使用
+     */
+    private Map<String, Object> withPendingValues() {
+        Map<String, Object> merged = new HashMap<>();
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                merged.put(layout.getSlots().get(i).getName(), slots[i]);
+            }
+        }
+        if (overflow != null) {
+            merged.putAll(overflow);
+        }
+        for (Map.Entry<String, Object> entry : activeScope.pendingValues.entrySet()) {
+            if (entry.getValue() != null) {
+                merged.put(entry.getKey(), entry.getValue());
+            } else {
+                merged.remove(entry.getKey());
+            }
+        }
+        return merged;
+    }
+
+    private Object getCommittedValue(String key) {
+        ContextSlot<?> slot = layout.getSlot(key);
+        if (slot != null) {
+            return slots[slot.getIndex()];
+        }
+        return overflow != null ? overflow.get(key) : null;
+    }
+
+    private void commitValue(String key, ContextSlot<?> slot, Object value) {
+        if (slot != null) {
+            slots[slot.getIndex()] = value;
+            return;
+        }
+        if (value == null) {
+            if (overflow != null) {
+                overflow.remove(key);
+            }
+            return;
+        }
+        if (overflow == null) {
+            overflow = new HashMap<>();
+        }
+        overflow.put(key, value);
+    }
+
+    /**
+     * 節點寫入範圍
+     * 暫存單一節點的上下文寫入，提交後才寫回欄位槽
+     */
+    public final class NodeScope {
+
+        private final String nodeId;
+        private Map<String, Object> pendingValues;
+        private boolean closed;
+
+        private NodeScope(String nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        private void stage(String key, Object value) {
+            if (pendingValues == null) {
+                pendingValues = new HashMap<>(4);
+            }
+            pendingValues.put(key, value);
+        }
+
+        private boolean hasPendingValue(String key) {
+            return pendingValues != null && pendingValues.containsKey(key);
+        }
+
+        private Object getPendingValue(String key) {
+            return pendingValues.get(key);
+        }
+
+        /**
+         * 提交節點寫入並關閉範圍
+         */
+        public void commit() {
+            ensureOpen();
+            if (pendingValues != null) {
+                for (Map.Entry<String, Object> entry : pendingValues.entrySet()) {
+                    commitValue(entry.getKey(), layout.getSlot(entry.getKey()), entry.getValue());
+                }
+            }
+            close();
+        }
+
+        /**
+         * 捨棄節點寫入並關閉範圍
+         */
+        public void discard() {
+            ensureOpen();
+            close();
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * 尚未提交的寫入
+         */
+        public Map<String, Object> getPendingValues() {
+            return pendingValues != null ? Collections.unmodifiableMap(new HashMap<>(pendingValues)) : Map.of();
+        }
+
+        private void ensureOpen() {
+            if (closed) {
+                throw new IllegalStateException("Node scope already closed for node: " + nodeId);
+            }
+        }
+
+        private void close() {
+            closed = true;
+            pendingValues = null;
+            activeScope = null;
+        }
+    }
+
+    /**
+     * 欄位槽的唯讀 Map 視圖
+     */
+    private final class SlotView extends AbstractMap<String, Object> {
+
+        private final Set<Map.Entry<String, Object>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                if (hasPendingValues()) {
+                    return Collections.unmodifiableMap(withPendingValues()).entrySet().iterator();
+                }
+                return new SlotIterator();
+            }
+
+            @Override
+            public int size() {
+                return SlotView.this.size();
+            }
+        };
+
+        @Override
+        public Object get(Object key) {
+            return key instanceof String ? getContextValue((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            if (hasPendingValues()) {
+                return withPendingValues().size();
+            }
+            int count = overflow != null ? overflow.size() : 0;
+            for (Object value : slots) {
+                if (value != null) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+            return entrySet;
+        }
+    }
+
+    /**
+     * 依序走訪非空欄位槽與額外欄位
+     */
+    private final class SlotIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int slotIndex = advance(0);
+        private Iterator<Map.Entry<String, Object>> overflowIterator;
+
+        private int advance(int from) {
+            int index = from;
+            while (index < slots.length && slots[index] == null) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (slotIndex < slots.length) {
+                return true;
+            }
+            if (overflowIterator == null) {
+                overflowIterator = overflow != null ?
+                    Collections.unmodifiableMap(overflow).entrySet().iterator() :
+                    Collections.<String, Object>emptyMap().entrySet().iterator();
+            }
+            return overflowIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (slotIndex < slots.length) {
+                Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<>(
+                    layout.getSlots().get(slotIndex).getName(), slots[slotIndex]);
+                slotIndex = advance(slotIndex + 1);
+                return entry;
+            }
+            return overflowIterator.next();
+        }
     }
-}
\ No newline at end of file
+}
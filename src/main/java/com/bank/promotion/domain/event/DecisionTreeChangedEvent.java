@@ -0,0 +1,80 @@
+package com.bank.promotion.domain.event;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 決策樹變更事件
+ * 決策樹新增、更新、狀態變更或刪除後發布，供編譯快取等下游元件失效或重建
+ */
+public final class DecisionTreeChangedEvent {
+    
+    private final String treeId;
+    private final String status;
+    private final boolean deleted;
+    private final LocalDateTime occurredAt;
+    
+    public DecisionTreeChangedEvent(String treeId, String status, boolean deleted) {
+        if (treeId == null || treeId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Tree ID cannot be null or empty");
+        }
+        this.treeId = treeId.trim();
+        this.status = status;
+        this.deleted = deleted;
+        this.occurredAt = LocalDateTime.now();
+    }
+    
+    public static DecisionTreeChangedEvent updated(String treeId, String status) {
+        return new DecisionTreeChangedEvent(treeId, status, false);
+    }
+    
+    public static DecisionTreeChangedEvent deleted(String treeId) {
+        return new DecisionTreeChangedEvent(treeId, null, true);
+    }
+    
+    public String getTreeId() {
+        return treeId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public boolean isDeleted() {
+        return deleted;
+    }
+    
+    public boolean isActive() {
+        return !deleted && "ACTIVE".equals(status);
+    }
+    
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DecisionTreeChangedEvent that = (DecisionTreeChangedEvent) o;
+        return deleted == that.deleted &&
+               Objects.equals(treeId, that.treeId) &&
+               Objects.equals(status, that.status) &&
+               Objects.equals(occurredAt, that.occurredAt);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(treeId, status, deleted, occurredAt);
+    }
+    
+    @Override
+    public String toString() {
+        return "DecisionTreeChangedEvent{" +
+               "treeId='" + treeId + '\'' +
+               ", status='" + status + '\'' +
+               ", deleted=" + deleted +
+               ", occurredAt=" + occurredAt +
+               '}';
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.promotion.domain.event;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * 優惠規則發佈事件
+ * Drools 規則的新版本編譯完成並發佈後發布，供預熱等下游元件以新版本重建可執行產物
+ */
+public final class PromotionRulePublishedEvent {
+
+    private final String ruleName;
+    private final long version;
+    private final LocalDateTime occurredAt;
+
+    public PromotionRulePublishedEvent(String ruleName, long version) {
+        if (ruleName == null || ruleName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Rule name cannot be null or empty");
+        }
+        this.ruleName = ruleName.trim();
+        this.version = version;
+        this.occurredAt = LocalDateTime.now();
+    }
+
+    /**
+     * 規則名稱，即 Drools 節點的 ruleName 參數
+     */
+    public String getRuleName() {
+        return ruleName;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PromotionRulePublishedEvent that = (PromotionRulePublishedEvent) o;
+        return version == that.version &&
+               Objects.equals(ruleName, that.ruleName) &&
+               Objects.equals(occurredAt, that.occurredAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ruleName, version, occurredAt);
+    }
+
+    @Override
+    public String toString() {
+        return "PromotionRulePublishedEvent{" +
+               "ruleName='" + ruleName + '\'' +
+               ", version=" + version +
+               ", occurredAt=" + occurredAt +
+               '}';
+    }
+}
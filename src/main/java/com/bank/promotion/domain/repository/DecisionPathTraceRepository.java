@@ -0,0 +1,19 @@
+package com.bank.promotion.domain.repository;
+
+import com.bank.promotion.domain.aggregate.DecisionPathTrace;
+
+import java.util.List;
+
+/**
+ * 決策路徑追蹤儲存庫介面
+ * 由持久層實作，將追蹤的每個步驟寫入決策步驟記錄
+ */
+public interface DecisionPathTraceRepository {
+    
+    /**
+     * 批次儲存決策路徑追蹤
+     * 
+     * @param traces 追蹤列表，同一請求可包含多棵決策樹的追蹤
+     */
+    void saveAll(List<DecisionPathTrace> traces);
+}
@@ -0,0 +1,28 @@
+package com.bank.promotion.domain.repository;
+
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 優惠決策樹聚合儲存庫介面
+ * 由持久層實作，負責將持久化資料重建為決策樹聚合
+ */
+public interface PromotionDecisionTreeRepository {
+    
+    /**
+     * 依ID載入決策樹聚合
+     * 
+     * @param treeId 決策樹ID
+     * @return 決策樹聚合，狀態為啟用者已完成執行計畫編譯
+     */
+    Optional<PromotionDecisionTree> findById(String treeId);
+    
+    /**
+     * 載入所有啟用中的決策樹聚合
+     * 
+     * @return 啟用中的決策樹列表
+     */
+    List<PromotionDecisionTree> findActive();
+}
@@ -101,6 +101,14 @@ public final class PromotionResult {
         return validUntil;
     }
     
+    /**
+     * 建立有效期限不同、其餘內容相同的結果
+     */
+    public PromotionResult withValidUntil(LocalDateTime validUntil) {
+        return new PromotionResult(promotionId, promotionName, promotionType, discountAmount, discountPercentage,
+                                   description, validUntil, additionalDetails, isEligible);
+    }
+    
     public Map<String, Object> getAdditionalDetails() {
         return additionalDetails;
     }
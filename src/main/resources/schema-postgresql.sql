@@ -90,7 +90,7 @@ CREATE TABLE IF NOT EXISTS decision_steps (
     status VARCHAR(20) NOT NULL,
     error_details TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (request_id) REFERENCES request_logs(request_id),
+    -- request_id is not a foreign key: decision paths are traced in-engine for requests that are not logged by the API layer
     FOREIGN KEY (tree_id) REFERENCES decision_trees(id)
 );
 
@@ -126,4 +126,7 @@ CREATE INDEX IF NOT EXISTS idx_event_severity_date ON system_events(severity_lev
 -- PostgreSQL-specific optimizations
 CREATE INDEX IF NOT EXISTS idx_decision_nodes_config_gin ON decision_nodes USING GIN (configuration);
 CREATE INDEX IF NOT EXISTS idx_promotion_rules_params_gin ON promotion_rules USING GIN (parameters);
-CREATE INDEX IF NOT EXISTS idx_audit_details_gin ON audit_trails USING GIN (operation_details);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_audit_details_gin ON audit_trails USING GIN (operation_details);
+
+-- Migration: decision_steps.request_id no longer references request_logs
+ALTER TABLE decision_steps DROP CONSTRAINT IF EXISTS decision_steps_request_id_fkey;
@@ -87,7 +87,7 @@ CREATE TABLE IF NOT EXISTS decision_steps (
     status VARCHAR(20) NOT NULL,
     error_details TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    FOREIGN KEY (request_id) REFERENCES request_logs(request_id),
+    -- request_id is not a foreign key: decision paths are traced in-engine for requests that are not logged by the API layer
     FOREIGN KEY (tree_id) REFERENCES decision_trees(id)
 );
 
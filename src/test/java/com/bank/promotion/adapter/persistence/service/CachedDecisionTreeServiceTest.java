@@ -2,6 +2,7 @@ package com.bank.promotion.adapter.persistence.service;
 
 import com.bank.promotion.adapter.persistence.entity.DecisionTreeEntity;
 import com.bank.promotion.adapter.persistence.repository.DecisionTreeRepository;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,6 +11,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
@@ -34,6 +36,9 @@ class CachedDecisionTreeServiceTest {
     @Mock
     private Cache cache;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CachedDecisionTreeService cachedDecisionTreeService;
 
@@ -108,6 +113,7 @@ class CachedDecisionTreeServiceTest {
         // Then
         verify(decisionTreeRepository).findById("test-tree-1");
         verify(decisionTreeRepository).deleteById("test-tree-1");
+        verify(eventPublisher).publishEvent(any(DecisionTreeChangedEvent.class));
     }
 
     @Test
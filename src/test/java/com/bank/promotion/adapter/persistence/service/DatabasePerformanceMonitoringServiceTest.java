@@ -48,6 +48,7 @@ class DatabasePerformanceMonitoringServiceTest {
         assertThat(metrics).isNotEmpty();
         assertThat(metrics).containsKey("cache_manager_type");
         assertThat(metrics).containsKey("cache_names");
+        assertThat(metrics).containsKey("spel_expression_cache");
         
         assertThat(metrics.get("cache_manager_type")).isNotNull();
     }
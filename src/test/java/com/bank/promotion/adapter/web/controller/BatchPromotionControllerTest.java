@@ -0,0 +1,95 @@
+package com.bank.promotion.adapter.web.controller;
+
+import com.bank.promotion.adapter.persistence.service.AsyncPromotionHistoryService;
+import com.bank.promotion.application.service.batch.BatchEvaluationItem;
+import com.bank.promotion.application.service.batch.BatchEvaluationSummary;
+import com.bank.promotion.application.service.batch.BatchPromotionEvaluationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 批次優惠評估控制器測試
+ * 容器預設的非同步逾時設為 100 毫秒，驗證批次串流採用自身設定的逾時
+ */
+@WebMvcTest(controllers = BatchPromotionController.class, properties = {
+    "spring.mvc.async.request-timeout=100ms",
+    "promotion.batch.request-timeout-ms=5000"
+})
+@Import(TestSecurityConfig.class)
+class BatchPromotionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BatchPromotionEvaluationService batchEvaluationService;
+
+    @MockBean
+    private AsyncPromotionHistoryService promotionHistoryService;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldStreamBatchRunningLongerThanDefaultAsyncTimeout() throws Exception {
+        // Given
+        when(batchEvaluationService.evaluateStream(eq("default-tree"), anyString(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                Thread.sleep(500); // 超過預設的非同步逾時
+                BatchPromotionEvaluationService.ChunkSink sink = invocation.getArgument(4);
+                sink.accept(0, List.of(BatchEvaluationItem.failure(0, "CUST001", "not eligible")));
+                return new BatchEvaluationSummary(invocation.getArgument(1), "default-tree", 1, 0, 1, 1, 500);
+            });
+
+        // When
+        MvcResult started = mockMvc.perform(post("/api/v1/promotions/evaluate:batch")
+                .contentType(BatchPromotionController.NDJSON_VALUE)
+                .content("{\"customerId\":\"CUST001\"}\n"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Then
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(5000);
+        mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("X-Batch-Id"));
+        assertThat(started.getResponse().getContentAsString()).contains("\"customerId\":\"CUST001\"");
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectUnknownTreeBeforeStreaming() throws Exception {
+        // Given
+        doThrow(new IllegalArgumentException("Decision tree not found: missing-tree"))
+            .when(batchEvaluationService).validateTree("missing-tree");
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/promotions/evaluate:batch")
+                .param("treeId", "missing-tree")
+                .contentType(BatchPromotionController.NDJSON_VALUE)
+                .content("{\"customerId\":\"CUST001\"}\n"))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isBadRequest())
+            .andExpect(content().string(containsString("INVALID_REQUEST")));
+    }
+}
@@ -1,24 +1,32 @@
 package com.bank.promotion.adapter.web.controller;
 
+import com.bank.promotion.adapter.web.dto.EvaluatePromotionRequest;
 import com.bank.promotion.application.query.view.AvailablePromotionView;
 import com.bank.promotion.application.query.view.PagedResult;
 import com.bank.promotion.application.query.view.PromotionHistoryView;
 import com.bank.promotion.application.service.PromotionApplicationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(QueryController.class)
@@ -31,6 +39,9 @@ class QueryControllerTest {
     @MockBean
     private PromotionApplicationService promotionApplicationService;
     
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldGetPromotionHistorySuccessfully() throws Exception {
@@ -191,4 +202,36 @@ class QueryControllerTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.errorCode").value("SYSTEM_ERROR"));
     }
-}
\ No newline at end of file
+    
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldEvaluateAvailablePromotionsAsynchronously() throws Exception {
+        // Given
+        EvaluatePromotionRequest request = new EvaluatePromotionRequest(
+            "CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50
+        );
+        AvailablePromotionView promotionView = new AvailablePromotionView(
+            "promo-001", "VIP優惠", "VIP", "VIP客戶專屬優惠",
+            BigDecimal.valueOf(1000), BigDecimal.valueOf(5.0),
+            LocalDateTime.now(), LocalDateTime.now().plusMonths(1),
+            "VIP活動", "ACTIVE", null
+        );
+        CompletableFuture<List<AvailablePromotionView>> pending = new CompletableFuture<>();
+        when(promotionApplicationService.getAvailablePromotionsAsync(any())).thenReturn(pending);
+        
+        // When
+        MvcResult started = mockMvc.perform(post("/api/v1/promotions/available")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        pending.complete(List.of(promotionView)); // 評估於 Servlet 執行緒返回後才完成
+        
+        // Then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data[0].promotionId").value("promo-001"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.bank.promotion.aggregate;
+
+import com.bank.promotion.domain.aggregate.DecisionTreeExecutionPlan;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 優惠決策樹聚合根單元測試
+ */
+class PromotionDecisionTreeTest {
+    
+    private PromotionDecisionTree tree;
+    private CustomerPayload customer;
+    
+    @BeforeEach
+    void setUp() {
+        tree = new PromotionDecisionTree("測試決策樹");
+        customer = new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+    }
+    
+    @Test
+    void shouldCompileExecutionPlanOnActivation() {
+        // Given
+        tree.addNode(condition("root", "vip-calc", "general-calc"));
+        tree.addNode(calculation("vip-calc"));
+        tree.addNode(calculation("general-calc"));
+        tree.setRootNode("root");
+        
+        // When
+        tree.activate();
+        DecisionTreeExecutionPlan plan = tree.getExecutionPlan();
+        
+        // Then
+        assertThat(plan.getRootNodeId()).isEqualTo("root");
+        assertThat(plan.getNodeCount()).isEqualTo(3);
+    }
+    
+    @Test
+    void shouldEvaluateThroughCompiledPlan() {
+        // Given
+        tree.addNode(condition("root", "vip-calc", "general-calc"));
+        tree.addNode(calculation("vip-calc"));
+        tree.addNode(calculation("general-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+        
+        // When
+        PromotionResult result = tree.evaluate(customer);
+        
+        // Then
+        assertThat(result).isNotNull();
+        assertThat(result.isEligible()).isTrue();
+        assertThat(result.getPromotionName()).isEqualTo("SpEL計算優惠");
+    }
+    
+    @Test
+    void shouldRejectActivationWhenCircularReferenceExists() {
+        // Given
+        tree.addNode(condition("root", "second", "calc"));
+        tree.addNode(condition("second", "root", "calc"));
+        tree.addNode(calculation("calc"));
+        tree.setRootNode("root");
+        
+        // When & Then
+        assertThatThrownBy(() -> tree.activate())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("Circular reference");
+        assertThat(tree.isActive()).isFalse();
+    }
+    
+    @Test
+    void shouldRecompilePlanAfterStructureChange() {
+        // Given
+        tree.addNode(condition("root", "vip-calc", "general-calc"));
+        tree.addNode(calculation("vip-calc"));
+        tree.addNode(calculation("general-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+        DecisionTreeExecutionPlan original = tree.getExecutionPlan();
+        
+        // When
+        tree.removeNode("general-calc");
+        
+        // Then
+        assertThat(tree.getExecutionPlan()).isNotSameAs(original);
+        assertThat(tree.getExecutionPlan().getNodeCount()).isEqualTo(2);
+    }
+    
+    @Test
+    void shouldShortCircuitWhenRootPredicateWithoutFalseBranchFails() {
+        // Given
+        NodeConfiguration config = new NodeConfiguration(
+            "root", "CONDITION", "#creditScore >= 800 and #accountType == 'VIP'", "SPEL", Map.of(), "條件節點"
+        );
+        tree.addNode(new ConditionNode("root", tree.getId(), config, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "vip-calc", null));
+        tree.addNode(calculation("vip-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+        CustomerPayload premium = new CustomerPayload("CUST002", "VIP", BigDecimal.valueOf(3000000), 820, "台北", 80);
+        
+        // When & Then
+        assertThat(tree.getExecutionPlan().isRootPredicateUnsatisfied(customer)).isTrue();
+        assertThat(tree.getExecutionPlan().isRootPredicateUnsatisfied(premium)).isFalse();
+    }
+    
+    @Test
+    void shouldNotShortCircuitWhenRootHasFalseBranch() {
+        // Given
+        tree.addNode(condition("root", "vip-calc", "general-calc"));
+        tree.addNode(calculation("vip-calc"));
+        tree.addNode(calculation("general-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+        CustomerPayload lowScore = new CustomerPayload("CUST003", "一般", BigDecimal.valueOf(500000), 600, "高雄", 5);
+        
+        // When & Then
+        assertThat(tree.getExecutionPlan().isRootPredicateUnsatisfied(lowScore)).isFalse();
+    }
+    
+    private ConditionNode condition(String nodeId, String trueNodeId, String falseNodeId) {
+        NodeConfiguration config = new NodeConfiguration(
+            nodeId, "CONDITION", "#creditScore > 700", "SPEL", Map.of(), "條件節點"
+        );
+        return new ConditionNode(nodeId, tree.getId(), config, null,
+                                 LocalDateTime.now(), LocalDateTime.now(), trueNodeId, falseNodeId);
+    }
+    
+    private CalculationNode calculation(String nodeId) {
+        NodeConfiguration config = new NodeConfiguration(
+            nodeId, "CALCULATION", "100", "SPEL", Map.of(), "計算節點"
+        );
+        return new CalculationNode(nodeId, tree.getId(), config, null, LocalDateTime.now(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,98 @@
+package com.bank.promotion.aggregate;
+
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.aggregate.PromotionPredicateIndex;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 優惠述詞索引單元測試
+ */
+class PromotionPredicateIndexTest {
+
+    @Test
+    void shouldMatchNumericRangesAtBoundaries() {
+        // Given
+        PromotionDecisionTree atLeast700 = guardedTree("信用700以上", "#creditScore >= 700");
+        PromotionDecisionTree above700 = guardedTree("信用高於700", "#creditScore > 700");
+        PromotionDecisionTree band = guardedTree("信用區間", "#creditScore >= 600 and #creditScore < 700");
+        PromotionDecisionTree exact = guardedTree("信用等於650", "#creditScore == 650");
+        PromotionPredicateIndex predicateIndex = PromotionPredicateIndex.build(List.of(atLeast700, above700, band, exact));
+
+        // When & Then
+        assertThat(predicateIndex.candidates(customer("VIP", "台北", 700))).containsExactly(atLeast700);
+        assertThat(predicateIndex.candidates(customer("VIP", "台北", 701))).containsExactly(atLeast700, above700);
+        assertThat(predicateIndex.candidates(customer("VIP", "台北", 650))).containsExactly(band, exact);
+        assertThat(predicateIndex.candidates(customer("VIP", "台北", 599))).isEmpty();
+    }
+
+    @Test
+    void shouldMatchTextEqualityAndInequality() {
+        // Given
+        PromotionDecisionTree vip = guardedTree("VIP活動", "#accountType == 'VIP'");
+        PromotionDecisionTree notTaipei = guardedTree("非台北活動", "#region != '台北'");
+        PromotionDecisionTree vipKaohsiung = guardedTree("高雄VIP活動", "#accountType == 'VIP' and #region == '高雄'");
+        PromotionPredicateIndex predicateIndex = PromotionPredicateIndex.build(List.of(vip, notTaipei, vipKaohsiung));
+
+        // When & Then
+        assertThat(predicateIndex.candidates(customer("VIP", "台北", 750))).containsExactly(vip);
+        assertThat(predicateIndex.candidates(customer("VIP", "高雄", 750))).containsExactly(vip, notTaipei, vipKaohsiung);
+        assertThat(predicateIndex.candidates(customer("一般", "台中", 750))).containsExactly(notTaipei);
+    }
+
+    @Test
+    void shouldKeepTreesWithoutIndexableRootPredicate() {
+        // Given
+        PromotionDecisionTree unparseable = guardedTree("複雜條件", "#creditScore > 700 or #accountType == 'VIP'");
+        PromotionDecisionTree guarded = guardedTree("高分活動", "#creditScore >= 900");
+        PromotionPredicateIndex predicateIndex = PromotionPredicateIndex.build(List.of(unparseable, guarded));
+
+        // When & Then
+        assertThat(predicateIndex.getIndexedTreeCount()).isEqualTo(1);
+        assertThat(predicateIndex.candidates(customer("一般", "台北", 500))).containsExactly(unparseable);
+    }
+
+    @Test
+    void shouldCompareNumericValuesIgnoringScale() {
+        // Given
+        PromotionDecisionTree highIncome = guardedTree("高收入活動", "#annualIncome >= 1000000");
+        PromotionPredicateIndex predicateIndex = PromotionPredicateIndex.build(List.of(highIncome));
+        CustomerPayload exact = new CustomerPayload("CUST002", "VIP", new BigDecimal("1000000.00"), 650, "台北", 10);
+        CustomerPayload lower = new CustomerPayload("CUST003", "VIP", new BigDecimal("999999.99"), 650, "台北", 10);
+
+        // When & Then
+        assertThat(predicateIndex.candidates(exact)).containsExactly(highIncome);
+        assertThat(predicateIndex.candidates(lower)).isEmpty();
+    }
+
+    private CustomerPayload customer(String accountType, String region, int creditScore) {
+        return new CustomerPayload("CUST001", accountType, BigDecimal.valueOf(1000000), creditScore, region, 10);
+    }
+
+    private PromotionDecisionTree guardedTree(String name, String rootExpression) {
+        PromotionDecisionTree tree = new PromotionDecisionTree(name);
+        NodeConfiguration conditionConfig = new NodeConfiguration(
+            "root", "CONDITION", rootExpression, "SPEL", Map.of(), "條件節點"
+        );
+        NodeConfiguration calculationConfig = new NodeConfiguration(
+            "calc", "CALCULATION", "100", "SPEL", Map.of(), "計算節點"
+        );
+        tree.addNode(new ConditionNode("root", tree.getId(), conditionConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "calc", null));
+        tree.addNode(new CalculationNode("calc", tree.getId(), calculationConfig, null,
+                                         LocalDateTime.now(), LocalDateTime.now()));
+        tree.setRootNode("root");
+        tree.activate();
+        return tree;
+    }
+}
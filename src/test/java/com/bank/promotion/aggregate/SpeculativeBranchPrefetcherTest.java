@@ -0,0 +1,192 @@
+package com.bank.promotion.aggregate;
+
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.aggregate.SpeculativeBranchPrefetcher;
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.entity.NodeResult;
+import com.bank.promotion.domain.exception.DecisionTreeExecutionException;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分支推測預取單元測試
+ */
+class SpeculativeBranchPrefetcherTest {
+
+    private PromotionDecisionTree tree;
+    private CustomerPayload customer;
+    private Map<String, String> executedOn;
+    private BlockingIoExecutor ioExecutor;
+
+    @BeforeEach
+    void setUp() {
+        tree = new PromotionDecisionTree("推測預取測試決策樹");
+        customer = new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+        executedOn = new ConcurrentHashMap<>();
+        ioExecutor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.BOUNDED_POOL, 4, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ioExecutor.shutdown();
+    }
+
+    @Test
+    void shouldPrefetchBothBranchesAndAdoptWinner() {
+        // Given
+        buildTree();
+        tree.enableSpeculativePrefetch(ioExecutor, 4);
+
+        // When
+        PromotionResult result = tree.evaluate(customer);
+
+        // Then
+        assertThat(result.getPromotionName()).isEqualTo("true-calc");
+        assertThat(executedOn.get("true-calc")).startsWith("blocking-io-");
+        SpeculativeBranchPrefetcher.Statistics statistics = tree.getSpeculativePrefetchStatistics();
+        assertThat(statistics.getIssued()).isEqualTo(2);
+        assertThat(statistics.getAdopted()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExecuteSequentiallyWhenBudgetIsExhausted() {
+        // Given
+        buildTree();
+        tree.enableSpeculativePrefetch(ioExecutor, 1);
+
+        // When
+        PromotionResult result = tree.evaluate(customer);
+
+        // Then
+        assertThat(result.getPromotionName()).isEqualTo("true-calc");
+        SpeculativeBranchPrefetcher.Statistics statistics = tree.getSpeculativePrefetchStatistics();
+        assertThat(statistics.getIssued()).isEqualTo(1);
+        assertThat(statistics.getSkipped()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldFallBackToSequentialExecutionOnCallerThreadMode() {
+        // Given
+        buildTree();
+        tree.enableSpeculativePrefetch(BlockingIoExecutor.create(BlockingIoExecutor.Mode.CALLER_THREAD, 0, 0), 4);
+
+        // When
+        PromotionResult result = tree.evaluate(customer);
+
+        // Then
+        assertThat(result.getPromotionName()).isEqualTo("true-calc");
+        assertThat(executedOn.get("true-calc")).isEqualTo(Thread.currentThread().getName());
+        assertThat(executedOn).doesNotContainKey("false-calc");
+        assertThat(tree.getSpeculativePrefetchStatistics().getIssued()).isZero();
+    }
+
+    @Test
+    void shouldAdoptFailedPrefetchWithoutReexecutingNode() {
+        // Given
+        AtomicInteger executions = new AtomicInteger();
+        NodeConfiguration rootConfig = new NodeConfiguration(
+            "root", "CONDITION", null, "EXTERNAL_SYSTEM", Map.of("endpoint", "http://scoring"), "外部條件"
+        );
+        tree.addNode(new ConditionNode("root", tree.getId(), rootConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "true-calc", "false-calc") {
+            @Override
+            public NodeResult execute(ExecutionContext context) {
+                sleep(50);
+                return super.execute(context);
+            }
+        });
+        NodeConfiguration failingConfig = new NodeConfiguration(
+            "true-calc", "CALCULATION", null, "EXTERNAL_SYSTEM", Map.of("endpoint", "http://offers"), "外部計算"
+        );
+        tree.addNode(new CalculationNode("true-calc", tree.getId(), failingConfig, null,
+                                         LocalDateTime.now(), LocalDateTime.now()) {
+            @Override
+            public NodeResult execute(ExecutionContext context) {
+                executions.incrementAndGet();
+                throw new IllegalStateException("offers unavailable");
+            }
+        });
+        tree.addNode(externalCalculation("false-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+        tree.enableSpeculativePrefetch(ioExecutor, 4);
+
+        // When & Then
+        assertThatThrownBy(() -> tree.evaluate(customer))
+            .isInstanceOf(DecisionTreeExecutionException.class);
+        assertThat(executions.get()).isEqualTo(1); // 只在預取中執行一次
+    }
+
+    @Test
+    void shouldNotSpeculateWhenDisabled() {
+        // Given
+        buildTree();
+
+        // When
+        PromotionResult result = tree.evaluate(customer);
+
+        // Then
+        assertThat(result.getPromotionName()).isEqualTo("true-calc");
+        assertThat(executedOn).doesNotContainKey("false-calc");
+        assertThat(tree.getSpeculativePrefetchStatistics()).isNull();
+    }
+
+    private void buildTree() {
+        NodeConfiguration rootConfig = new NodeConfiguration(
+            "root", "CONDITION", null, "EXTERNAL_SYSTEM", Map.of("endpoint", "http://scoring"), "外部條件"
+        );
+        tree.addNode(new ConditionNode("root", tree.getId(), rootConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "true-calc", "false-calc") {
+            @Override
+            public NodeResult execute(ExecutionContext context) {
+                sleep(50);
+                return super.execute(context);
+            }
+        });
+        tree.addNode(externalCalculation("true-calc"));
+        tree.addNode(externalCalculation("false-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+    }
+
+    private CalculationNode externalCalculation(String nodeId) {
+        NodeConfiguration config = new NodeConfiguration(
+            nodeId, "CALCULATION", null, "EXTERNAL_SYSTEM", Map.of("endpoint", "http://offers"), "外部計算"
+        );
+        return new CalculationNode(nodeId, tree.getId(), config, null, LocalDateTime.now(), LocalDateTime.now()) {
+            @Override
+            public NodeResult execute(ExecutionContext context) {
+                executedOn.put(nodeId, Thread.currentThread().getName());
+                sleep(50);
+                return NodeResult.success(new PromotionResult(
+                    nodeId, nodeId, "EXTERNAL_SYSTEM", BigDecimal.TEN, BigDecimal.ONE, "外部系統優惠",
+                    LocalDateTime.now().plusDays(30), Map.of(), true
+                ));
+            }
+        };
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
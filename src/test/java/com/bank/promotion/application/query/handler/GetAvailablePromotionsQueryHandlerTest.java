@@ -2,14 +2,22 @@ package com.bank.promotion.application.query.handler;
 
 import com.bank.promotion.application.query.GetAvailablePromotionsQuery;
 import com.bank.promotion.application.query.view.AvailablePromotionView;
+import com.bank.promotion.application.service.evaluation.MultiTreePromotionEvaluationService;
+import com.bank.promotion.application.service.evaluation.RankedPromotion;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.PromotionResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class GetAvailablePromotionsQueryHandlerTest {
@@ -18,7 +26,7 @@ class GetAvailablePromotionsQueryHandlerTest {
     
     @BeforeEach
     void setUp() {
-        handler = new GetAvailablePromotionsQueryHandler();
+        handler = new GetAvailablePromotionsQueryHandler(mock(MultiTreePromotionEvaluationService.class));
     }
     
     @Test
@@ -65,6 +73,27 @@ class GetAvailablePromotionsQueryHandlerTest {
         assertThat(promotion.getPromotionType()).isEqualTo("GENERAL");
     }
     
+    @Test
+    void shouldEvaluateActiveTreesWhenCustomerPayloadProvided() {
+        // Given
+        MultiTreePromotionEvaluationService evaluationService = mock(MultiTreePromotionEvaluationService.class);
+        GetAvailablePromotionsQueryHandler evaluatingHandler = new GetAvailablePromotionsQueryHandler(evaluationService);
+        CustomerPayload customer = new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+        PromotionResult promotion = new PromotionResult("PROMO_VIP_001", "VIP專屬理財優惠", "VIP",
+            BigDecimal.valueOf(1000), BigDecimal.valueOf(10), "VIP優惠", LocalDateTime.now().plusDays(30),
+            Map.of(), true);
+        when(evaluationService.evaluate(customer))
+            .thenReturn(List.of(new RankedPromotion(1, "tree-vip", "VIP活動", promotion)));
+        
+        // When
+        List<AvailablePromotionView> result = evaluatingHandler.handle(new GetAvailablePromotionsQuery(customer));
+        
+        // Then
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getPromotionId()).isEqualTo("PROMO_VIP_001");
+        assertThat(result.get(0).getTerms()).containsEntry("rank", 1).containsEntry("treeId", "tree-vip");
+    }
+    
     @Test
     void shouldThrowExceptionWhenQueryIsNull() {
         // When & Then
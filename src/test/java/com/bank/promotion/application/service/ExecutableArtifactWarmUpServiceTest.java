@@ -0,0 +1,143 @@
+package com.bank.promotion.application.service;
+
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.command.CommandFactory;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
+import com.bank.promotion.domain.event.PromotionRulePublishedEvent;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 可執行產物預熱服務單元測試
+ */
+class ExecutableArtifactWarmUpServiceTest {
+
+    private static final int EVALUATIONS = 10;
+
+    private CompiledDecisionTreeRegistry decisionTreeRegistry;
+    private PerformanceMonitoringService performanceMonitoringService;
+    private ApplicationEventPublisher eventPublisher;
+    private ExecutableArtifactWarmUpService warmUpService;
+
+    @BeforeEach
+    void setUp() {
+        decisionTreeRegistry = mock(CompiledDecisionTreeRegistry.class);
+        performanceMonitoringService = new PerformanceMonitoringService();
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        warmUpService = new ExecutableArtifactWarmUpService(decisionTreeRegistry, new CommandFactory(),
+                                                            performanceMonitoringService, eventPublisher,
+                                                            true, EVALUATIONS);
+    }
+
+    @Test
+    void shouldExecuteCommandsAndTreeEvaluations() {
+        // Given
+        PromotionDecisionTree tree = tree("#creditScore > 700", "SPEL");
+
+        // When
+        ExecutableArtifactWarmUpService.WarmUpReport report = warmUpService.warmUp("TEST", List.of(tree));
+
+        // Then
+        assertThat(report.getTrees()).isEqualTo(1);
+        assertThat(report.getCommands()).isEqualTo(2);
+        assertThat(report.getEvaluations()).isEqualTo(3L * EVALUATIONS);
+        assertThat(report.getFailures()).isZero();
+        assertThat(warmUpService.getLastReport()).isSameAs(report);
+        assertThat(performanceMonitoringService.getOperationMetrics("WARM_UP")).isNotNull();
+    }
+
+    @Test
+    void shouldNotEvaluateTreesWithIoBoundNodes() {
+        // Given
+        PromotionDecisionTree tree = tree("#creditScore > 700", "EXTERNAL_SYSTEM");
+
+        // When
+        ExecutableArtifactWarmUpService.WarmUpReport report = warmUpService.warmUp("TEST", List.of(tree));
+
+        // Then
+        assertThat(report.getEvaluations()).isEqualTo(EVALUATIONS);
+    }
+
+    @Test
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void shouldRefuseTrafficUntilStartupWarmUpCompletes() {
+        // Given
+        when(decisionTreeRegistry.getActiveTrees()).thenReturn(List.of(tree("#creditScore > 700", "SPEL")));
+
+        // When
+        warmUpService.onApplicationReady();
+
+        // Then
+        ArgumentCaptor<AvailabilityChangeEvent> events = ArgumentCaptor.forClass(AvailabilityChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues())
+            .extracting(event -> event.getState())
+            .containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(warmUpService.getLastReport().getTrigger()).isEqualTo("STARTUP");
+    }
+
+    @Test
+    void shouldSkipActivationWarmUpWhenTreeIsNoLongerActive() {
+        // Given
+        when(decisionTreeRegistry.getActiveTree("deactivated"))
+            .thenThrow(new IllegalArgumentException("Active decision tree not found: deactivated"));
+
+        // When
+        warmUpService.onDecisionTreeChanged(DecisionTreeChangedEvent.updated("missing", "ACTIVE"));
+        warmUpService.onDecisionTreeChanged(DecisionTreeChangedEvent.updated("deactivated", "ACTIVE"));
+
+        // Then
+        assertThat(warmUpService.getLastReport()).isNull();
+    }
+
+    @Test
+    void shouldWarmUpTreesReferencingPublishedRule() {
+        // Given
+        PromotionDecisionTree referencing = tree("rule-body", "DROOLS", Map.of("ruleName", "vip-rule"));
+        PromotionDecisionTree unrelated = tree("#creditScore > 700", "SPEL");
+        when(decisionTreeRegistry.getActiveTrees()).thenReturn(List.of(referencing, unrelated));
+
+        // When
+        warmUpService.onRulePublished(new PromotionRulePublishedEvent("vip-rule", 2));
+
+        // Then
+        assertThat(warmUpService.getLastReport().getTrigger()).isEqualTo("RULE_PUBLISH");
+        assertThat(warmUpService.getLastReport().getTrees()).isEqualTo(1);
+    }
+
+    private PromotionDecisionTree tree(String rootExpression, String rootCommandType) {
+        return tree(rootExpression, rootCommandType, Map.of());
+    }
+
+    private PromotionDecisionTree tree(String rootExpression, String rootCommandType, Map<String, Object> rootParameters) {
+        PromotionDecisionTree tree = new PromotionDecisionTree("預熱測試決策樹");
+        NodeConfiguration conditionConfig = new NodeConfiguration(
+            "root", "CONDITION", rootExpression, rootCommandType, rootParameters, "條件節點");
+        NodeConfiguration calculationConfig = new NodeConfiguration(
+            "calc", "CALCULATION", "100", "SPEL", Map.of(), "計算節點");
+        tree.addNode(new ConditionNode("root", tree.getId(), conditionConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "calc", "calc"));
+        tree.addNode(new CalculationNode("calc", tree.getId(), calculationConfig, null,
+                                         LocalDateTime.now(), LocalDateTime.now()));
+        tree.setRootNode("root");
+        tree.activate();
+        return tree;
+    }
+}
@@ -13,13 +13,16 @@ import com.bank.promotion.application.query.view.AvailablePromotionView;
 import com.bank.promotion.application.query.view.PagedResult;
 import com.bank.promotion.application.query.view.PromotionHistoryView;
 import com.bank.promotion.application.service.audit.AuditService;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
 import com.bank.promotion.domain.valueobject.CustomerPayload;
 import com.bank.promotion.domain.valueobject.PromotionResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -53,6 +56,9 @@ class PromotionApplicationServiceTest {
     @Mock
     private PerformanceMonitoringService performanceMonitoringService;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
     private PromotionApplicationService applicationService;
     
     @BeforeEach
@@ -64,7 +70,8 @@ class PromotionApplicationServiceTest {
             getPromotionHistoryHandler,
             getAvailablePromotionsHandler,
             auditService,
-            performanceMonitoringService
+            performanceMonitoringService,
+            eventPublisher
         );
     }
     
@@ -189,6 +196,22 @@ class PromotionApplicationServiceTest {
         verify(performanceMonitoringService).recordOperationTime(eq("GET_AVAILABLE_PROMOTIONS"), anyLong());
     }
     
+    @Test
+    void shouldPublishChangeEventWhenDecisionTreeIsUpdatedOrDeleted() {
+        // When
+        applicationService.updateDecisionTree("tree-001", "ACTIVE");
+        applicationService.deleteDecisionTree("tree-002");
+        
+        // Then
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues())
+            .allMatch(DecisionTreeChangedEvent.class::isInstance)
+            .extracting(event -> ((DecisionTreeChangedEvent) event).getTreeId(),
+                        event -> ((DecisionTreeChangedEvent) event).isDeleted())
+            .containsExactly(tuple("tree-001", false), tuple("tree-002", true));
+    }
+    
     @Test
     void shouldThrowExceptionWhenCommandIsNull() {
         // When & Then
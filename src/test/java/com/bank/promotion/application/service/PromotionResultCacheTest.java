@@ -0,0 +1,151 @@
+package com.bank.promotion.application.service;
+
+import com.bank.promotion.application.service.audit.DecisionPathTraceWriter;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.event.DecisionTreeChangedEvent;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 優惠評估結果快取單元測試
+ */
+class PromotionResultCacheTest {
+
+    private PromotionResultCache resultCache;
+
+    @BeforeEach
+    void setUp() {
+        resultCache = new PromotionResultCache(true, 1000, 60, new DecisionPathTraceWriter(traces -> { }, false, 0.0, 1, 1, 1));
+    }
+
+    @Test
+    void shouldShareResultAcrossCustomersWithSameReadFields() {
+        // Given
+        PromotionDecisionTree tree = spy(tree("#creditScore > 700 and #accountType == 'VIP'", "SPEL", Map.of()));
+        CustomerPayload first = customer("CUST001", 750, "台北");
+        CustomerPayload second = customer("CUST002", 750, "高雄");
+
+        // When
+        PromotionResult firstResult = resultCache.evaluate(tree, first);
+        PromotionResult secondResult = resultCache.evaluate(tree, second);
+
+        // Then
+        assertThat(tree.getExecutionPlan().getFeatureSet().getFieldNames())
+            .containsExactly("accountType", "creditScore");
+        assertThat(secondResult.getPromotionId()).isEqualTo(firstResult.getPromotionId());
+        verify(tree, times(1)).evaluate(first);
+        verify(tree, times(0)).evaluate(second);
+    }
+
+    @Test
+    void shouldSeparateCustomersWithDifferentReadFields() {
+        // Given
+        PromotionDecisionTree tree = spy(tree("#creditScore > 700", "SPEL", Map.of()));
+
+        // When
+        resultCache.evaluate(tree, customer("CUST001", 750, "台北"));
+        resultCache.evaluate(tree, customer("CUST002", 800, "台北"));
+
+        // Then
+        assertThat(resultCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldBypassCacheForExternalSystemNodes() {
+        // Given
+        PromotionDecisionTree tree = spy(tree("#creditScore > 700", "EXTERNAL_SYSTEM", Map.of()));
+        CustomerPayload customer = customer("CUST001", 750, "台北");
+
+        // When
+        resultCache.evaluate(tree, customer);
+        resultCache.evaluate(tree, customer);
+
+        // Then
+        assertThat(tree.getExecutionPlan().getFeatureSet().isCacheable()).isFalse();
+        assertThat(resultCache.size()).isZero();
+        verify(tree, times(2)).evaluate(customer);
+    }
+
+    @Test
+    void shouldBypassCacheForDroolsNodes() {
+        // Given
+        PromotionDecisionTree tree = tree("#creditScore > 700", "DROOLS", Map.of("ruleName", "vip-rule"));
+
+        // Then
+        assertThat(tree.getExecutionPlan().getFeatureSet().isCacheable()).isFalse(); // 規則發布後結果即可能改變
+    }
+
+    @Test
+    void shouldExtendRelativeValidityOnCacheHit() throws Exception {
+        // Given
+        PromotionDecisionTree tree = tree("#creditScore > 700", "SPEL", Map.of());
+        PromotionResult first = resultCache.evaluate(tree, customer("CUST001", 750, "台北"));
+
+        // When
+        Thread.sleep(50);
+        PromotionResult cached = resultCache.evaluate(tree, customer("CUST001", 750, "台北"));
+
+        // Then
+        assertThat(cached.getPromotionId()).isEqualTo(first.getPromotionId());
+        assertThat(cached.getValidUntil()).isAfter(first.getValidUntil()); // 有效期限依命中時間重新計算
+    }
+
+    @Test
+    void shouldBypassCacheForNodesMarkedNonCacheable() {
+        // Given
+        PromotionDecisionTree tree = tree("#creditScore > 700", "SPEL", Map.of("cacheable", false));
+
+        // When
+        resultCache.evaluate(tree, customer("CUST001", 750, "台北"));
+
+        // Then
+        assertThat(tree.getExecutionPlan().getFeatureSet().isCacheable()).isFalse();
+        assertThat(resultCache.size()).isZero();
+    }
+
+    @Test
+    void shouldInvalidateEntriesWhenTreeChanges() {
+        // Given
+        PromotionDecisionTree tree = tree("#creditScore > 700", "SPEL", Map.of());
+        resultCache.evaluate(tree, customer("CUST001", 750, "台北"));
+
+        // When
+        resultCache.onDecisionTreeChanged(DecisionTreeChangedEvent.updated(tree.getId(), "ACTIVE"));
+
+        // Then
+        assertThat(resultCache.size()).isZero();
+    }
+
+    private PromotionDecisionTree tree(String rootExpression, String rootCommandType, Map<String, Object> parameters) {
+        PromotionDecisionTree tree = new PromotionDecisionTree("快取測試決策樹");
+        NodeConfiguration conditionConfig = new NodeConfiguration(
+            "root", "CONDITION", rootExpression, rootCommandType, parameters, "條件節點");
+        NodeConfiguration calculationConfig = new NodeConfiguration(
+            "calc", "CALCULATION", "100", "SPEL", Map.of(), "計算節點");
+        tree.addNode(new ConditionNode("root", tree.getId(), conditionConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "calc", "calc"));
+        tree.addNode(new CalculationNode("calc", tree.getId(), calculationConfig, null,
+                                         LocalDateTime.now(), LocalDateTime.now()));
+        tree.setRootNode("root");
+        tree.activate();
+        return tree;
+    }
+
+    private CustomerPayload customer(String customerId, int creditScore, String region) {
+        return new CustomerPayload(customerId, "VIP", BigDecimal.valueOf(2000000), creditScore, region, 50);
+    }
+}
@@ -0,0 +1,149 @@
+package com.bank.promotion.application.service.audit;
+
+import com.bank.promotion.application.service.PromotionResultCache;
+import com.bank.promotion.domain.aggregate.DecisionPathTrace;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 決策路徑追蹤寫入器單元測試
+ */
+class DecisionPathTraceWriterTest {
+
+    private PromotionDecisionTree tree;
+    private CustomerPayload customer;
+    private List<DecisionPathTrace> saved;
+    private DecisionPathTraceWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        tree = tree();
+        customer = new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+        saved = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRecordVisitedNodesAndWriteOnShutdown() {
+        // Given
+        writer = new DecisionPathTraceWriter(saved::addAll, true, 1.0, 100, 10, 60000);
+        PromotionResultCache resultCache = new PromotionResultCache(true, 1000, 60, writer);
+
+        // When
+        resultCache.evaluate(tree, customer, "REQ-001");
+        writer.shutdown();
+
+        // Then
+        assertThat(saved).hasSize(1);
+        DecisionPathTrace trace = saved.get(0);
+        assertThat(trace.getRequestId()).isEqualTo("REQ-001");
+        assertThat(trace.getTreeId()).isEqualTo(tree.getId());
+        assertThat(trace.size()).isEqualTo(2);
+        assertThat(trace.getNodeId(0)).isEqualTo("root");
+        assertThat(trace.getNodeType(0)).isEqualTo("CONDITION");
+        assertThat(trace.getOutcome(0)).isEqualTo(DecisionPathTrace.Outcome.TRUE);
+        assertThat(trace.getNodeId(1)).isEqualTo("vip-calc");
+        assertThat(trace.getOutcome(1)).isEqualTo(DecisionPathTrace.Outcome.RESULT);
+        assertThat(writer.getStatistics().getWritten()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotTraceCachedEvaluations() {
+        // Given
+        writer = new DecisionPathTraceWriter(saved::addAll, true, 1.0, 100, 10, 60000);
+        PromotionResultCache resultCache = new PromotionResultCache(true, 1000, 60, writer);
+
+        // When
+        resultCache.evaluate(tree, customer);
+        resultCache.evaluate(tree, customer);
+
+        // Then
+        assertThat(writer.getStatistics().getSampled()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldDropTracesWhenQueueIsFull() throws InterruptedException {
+        // Given
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        writer = new DecisionPathTraceWriter(traces -> {
+            writing.countDown();
+            awaitQuietly(release);
+            saved.addAll(traces);
+        }, true, 1.0, 1, 10, 60000);
+
+        // When
+        writer.submit(trace());
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        writer.submit(trace());
+        writer.submit(trace());
+        release.countDown();
+
+        // Then
+        assertThat(writer.getStatistics().getDropped()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotSampleWhenDisabled() {
+        // Given
+        writer = new DecisionPathTraceWriter(saved::addAll, false, 1.0, 100, 10, 60000);
+
+        // When & Then
+        assertThat(writer.begin(tree, "REQ-001")).isNull();
+        assertThat(writer.isEnabled()).isFalse();
+    }
+
+    private DecisionPathTrace trace() {
+        DecisionPathTrace trace = tree.newTrace("REQ-001");
+        tree.evaluate(customer, trace);
+        return trace;
+    }
+
+    private PromotionDecisionTree tree() {
+        PromotionDecisionTree tree = new PromotionDecisionTree("追蹤測試決策樹");
+        NodeConfiguration conditionConfig = new NodeConfiguration(
+            "root", "CONDITION", "#creditScore > 700", "SPEL", Map.of(), "條件節點");
+        tree.addNode(new ConditionNode("root", tree.getId(), conditionConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "vip-calc", "general-calc"));
+        tree.addNode(calculation(tree, "vip-calc"));
+        tree.addNode(calculation(tree, "general-calc"));
+        tree.setRootNode("root");
+        tree.activate();
+        return tree;
+    }
+
+    private CalculationNode calculation(PromotionDecisionTree tree, String nodeId) {
+        NodeConfiguration config = new NodeConfiguration(nodeId, "CALCULATION", "100", "SPEL", Map.of(), "計算節點");
+        return new CalculationNode(nodeId, tree.getId(), config, null, LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.bank.promotion.application.service.batch;
+
+import com.bank.promotion.application.service.CompiledDecisionTreeRegistry;
+import com.bank.promotion.application.service.PerformanceMonitoringService;
+import com.bank.promotion.application.service.PromotionResultCache;
+import com.bank.promotion.application.service.audit.AuditService;
+import com.bank.promotion.application.service.audit.DecisionPathTraceWriter;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批次優惠評估服務單元測試
+ */
+@ExtendWith(MockitoExtension.class)
+class BatchPromotionEvaluationServiceTest {
+
+    @Mock
+    private CompiledDecisionTreeRegistry decisionTreeRegistry;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private PerformanceMonitoringService performanceMonitoringService;
+
+    private BatchPromotionEvaluationService service;
+    private PromotionDecisionTree tree;
+
+    @BeforeEach
+    void setUp() {
+        PromotionResultCache resultCache = new PromotionResultCache(
+            true, 1000, 60, new DecisionPathTraceWriter(traces -> { }, false, 0.0, 1, 1, 1));
+        service = new BatchPromotionEvaluationService(decisionTreeRegistry, resultCache,
+                                                      auditService, performanceMonitoringService, 4, 10);
+
+        tree = new PromotionDecisionTree("批次測試決策樹");
+        NodeConfiguration conditionConfig = new NodeConfiguration(
+            "root", "CONDITION", "#creditScore > 700", "SPEL", Map.of(), "條件節點");
+        NodeConfiguration calculationConfig = new NodeConfiguration(
+            "calc", "CALCULATION", "100", "SPEL", Map.of(), "計算節點");
+        tree.addNode(new ConditionNode("root", tree.getId(), conditionConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "calc", "calc"));
+        tree.addNode(new CalculationNode("calc", tree.getId(), calculationConfig, null,
+                                         LocalDateTime.now(), LocalDateTime.now()));
+        tree.setRootNode("root");
+        tree.activate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void shouldStreamResultsInInputOrderPerChunk() throws Exception {
+        // Given
+        when(decisionTreeRegistry.getActiveTree("tree-1")).thenReturn(tree);
+        List<CustomerPayload> customers = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            customers.add(customer("CUST" + i));
+        }
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<BatchEvaluationItem> streamed = new ArrayList<>();
+
+        // When
+        BatchEvaluationSummary summary = service.evaluateStream("tree-1", "batch-1", customers.iterator(),
+            (chunkIndex, items) -> {
+                chunkSizes.add(items.size());
+                streamed.addAll(items);
+            });
+
+        // Then
+        assertThat(chunkSizes).containsExactly(10, 10, 5);
+        assertThat(streamed).hasSize(25);
+        for (int i = 0; i < 25; i++) {
+            assertThat(streamed.get(i).getIndex()).isEqualTo(i);
+            assertThat(streamed.get(i).getCustomerId()).isEqualTo("CUST" + i);
+            assertThat(streamed.get(i).isSuccess()).isTrue();
+        }
+        assertThat(summary.getTotalCount()).isEqualTo(25);
+        assertThat(summary.getChunkCount()).isEqualTo(3);
+        assertThat(summary.getFailedCount()).isZero();
+        verify(auditService, times(3)).recordBatchEvaluationChunk(eq("batch-1"), eq(tree.getId()), anyInt(),
+                                                                  anyInt(), anyInt(), eq(0), anyLong());
+    }
+
+    @Test
+    void shouldReportFailedCustomerWithoutAbortingBatch() throws Exception {
+        // Given
+        when(decisionTreeRegistry.getActiveTree("tree-1")).thenReturn(tree);
+        List<String> customerIds = List.of("CUST1", "", "CUST3");
+        List<BatchEvaluationItem> streamed = new ArrayList<>();
+
+        // When
+        BatchEvaluationSummary summary = service.evaluateStream("tree-1", "batch-2", customerIds.iterator(),
+            this::customer, (chunkIndex, items) -> streamed.addAll(items));
+
+        // Then
+        assertThat(streamed).hasSize(3);
+        assertThat(streamed.get(0).isSuccess()).isTrue();
+        assertThat(streamed.get(1).isSuccess()).isFalse();
+        assertThat(streamed.get(1).getErrorMessage()).isNotBlank();
+        assertThat(streamed.get(2).isSuccess()).isTrue();
+        assertThat(summary.getFailedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectInactiveTreeBeforeReadingInput() {
+        // Given
+        when(decisionTreeRegistry.getActiveTree("missing"))
+            .thenThrow(new IllegalArgumentException("Active decision tree not found: missing"));
+
+        // When & Then
+        assertThatThrownBy(() -> service.evaluateStream("missing", "batch-3",
+            List.of(customer("CUST1")).iterator(), (chunkIndex, items) -> { }))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private CustomerPayload customer(String customerId) {
+        return new CustomerPayload(customerId, "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+    }
+}
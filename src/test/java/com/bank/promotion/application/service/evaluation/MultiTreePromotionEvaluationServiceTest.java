@@ -0,0 +1,186 @@
+package com.bank.promotion.application.service.evaluation;
+
+import com.bank.promotion.application.service.CompiledDecisionTreeRegistry;
+import com.bank.promotion.application.service.PerformanceMonitoringService;
+import com.bank.promotion.application.service.PromotionResultCache;
+import com.bank.promotion.application.service.audit.DecisionPathTraceWriter;
+import com.bank.promotion.domain.aggregate.PromotionDecisionTree;
+import com.bank.promotion.domain.aggregate.PromotionPredicateIndex;
+import com.bank.promotion.domain.entity.CalculationNode;
+import com.bank.promotion.domain.entity.ConditionNode;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import com.bank.promotion.domain.valueobject.PromotionResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 多決策樹優惠評估服務單元測試
+ */
+@ExtendWith(MockitoExtension.class)
+class MultiTreePromotionEvaluationServiceTest {
+
+    @Mock
+    private CompiledDecisionTreeRegistry decisionTreeRegistry;
+
+    @Mock
+    private PerformanceMonitoringService performanceMonitoringService;
+
+    private MultiTreePromotionEvaluationService service;
+    private CustomerPayload customer;
+
+    @BeforeEach
+    void setUp() {
+        PromotionResultCache resultCache = new PromotionResultCache(
+            true, 1000, 60, new DecisionPathTraceWriter(traces -> { }, false, 0.0, 1, 1, 1));
+        service = new MultiTreePromotionEvaluationService(decisionTreeRegistry, resultCache,
+                                                          performanceMonitoringService, 4, 100, 1000);
+        customer = new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void shouldRankPromotionsAcrossTreesByDiscount() {
+        // Given
+        List<PromotionDecisionTree> trees = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            PromotionDecisionTree tree = spy(activeTree("樹" + i, "#creditScore > 700", "calc"));
+            when(tree.evaluate(customer)).thenReturn(result("PROMO" + i, i * 10));
+            trees.add(tree);
+        }
+        when(decisionTreeRegistry.getPredicateIndex()).thenReturn(PromotionPredicateIndex.build(trees));
+
+        // When
+        List<RankedPromotion> ranked = service.evaluate(customer);
+
+        // Then
+        assertThat(ranked).hasSize(40);
+        assertThat(ranked.get(0).getRank()).isEqualTo(1);
+        assertThat(ranked.get(0).getResult().getPromotionId()).isEqualTo("PROMO39");
+        assertThat(ranked.get(39).getResult().getPromotionId()).isEqualTo("PROMO0");
+    }
+
+    @Test
+    void shouldSkipTreesWhoseRootPredicateFails() {
+        // Given
+        PromotionDecisionTree matching = spy(activeTree("VIP活動", "#accountType == 'VIP'", null));
+        PromotionDecisionTree excluded = spy(activeTree("高分活動", "#creditScore >= 900", null));
+        when(decisionTreeRegistry.getPredicateIndex()).thenReturn(PromotionPredicateIndex.build(List.of(matching, excluded)));
+
+        // When
+        List<RankedPromotion> ranked = service.evaluate(customer);
+
+        // Then
+        assertThat(ranked).hasSize(1);
+        assertThat(ranked.get(0).getTreeName()).isEqualTo("VIP活動");
+        verify(excluded, never()).evaluate(customer);
+    }
+
+    @Test
+    void shouldIgnoreFailingTree() {
+        // Given
+        PromotionDecisionTree healthy = activeTree("正常活動", "#creditScore > 700", "calc");
+        PromotionDecisionTree broken = spy(activeTree("異常活動", "#creditScore > 700", "calc"));
+        when(broken.evaluate(customer)).thenThrow(new IllegalStateException("boom"));
+        when(decisionTreeRegistry.getPredicateIndex()).thenReturn(PromotionPredicateIndex.build(List.of(healthy, broken)));
+
+        // When
+        List<RankedPromotion> ranked = service.evaluate(customer);
+
+        // Then
+        assertThat(ranked).hasSize(1);
+        assertThat(ranked.get(0).getTreeId()).isEqualTo(healthy.getId());
+    }
+
+    @Test
+    void shouldEnforceLatencyBudgetForSingleTree() {
+        // Given
+        PromotionDecisionTree slow = spy(activeTree("緩慢活動", "#creditScore > 700", "calc"));
+        when(slow.evaluate(customer)).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return result("PROMO-SLOW", 100);
+        });
+        when(decisionTreeRegistry.getPredicateIndex()).thenReturn(PromotionPredicateIndex.build(List.of(slow)));
+
+        // When
+        long startTime = System.nanoTime();
+        List<RankedPromotion> ranked = service.evaluate(customer);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        // Then
+        assertThat(ranked).isEmpty(); // 逾時未完成的決策樹不列入結果
+        assertThat(elapsedMs).isLessThan(3000);
+    }
+
+    @Test
+    void shouldReturnImmediatelyAndCompleteAsyncEvaluationWithinBudget() throws Exception {
+        // Given
+        PromotionDecisionTree slow = spy(activeTree("緩慢活動", "#creditScore > 700", "calc"));
+        when(slow.evaluate(customer)).thenAnswer(invocation -> {
+            Thread.sleep(5000);
+            return result("PROMO-SLOW", 100);
+        });
+        when(decisionTreeRegistry.getPredicateIndex()).thenReturn(PromotionPredicateIndex.build(List.of(slow)));
+
+        // When
+        long startTime = System.nanoTime();
+        CompletableFuture<List<RankedPromotion>> pending = service.evaluateAsync(customer);
+        long returnedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        List<RankedPromotion> ranked = pending.get(3, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(returnedMs).isLessThan(500); // 呼叫端不等待評估
+        assertThat(ranked).isEmpty(); // 逾時未完成的決策樹不列入結果
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)).isLessThan(3000);
+    }
+
+    @Test
+    void shouldRejectNullCustomer() {
+        assertThatThrownBy(() -> service.evaluate(null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private PromotionDecisionTree activeTree(String name, String rootExpression, String falseNodeId) {
+        PromotionDecisionTree tree = new PromotionDecisionTree(name);
+        NodeConfiguration conditionConfig = new NodeConfiguration(
+            "root", "CONDITION", rootExpression, "SPEL", Map.of(), "條件節點");
+        NodeConfiguration calculationConfig = new NodeConfiguration(
+            "calc", "CALCULATION", "100", "SPEL", Map.of(), "計算節點");
+        tree.addNode(new ConditionNode("root", tree.getId(), conditionConfig, null,
+                                       LocalDateTime.now(), LocalDateTime.now(), "calc", falseNodeId));
+        tree.addNode(new CalculationNode("calc", tree.getId(), calculationConfig, null,
+                                         LocalDateTime.now(), LocalDateTime.now()));
+        tree.setRootNode("root");
+        tree.activate();
+        return tree;
+    }
+
+    private PromotionResult result(String promotionId, int discountAmount) {
+        return new PromotionResult(promotionId, "優惠" + promotionId, "DEFAULT",
+                                   BigDecimal.valueOf(discountAmount), BigDecimal.valueOf(5),
+                                   "測試優惠", LocalDateTime.now().plusDays(30), Map.of(), true);
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.promotion.command;
+
+import com.bank.promotion.domain.command.BlockingIoExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 阻塞式 I/O 執行器單元測試
+ */
+class BlockingIoExecutorTest {
+
+    private BlockingIoExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shouldRunOnCallerThreadByDefault() throws Exception {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.CALLER_THREAD, 0, 0);
+        Thread caller = Thread.currentThread();
+
+        Thread executedOn = executor.call(Thread::currentThread, 1, TimeUnit.SECONDS);
+
+        assertThat(executedOn).isSameAs(caller);
+        assertThat(executor.getStatistics().getCompletedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunOffCallerThreadInBoundedPoolMode() throws Exception {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.BOUNDED_POOL, 2, 4);
+
+        String threadName = executor.call(() -> Thread.currentThread().getName(), 1, TimeUnit.SECONDS);
+
+        assertThat(threadName).startsWith("blocking-io-");
+        assertThat(executor.getMode()).isEqualTo(BlockingIoExecutor.Mode.BOUNDED_POOL);
+        assertThat(executor.getStatistics().getTotalBlockingNanos()).isPositive();
+    }
+
+    @Test
+    void shouldFallBackToBoundedPoolOrUseVirtualThreads() throws Exception {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.VIRTUAL_THREAD, 2, 4);
+
+        Integer result = executor.call(() -> 42, 1, TimeUnit.SECONDS);
+
+        assertThat(result).isEqualTo(42);
+        assertThat(executor.getMode()).isIn(BlockingIoExecutor.Mode.VIRTUAL_THREAD, BlockingIoExecutor.Mode.BOUNDED_POOL);
+    }
+
+    @Test
+    void shouldPropagateTaskException() {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.BOUNDED_POOL, 1, 1);
+
+        assertThatThrownBy(() -> executor.call(() -> {
+            throw new IllegalStateException("downstream failure");
+        }, 1, TimeUnit.SECONDS))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("downstream failure");
+        assertThat(executor.getStatistics().getFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTimeOutAndInterruptSlowCall() {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.BOUNDED_POOL, 1, 1);
+
+        assertThatThrownBy(() -> executor.call(() -> {
+            Thread.sleep(5_000);
+            return null;
+        }, 50, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+        assertThat(executor.getStatistics().getTimedOutCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectWhenCapacityIsExhausted() throws Exception {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.CALLER_THREAD, 1, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread holder = new Thread(() -> {
+            try {
+                executor.call(() -> {
+                    started.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                }, 5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        holder.start();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> executor.call(() -> true, 1, TimeUnit.SECONDS))
+            .isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        holder.join(5_000);
+        assertThat(failure.get()).isNull();
+        assertThat(executor.getStatistics().getRejectedCalls()).isEqualTo(1);
+        assertThat(executor.getStatistics().getPeakActiveCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountPoolRejectionOnlyAsRejected() {
+        executor = BlockingIoExecutor.create(BlockingIoExecutor.Mode.BOUNDED_POOL, 1, 0);
+        executor.shutdown();
+
+        assertThatThrownBy(() -> executor.call(() -> true, 1, TimeUnit.SECONDS))
+            .isInstanceOf(RejectedExecutionException.class);
+
+        assertThat(executor.getStatistics().getRejectedCalls()).isEqualTo(1);
+        assertThat(executor.getStatistics().getFailedCalls()).isZero();
+        assertThat(executor.getStatistics().getActiveCalls()).isZero();
+    }
+}
@@ -0,0 +1,126 @@
+package com.bank.promotion.command.drools;
+
+import com.bank.promotion.domain.command.drools.DroolsKieModuleCache;
+import com.bank.promotion.domain.command.drools.DroolsRuleManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drools 預編譯模組快取單元測試
+ */
+class DroolsKieModuleCacheTest {
+
+    private static final String RULE =
+        "rule \"Tier\"\n" +
+        "when\n" +
+        "    CustomerPayload()\n" +
+        "then\n" +
+        "    results.put(\"tier\", \"VIP\");\n" +
+        "end\n";
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void shouldKeyModulesByRuleAndContent() {
+        // Given
+        DroolsKieModuleCache cache = new DroolsKieModuleCache(cacheDirectory);
+
+        // When
+        String key = cache.keyOf("vip-rule", RULE);
+
+        // Then
+        assertThat(cache.keyOf("vip-rule", RULE)).isEqualTo(key);
+        assertThat(cache.keyOf("vip-rule", RULE.replace("VIP", "GOLD"))).isNotEqualTo(key);
+        assertThat(cache.keyOf("gold-rule", RULE)).isNotEqualTo(key);
+    }
+
+    @Test
+    void shouldReturnStoredModuleAndCountMisses() {
+        // Given
+        DroolsKieModuleCache cache = new DroolsKieModuleCache(cacheDirectory);
+        String key = cache.keyOf("vip-rule", RULE);
+
+        // When
+        byte[] beforeStore = cache.load(key);
+        cache.store(key, new byte[] {1, 2, 3});
+        byte[] afterStore = cache.load(key);
+
+        // Then
+        assertThat(beforeStore).isNull();
+        assertThat(afterStore).containsExactly(1, 2, 3);
+        assertThat(cache.getStatistics().getMisses()).isEqualTo(1);
+        assertThat(cache.getStatistics().getHits()).isEqualTo(1);
+        assertThat(cache.getStatistics().getStores()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReplaceOlderVersionOfSameRule() throws Exception {
+        // Given
+        DroolsKieModuleCache cache = new DroolsKieModuleCache(cacheDirectory);
+        String oldKey = cache.keyOf("vip-rule", RULE);
+        String otherRuleKey = cache.keyOf("gold-rule", RULE);
+        cache.store(oldKey, new byte[] {1});
+        cache.store(otherRuleKey, new byte[] {2});
+
+        // When
+        String newKey = cache.keyOf("vip-rule", RULE.replace("VIP", "PLATINUM"));
+        cache.store(newKey, new byte[] {3});
+
+        // Then
+        assertThat(cache.load(oldKey)).isNull();
+        assertThat(cache.load(newKey)).containsExactly(3);
+        assertThat(cache.load(otherRuleKey)).containsExactly(2);
+        assertThat(cache.getStatistics().getEvictions()).isEqualTo(1);
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            assertThat(files).hasSize(2);
+        }
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedModulesBeyondLimit() throws Exception {
+        // Given
+        DroolsKieModuleCache cache = new DroolsKieModuleCache(cacheDirectory, 2);
+        String first = cache.keyOf("rule-1", RULE);
+        String second = cache.keyOf("rule-2", RULE);
+        cache.store(first, new byte[] {1});
+        cache.store(second, new byte[] {2});
+        Files.setLastModifiedTime(cacheDirectory.resolve(second + ".kjar"), FileTime.fromMillis(0L));
+
+        // When
+        cache.store(cache.keyOf("rule-3", RULE), new byte[] {3});
+
+        // Then
+        assertThat(cache.load(second)).isNull();
+        assertThat(cache.load(first)).containsExactly(1);
+        assertThat(cache.getStatistics().getEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLoadPrecompiledModuleOnRestart() {
+        // Given
+        DroolsRuleManager firstBoot = new DroolsRuleManager(
+            DroolsRuleManager.KieBaseMode.PER_RULE, 1, new DroolsKieModuleCache(cacheDirectory));
+        firstBoot.registerRule("vip-rule", RULE);
+        firstBoot.shutdown();
+
+        // When
+        DroolsRuleManager secondBoot = new DroolsRuleManager(
+            DroolsRuleManager.KieBaseMode.PER_RULE, 1, new DroolsKieModuleCache(cacheDirectory));
+        boolean registered = secondBoot.registerRule("vip-rule", RULE);
+
+        // Then
+        assertThat(registered).isTrue();
+        assertThat(secondBoot.borrowSession("vip-rule")).isNotNull();
+        assertThat(secondBoot.getModuleCacheStatistics().getHits()).isEqualTo(1);
+        assertThat(secondBoot.getModuleCacheStatistics().getStores()).isZero();
+        secondBoot.shutdown();
+    }
+}
@@ -0,0 +1,288 @@
+package com.bank.promotion.command.drools;
+
+import com.bank.promotion.domain.command.CommandResources;
+import com.bank.promotion.domain.command.drools.DroolsRuleCommand;
+import com.bank.promotion.domain.command.drools.DroolsRuleManager;
+import com.bank.promotion.domain.command.drools.DroolsRuleMetrics;
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.entity.NodeResult;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import com.bank.promotion.domain.valueobject.NodeConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drools 規則命令單元測試
+ */
+class DroolsRuleCommandTest {
+
+    private static final String CREDIT_SCORE_RULE =
+        "rule \"HighCreditScore\"\n" +
+        "when\n" +
+        "    $customer : CustomerPayload()\n" +
+        "then\n" +
+        "    results.put(\"conditionResult\", $customer.getCreditScore() > 700);\n" +
+        "end\n";
+
+    private static final String CAMPAIGN_RULE =
+        "rule \"CampaignCode\"\n" +
+        "when\n" +
+        "    $customer : CustomerPayload()\n" +
+        "    String(this == \"SPRING-VIP\")\n" +
+        "then\n" +
+        "    results.put(\"conditionResult\", true);\n" +
+        "end\n";
+
+    private static final String NO_LOW_SCORE_RULE =
+        "rule \"NoLowScoreInSession\"\n" +
+        "when\n" +
+        "    $customer : CustomerPayload(creditScore > 700)\n" +
+        "    not CustomerPayload(creditScore < 650)\n" +
+        "then\n" +
+        "    results.put(\"conditionResult\", true);\n" +
+        "end\n";
+
+    private static final String PAIR_RULE =
+        "rule \"AnotherCustomerInSession\"\n" +
+        "when\n" +
+        "    $customer : CustomerPayload()\n" +
+        "    CustomerPayload(this != $customer)\n" +
+        "then\n" +
+        "    results.put(\"conditionResult\", true);\n" +
+        "end\n";
+
+    @Test
+    void shouldNotLeakFactsBetweenPooledSessions() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(CREDIT_SCORE_RULE, Map.of()));
+
+        // When
+        NodeResult first = command.execute(new ExecutionContext(customer(750), Map.of()));
+        NodeResult second = command.execute(new ExecutionContext(customer(600), Map.of()));
+
+        // Then
+        assertThat(first.getResult()).isEqualTo(true);
+        assertThat(second.getResult()).isEqualTo(false);
+    }
+
+    @Test
+    void shouldInsertContextFactsMatchedByRulePatterns() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(CAMPAIGN_RULE, Map.of()));
+        Map<String, Object> contextData = Map.of("campaign", "SPRING-VIP", "amount", BigDecimal.TEN);
+
+        // When
+        NodeResult result = command.execute(new ExecutionContext(customer(750), contextData));
+
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getResult()).isEqualTo(true);
+    }
+
+    @Test
+    void shouldOnlyInsertDeclaredFactKeys() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(
+            createConfiguration(CAMPAIGN_RULE, Map.of("factKeys", List.of("channel"))));
+        Map<String, Object> contextData = Map.of("campaign", "SPRING-VIP", "channel", "MOBILE");
+
+        // When
+        NodeResult result = command.execute(new ExecutionContext(customer(750), contextData));
+
+        // Then
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getErrorMessage()).contains("No Drools rules were fired");
+    }
+
+    @Test
+    void shouldCorrelateBatchResultsToEachCustomer() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(CREDIT_SCORE_RULE, Map.of()));
+        List<ExecutionContext> contexts = List.of(
+            new ExecutionContext(customer(750), Map.of()),
+            new ExecutionContext(customer(600), Map.of()),
+            new ExecutionContext(customer(720), Map.of()));
+
+        // When
+        List<NodeResult> results = command.executeBatch(contexts);
+
+        // Then
+        assertThat(results).extracting(NodeResult::getResult).containsExactly(true, false, true);
+    }
+
+    @Test
+    void shouldFallBackToSingleExecutionWhenContextFactsDiffer() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(CAMPAIGN_RULE, Map.of()));
+        List<ExecutionContext> contexts = List.of(
+            new ExecutionContext(customer(750), Map.of("campaign", "SPRING-VIP")),
+            new ExecutionContext(customer(750), Map.of("campaign", "SUMMER")));
+
+        // When
+        List<NodeResult> results = command.executeBatch(contexts);
+
+        // Then
+        assertThat(results.get(0).getResult()).isEqualTo(true);
+        assertThat(results.get(1).isSuccess()).isFalse();
+    }
+
+    @Test
+    void shouldExecuteQuantifiedCustomerRulesPerCustomerInBatch() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(NO_LOW_SCORE_RULE, Map.of()));
+        List<ExecutionContext> contexts = List.of(
+            new ExecutionContext(customer(750), Map.of()),
+            new ExecutionContext(customer(600), Map.of()));
+
+        // When
+        List<NodeResult> results = command.executeBatch(contexts);
+
+        // Then
+        assertThat(results.get(0).getResult()).isEqualTo(true); // 不受同批次其他客戶影響
+        assertThat(results.get(1).isSuccess()).isFalse();
+    }
+
+    @Test
+    void shouldNotJoinCustomersAcrossBatch() {
+        // Given
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(PAIR_RULE, Map.of()));
+        List<ExecutionContext> contexts = List.of(
+            new ExecutionContext(customer(750), Map.of()),
+            new ExecutionContext(customer(600), Map.of()));
+
+        // When
+        List<NodeResult> results = command.executeBatch(contexts);
+
+        // Then
+        assertThat(results).extracting(NodeResult::isSuccess).containsExactly(false, false);
+        assertThat(results.get(0).getErrorMessage()).contains("No Drools rules were fired");
+    }
+
+    @Test
+    void shouldExecuteRulesWithoutCustomerPatternPerCustomerInBatch() {
+        // Given
+        String campaignOnlyRule = CAMPAIGN_RULE.replace("    $customer : CustomerPayload()\n", "");
+        DroolsRuleCommand command = new DroolsRuleCommand(createConfiguration(campaignOnlyRule, Map.of()));
+        Map<String, Object> sharedData = Map.of("campaign", "SPRING-VIP");
+        List<ExecutionContext> contexts = List.of(
+            new ExecutionContext(customer(750), sharedData),
+            new ExecutionContext(customer(600), sharedData));
+
+        // When
+        List<NodeResult> results = command.executeBatch(contexts);
+
+        // Then
+        assertThat(results).extracting(NodeResult::getResult).containsExactly(true, true);
+    }
+
+    @Test
+    void shouldRecordSampledRuleMetrics() {
+        // Given
+        DroolsRuleManager ruleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.PER_RULE, 1, null,
+                                                              new DroolsRuleMetrics(1.0));
+        try {
+            DroolsRuleCommand command = new DroolsRuleCommand(
+                createConfiguration(CREDIT_SCORE_RULE, Map.of(), ruleManager), ruleManager);
+
+            // When
+            command.execute(new ExecutionContext(customer(750), Map.of()));
+            command.execute(new ExecutionContext(customer(600), Map.of()));
+
+            // Then
+            List<DroolsRuleMetrics.RuleMetric> metrics = ruleManager.getStatistics().getRuleMetrics();
+            assertThat(metrics).hasSize(1);
+            assertThat(metrics.get(0).getRuleName()).isEqualTo("HighCreditScore");
+            assertThat(metrics.get(0).getMatches()).isEqualTo(2);
+            assertThat(metrics.get(0).getFires()).isEqualTo(2);
+            assertThat(metrics.get(0).getRhsNanos()).isPositive();
+        } finally {
+            ruleManager.shutdown();
+        }
+    }
+
+    @Test
+    void shouldExecutePublishedRuleContentInsteadOfNodeExpression() {
+        // Given
+        DroolsRuleManager ruleManager = CommandResources.defaults().getRuleManager();
+        String ruleName = "TestRule_" + UUID.randomUUID();
+        assertThat(ruleManager.registerRule(ruleName, CREDIT_SCORE_RULE)).isTrue();
+        NodeConfiguration stale = new NodeConfiguration("drools-node", "CONDITION", NO_LOW_SCORE_RULE, "DROOLS",
+                                                        Map.of("ruleName", ruleName), "Drools 測試節點");
+        DroolsRuleCommand command = new DroolsRuleCommand(stale);
+
+        // When
+        NodeResult beforePublish = command.execute(new ExecutionContext(customer(600), Map.of()));
+        assertThat(ruleManager.registerRule(ruleName, CREDIT_SCORE_RULE.replace("> 700", "> 500"))).isTrue();
+        NodeResult afterPublish = command.execute(new ExecutionContext(customer(600), Map.of()));
+        new DroolsRuleCommand(stale).execute(new ExecutionContext(customer(600), Map.of()));
+
+        // Then
+        assertThat(beforePublish.getResult()).isEqualTo(false);
+        assertThat(afterPublish.getResult()).isEqualTo(true);
+        assertThat(ruleManager.getRuleContent(ruleName)).contains("> 500");
+    }
+
+    @Test
+    void shouldFailNamedRuleThatIsNotPublished() {
+        // Given
+        NodeConfiguration unpublished = new NodeConfiguration("drools-node", "CONDITION", CREDIT_SCORE_RULE, "DROOLS",
+                                                              Map.of("ruleName", "TestRule_" + UUID.randomUUID()),
+                                                              "Drools 測試節點");
+        DroolsRuleCommand command = new DroolsRuleCommand(unpublished);
+
+        // When
+        NodeResult result = command.execute(new ExecutionContext(customer(750), Map.of()));
+
+        // Then
+        assertThat(result.isSuccess()).isFalse();
+        assertThat(result.getErrorMessage()).contains("Drools rule not found");
+    }
+
+    @Test
+    void shouldNotRecordMetricsForUnnamedRules() {
+        // Given
+        DroolsRuleManager ruleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.PER_RULE, 1, null,
+                                                              new DroolsRuleMetrics(1.0));
+        try {
+            NodeConfiguration unnamed = new NodeConfiguration("drools-node", "CONDITION", CREDIT_SCORE_RULE, "DROOLS",
+                                                              Map.of(), "Drools 測試節點");
+            DroolsRuleCommand command = new DroolsRuleCommand(unnamed, ruleManager);
+
+            // When
+            NodeResult result = command.execute(new ExecutionContext(customer(750), Map.of()));
+
+            // Then
+            assertThat(result.getResult()).isEqualTo(true);
+            assertThat(ruleManager.getStatistics().getRuleMetrics()).isEmpty();
+        } finally {
+            ruleManager.shutdown();
+        }
+    }
+
+    private NodeConfiguration createConfiguration(String rule, Map<String, Object> parameters) {
+        return createConfiguration(rule, parameters, CommandResources.defaults().getRuleManager());
+    }
+
+    /**
+     * 命名規則由規則管理器持有內容，須先發佈才能建立命令
+     */
+    private NodeConfiguration createConfiguration(String rule, Map<String, Object> parameters,
+                                                  DroolsRuleManager ruleManager) {
+        String ruleName = "TestRule_" + UUID.randomUUID();
+        assertThat(ruleManager.registerRule(ruleName, rule)).isTrue();
+        Map<String, Object> allParameters = new HashMap<>(parameters);
+        allParameters.put("ruleName", ruleName);
+        return new NodeConfiguration("drools-node", "CONDITION", rule, "DROOLS", allParameters, "Drools 測試節點");
+    }
+
+    private CustomerPayload customer(int creditScore) {
+        return new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), creditScore, "台北", 50);
+    }
+}
@@ -0,0 +1,226 @@
+package com.bank.promotion.command.drools;
+
+import com.bank.promotion.domain.command.drools.DroolsRuleManager;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kie.api.runtime.KieSession;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Drools 規則管理器單元測試
+ */
+class DroolsRuleManagerTest {
+
+    private DroolsRuleManager ruleManager;
+
+    @BeforeEach
+    void setUp() {
+        ruleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.SHARED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ruleManager.clearAllRules();
+        ruleManager.shutdown();
+    }
+
+    @Test
+    void shouldIsolateRulesWithSameNameInSharedKieBase() {
+        // Given
+        ruleManager.registerRule("vip-rule", rule("Tier", "VIP"));
+        ruleManager.registerRule("general-rule", rule("Tier", "GENERAL"));
+
+        // When
+        Map<String, Object> results = fire("general-rule");
+
+        // Then
+        assertThat(results).containsEntry("tier", "GENERAL").hasSize(1);
+        DroolsRuleManager.RuleStatistics statistics = ruleManager.getStatistics();
+        assertThat(statistics.getTotalRules()).isEqualTo(2);
+        assertThat(statistics.getKieBases()).isEqualTo(1);
+        assertThat(statistics.getDrlRuleCounts()).containsOnly(entry("vip-rule", 1), entry("general-rule", 1));
+        assertThat(statistics.getRuleFootprints()).isEmpty();
+        assertThat(statistics.getSharedFootprint().getReteNodes()).isPositive();
+        assertThat(statistics.getSharedFootprint().getObjectTypeNodes()).isPositive();
+        assertThat(statistics.getTotalReteNodes()).isEqualTo(statistics.getSharedFootprint().getReteNodes());
+    }
+
+    @Test
+    void shouldReportReteFootprintPerRuleContainer() {
+        // Given
+        DroolsRuleManager perRuleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.PER_RULE);
+        try {
+            perRuleManager.registerRule("vip-rule", rule("Tier", "VIP"));
+            perRuleManager.registerRule("general-rule", rule("Tier", "GENERAL"));
+
+            // When
+            DroolsRuleManager.RuleStatistics statistics = perRuleManager.getStatistics();
+
+            // Then
+            assertThat(statistics.getSharedFootprint()).isNull();
+            assertThat(statistics.getRuleFootprints()).containsOnlyKeys("vip-rule", "general-rule");
+            assertThat(statistics.getRuleFootprints().get("vip-rule").getReteNodes()).isPositive();
+            assertThat(statistics.getRuleFootprints().get("vip-rule").getNodeMemories()).isPositive();
+            assertThat(statistics.getTotalReteNodes())
+                .isEqualTo(statistics.getRuleFootprints().get("vip-rule").getReteNodes()
+                           + statistics.getRuleFootprints().get("general-rule").getReteNodes());
+        } finally {
+            perRuleManager.clearAllRules();
+            perRuleManager.shutdown();
+        }
+    }
+
+    @Test
+    void shouldReplaceRuleIncrementally() {
+        // Given
+        ruleManager.registerRule("vip-rule", rule("Tier", "VIP"));
+
+        // When
+        boolean replaced = ruleManager.registerRule("vip-rule", rule("Tier", "PLATINUM"));
+
+        // Then
+        assertThat(replaced).isTrue();
+        assertThat(fire("vip-rule")).containsEntry("tier", "PLATINUM").hasSize(1);
+    }
+
+    @Test
+    void shouldKeepBorrowedSessionOnPreviousSharedKieBaseDuringReplacement() {
+        // Given
+        ruleManager.registerRule("vip-rule", rule("Tier", "VIP"));
+        KieSession borrowed = ruleManager.borrowSession("vip-rule");
+
+        // When
+        boolean replaced = ruleManager.registerRule("vip-rule", rule("Tier", "PLATINUM"));
+        Map<String, Object> borrowedResults = new HashMap<>();
+        try {
+            borrowed.setGlobal("results", borrowedResults);
+            borrowed.insert(new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50));
+            borrowed.fireAllRules();
+        } finally {
+            ruleManager.releaseSession(borrowed);
+        }
+
+        // Then
+        assertThat(replaced).isTrue();
+        assertThat(borrowedResults).containsEntry("tier", "VIP").hasSize(1);
+        assertThat(fire("vip-rule")).containsEntry("tier", "PLATINUM").hasSize(1);
+        assertThat(ruleManager.getStatistics().getKieBases()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepPreviousRuleWhenReplacementFailsToCompile() {
+        // Given
+        ruleManager.registerRule("vip-rule", rule("Tier", "VIP"));
+
+        // When
+        boolean replaced = ruleManager.registerRule("vip-rule",
+            "rule \"Broken\"\nwhen\n    UnknownFact()\nthen\nend\n");
+
+        // Then
+        assertThat(replaced).isFalse();
+        assertThat(fire("vip-rule")).containsEntry("tier", "VIP");
+    }
+
+    @Test
+    void shouldRemoveRuleFromSharedKieBase() {
+        // Given
+        ruleManager.registerRule("vip-rule", rule("Tier", "VIP"));
+
+        // When
+        boolean removed = ruleManager.removeRule("vip-rule");
+
+        // Then
+        assertThat(removed).isTrue();
+        assertThat(ruleManager.hasRule("vip-rule")).isFalse();
+        assertThat(ruleManager.borrowSession("vip-rule")).isNull();
+    }
+
+    @Test
+    void shouldPublishLatestVersionCompiledInBackground() {
+        // Given
+        DroolsRuleManager perRuleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.PER_RULE, 2);
+
+        // When
+        DroolsRuleManager.CompileJob first = perRuleManager.submitRule("vip-rule", rule("Tier", "VIP"));
+        DroolsRuleManager.CompileJob second = perRuleManager.submitRule("vip-rule", rule("Tier", "PLATINUM"));
+        second.await();
+        first.await();
+
+        // Then
+        assertThat(second.getVersion()).isGreaterThan(first.getVersion());
+        assertThat(second.getStatus()).isEqualTo(DroolsRuleManager.CompileStatus.PUBLISHED);
+        assertThat(first.getStatus()).isIn(DroolsRuleManager.CompileStatus.PUBLISHED,
+                                           DroolsRuleManager.CompileStatus.SUPERSEDED);
+        assertThat(perRuleManager.getRuleContent("vip-rule")).isEqualTo(rule("Tier", "PLATINUM"));
+        assertThat(perRuleManager.getCompileJob("vip-rule")).isSameAs(second);
+        perRuleManager.shutdown();
+    }
+
+    @Test
+    void shouldNotPublishRuleRemovedWhileCompiling() {
+        // Given
+        DroolsRuleManager perRuleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.PER_RULE, 1);
+        DroolsRuleManager.CompileJob job = perRuleManager.submitRule("vip-rule", rule("Tier", "VIP"));
+
+        // When
+        perRuleManager.removeRule("vip-rule");
+        job.await();
+
+        // Then
+        assertThat(perRuleManager.hasRule("vip-rule")).isFalse();
+        perRuleManager.shutdown();
+    }
+
+    @Test
+    void shouldFailQueuedJobsOnShutdown() {
+        // Given
+        DroolsRuleManager perRuleManager = new DroolsRuleManager(DroolsRuleManager.KieBaseMode.PER_RULE, 1);
+        List<DroolsRuleManager.CompileJob> jobs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            jobs.add(perRuleManager.submitRule("rule-" + i, rule("Tier", "T" + i)));
+        }
+
+        // When
+        perRuleManager.shutdown();
+
+        // Then
+        for (DroolsRuleManager.CompileJob job : jobs) {
+            assertThat(job.await(Duration.ofSeconds(30))).isIn(DroolsRuleManager.CompileStatus.PUBLISHED,
+                                                               DroolsRuleManager.CompileStatus.FAILED);
+        }
+        assertThat(jobs.get(jobs.size() - 1).getStatus()).isEqualTo(DroolsRuleManager.CompileStatus.FAILED);
+    }
+
+    private Map<String, Object> fire(String ruleId) {
+        KieSession session = ruleManager.borrowSession(ruleId);
+        Map<String, Object> results = new HashMap<>();
+        try {
+            session.setGlobal("results", results);
+            session.insert(new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50));
+            session.fireAllRules();
+        } finally {
+            ruleManager.releaseSession(session);
+        }
+        return results;
+    }
+
+    private String rule(String name, String tier) {
+        return "rule \"" + name + "\"\n" +
+               "when\n" +
+               "    CustomerPayload()\n" +
+               "then\n" +
+               "    results.put(\"tier\", \"" + tier + "\");\n" +
+               "end\n";
+    }
+}
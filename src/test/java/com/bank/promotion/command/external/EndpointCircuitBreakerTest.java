@@ -0,0 +1,78 @@
+package com.bank.promotion.command.external;
+
+import com.bank.promotion.domain.command.external.EndpointCircuitBreaker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 外部端點斷路器單元測試
+ */
+class EndpointCircuitBreakerTest {
+
+    @Test
+    void shouldOpenWhenFailureRateExceedsThreshold() {
+        // Given
+        EndpointCircuitBreaker circuitBreaker = new EndpointCircuitBreaker("http://scoring", settings(Duration.ofMinutes(1), 0));
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.tryAcquire().complete(i % 2 == 0);
+        }
+
+        // Then
+        assertThat(circuitBreaker.getState()).isEqualTo(EndpointCircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquire()).isNull();
+        assertThat(circuitBreaker.getStatistics().getRejectedByCircuit()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCloseAfterSuccessfulHalfOpenProbes() {
+        // Given
+        EndpointCircuitBreaker circuitBreaker = new EndpointCircuitBreaker("http://scoring", settings(Duration.ZERO, 0));
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.tryAcquire().complete(false);
+        }
+
+        // When
+        EndpointCircuitBreaker.Permit firstProbe = circuitBreaker.tryAcquire();
+        EndpointCircuitBreaker.Permit secondProbe = circuitBreaker.tryAcquire();
+        EndpointCircuitBreaker.Permit beyondProbes = circuitBreaker.tryAcquire();
+        firstProbe.complete(true);
+        secondProbe.complete(true);
+
+        // Then
+        assertThat(beyondProbes).isNull();
+        assertThat(circuitBreaker.getState()).isEqualTo(EndpointCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldRejectCallsBeyondBulkheadLimit() {
+        // Given
+        EndpointCircuitBreaker circuitBreaker = new EndpointCircuitBreaker("http://scoring", settings(Duration.ZERO, 1));
+        EndpointCircuitBreaker.Permit inFlight = circuitBreaker.tryAcquire();
+
+        // When
+        EndpointCircuitBreaker.Permit rejected = circuitBreaker.tryAcquire();
+        inFlight.cancel();
+
+        // Then
+        assertThat(rejected).isNull();
+        assertThat(circuitBreaker.tryAcquire()).isNotNull();
+        assertThat(circuitBreaker.getStatistics().getRejectedByBulkhead()).isEqualTo(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(EndpointCircuitBreaker.State.CLOSED);
+    }
+
+    private EndpointCircuitBreaker.Settings settings(Duration openDuration, int maxConcurrentCalls) {
+        return EndpointCircuitBreaker.Settings.builder()
+                .slidingWindowSize(10)
+                .minimumCalls(4)
+                .failureRateThreshold(50)
+                .openDuration(openDuration)
+                .halfOpenProbes(2)
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .build();
+    }
+}
@@ -1,7 +1,12 @@
 package com.bank.promotion.command.external;
 
 import com.bank.promotion.command.mock.MockExternalSystemAdapter;
+import com.bank.promotion.domain.command.external.EndpointCircuitBreaker;
+import com.bank.promotion.domain.command.external.ExternalSystemAdapter;
+import com.bank.promotion.domain.command.external.ExternalSystemCircuitBreakers;
 import com.bank.promotion.domain.command.external.ExternalSystemCommand;
+import com.bank.promotion.domain.command.external.ExternalSystemException;
+import com.bank.promotion.domain.command.external.ExternalSystemRequest;
 import com.bank.promotion.domain.command.external.ExternalSystemResponse;
 import com.bank.promotion.domain.entity.ExecutionContext;
 import com.bank.promotion.domain.entity.NodeResult;
@@ -18,6 +23,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -206,6 +217,129 @@ class ExternalSystemCommandTest {
         assertThat(result.getResult()).isEqualTo(false); // 降級值
     }
     
+    @Test
+    void shouldFailFastWithFallbackWhileCircuitIsOpen() {
+        // Given
+        Map<String, Object> parameters = Map.of(
+                "endpoint", "http://slow-endpoint",
+                "systemType", "HTTP",
+                "enableFallback", true,
+                "fallbackConditionValue", false
+        );
+        ExternalSystemCircuitBreakers circuitBreakers = new ExternalSystemCircuitBreakers(
+                EndpointCircuitBreaker.Settings.builder()
+                        .slidingWindowSize(4)
+                        .minimumCalls(4)
+                        .failureRateThreshold(50)
+                        .build());
+        ExternalSystemCommand command = new ExternalSystemCommand(
+                createConditionConfiguration("http://slow-endpoint", parameters), mockAdapter, circuitBreakers);
+        mockAdapter.setDefaultAvailable(false);
+        for (int i = 0; i < 4; i++) {
+            command.execute(mockContext);
+        }
+        
+        // When
+        mockAdapter.setDefaultAvailable(true);
+        NodeResult result = command.execute(mockContext);
+        
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getResult()).isEqualTo(false); // 斷路器斷開時直接降級
+        EndpointCircuitBreaker.Statistics statistics = circuitBreakers.getStatistics().get(0);
+        assertThat(statistics.getState()).isEqualTo(EndpointCircuitBreaker.State.OPEN);
+        assertThat(statistics.getRejectedByCircuit()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldHoldBulkheadUntilNonBlockingCallCompletes() {
+        // Given
+        Map<String, Object> parameters = Map.of(
+                "endpoint", "http://async-endpoint",
+                "systemType", "HTTP",
+                "timeoutSeconds", 1,
+                "fallbackConditionValue", false
+        );
+        ExternalSystemCircuitBreakers circuitBreakers = new ExternalSystemCircuitBreakers(
+                EndpointCircuitBreaker.Settings.builder().maxConcurrentCalls(1).build());
+        CompletableFuture<ExternalSystemResponse> pending = new CompletableFuture<>();
+        ExternalSystemCommand command = new ExternalSystemCommand(
+                createConditionConfiguration("http://async-endpoint", parameters), nonBlockingAdapter(pending),
+                circuitBreakers);
+        
+        // When
+        NodeResult timedOut = command.execute(mockContext);
+        int inFlightAfterTimeout = circuitBreakers.getStatistics().get(0).getInFlightCalls();
+        pending.complete(ExternalSystemResponse.success().addData("conditionResult", true).build());
+        
+        // Then
+        assertThat(timedOut.getResult()).isEqualTo(false); // 逾時降級
+        assertThat(inFlightAfterTimeout).isEqualTo(1); // 下游仍在處理時不釋放隔艙額度
+        assertThat(circuitBreakers.getStatistics().get(0).getInFlightCalls()).isZero();
+        assertThat(circuitBreakers.getStatistics().get(0).getSuccessfulCalls()).isEqualTo(1);
+    }
+    
+    @Test
+    void shouldNotCoalesceNodesRunningDifferentQueriesOnSameEndpoint() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExternalSystemAdapter adapter = blockingAdapter(started, release);
+        ExternalSystemCommand vipQuery = databaseCommand("SELECT vip FROM customer_tier WHERE id = ?", adapter);
+        ExternalSystemCommand riskQuery = databaseCommand("SELECT risk FROM customer_risk WHERE id = ?", adapter);
+        
+        // When / Then
+        assertThat(startedConcurrently(vipQuery, riskQuery, started, release)).isTrue(); // 查詢模板不同不合併
+    }
+    
+    @Test
+    void shouldNotCoalesceHttpPostUnlessEnabled() throws Exception {
+        // Given
+        Map<String, Object> parameters = Map.of(
+                "endpoint", "http://post-endpoint",
+                "systemType", "HTTP",
+                "httpMethod", "POST"
+        );
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExternalSystemAdapter adapter = blockingAdapter(started, release);
+        ExternalSystemCommand first = new ExternalSystemCommand(
+                createConditionConfiguration("http://post-endpoint", parameters), adapter);
+        ExternalSystemCommand second = new ExternalSystemCommand(
+                createConditionConfiguration("http://post-endpoint", parameters), adapter);
+        
+        // When / Then
+        assertThat(startedConcurrently(first, second, started, release)).isTrue(); // 非 GET 呼叫預設不合併
+    }
+    
+    @Test
+    void shouldServeCachedResponseForSameKeyParameters() {
+        // Given
+        Map<String, Object> parameters = Map.of(
+                "endpoint", "http://cached-endpoint",
+                "systemType", "HTTP",
+                "responseCacheEnabled", true,
+                "responseCacheKeys", "customerId"
+        );
+        ExternalSystemCommand command = new ExternalSystemCommand(
+                createConditionConfiguration("http://cached-endpoint", parameters), mockAdapter,
+                new ExternalSystemCircuitBreakers(null));
+        mockAdapter.configureMockResponse("http://cached-endpoint",
+                MockExternalSystemAdapter.createMockSuccessResponse(Map.of("conditionResult", true)));
+        command.execute(mockContext);
+        
+        // When
+        mockAdapter.configureMockResponse("http://cached-endpoint",
+                MockExternalSystemAdapter.createMockSuccessResponse(Map.of("conditionResult", false)));
+        NodeResult cached = command.execute(mockContext);
+        when(mockCustomer.getCustomerId()).thenReturn("CUST002");
+        NodeResult otherCustomer = command.execute(mockContext);
+        
+        // Then
+        assertThat(cached.getResult()).isEqualTo(true); // 同一客戶於 TTL 內不再呼叫外部系統
+        assertThat(otherCustomer.getResult()).isEqualTo(false);
+    }
+    
     @Test
     void shouldUseFallbackForCalculationCommand() {
         // Given
@@ -355,6 +489,95 @@ class ExternalSystemCommandTest {
                 .isInstanceOf(IllegalArgumentException.class);
     }
     
+    /**
+     * 建立同一資料庫端點、指定查詢模板的命令
+     */
+    private ExternalSystemCommand databaseCommand(String queryTemplate, ExternalSystemAdapter adapter) {
+        Map<String, Object> parameters = Map.of(
+                "endpoint", "jdbc:postgresql://customer-db/promotion",
+                "systemType", "DATABASE",
+                "queryTemplate", queryTemplate
+        );
+        return new ExternalSystemCommand(
+                createConditionConfiguration("jdbc:postgresql://customer-db/promotion", parameters), adapter);
+    }
+    
+    /**
+     * 兩個命令並行執行時，兩者是否都呼叫了外部系統
+     */
+    private boolean startedConcurrently(ExternalSystemCommand first, ExternalSystemCommand second,
+                                        CountDownLatch started, CountDownLatch release) throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<NodeResult> firstResult = callers.submit(() -> first.execute(mockContext));
+            Future<NodeResult> secondResult = callers.submit(() -> second.execute(mockContext));
+            boolean bothCalled = started.await(5, TimeUnit.SECONDS);
+            release.countDown();
+            assertThat(firstResult.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+            assertThat(secondResult.get(5, TimeUnit.SECONDS).isSuccess()).isTrue();
+            return bothCalled;
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+    
+    /**
+     * 建立阻塞適配器，呼叫開始時通知並等待放行
+     */
+    private static ExternalSystemAdapter blockingAdapter(CountDownLatch started, CountDownLatch release) {
+        return new MockExternalSystemAdapter() {
+            @Override
+            public ExternalSystemResponse call(ExternalSystemRequest request, long timeout, TimeUnit timeUnit)
+                    throws ExternalSystemException {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.call(request, timeout, timeUnit);
+            }
+        };
+    }
+    
+    /**
+     * 建立非阻塞適配器，同步呼叫不應被使用
+     */
+    private static ExternalSystemAdapter nonBlockingAdapter(CompletableFuture<ExternalSystemResponse> response) {
+        return new ExternalSystemAdapter() {
+            @Override
+            public ExternalSystemResponse call(ExternalSystemRequest request, long timeout, TimeUnit timeUnit) {
+                throw new AssertionError("Non-blocking adapter should be called asynchronously");
+            }
+            
+            @Override
+            public CompletableFuture<ExternalSystemResponse> callAsync(ExternalSystemRequest request, long timeout,
+                                                                       TimeUnit timeUnit) {
+                return response;
+            }
+            
+            @Override
+            public boolean isNonBlocking() {
+                return true;
+            }
+            
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+            
+            @Override
+            public String getAdapterType() {
+                return "HTTP";
+            }
+            
+            @Override
+            public void close() {
+            }
+        };
+    }
+    
     /**
      * 建立條件命令配置
      */
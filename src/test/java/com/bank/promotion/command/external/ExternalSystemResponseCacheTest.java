@@ -0,0 +1,180 @@
+package com.bank.promotion.command.external;
+
+import com.bank.promotion.domain.command.external.ExternalSystemRequest;
+import com.bank.promotion.domain.command.external.ExternalSystemResponse;
+import com.bank.promotion.domain.command.external.ExternalSystemResponseCache;
+import com.bank.promotion.domain.command.external.ExternalSystemResponseCaches;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 外部系統回應快取單元測試
+ */
+class ExternalSystemResponseCacheTest {
+
+    private ExternalSystemResponseCaches caches;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        caches = new ExternalSystemResponseCaches(1, 10);
+        calls = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        caches.shutdown();
+    }
+
+    @Test
+    void shouldCallAgainAfterTtlAndStaleWindowExpire() throws Exception {
+        // Given
+        ExternalSystemResponseCache cache = cache(Duration.ofMillis(50), Duration.ZERO, Duration.ZERO);
+        cache.get(request("CUST001"), () -> respond("score-1"));
+
+        // When
+        Thread.sleep(150);
+        ExternalSystemResponse response = cache.get(request("CUST001"), () -> respond("score-2"));
+
+        // Then
+        assertThat(response.getData("score")).isEqualTo("score-2");
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(cache.getStatistics().getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldRefreshStaleResponseOnceInBackground() throws Exception {
+        // Given
+        ExternalSystemResponseCache cache = cache(Duration.ofMillis(50), Duration.ofSeconds(30), Duration.ZERO);
+        cache.get(request("CUST001"), () -> respond("score-1"));
+        Thread.sleep(150);
+        CountDownLatch release = new CountDownLatch(1);
+        ExternalSystemResponseCache.Loader slowRefresh = () -> {
+            release.await(5, TimeUnit.SECONDS);
+            return respond("score-2");
+        };
+
+        // When
+        ExternalSystemResponse first = cache.get(request("CUST001"), slowRefresh);
+        ExternalSystemResponse second = cache.get(request("CUST001"), slowRefresh);
+        release.countDown();
+        awaitRefreshes(cache, 1);
+
+        // Then
+        assertThat(first.getData("score")).isEqualTo("score-1"); // 寬限期內返回舊回應
+        assertThat(second.getData("score")).isEqualTo("score-1");
+        assertThat(calls.get()).isEqualTo(2); // 同一鍵值只有一個背景更新
+        assertThat(cache.getStatistics().getStaleHits()).isEqualTo(2);
+        assertThat(cache.get(request("CUST001"), () -> respond("score-3")).getData("score")).isEqualTo("score-2");
+    }
+
+    @Test
+    void shouldCallAgainAfterNegativeTtlExpires() throws Exception {
+        // Given
+        ExternalSystemResponseCache cache = cache(Duration.ofSeconds(30), Duration.ZERO, Duration.ofMillis(50));
+        cache.get(request("CUST001"), this::fail);
+
+        // When
+        ExternalSystemResponse cachedError = cache.get(request("CUST001"), () -> respond("score-1"));
+        Thread.sleep(150);
+        ExternalSystemResponse recovered = cache.get(request("CUST001"), () -> respond("score-1"));
+
+        // Then
+        assertThat(cachedError.isSuccess()).isFalse();
+        assertThat(recovered.getData("score")).isEqualTo("score-1");
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(cache.getStatistics().getNegativeHits()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeyOnConfiguredParametersOnly() throws Exception {
+        // Given
+        ExternalSystemResponseCache cache = cache(Duration.ofSeconds(30), Duration.ZERO, Duration.ZERO);
+        cache.get(request("CUST001", "2024-01-01"), () -> respond("score-1"));
+
+        // When
+        ExternalSystemResponse otherDate = cache.get(request("CUST001", "2024-06-30"), () -> respond("score-2"));
+        ExternalSystemResponse noCustomer = cache.get(request(null, "2024-06-30"), () -> respond("anonymous-1"));
+        ExternalSystemResponse noCustomerAgain = cache.get(request(null, "2024-06-30"), () -> respond("anonymous-2"));
+
+        // Then
+        assertThat(otherDate.getData("score")).isEqualTo("score-1"); // 非鍵值參數不影響命中
+        assertThat(noCustomer.getData("score")).isEqualTo("anonymous-1");
+        assertThat(noCustomerAgain.getData("score")).isEqualTo("anonymous-2"); // 缺少鍵值參數時不使用快取
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.getStatistics().getUncachedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepCachesUntilReconfiguredOrRetired() {
+        // Given
+        List<String> retired = new ArrayList<>();
+        caches.addListener(created -> { }, cache -> retired.add(cache.getName()));
+        ExternalSystemResponseCache original = cache(Duration.ofSeconds(30), Duration.ZERO, Duration.ZERO);
+
+        // When
+        ExternalSystemResponseCache rebuilt = cache(Duration.ofSeconds(30), Duration.ZERO, Duration.ZERO);
+        ExternalSystemResponseCache reconfigured = cache(Duration.ofSeconds(60), Duration.ZERO, Duration.ZERO);
+        int retiredNodes = caches.retireNodes(List.of("credit-node"));
+
+        // Then
+        assertThat(rebuilt).isSameAs(original); // 設定相同時沿用同一快取
+        assertThat(reconfigured).isNotSameAs(original);
+        assertThat(retiredNodes).isEqualTo(1);
+        assertThat(retired).containsExactly("credit-node@http://credit", "credit-node@http://credit");
+        assertThat(caches.getStatistics()).isEmpty();
+    }
+
+    @Test
+    void shouldRequireKeyParameters() {
+        assertThatThrownBy(() -> new ExternalSystemResponseCache.Settings(
+            List.of(), Duration.ofSeconds(30), Duration.ZERO, Duration.ZERO, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ExternalSystemResponseCache cache(Duration ttl, Duration stale, Duration negativeTtl) {
+        return caches.forNode("credit-node", "http://credit",
+                              new ExternalSystemResponseCache.Settings(List.of("customerId"), ttl, stale,
+                                                                      negativeTtl, 100));
+    }
+
+    private ExternalSystemResponse respond(String score) {
+        calls.incrementAndGet();
+        return ExternalSystemResponse.success().addData("score", score).build();
+    }
+
+    private ExternalSystemResponse fail() {
+        calls.incrementAndGet();
+        return ExternalSystemResponse.failure("credit bureau unavailable").build();
+    }
+
+    private static void awaitRefreshes(ExternalSystemResponseCache cache, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cache.getStatistics().getRefreshes() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static ExternalSystemRequest request(String customerId) {
+        return request(customerId, "2024-01-01");
+    }
+
+    private static ExternalSystemRequest request(String customerId, String asOfDate) {
+        ExternalSystemRequest.Builder builder = ExternalSystemRequest.builder().addParameter("asOfDate", asOfDate);
+        if (customerId != null) {
+            builder.addParameter("customerId", customerId);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.bank.promotion.command.external;
+
+import com.bank.promotion.domain.command.external.ExternalSystemBatchers;
+import com.bank.promotion.domain.command.external.ExternalSystemRequest;
+import com.bank.promotion.domain.command.external.ExternalSystemResponse;
+import com.bank.promotion.domain.command.external.HttpBatchExternalSystemAdapter;
+import com.bank.promotion.domain.command.external.HttpClientRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTTP 批次外部系統適配器單元測試
+ */
+class HttpBatchExternalSystemAdapterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger bulkRequests = new AtomicInteger();
+    private HttpServer server;
+    private String baseUrl;
+    private ExternalSystemBatchers batchers;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bulk-score", exchange -> {
+            bulkRequests.incrementAndGet();
+            Map<?, ?> body;
+            try (InputStream input = exchange.getRequestBody()) {
+                body = objectMapper.readValue(input, Map.class);
+            }
+            // 下游以相反順序回應，需依對應欄位分派
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (Object item : (List<?>) body.get("customers")) {
+                Object customerId = ((Map<?, ?>) item).get("customerId");
+                if (customerId == null) {
+                    continue;
+                }
+                items.add(Map.of("customerId", customerId, "score", "CUST001".equals(customerId) ? 780 : 620));
+            }
+            Collections.reverse(items);
+            byte[] response = objectMapper.writeValueAsBytes(Map.of("scores", items));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(response);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        batchers = new ExternalSystemBatchers(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchers.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldSendOneBulkRequestAndMatchItemsByCorrelationKey() throws Exception {
+        // Given
+        HttpBatchExternalSystemAdapter adapter = adapter("score-node");
+
+        // When
+        CompletableFuture<ExternalSystemResponse> first = adapter.callAsync(request("CUST001"), 5, TimeUnit.SECONDS);
+        CompletableFuture<ExternalSystemResponse> second = adapter.callAsync(request("CUST002"), 5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS).getData()).containsEntry("score", 780);
+        assertThat(second.get(5, TimeUnit.SECONDS).getData()).containsEntry("score", 620);
+        assertThat(bulkRequests.get()).isEqualTo(1);
+        assertThat(adapter.getBatchStatistics().getBatchedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldFailOnlyTheRequestMissingCorrelationKey() throws Exception {
+        // Given
+        HttpBatchExternalSystemAdapter adapter = adapter("score-node");
+
+        // When
+        CompletableFuture<ExternalSystemResponse> first = adapter.callAsync(request("CUST001"), 5, TimeUnit.SECONDS);
+        CompletableFuture<ExternalSystemResponse> missing = adapter.callAsync(
+            ExternalSystemRequest.builder().addParameter("asOfDate", "2024-01-01").build(), 5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(first.get(5, TimeUnit.SECONDS).getData()).containsEntry("score", 780);
+        ExternalSystemResponse response = missing.get(5, TimeUnit.SECONDS);
+        assertThat(response.isSuccess()).isFalse();
+        assertThat(response.getErrorMessage()).contains("customerId");
+        assertThat(bulkRequests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRetireBatcherWhenNoNodeUsesIt() {
+        // Given
+        List<String> retired = new ArrayList<>();
+        batchers.addListener(created -> { }, batcher -> retired.add(batcher.getName()));
+        adapter("score-node");
+        adapter("fallback-score-node");
+
+        // When
+        int retiredByFirst = batchers.retireNodes(List.of("score-node"));
+        int retiredBySecond = batchers.retireNodes(List.of("fallback-score-node"));
+
+        // Then
+        assertThat(retiredByFirst).isZero(); // 仍有其他節點使用同一批次器
+        assertThat(retiredBySecond).isEqualTo(1);
+        assertThat(retired).containsExactly(baseUrl + "/bulk-score");
+        assertThat(batchers.getStatistics()).isEmpty();
+    }
+
+    private HttpBatchExternalSystemAdapter adapter(String nodeId) {
+        Map<String, Object> parameters = Map.of(
+            "batchEndpoint", baseUrl + "/bulk-score",
+            "batchWindowMillis", 50,
+            "batchMaxSize", 2,
+            "batchRequestField", "customers",
+            "batchResponseField", "scores",
+            "batchCorrelationKey", "customerId"
+        );
+        return new HttpBatchExternalSystemAdapter(
+            nodeId, baseUrl + "/score", parameters, new HttpClientRegistry(Duration.ofSeconds(5), 10), batchers);
+    }
+
+    private static ExternalSystemRequest request(String customerId) {
+        return ExternalSystemRequest.builder()
+            .addParameter("customerId", customerId)
+            .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.bank.promotion.command.external;
+
+import com.bank.promotion.domain.command.external.ExternalSystemRequest;
+import com.bank.promotion.domain.command.external.ExternalSystemResponse;
+import com.bank.promotion.domain.command.external.HttpClientRegistry;
+import com.bank.promotion.domain.command.external.HttpExternalSystemAdapter;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HTTP 用戶端註冊表單元測試
+ */
+class HttpClientRegistryTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "{\"conditionResult\":true}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldShareClientPerAuthority() {
+        // Given
+        HttpClientRegistry registry = new HttpClientRegistry(Duration.ofSeconds(5), 10);
+
+        // When
+        HttpClientRegistry.EndpointClient scoring = registry.clientFor(URI.create(baseUrl + "/scoring"));
+        HttpClientRegistry.EndpointClient limits = registry.clientFor(URI.create(baseUrl + "/limits?tier=VIP"));
+        HttpClientRegistry.EndpointClient other = registry.clientFor(URI.create("https://partner.example.com/offers"));
+
+        // Then
+        assertThat(limits).isSameAs(scoring);
+        assertThat(other).isNotSameAs(scoring);
+        assertThat(other.getAuthority()).isEqualTo("https://partner.example.com:443");
+        assertThat(registry.getStatistics()).hasSize(2);
+    }
+
+    @Test
+    void shouldCallAsynchronouslyThroughSharedClient() throws Exception {
+        // Given
+        HttpClientRegistry registry = new HttpClientRegistry(Duration.ofSeconds(5), 10);
+        HttpExternalSystemAdapter first = new HttpExternalSystemAdapter(baseUrl + "/scoring", Map.of(), registry);
+        HttpExternalSystemAdapter second = new HttpExternalSystemAdapter(baseUrl + "/limits", Map.of(), registry);
+        ExternalSystemRequest request = ExternalSystemRequest.builder().addParameter("customerId", "CUST001").build();
+
+        // When
+        ExternalSystemResponse asyncResponse = first.callAsync(request, 5, TimeUnit.SECONDS).get(5, TimeUnit.SECONDS);
+        ExternalSystemResponse syncResponse = second.call(request, 5, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(asyncResponse.isSuccess()).isTrue();
+        assertThat(asyncResponse.getData()).containsEntry("conditionResult", true);
+        assertThat(syncResponse.isSuccess()).isTrue();
+        HttpClientRegistry.Statistics statistics = registry.getStatistics().get(0);
+        assertThat(statistics.getCompletedRequests()).isEqualTo(2);
+        assertThat(statistics.getInFlightRequests()).isZero();
+    }
+}
@@ -0,0 +1,96 @@
+package com.bank.promotion.command.external;
+
+import com.bank.promotion.domain.command.external.ExternalSystemRequest;
+import com.bank.promotion.domain.command.external.ExternalSystemResponse;
+import com.bank.promotion.domain.command.external.MicroBatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 微批次器單元測試
+ */
+class MicroBatcherTest {
+
+    private ScheduledExecutorService scheduler;
+    private List<Integer> batchSizes;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        batchSizes = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void shouldSendFullBatchAndDemultiplexResponses() throws Exception {
+        // Given
+        MicroBatcher batcher = new MicroBatcher("http://bulk-score", 3, Duration.ofSeconds(10),
+                                                this::echoCustomerIds, scheduler);
+
+        // When
+        CompletableFuture<ExternalSystemResponse> first = batcher.submit(request("CUST001"));
+        CompletableFuture<ExternalSystemResponse> second = batcher.submit(request("CUST002"));
+        CompletableFuture<ExternalSystemResponse> third = batcher.submit(request("CUST003"));
+
+        // Then
+        assertThat(first.get(1, TimeUnit.SECONDS).getData("customerId")).isEqualTo("CUST001");
+        assertThat(second.get(1, TimeUnit.SECONDS).getData("customerId")).isEqualTo("CUST002");
+        assertThat(third.get(1, TimeUnit.SECONDS).getData("customerId")).isEqualTo("CUST003");
+        assertThat(batchSizes).containsExactly(3);
+        assertThat(batcher.getStatistics().getSizeFlushes()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSendPartialBatchWhenWindowEndsAndSkipCancelledRequests() throws Exception {
+        // Given
+        MicroBatcher batcher = new MicroBatcher("http://bulk-score", 200, Duration.ofMillis(20),
+                                                this::echoCustomerIds, scheduler);
+
+        // When
+        CompletableFuture<ExternalSystemResponse> first = batcher.submit(request("CUST001"));
+        CompletableFuture<ExternalSystemResponse> cancelled = batcher.submit(request("CUST002"));
+        CompletableFuture<ExternalSystemResponse> third = batcher.submit(request("CUST003"));
+        cancelled.cancel(false);
+
+        // Then
+        assertThat(first.get(1, TimeUnit.SECONDS).getData("customerId")).isEqualTo("CUST001");
+        assertThat(third.get(1, TimeUnit.SECONDS).getData("customerId")).isEqualTo("CUST003");
+        assertThat(batchSizes).containsExactly(2);
+        MicroBatcher.Statistics statistics = batcher.getStatistics();
+        assertThat(statistics.getWindowFlushes()).isEqualTo(1);
+        assertThat(statistics.getAbandonedRequests()).isEqualTo(1);
+    }
+
+    private CompletableFuture<List<ExternalSystemResponse>> echoCustomerIds(List<ExternalSystemRequest> requests) {
+        batchSizes.add(requests.size());
+        List<ExternalSystemResponse> responses = new ArrayList<>();
+        for (ExternalSystemRequest request : requests) {
+            responses.add(ExternalSystemResponse.success()
+                .addData("customerId", request.getParameter("customerId"))
+                .build());
+        }
+        return CompletableFuture.completedFuture(responses);
+    }
+
+    private static ExternalSystemRequest request(String customerId) {
+        return ExternalSystemRequest.builder()
+            .addParameter("customerId", customerId)
+            .build();
+    }
+}
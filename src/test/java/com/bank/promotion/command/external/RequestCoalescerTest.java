@@ -0,0 +1,107 @@
+package com.bank.promotion.command.external;
+
+import com.bank.promotion.domain.command.external.ExternalSystemRequest;
+import com.bank.promotion.domain.command.external.RequestCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 進行中請求合併器單元測試
+ */
+class RequestCoalescerTest {
+
+    private RequestCoalescer coalescer;
+    private ExecutorService callers;
+    private CountDownLatch started;
+    private CountDownLatch release;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer(true);
+        callers = Executors.newFixedThreadPool(2);
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        calls = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void shouldShareOneCallAmongConcurrentIdenticalRequests() throws Exception {
+        // Given
+        Future<String> leader = callers.submit(() -> coalescer.call(
+            "HTTP http://score", request("CUST001"), blockingCall("score-1"), 5, TimeUnit.SECONDS));
+        started.await(5, TimeUnit.SECONDS);
+        Future<String> follower = callers.submit(() -> coalescer.call(
+            "HTTP http://score", request("CUST001"), blockingCall("score-2"), 5, TimeUnit.SECONDS));
+        awaitCoalescedCalls(1);
+
+        // When
+        release.countDown();
+
+        // Then
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("score-1");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("score-1");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(coalescer.call("HTTP http://score", request("CUST002"), () -> "other", 1, TimeUnit.SECONDS))
+            .isEqualTo("other"); // 參數不同不合併
+        assertThat(coalescer.getStatistics().getInFlightCalls()).isZero();
+    }
+
+    @Test
+    void shouldTimeOutWaiterWithoutCancellingInFlightCall() throws Exception {
+        // Given
+        Future<String> leader = callers.submit(() -> coalescer.call(
+            "DATABASE jdbc:test", request("CUST001"), blockingCall("score-1"), 5, TimeUnit.SECONDS));
+        started.await(5, TimeUnit.SECONDS);
+
+        // When / Then
+        assertThatThrownBy(() -> coalescer.call(
+            "DATABASE jdbc:test", request("CUST001"), blockingCall("score-2"), 50, TimeUnit.MILLISECONDS))
+            .isInstanceOf(TimeoutException.class);
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("score-1");
+        assertThat(coalescer.getStatistics().getWaiterTimeouts()).isEqualTo(1);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    private Callable<String> blockingCall(String result) {
+        return () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return result;
+        };
+    }
+
+    private void awaitCoalescedCalls(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.getStatistics().getCoalescedCalls() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static ExternalSystemRequest request(String customerId) {
+        return ExternalSystemRequest.builder()
+            .addParameter("customerId", customerId)
+            .build();
+    }
+}
@@ -157,6 +157,23 @@ class SpELConditionCommandTest {
         assertThat(result.getResult()).isEqualTo(true);
     }
     
+    @Test
+    void shouldPreferContextValueOverCustomerField() {
+        // Given
+        NodeConfiguration config = createTestConfiguration("#creditScore > 700");
+        SpELConditionCommand command = new SpELConditionCommand(config);
+        
+        when(mockCustomer.getCreditScore()).thenReturn(750);
+        when(mockContext.getContextData()).thenReturn(Map.of("creditScore", 650));
+        
+        // When
+        NodeResult result = command.execute(mockContext);
+        
+        // Then
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getResult()).isEqualTo(false);
+    }
+    
     @Test
     void shouldHandleNullCustomerPayload() {
         // Given
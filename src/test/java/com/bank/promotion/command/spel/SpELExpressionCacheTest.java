@@ -0,0 +1,150 @@
+package com.bank.promotion.command.spel;
+
+import com.bank.promotion.domain.command.spel.SpELExpressionCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SpEL 表達式快取單元測試
+ */
+class SpELExpressionCacheTest {
+
+    @Test
+    void shouldCompileAfterFirstEvaluationInImmediateMode() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(100, SpelCompilerMode.IMMEDIATE);
+        SpELExpressionCache.CachedExpression expression = cache.getCachedExpression("#creditScore > 700");
+
+        // When
+        Object first = expression.getValue(context("creditScore", 750));
+        Object second = expression.getValue(context("creditScore", 650));
+
+        // Then
+        assertThat(first).isEqualTo(true);
+        assertThat(second).isEqualTo(false);
+        assertThat(expression.isCompiled()).isTrue();
+        SpELExpressionCache.ExpressionStatistics statistics = expression.getStatistics();
+        assertThat(statistics.getEvaluations()).isEqualTo(2);
+        assertThat(statistics.getCompiledEvaluations()).isEqualTo(1);
+        assertThat(cache.getStatistics().getCompiledExpressions()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCompileOnlyAfterThresholdInMixedMode() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(100, SpelCompilerMode.MIXED);
+        SpELExpressionCache.CachedExpression expression = cache.getCachedExpression("#creditScore > 700");
+
+        // When
+        for (int i = 0; i < 99; i++) {
+            expression.getValue(context("creditScore", 750));
+        }
+        boolean compiledBeforeThreshold = expression.isCompiled();
+        expression.getValue(context("creditScore", 750));
+
+        // Then
+        assertThat(compiledBeforeThreshold).isFalse();
+        assertThat(expression.isCompiled()).isTrue();
+    }
+
+    @Test
+    void shouldFallBackToInterpretationWhenCompiledTypesChange() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(100, SpelCompilerMode.IMMEDIATE);
+        SpELExpressionCache.CachedExpression expression = cache.getCachedExpression("#value.hashCode()");
+        expression.getValue(context("value", "VIP"));
+        assertThat(expression.isCompiled()).isTrue();
+
+        // When
+        Object result = expression.getValue(context("value", 42));
+
+        // Then
+        assertThat(result).isEqualTo(42);
+        assertThat(expression.isCompiled()).isFalse();
+        assertThat(expression.getStatistics().getFallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNeverCompileWhenCompilerIsOff() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(100, SpelCompilerMode.OFF);
+        SpELExpressionCache.CachedExpression expression = cache.getCachedExpression("#creditScore > 700");
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            expression.getValue(context("creditScore", 750));
+        }
+
+        // Then
+        assertThat(expression.isCompiled()).isFalse();
+        assertThat(cache.getExpressionStatistics()).singleElement()
+            .satisfies(statistics -> assertThat(statistics.getEvaluations()).isEqualTo(200));
+    }
+
+    @Test
+    void shouldKeepPinnedExpressionsUnderEvictionPressure() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(4);
+        cache.pin("tree-1", List.of("#creditScore > 700"));
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            cache.getCachedExpression("#creditScore > " + i);
+        }
+
+        // Then
+        assertThat(cache.isPinned("#creditScore > 700")).isTrue();
+        assertThat(cache.isCached("#creditScore > 700")).isTrue();
+        SpELExpressionCache.CacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getPinnedExpressions()).isEqualTo(1);
+        assertThat(statistics.getEvictionCount()).isGreaterThan(0);
+        assertThat(statistics.getCurrentSize()).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    void shouldReturnExpressionToEvictableRegionWhenLastTreeUnpins() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(100);
+        cache.pin("tree-1", List.of("#creditScore > 700"));
+        cache.pin("tree-2", List.of("#creditScore > 700"));
+        SpELExpressionCache.CachedExpression pinned = cache.getCachedExpression("#creditScore > 700");
+
+        // When
+        cache.unpin("tree-1");
+        boolean pinnedAfterFirstUnpin = cache.isPinned("#creditScore > 700");
+        cache.unpin("tree-2");
+
+        // Then
+        assertThat(pinnedAfterFirstUnpin).isTrue();
+        assertThat(cache.isPinned("#creditScore > 700")).isFalse();
+        assertThat(cache.getCachedExpression("#creditScore > 700")).isSameAs(pinned);
+    }
+
+    @Test
+    void shouldRecordHitsAndMisses() {
+        // Given
+        SpELExpressionCache cache = new SpELExpressionCache(100);
+
+        // When
+        cache.getCachedExpression("#creditScore > 700");
+        cache.getCachedExpression("#creditScore > 700");
+        cache.getCachedExpression(" #creditScore > 700 ");
+
+        // Then
+        SpELExpressionCache.CacheStatistics statistics = cache.getStatistics();
+        assertThat(statistics.getMissCount()).isEqualTo(1);
+        assertThat(statistics.getHitCount()).isEqualTo(2);
+        assertThat(statistics.getAverageParseMillis()).isGreaterThanOrEqualTo(0.0);
+    }
+
+    private StandardEvaluationContext context(String name, Object value) {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setVariable(name, value);
+        return context;
+    }
+}
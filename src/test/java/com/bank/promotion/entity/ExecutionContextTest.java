@@ -0,0 +1,112 @@
+package com.bank.promotion.entity;
+
+import com.bank.promotion.domain.entity.ContextLayout;
+import com.bank.promotion.domain.entity.ExecutionContext;
+import com.bank.promotion.domain.valueobject.CustomerPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 執行上下文單元測試
+ */
+class ExecutionContextTest {
+    
+    private CustomerPayload customer;
+    private ContextLayout layout;
+    
+    @BeforeEach
+    void setUp() {
+        customer = new CustomerPayload("CUST001", "VIP", BigDecimal.valueOf(2000000), 750, "台北", 50);
+        layout = ContextLayout.builder().addDerivedSlot("isHighValue", Boolean.class).build();
+    }
+    
+    @Test
+    void shouldPopulateCustomerSlotsFromPayload() {
+        // When
+        ExecutionContext context = ExecutionContext.forCustomer(customer, layout);
+        
+        // Then
+        assertThat(context.get(ContextLayout.CREDIT_SCORE)).isEqualTo(750);
+        assertThat(context.getContextValue("accountType")).isEqualTo("VIP");
+        assertThat(context.getContextData()).containsEntry("region", "台北");
+        assertThat(context.getContextData()).containsKey("evaluationTime");
+    }
+    
+    @Test
+    void shouldExposeReadOnlyViewOfContextData() {
+        // Given
+        ExecutionContext context = ExecutionContext.forCustomer(customer, layout);
+        Map<String, Object> view = context.getContextData();
+        
+        // When
+        context.setContextValue("campaign", "SPRING");
+        
+        // Then
+        assertThat(view).containsEntry("campaign", "SPRING");
+        assertThatThrownBy(() -> view.put("campaign", "SUMMER"))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+    
+    @Test
+    void shouldRejectValueOfWrongTypeForFixedSlot() {
+        // Given
+        ExecutionContext context = ExecutionContext.forCustomer(customer, layout);
+        
+        // When & Then
+        assertThatThrownBy(() -> context.setContextValue("creditScore", "750"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Integer");
+    }
+    
+    @Test
+    void shouldPublishNodeScopedWritesOnlyOnCommit() {
+        // Given
+        ExecutionContext context = ExecutionContext.forCustomer(customer, layout);
+        ExecutionContext.NodeScope scope = context.openNodeScope("node-1");
+        
+        // When
+        context.setContextValue("isHighValue", true);
+        
+        // Then
+        assertThat(context.getContextValue("isHighValue")).isEqualTo(true);
+        assertThat(context.getContextData()).containsEntry("isHighValue", true); // 所有讀取方式一致
+        
+        scope.commit();
+        assertThat(context.getContextData()).containsEntry("isHighValue", true);
+    }
+    
+    @Test
+    void shouldDropNodeScopedWritesOnDiscard() {
+        // Given
+        ExecutionContext context = ExecutionContext.forCustomer(customer, layout);
+        ExecutionContext.NodeScope scope = context.openNodeScope("node-1");
+        context.setContextValue("isHighValue", true);
+        
+        // When
+        scope.discard();
+        
+        // Then
+        assertThat(context.getContextValue("isHighValue")).isNull();
+        assertThat(context.getContextData()).doesNotContainKey("isHighValue");
+        assertThat(context.hasContextValue("isHighValue")).isFalse();
+    }
+    
+    @Test
+    void shouldKeepMismatchedStandardValuesFromContextDataMap() {
+        // When
+        ExecutionContext context = new ExecutionContext(customer, Map.of("creditScore", "750", "campaign", "SPRING"));
+        
+        // Then
+        assertThat(context.getContextValue("creditScore")).isEqualTo("750");
+        assertThat(context.getContextData()).containsEntry("creditScore", "750");
+        assertThat(context.getContextData()).containsEntry("campaign", "SPRING");
+        assertThatThrownBy(() -> context.get(ContextLayout.CREDIT_SCORE))
+            .isInstanceOf(ClassCastException.class);
+    }
+}